@@ -77,21 +77,32 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
         this.graphCache = EconomicMap.create();
     }
 
-    protected GraphBuilderPhase.Instance createGraphBuilderPhaseInstance(IntrinsicContext initialIntrinsicContext) {
-        return new GraphBuilderPhase.Instance(providers.getMetaAccess(), providers.getStampProvider(), providers.getConstantReflection(), providers.getConstantFieldProvider(), graphBuilderConfig,
-                        optimisticOpts, initialIntrinsicContext);
+    protected GraphBuilderPhase.Instance createGraphBuilderPhaseInstance(Providers parsingProviders, IntrinsicContext initialIntrinsicContext) {
+        return new GraphBuilderPhase.Instance(parsingProviders.getMetaAccess(), parsingProviders.getStampProvider(), parsingProviders.getConstantReflection(),
+                        parsingProviders.getConstantFieldProvider(), graphBuilderConfig, optimisticOpts, initialIntrinsicContext);
     }
 
+    /**
+     * Parses and encodes the graph of a method. The result is not added to the cache of this
+     * decoder.
+     *
+     * @param parsingProviders the providers used for parsing and canonicalizing the graph. Graphs
+     *            that outlive the current compilation need providers that do not fold values
+     *            guarded by assumptions of the current compilation.
+     * @param graphAllowAssumptions specifies if the parser may record assumptions in the graph,
+     *            which is not the case for graphs that outlive the current compilation
+     */
     @SuppressWarnings("try")
-    private EncodedGraph createGraph(ResolvedJavaMethod method, ResolvedJavaMethod originalMethod, BytecodeProvider intrinsicBytecodeProvider) {
-        StructuredGraph graphToEncode = new StructuredGraph.Builder(options, debug, allowAssumptions).useProfilingInfo(false).trackNodeSourcePosition(
+    protected EncodedGraph createGraph(ResolvedJavaMethod method, ResolvedJavaMethod originalMethod, BytecodeProvider intrinsicBytecodeProvider, Providers parsingProviders,
+                    AllowAssumptions graphAllowAssumptions) {
+        StructuredGraph graphToEncode = new StructuredGraph.Builder(options, debug, graphAllowAssumptions).useProfilingInfo(false).trackNodeSourcePosition(
                         graphBuilderConfig.trackNodeSourcePosition()).method(method).build();
         try (DebugContext.Scope scope = debug.scope("createGraph", graphToEncode)) {
             IntrinsicContext initialIntrinsicContext = intrinsicBytecodeProvider != null ? new IntrinsicContext(originalMethod, method, intrinsicBytecodeProvider, INLINE_AFTER_PARSING) : null;
-            GraphBuilderPhase.Instance graphBuilderPhaseInstance = createGraphBuilderPhaseInstance(initialIntrinsicContext);
+            GraphBuilderPhase.Instance graphBuilderPhaseInstance = createGraphBuilderPhaseInstance(parsingProviders, initialIntrinsicContext);
             graphBuilderPhaseInstance.apply(graphToEncode);
 
-            PhaseContext context = new PhaseContext(providers);
+            PhaseContext context = new PhaseContext(parsingProviders);
             new CanonicalizerPhase().apply(graphToEncode, context);
             /*
              * ConvertDeoptimizeToGuardPhase reduces the number of merges in the graph, so that
@@ -100,10 +111,7 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
              */
             new ConvertDeoptimizeToGuardPhase().apply(graphToEncode, context);
 
-            EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graphToEncode, architecture);
-            graphCache.put(method, encodedGraph);
-            return encodedGraph;
-
+            return GraphEncoder.encodeSingleGraph(graphToEncode, architecture);
         } catch (Throwable ex) {
             throw debug.handle(ex);
         }
@@ -113,7 +121,8 @@ public class CachingPEGraphDecoder extends PEGraphDecoder {
     protected EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, ResolvedJavaMethod originalMethod, BytecodeProvider intrinsicBytecodeProvider, boolean trackNodeSourcePosition) {
         EncodedGraph result = graphCache.get(method);
         if (result == null && method.hasBytecodes()) {
-            result = createGraph(method, originalMethod, intrinsicBytecodeProvider);
+            result = createGraph(method, originalMethod, intrinsicBytecodeProvider, providers, allowAssumptions);
+            graphCache.put(method, result);
         }
         return result;
     }
@@ -64,9 +64,11 @@ public interface TruffleCompiler {
      * @param inlining a guide for Truffle level inlining to be performed during compilation
      * @param task an object that must be periodically queried during compilation to see if the
      *            compilation has been cancelled by the requestor
+     * @param firstTier specifies if this is a first-tier compilation, which should produce code
+     *            quickly rather than produce the best code
      */
     void doCompile(DebugContext debug, CompilationIdentifier compilationId, OptionValues options, CompilableTruffleAST compilable, TruffleInliningPlan inlining, Cancellable task,
-                    TruffleCompilerListener listener);
+                    TruffleCompilerListener listener, boolean firstTier);
 
     /**
      * Returns a unique name for the configuration in use by this compiler.
@@ -206,6 +206,18 @@ public class TruffleCompilerOptions {
     @Option(help = "Manually set the number of compiler threads", type = OptionType.Expert)
     public static final OptionKey<Integer> TruffleCompilerThreads = new OptionKey<>(0);
 
+    @Option(help = "Order the background compilation queue by the hotness of the call targets instead of by submission order", type = OptionType.Expert)
+    public static final OptionKey<Boolean> TruffleCompilationQueuePriority = new OptionKey<>(true);
+
+    @Option(help = "Drop a queued compilation if its call target was not called for the given number of milliseconds while it was queued (0 = never drop)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleCompilationQueueColdTimeout = new OptionKey<>(5000);
+
+    @Option(help = "Share the parsed graphs of interpreter methods between Truffle compilations", type = OptionType.Expert)
+    public static final OptionKey<Boolean> TruffleEncodedGraphCache = new OptionKey<>(true);
+
+    @Option(help = "Maximum size in kilobytes of the graphs shared between Truffle compilations (least recently used graphs are evicted first)", type = OptionType.Expert)
+    public static final OptionKey<Integer> TruffleEncodedGraphCacheCapacity = new OptionKey<>(32 * 1024);
+
     @Option(help = "Enable inlining across Truffle boundary", type = OptionType.Expert)
     public static final OptionKey<Boolean> TruffleInlineAcrossTruffleBoundary = new OptionKey<>(false);
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.compiler;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+import org.graalvm.collections.UnmodifiableMapCursor;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionValues;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * A cache of {@link EncodedGraph encoded graphs} that is shared by all compilations of a
+ * {@link PartialEvaluator}, so that the interpreter methods that are part of every Truffle
+ * compilation are parsed only once. The cache is bounded by the approximate size of the cached
+ * encodings and evicts the least recently used graphs first.
+ *
+ * Graphs are parsed for the cache without assumptions: they must stay valid for as long as they
+ * are cached and must not depend on the assumptions of the compilation that created them.
+ * Speculative optimizations are still performed during partial evaluation, where every compilation
+ * records the assumptions it depends on.
+ *
+ * Graphs are cached per option values, compared by content, because options may change how
+ * methods are parsed.
+ *
+ * Hits, misses and evictions are reported by the {@code EncodedGraphCache*} debug counters.
+ */
+final class EncodedGraphCache {
+
+    private static final CounterKey Hits = DebugContext.counter("EncodedGraphCacheHits");
+    private static final CounterKey Misses = DebugContext.counter("EncodedGraphCacheMisses");
+    private static final CounterKey Evictions = DebugContext.counter("EncodedGraphCacheEvictions");
+
+    private static final class Key {
+        final ResolvedJavaMethod method;
+        final boolean trackNodeSourcePosition;
+        final Map<OptionKey<?>, Object> options;
+
+        Key(ResolvedJavaMethod method, boolean trackNodeSourcePosition, Map<OptionKey<?>, Object> options) {
+            this.method = method;
+            this.trackNodeSourcePosition = trackNodeSourcePosition;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                /* Compilations usually share their options, so the snapshots are usually identical. */
+                return method.equals(other.method) && trackNodeSourcePosition == other.trackNodeSourcePosition && (options == other.options || options.equals(other.options));
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() * 31 + (trackNodeSourcePosition ? 1 : 0);
+        }
+    }
+
+    private final long capacity;
+    private final LinkedHashMap<Key, EncodedGraph> graphs = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<OptionValues, Map<OptionKey<?>, Object>> optionsSnapshots = new WeakHashMap<>();
+    private long size;
+
+    /**
+     * @param capacity the maximum approximate size of the cached graphs in bytes
+     */
+    EncodedGraphCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the cached graph of a method, or creates and caches it if it is not cached yet. The
+     * graph is created outside of the lock of the cache, so parallel compilations can create the
+     * same graph concurrently. In that case the first graph that is added wins.
+     */
+    EncodedGraph get(DebugContext debug, ResolvedJavaMethod method, boolean trackNodeSourcePosition, OptionValues options, Supplier<EncodedGraph> creator) {
+        Key key;
+        synchronized (this) {
+            key = new Key(method, trackNodeSourcePosition, optionsSnapshot(options));
+            EncodedGraph result = graphs.get(key);
+            if (result != null) {
+                Hits.increment(debug);
+                return result;
+            }
+            Misses.increment(debug);
+        }
+
+        EncodedGraph created = creator.get();
+        if (created == null) {
+            return null;
+        }
+        synchronized (this) {
+            EncodedGraph existing = graphs.putIfAbsent(key, created);
+            if (existing != null) {
+                return existing;
+            }
+            size += weight(created);
+            Iterator<Map.Entry<Key, EncodedGraph>> iterator = graphs.entrySet().iterator();
+            while (size > capacity && iterator.hasNext()) {
+                EncodedGraph evicted = iterator.next().getValue();
+                if (evicted == created) {
+                    /* Graphs larger than the whole cache are not cached. */
+                    continue;
+                }
+                iterator.remove();
+                size -= weight(evicted);
+                Evictions.increment(debug);
+            }
+            if (size > capacity) {
+                graphs.remove(key);
+                size -= weight(created);
+            }
+            return created;
+        }
+    }
+
+    /**
+     * Removes all graphs from the cache, e.g., because the bytecodes of cached methods may have
+     * been redefined.
+     */
+    synchronized void purge() {
+        graphs.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the explicitly set values of {@code options}. The snapshot is computed once per
+     * options instance.
+     */
+    private Map<OptionKey<?>, Object> optionsSnapshot(OptionValues options) {
+        assert Thread.holdsLock(this);
+        Map<OptionKey<?>, Object> snapshot = optionsSnapshots.get(options);
+        if (snapshot == null) {
+            snapshot = new HashMap<>();
+            UnmodifiableMapCursor<OptionKey<?>, Object> cursor = options.getMap().getEntries();
+            while (cursor.advance()) {
+                snapshot.put(cursor.getKey(), cursor.getValue());
+            }
+            optionsSnapshots.put(options, snapshot);
+        }
+        return snapshot;
+    }
+
+    private static long weight(EncodedGraph graph) {
+        /* The encoding and the object table dominate the size of an encoded graph. */
+        return graph.getEncoding().length + 8L * graph.getObjects().length;
+    }
+}
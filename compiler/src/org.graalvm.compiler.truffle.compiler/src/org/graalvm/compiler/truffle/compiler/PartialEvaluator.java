@@ -28,6 +28,8 @@ import static org.graalvm.compiler.nodes.graphbuilderconf.InlineInvokePlugin.Inl
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.PrintTruffleExpansionHistogram;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TraceTrufflePerformanceWarnings;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TraceTruffleStackTraceLimit;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleEncodedGraphCache;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleEncodedGraphCacheCapacity;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleFunctionInlining;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleInlineAcrossTruffleBoundary;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleInstrumentBoundaries;
@@ -49,7 +51,9 @@ import org.graalvm.collections.EconomicMap;
 import org.graalvm.collections.Equivalence;
 import org.graalvm.collections.MapCursor;
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
+import org.graalvm.compiler.bytecode.BytecodeProvider;
 import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.core.common.RetryableBailoutException;
 import org.graalvm.compiler.core.common.type.StampPair;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.debug.GraalError;
@@ -60,6 +64,7 @@ import org.graalvm.compiler.graph.SourceLanguagePositionProvider;
 import org.graalvm.compiler.java.ComputeLoopFrequenciesClosure;
 import org.graalvm.compiler.nodes.Cancellable;
 import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.EncodedGraph;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
 import org.graalvm.compiler.nodes.ValueNode;
@@ -137,6 +142,8 @@ public abstract class PartialEvaluator {
     private final InvocationPlugins decodingInvocationPlugins;
     private final NodePlugin[] nodePlugins;
     private final KnownTruffleTypes knownTruffleTypes;
+    /** The graphs of interpreter methods shared by all compilations, or {@code null}. */
+    private final EncodedGraphCache encodedGraphCache;
 
     /**
      * The instrumentation object is used by the Truffle instrumentation to count executions. The
@@ -169,6 +176,18 @@ public abstract class PartialEvaluator {
         this.configForParsing = createGraphBuilderConfig(configForRoot, true);
         this.decodingInvocationPlugins = createDecodingInvocationPlugins(configForRoot.getPlugins());
         this.nodePlugins = createNodePlugins(configForRoot.getPlugins());
+        this.encodedGraphCache = TruffleCompilerOptions.getValue(TruffleEncodedGraphCache) ? new EncodedGraphCache(TruffleCompilerOptions.getValue(TruffleEncodedGraphCacheCapacity) * 1024L)
+                        : null;
+    }
+
+    /**
+     * Removes all graphs that are shared between compilations. This is necessary if the bytecodes
+     * of methods that are part of Truffle compilations can have changed.
+     */
+    public void purgeEncodedGraphCache() {
+        if (encodedGraphCache != null) {
+            encodedGraphCache.purge();
+        }
     }
 
     /**
@@ -224,16 +243,18 @@ public abstract class PartialEvaluator {
         String name = compilable.toString();
         OptionValues options = TruffleCompilerOptions.getOptions();
         ResolvedJavaMethod rootMethod = rootForCallTarget(compilable);
+        TruffleCompilationCancellable cancellation = new TruffleCompilationCancellable(cancellable, providers.getConstantReflection(), knownTruffleTypes.fieldOptimizedAssumptionIsValid);
         // @formatter:off
         StructuredGraph.Builder builder = new StructuredGraph.Builder(options, debug, allowAssumptions).
                         name(name).
                         method(rootMethod).
                         speculationLog(log).
                         compilationId(compilationId).
-                        cancellable(cancellable);
+                        cancellable(cancellation);
         // @formatter:on
         builder = customizeStructuredGraphBuilder(builder);
         final StructuredGraph graph = builder.build();
+        cancellation.setGraph(graph);
 
         try (DebugContext.Scope s = debug.scope("CreateGraph", graph);
                         Indent indent = debug.logAndIndent("createGraph %s", graph);) {
@@ -243,9 +264,12 @@ public abstract class PartialEvaluator {
 
             fastPartialEvaluation(compilable, inliningPlan, graph, baseContext, tierContext);
 
-            if (cancellable != null && cancellable.isCancelled()) {
+            if (cancellation.isTaskCancelled()) {
                 return null;
             }
+            if (cancellation.checkAssumptions()) {
+                throw new RetryableBailoutException("Assumption invalidated while compiling code: %s", cancellation.getInvalidatedAssumption());
+            }
 
             new VerifyFrameDoesNotEscapePhase().apply(graph, false);
             postPartialEvaluation(graph);
@@ -322,6 +346,8 @@ public abstract class PartialEvaluator {
                     TruffleInliningPlan.Decision decision = getDecision(inlining.peek(), lastDirectCallNode);
                     lastDirectCallNode = null;
                     if (decision != null && decision.shouldInline()) {
+                        /* Partial evaluation of a large tree of call targets should stop early. */
+                        builder.getGraph().checkCancellation();
                         inlining.push(decision);
                         JavaConstant assumption = decision.getNodeRewritingAssumption();
                         builder.getAssumptions().record(new TruffleAssumption(assumption));
@@ -437,11 +463,52 @@ public abstract class PartialEvaluator {
             plugins.appendInlineInvokePlugin(new InlineDuringParsingPlugin());
         }
 
-        Providers compilationUnitProviders = providers.copyWith(new TruffleConstantFieldProvider(providers.getConstantFieldProvider(), providers.getMetaAccess()));
+        Providers compilationUnitProviders = providers.copyWith(new TruffleConstantFieldProvider(providers.getConstantFieldProvider(), providers.getMetaAccess(), providers.getConstantReflection(),
+                        knownTruffleTypes, graph.getAssumptions()));
+        if (encodedGraphCache != null) {
+            /* Cached graphs must not fold values guarded by assumptions of this compilation. */
+            Providers sharedGraphProviders = providers.copyWith(new TruffleConstantFieldProvider(providers.getConstantFieldProvider(), providers.getMetaAccess(),
+                            providers.getConstantReflection(), knownTruffleTypes, null));
+            return new SharedCachingPEGraphDecoder(architecture, graph, compilationUnitProviders, newConfig, TruffleCompilerImpl.Optimizations, AllowAssumptions.ifNonNull(graph.getAssumptions()),
+                            loopExplosionPlugin, decodingInvocationPlugins, inlineInvokePlugins, parameterPlugin, nodePluginList, callInlined, sourceLanguagePositionProvider,
+                            encodedGraphCache, sharedGraphProviders);
+        }
         return new CachingPEGraphDecoder(architecture, graph, compilationUnitProviders, newConfig, TruffleCompilerImpl.Optimizations, AllowAssumptions.ifNonNull(graph.getAssumptions()),
                         loopExplosionPlugin, decodingInvocationPlugins, inlineInvokePlugins, parameterPlugin, nodePluginList, callInlined, sourceLanguagePositionProvider);
     }
 
+    /**
+     * A graph decoder that takes the graphs of methods from the {@link EncodedGraphCache} of the
+     * partial evaluator. Only method substitutions, which depend on the call site, are parsed and
+     * cached per compilation. Shared graphs are parsed without assumptions and with providers that
+     * do not fold values guarded by assumptions, so that every compilation that decodes them
+     * records the assumptions it depends on itself.
+     */
+    private static final class SharedCachingPEGraphDecoder extends CachingPEGraphDecoder {
+
+        private final EncodedGraphCache encodedGraphCache;
+        private final Providers sharedGraphProviders;
+
+        SharedCachingPEGraphDecoder(Architecture architecture, StructuredGraph graph, Providers providers, GraphBuilderConfiguration graphBuilderConfig, OptimisticOptimizations optimisticOpts,
+                        AllowAssumptions allowAssumptions, LoopExplosionPlugin loopExplosionPlugin, InvocationPlugins invocationPlugins, InlineInvokePlugin[] inlineInvokePlugins,
+                        ParameterPlugin parameterPlugin, NodePlugin[] nodePlugins, ResolvedJavaMethod callInlinedMethod, SourceLanguagePositionProvider sourceLanguagePositionProvider,
+                        EncodedGraphCache encodedGraphCache, Providers sharedGraphProviders) {
+            super(architecture, graph, providers, graphBuilderConfig, optimisticOpts, allowAssumptions, loopExplosionPlugin, invocationPlugins, inlineInvokePlugins, parameterPlugin, nodePlugins,
+                            callInlinedMethod, sourceLanguagePositionProvider);
+            this.encodedGraphCache = encodedGraphCache;
+            this.sharedGraphProviders = sharedGraphProviders;
+        }
+
+        @Override
+        protected EncodedGraph lookupEncodedGraph(ResolvedJavaMethod method, ResolvedJavaMethod originalMethod, BytecodeProvider intrinsicBytecodeProvider, boolean trackNodeSourcePosition) {
+            if (intrinsicBytecodeProvider != null || !method.hasBytecodes()) {
+                return super.lookupEncodedGraph(method, originalMethod, intrinsicBytecodeProvider, trackNodeSourcePosition);
+            }
+            return encodedGraphCache.get(debug, method, graphBuilderConfig.trackNodeSourcePosition(), options,
+                            () -> createGraph(method, originalMethod, null, sharedGraphProviders, AllowAssumptions.NO));
+        }
+    }
+
     protected void doGraphPE(CompilableTruffleAST compilable, StructuredGraph graph, HighTierContext tierContext, TruffleInliningPlan inliningDecision) {
         LoopExplosionPlugin loopExplosionPlugin = new PELoopExplosionPlugin();
         ParameterPlugin parameterPlugin = new InterceptReceiverPlugin(compilable);
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.compiler;
+
+import org.graalvm.compiler.nodes.Cancellable;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.truffle.compiler.nodes.TruffleAssumption;
+
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.Assumptions.Assumption;
+import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.ResolvedJavaField;
+
+/**
+ * Cancels a Truffle compilation if its compile task is cancelled or if one of the Truffle
+ * assumptions recorded in its graph is invalidated. Otherwise a compilation whose assumption was
+ * invalidated, e.g., by a node rewrite of an inlined call target, runs to the end and only fails
+ * when its code is installed.
+ *
+ * The compiler polls {@link #isCancelled()} before every phase. Reading the assumptions is more
+ * expensive, so they are checked at most once per {@link #ASSUMPTION_CHECK_INTERVAL}.
+ */
+final class TruffleCompilationCancellable implements Cancellable {
+
+    private static final long ASSUMPTION_CHECK_INTERVAL = 10_000_000L;
+
+    private final Cancellable task;
+    private final ConstantReflectionProvider constantReflection;
+    private final ResolvedJavaField assumptionIsValidField;
+    private StructuredGraph graph;
+    private long lastAssumptionCheck;
+    private Assumption invalidatedAssumption;
+
+    /**
+     * @param task the compile task, or {@code null} if the compilation cannot be cancelled
+     */
+    TruffleCompilationCancellable(Cancellable task, ConstantReflectionProvider constantReflection, ResolvedJavaField assumptionIsValidField) {
+        this.task = task;
+        this.constantReflection = constantReflection;
+        this.assumptionIsValidField = assumptionIsValidField;
+        this.lastAssumptionCheck = System.nanoTime();
+    }
+
+    /**
+     * Sets the graph whose assumptions are checked. Must be called right after the graph was
+     * created with this cancellable.
+     */
+    void setGraph(StructuredGraph graph) {
+        assert graph.getCancellable() == this;
+        this.graph = graph;
+    }
+
+    boolean isTaskCancelled() {
+        return task != null && task.isCancelled();
+    }
+
+    /**
+     * Returns the Truffle assumption of the graph that was found invalidated, or {@code null}.
+     */
+    Assumption getInvalidatedAssumption() {
+        return invalidatedAssumption;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        if (isTaskCancelled()) {
+            return true;
+        }
+        if (invalidatedAssumption != null) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (now - lastAssumptionCheck < ASSUMPTION_CHECK_INTERVAL) {
+            return false;
+        }
+        lastAssumptionCheck = now;
+        return checkAssumptions();
+    }
+
+    /**
+     * Checks all Truffle assumptions recorded in the graph so far.
+     *
+     * @return {@code true} if one of them is invalid
+     */
+    boolean checkAssumptions() {
+        Assumptions assumptions = graph != null ? graph.getAssumptions() : null;
+        if (assumptions == null) {
+            return false;
+        }
+        for (Assumption assumption : assumptions) {
+            if (assumption instanceof TruffleAssumption) {
+                JavaConstant isValid = constantReflection.readFieldValue(assumptionIsValidField, ((TruffleAssumption) assumption).getAssumption());
+                if (isValid != null && !isValid.asBoolean()) {
+                    invalidatedAssumption = assumption;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -69,6 +69,10 @@ import org.graalvm.compiler.debug.MemUseTrackerKey;
 import org.graalvm.compiler.debug.TimerKey;
 import org.graalvm.compiler.lir.asm.CompilationResultBuilderFactory;
 import org.graalvm.compiler.lir.phases.LIRSuites;
+import org.graalvm.compiler.loop.phases.LoopFullUnrollPhase;
+import org.graalvm.compiler.loop.phases.LoopPartialUnrollPhase;
+import org.graalvm.compiler.loop.phases.LoopPeelingPhase;
+import org.graalvm.compiler.loop.phases.LoopUnswitchingPhase;
 import org.graalvm.compiler.nodes.Cancellable;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
@@ -92,6 +96,7 @@ import org.graalvm.compiler.truffle.common.TruffleDebugJavaMethod;
 import org.graalvm.compiler.truffle.common.TruffleInliningPlan;
 import org.graalvm.compiler.truffle.compiler.nodes.TruffleAssumption;
 import org.graalvm.compiler.truffle.compiler.phases.InstrumentPhase;
+import org.graalvm.compiler.virtual.phases.ea.PartialEscapePhase;
 
 import jdk.vm.ci.code.BailoutException;
 import jdk.vm.ci.code.CompilationRequest;
@@ -114,6 +119,8 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
 
     protected final Providers providers;
     protected final Suites suites;
+    /** The {@link #suites} without the optional loop and escape analysis optimizations. */
+    protected final Suites firstTierSuites;
     protected final GraphBuilderConfiguration config;
     protected final LIRSuites lirSuites;
     protected final PartialEvaluator partialEvaluator;
@@ -132,6 +139,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         this.snippetReflection = snippetReflection;
         this.providers = backend.getProviders();
         this.suites = suites;
+        this.firstTierSuites = createFirstTierSuites(suites);
         this.lirSuites = lirSuites;
         this.codeInstallationTaskFactory = new TrufflePostCodeInstallationTaskFactory();
         backend.addCodeInstallationTask(codeInstallationTaskFactory);
@@ -147,6 +155,20 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         this.partialEvaluator = createPartialEvaluator();
     }
 
+    private static Suites createFirstTierSuites(Suites suites) {
+        Suites result = suites.copy();
+        PhaseSuite<HighTierContext> highTier = result.getHighTier();
+        highTier.removePhase(LoopFullUnrollPhase.class);
+        highTier.removePhase(LoopPeelingPhase.class);
+        highTier.removePhase(LoopUnswitchingPhase.class);
+        highTier.removePhase(PartialEscapePhase.class);
+        result.getMidTier().removePhase(LoopPartialUnrollPhase.class);
+        if (suites.isImmutable()) {
+            result.setImmutable();
+        }
+        return result;
+    }
+
     private ResolvedJavaType[] getSkippedExceptionTypes(TruffleCompilerRuntime runtime) {
         final MetaAccessProvider metaAccess = providers.getMetaAccess();
         ResolvedJavaType[] head = metaAccess.lookupJavaTypes(new Class<?>[]{
@@ -191,12 +213,12 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
     @Override
     @SuppressWarnings("try")
     public void doCompile(DebugContext inDebug, CompilationIdentifier inCompilationId, OptionValues options, CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, Cancellable cancellable,
-                    TruffleCompilerListener listener) {
+                    TruffleCompilerListener listener, boolean firstTier) {
         CompilationIdentifier compilationId = inCompilationId == null ? getCompilationIdentifier(compilable) : inCompilationId;
         DebugContext debug = inDebug == null ? openDebugContext(options, compilationId, compilable) : inDebug;
         try (DebugContext debugToClose = debug == inDebug ? null : debug;
                         DebugContext.Scope s = maybeOpenTruffleScope(compilable, debug)) {
-            new TruffleCompilationWrapper(getDebugOutputDirectory(), getCompilationProblemsPerAction(), compilable, cancellable, inliningPlan, compilationId, listener).run(debug);
+            new TruffleCompilationWrapper(getDebugOutputDirectory(), getCompilationProblemsPerAction(), compilable, cancellable, inliningPlan, compilationId, listener, firstTier).run(debug);
         } catch (Throwable e) {
             notifyCompilableOfFailure(compilable, e);
         }
@@ -337,9 +359,18 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
      *            cancellable requests it
      * @param listener
      */
-    @SuppressWarnings("try")
     public void compileAST(DebugContext debug, final CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, Cancellable cancellable,
                     TruffleCompilerListener listener) {
+        compileAST(debug, compilable, inliningPlan, compilationId, cancellable, listener, false);
+    }
+
+    /**
+     * Compiles a Truffle AST. If {@code firstTier} is {@code true}, the graph produced by partial
+     * evaluation is compiled with the {@link #firstTierSuites}.
+     */
+    @SuppressWarnings("try")
+    public void compileAST(DebugContext debug, final CompilableTruffleAST compilable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, Cancellable cancellable,
+                    TruffleCompilerListener listener, boolean firstTier) {
         final CompilationPrinter printer = CompilationPrinter.begin(TruffleCompilerOptions.getOptions(), compilationId, new TruffleDebugJavaMethod(compilable), INVOCATION_ENTRY_BCI);
         StructuredGraph graph = null;
 
@@ -365,7 +396,8 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
             if (listener != null) {
                 listener.onTruffleTierFinished(compilable, inliningPlan, new GraphInfoImpl(graph));
             }
-            CompilationResult compilationResult = compilePEGraph(graph, compilable.toString(), graphBuilderSuite, compilable, asCompilationRequest(compilationId), listener);
+            CompilationResult compilationResult = compilePEGraph(graph, compilable.toString(), graphBuilderSuite, compilable, asCompilationRequest(compilationId), listener,
+                            firstTier ? firstTierSuites : suites);
             if (listener != null) {
                 listener.onSuccess(compilable, inliningPlan, new GraphInfoImpl(graph), new CompilationResultInfoImpl(compilationResult));
             }
@@ -374,6 +406,14 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
             // compilation time and memory usage reported by printer
             printer.finish(compilationResult);
         } catch (Throwable t) {
+            if (t instanceof BailoutException && !(t instanceof CancellationBailoutException) && !(t instanceof RetryableBailoutException) && !((BailoutException) t).isPermanent()) {
+                /*
+                 * Code installation fails with a non-permanent bailout if dependencies of the code
+                 * were invalidated, which includes the redefinition of inlined methods. Shared
+                 * graphs may contain the old bytecodes of such methods.
+                 */
+                partialEvaluator.purgeEncodedGraphCache();
+            }
             // Note: If the compiler cancels the compilation with a bailout exception, then the
             // graph is null
             if (listener != null) {
@@ -402,9 +442,14 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
      * @param compilationRequest
      * @param listener
      */
-    @SuppressWarnings("try")
     public CompilationResult compilePEGraph(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, CompilableTruffleAST compilable,
                     CompilationRequest compilationRequest, TruffleCompilerListener listener) {
+        return compilePEGraph(graph, name, graphBuilderSuite, compilable, compilationRequest, listener, suites);
+    }
+
+    @SuppressWarnings("try")
+    private CompilationResult compilePEGraph(StructuredGraph graph, String name, PhaseSuite<HighTierContext> graphBuilderSuite, CompilableTruffleAST compilable,
+                    CompilationRequest compilationRequest, TruffleCompilerListener listener, Suites graalSuites) {
         DebugContext debug = graph.getDebug();
         try (DebugContext.Scope s = debug.scope("TruffleFinal")) {
             debug.dump(DebugContext.BASIC_LEVEL, graph, "After TruffleTier");
@@ -419,7 +464,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
                         DebugCloseable c = CompilationMemUse.start(debug)) {
 
             CompilationResult compilationResult = createCompilationResult(name, graph.compilationId());
-            result = GraalCompiler.compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), suites, lirSuites, compilationResult,
+            result = GraalCompiler.compileGraph(graph, graph.method(), providers, backend, graphBuilderSuite, Optimizations, graph.getProfilingInfo(), graalSuites, lirSuites, compilationResult,
                             CompilationResultBuilderFactory.Default, false);
         } catch (Throwable e) {
             throw debug.handle(e);
@@ -473,15 +518,17 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
         private final Cancellable cancellable;
         private final TruffleCompilerListener listener;
         private final CompilationIdentifier compilationId;
+        private final boolean firstTier;
 
         private TruffleCompilationWrapper(DiagnosticsOutputDirectory outputDirectory, Map<ExceptionAction, Integer> problemsHandledPerAction, CompilableTruffleAST optimizedCallTarget,
-                        Cancellable cancellable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, TruffleCompilerListener listener) {
+                        Cancellable cancellable, TruffleInliningPlan inliningPlan, CompilationIdentifier compilationId, TruffleCompilerListener listener, boolean firstTier) {
             super(outputDirectory, problemsHandledPerAction);
             this.compilable = optimizedCallTarget;
             this.inliningPlan = inliningPlan;
             this.cancellable = cancellable;
             this.listener = listener;
             this.compilationId = compilationId;
+            this.firstTier = firstTier;
         }
 
         @Override
@@ -518,7 +565,7 @@ public abstract class TruffleCompilerImpl implements TruffleCompiler {
 
         @Override
         protected Void performCompilation(DebugContext debug) {
-            compileAST(debug, compilable, inliningPlan, compilationId, cancellable, listener);
+            compileAST(debug, compilable, inliningPlan, compilationId, cancellable, listener, firstTier);
             return null;
         }
     }
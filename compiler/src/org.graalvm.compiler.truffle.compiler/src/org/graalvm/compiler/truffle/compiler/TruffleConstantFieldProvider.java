@@ -28,7 +28,11 @@ import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.core.common.spi.ConstantFieldProvider;
 import org.graalvm.compiler.truffle.common.TruffleCompilerRuntime;
 import org.graalvm.compiler.truffle.common.TruffleCompilerRuntime.ConstantFieldInfo;
+import org.graalvm.compiler.truffle.compiler.nodes.TruffleAssumption;
+import org.graalvm.compiler.truffle.compiler.substitutions.KnownTruffleTypes;
 
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.ConstantReflectionProvider;
 import jdk.vm.ci.meta.JavaConstant;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.MetaAccessProvider;
@@ -38,11 +42,27 @@ public class TruffleConstantFieldProvider implements ConstantFieldProvider {
     private final ConstantFieldProvider graalConstantFieldProvider;
     private final MetaAccessProvider metaAccess;
     private final EconomicMap<ResolvedJavaField, ConstantFieldInfo> cachedConstantFieldInfo;
+    private final ConstantReflectionProvider constantReflection;
+    private final KnownTruffleTypes types;
+    private final Assumptions assumptions;
 
     public TruffleConstantFieldProvider(ConstantFieldProvider graalConstantFieldProvider, MetaAccessProvider metaAccess) {
+        this(graalConstantFieldProvider, metaAccess, null, null, null);
+    }
+
+    /**
+     * Creates a provider for the partial evaluation of a single graph. Frame slot kinds are only
+     * folded if {@code assumptions} is not null, because every folded kind registers the kind
+     * assumption of its slot.
+     */
+    public TruffleConstantFieldProvider(ConstantFieldProvider graalConstantFieldProvider, MetaAccessProvider metaAccess, ConstantReflectionProvider constantReflection, KnownTruffleTypes types,
+                    Assumptions assumptions) {
         this.graalConstantFieldProvider = graalConstantFieldProvider;
         this.metaAccess = metaAccess;
         this.cachedConstantFieldInfo = EconomicMap.create();
+        this.constantReflection = constantReflection;
+        this.types = types;
+        this.assumptions = assumptions;
     }
 
     @Override
@@ -53,6 +73,10 @@ public class TruffleConstantFieldProvider implements ConstantFieldProvider {
             return null;
         }
 
+        if (types != null && field.equals(types.fieldFrameSlotKind)) {
+            return readFrameSlotKind(tool);
+        }
+
         boolean isArrayField = field.getType().isArray();
         if (!isArrayField) {
             // The fast way does not require any annotation processing but only covers the most
@@ -90,6 +114,23 @@ public class TruffleConstantFieldProvider implements ConstantFieldProvider {
         return null;
     }
 
+    /*
+     * Kind changes do not invalidate the frame version, only the kind assumption of the changed
+     * slot. The assumption is read before the kind, a kind change invalidates it before the new kind
+     * is written.
+     */
+    private <T> T readFrameSlotKind(ConstantFieldTool<T> tool) {
+        if (assumptions == null) {
+            return null;
+        }
+        JavaConstant kindAssumption = constantReflection.readFieldValue(types.fieldFrameSlotKindAssumption, tool.getReceiver());
+        if (kindAssumption == null || kindAssumption.isNull()) {
+            return null;
+        }
+        assumptions.record(new TruffleAssumption(kindAssumption));
+        return tool.foldConstant(tool.readValue());
+    }
+
     private ConstantFieldInfo getConstantFieldInfo(ResolvedJavaField field) {
         ConstantFieldInfo info = cachedConstantFieldInfo.get(field);
         if (info == null) {
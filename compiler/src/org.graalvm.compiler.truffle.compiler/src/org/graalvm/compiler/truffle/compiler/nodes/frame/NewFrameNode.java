@@ -165,8 +165,21 @@ public final class NewFrameNode extends FixedWithNextNode implements IterableNod
         JavaConstant defaultValue = constantReflection.readFieldValue(types.fieldFrameDescriptorDefaultValue, frameDescriptor);
         this.frameDefaultValue = ConstantNode.forConstant(defaultValue, metaAccess, graph);
 
-        JavaConstant slotArrayList = constantReflection.readFieldValue(types.fieldFrameDescriptorSlots, frameDescriptor);
-        JavaConstant slotArray = constantReflection.readFieldValue(types.fieldArrayListElementData, slotArrayList);
+        ResolvedJavaType frameType = types.classFrameClass;
+        ResolvedJavaField[] frameFields = frameType.getInstanceFields(true);
+        ResolvedJavaField localsField = findField(frameFields, "locals");
+        ResolvedJavaField primitiveLocalsField = findField(frameFields, "primitiveLocals");
+        ResolvedJavaField tagsField = findField(frameFields, "tags");
+
+        /*
+         * The slots are an immutable snapshot that is replaced when a slot is added or removed,
+         * which also invalidates the frame version. Kind changes do not invalidate the frame
+         * version but the kind assumption of the changed slot. The kinds read here only select the
+         * default values of the primitive entries, which are never observed before a slot is
+         * written, so no kind assumptions are registered. Kinds that are folded into the graph
+         * register the assumption of their slot in TruffleConstantFieldProvider.
+         */
+        JavaConstant slotArray = constantReflection.readFieldValue(types.fieldFrameDescriptorSlots, frameDescriptor);
         int slotsArrayLength = constantReflection.readArrayLength(slotArray);
 
         frameSlotKinds = new JavaKind[slotsArrayLength];
@@ -186,12 +199,6 @@ public final class NewFrameNode extends FixedWithNextNode implements IterableNod
         }
         this.frameSize = limit + 1;
 
-        ResolvedJavaType frameType = types.classFrameClass;
-        ResolvedJavaField[] frameFields = frameType.getInstanceFields(true);
-        ResolvedJavaField localsField = findField(frameFields, "locals");
-        ResolvedJavaField primitiveLocalsField = findField(frameFields, "primitiveLocals");
-        ResolvedJavaField tagsField = findField(frameFields, "tags");
-
         this.virtualFrame = graph.add(new VirtualInstanceNode(frameType, frameFields, true));
         this.virtualFrameObjectArray = graph.add(new VirtualArrayNode((ResolvedJavaType) localsField.getType().getComponentType(), frameSize));
         if (primitiveLocalsField != null) {
@@ -28,7 +28,6 @@ import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.Truffle
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.getValue;
 
 import java.lang.invoke.MethodHandle;
-import java.util.ArrayList;
 
 import jdk.vm.ci.meta.MetaAccessProvider;
 import jdk.vm.ci.meta.ResolvedJavaField;
@@ -50,10 +49,9 @@ public class KnownTruffleTypes extends AbstractKnownTruffleTypes {
     public final ResolvedJavaField fieldFrameDescriptorMaterializeCalled = findField(classFrameDescriptor, "materializeCalled");
     public final ResolvedJavaField fieldFrameDescriptorSlots = findField(classFrameDescriptor, "slots");
 
-    public final ResolvedJavaField fieldArrayListElementData = findField(lookupType(ArrayList.class), "elementData");
-
     public final ResolvedJavaField fieldFrameSlotKind = findField(classFrameSlot, "kind");
     public final ResolvedJavaField fieldFrameSlotIndex = findField(classFrameSlot, "index");
+    public final ResolvedJavaField fieldFrameSlotKindAssumption = findField(classFrameSlot, "kindAssumption");
 
     public final ResolvedJavaField fieldFrameSlotKindTag = findField(classFrameSlotKind, "tag");
 
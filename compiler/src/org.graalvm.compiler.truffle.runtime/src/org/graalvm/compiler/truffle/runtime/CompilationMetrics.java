@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.CompilationResultInfo;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
+
+import com.oracle.truffle.api.frame.Frame;
+import com.oracle.truffle.api.nodes.RootNode;
+
+/**
+ * Counters and timings of the compilations of one engine, collected from
+ * {@link GraalTruffleRuntimeListener} events. The metrics are exposed as
+ * {@code org.graalvm.polyglot.Engine#getMetrics()} and, if the
+ * {@link PolyglotCompilerOptions#MetricsMBean} option is set, as a JMX MBean. Unlike the output of
+ * {@code TruffleCompilationStatistics} they are available while the engine runs.
+ *
+ * For every per-compilation value the sum over all compilations ({@code .total}) and the maximum
+ * ({@code .max}) are kept, so averages can be computed from the compilation counts. Times are in
+ * nanoseconds, sizes in bytes.
+ */
+final class CompilationMetrics {
+
+    static final String QUEUE_LENGTH = "compilation.queue.length";
+    static final String QUEUE_WAIT_TIME = "compilation.queue.waitTime";
+    static final String QUEUED = "compilation.queued";
+    static final String DEQUEUED = "compilation.dequeued";
+    static final String STARTED = "compilation.started";
+    static final String SUCCEEDED = "compilation.succeeded";
+    static final String FAILED = "compilation.failed";
+    static final String INVALIDATED = "compilation.invalidated";
+    static final String DEOPTIMIZED = "compilation.deoptimized";
+    static final String INVALIDATION_STORMS = "compilation.invalidationStorms";
+    static final String TRUFFLE_TIER_TIME = "compilation.truffleTier.time";
+    static final String GRAAL_TIER_TIME = "compilation.graalTier.time";
+    static final String CODE_SIZE = "compilation.codeSize";
+    static final String INLINED_NODE_COUNT = "compilation.inlinedNodeCount";
+
+    private static final class Statistic {
+        long total;
+        long max;
+
+        void accept(long value) {
+            total += value;
+            max = Math.max(max, value);
+        }
+
+        void put(Map<String, Long> map, String name) {
+            map.put(name + ".total", total);
+            map.put(name + ".max", max);
+        }
+    }
+
+    private long queued;
+    private long dequeued;
+    private long started;
+    private long succeeded;
+    private long failed;
+    private long invalidated;
+    private long deoptimized;
+    private long invalidationStorms;
+    private final Statistic queueWaitTime = new Statistic();
+    private final Statistic truffleTierTime = new Statistic();
+    private final Statistic graalTierTime = new Statistic();
+    private final Statistic codeSize = new Statistic();
+    private final Statistic inlinedNodeCount = new Statistic();
+
+    /** The registered MBean of the engine, or {@code null}. */
+    private CompilationMetricsMBean bean;
+
+    static void install(GraalTruffleRuntime runtime) {
+        runtime.addListener(new CompilationMetricsListener(runtime));
+    }
+
+    void registerMBean(GraalTruffleRuntime runtime) {
+        bean = CompilationMetricsMBean.register(runtime, this);
+    }
+
+    void close() {
+        if (bean != null) {
+            bean.unregister();
+            bean = null;
+        }
+    }
+
+    /**
+     * Returns the current values of all metrics. The queue length is the number of compilations
+     * queued in the runtime, including the compilations of other engines.
+     */
+    Map<String, Long> snapshot(GraalTruffleRuntime runtime) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        map.put(QUEUE_LENGTH, (long) runtime.getCompilationQueueSize());
+        synchronized (this) {
+            queueWaitTime.put(map, QUEUE_WAIT_TIME);
+            map.put(QUEUED, queued);
+            map.put(DEQUEUED, dequeued);
+            map.put(STARTED, started);
+            map.put(SUCCEEDED, succeeded);
+            map.put(FAILED, failed);
+            map.put(INVALIDATED, invalidated);
+            map.put(DEOPTIMIZED, deoptimized);
+            map.put(INVALIDATION_STORMS, invalidationStorms);
+            truffleTierTime.put(map, TRUFFLE_TIER_TIME);
+            graalTierTime.put(map, GRAAL_TIER_TIME);
+            codeSize.put(map, CODE_SIZE);
+            inlinedNodeCount.put(map, INLINED_NODE_COUNT);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Returns the metrics of an engine that did not compile anything yet.
+     */
+    static Map<String, Long> emptySnapshot(GraalTruffleRuntime runtime) {
+        return new CompilationMetrics().snapshot(runtime);
+    }
+
+    private static final class CompilationMetricsListener implements GraalTruffleRuntimeListener {
+
+        private final GraalTruffleRuntime runtime;
+        /** Start and Truffle tier end times of the compilation of the current thread. */
+        private final ThreadLocal<long[]> compilationTimes = new ThreadLocal<>();
+
+        CompilationMetricsListener(GraalTruffleRuntime runtime) {
+            this.runtime = runtime;
+        }
+
+        private CompilationMetrics metrics(OptimizedCallTarget target) {
+            RootNode rootNode = target.getRootNode();
+            return runtime.getTvmci().getEngineData(rootNode).metrics;
+        }
+
+        @Override
+        public void onCompilationQueued(OptimizedCallTarget target) {
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.queued++;
+            }
+        }
+
+        @Override
+        public void onCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason) {
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.dequeued++;
+            }
+        }
+
+        @Override
+        public void onCompilationPolled(OptimizedCallTarget target, int queueSize, long queueTime) {
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.queueWaitTime.accept(queueTime);
+            }
+        }
+
+        @Override
+        public void onCompilationStarted(OptimizedCallTarget target) {
+            compilationTimes.set(new long[]{System.nanoTime(), 0L});
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.started++;
+            }
+        }
+
+        @Override
+        public void onCompilationTruffleTierFinished(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph) {
+            long[] times = compilationTimes.get();
+            if (times == null) {
+                return;
+            }
+            times[1] = System.nanoTime();
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.truffleTierTime.accept(times[1] - times[0]);
+                metrics.inlinedNodeCount.accept(inliningDecision != null ? inliningDecision.getInlinedNodeCount() : 0);
+            }
+        }
+
+        @Override
+        public void onCompilationGraalTierFinished(OptimizedCallTarget target, GraphInfo graph) {
+            long[] times = compilationTimes.get();
+            if (times == null || times[1] == 0L) {
+                return;
+            }
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.graalTierTime.accept(System.nanoTime() - times[1]);
+            }
+        }
+
+        @Override
+        public void onCompilationSuccess(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph, CompilationResultInfo result) {
+            compilationTimes.remove();
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.succeeded++;
+                metrics.codeSize.accept(result.getTargetCodeSize());
+            }
+        }
+
+        @Override
+        public void onCompilationFailed(OptimizedCallTarget target, String reason, boolean bailout, boolean permanentBailout) {
+            compilationTimes.remove();
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.failed++;
+            }
+        }
+
+        @Override
+        public void onCompilationInvalidated(OptimizedCallTarget target, Object source, CharSequence reason) {
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.invalidated++;
+            }
+        }
+
+        @Override
+        public void onCompilationDeoptimized(OptimizedCallTarget target, Frame frame) {
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.deoptimized++;
+            }
+        }
+
+        @Override
+        public void onCompilationInvalidationStorm(OptimizedCallTarget target, Object source, int invalidations, boolean dependents) {
+            CompilationMetrics metrics = metrics(target);
+            synchronized (metrics) {
+                metrics.invalidationStorms++;
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Exposes the {@link CompilationMetrics} of an engine as read-only attributes of an MBean named
+ * {@code org.graalvm.compiler.truffle:type=CompilationMetrics,engine=<n>}, where {@code n} numbers
+ * the engines in the order their MBeans were registered. The attributes have the names of the
+ * metrics.
+ */
+final class CompilationMetricsMBean implements DynamicMBean {
+
+    private static final AtomicInteger ENGINE_IDS = new AtomicInteger();
+
+    private final GraalTruffleRuntime runtime;
+    private final CompilationMetrics metrics;
+    private final ObjectName objectName;
+    private final MBeanInfo info;
+
+    private CompilationMetricsMBean(GraalTruffleRuntime runtime, CompilationMetrics metrics, ObjectName objectName) {
+        this.runtime = runtime;
+        this.metrics = metrics;
+        this.objectName = objectName;
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : metrics.snapshot(runtime).keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, "long", name, true, false, false));
+        }
+        this.info = new MBeanInfo(CompilationMetricsMBean.class.getName(), "Truffle compilation metrics of an engine",
+                        attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+    }
+
+    /**
+     * Registers an MBean for the metrics of an engine with the platform MBean server. Returns
+     * {@code null} if the MBean cannot be registered, e.g., because the management API is not
+     * available.
+     */
+    static CompilationMetricsMBean register(GraalTruffleRuntime runtime, CompilationMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName("org.graalvm.compiler.truffle:type=CompilationMetrics,engine=" + ENGINE_IDS.incrementAndGet());
+            CompilationMetricsMBean bean = new CompilationMetricsMBean(runtime, metrics, name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, name);
+            return bean;
+        } catch (JMException | LinkageError | SecurityException e) {
+            runtime.log("Could not register the compilation metrics MBean: " + e);
+            return null;
+        }
+    }
+
+    void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            runtime.log("Could not unregister the compilation metrics MBean " + objectName + ": " + e);
+        }
+    }
+
+    ObjectName getObjectName() {
+        return objectName;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = metrics.snapshot(runtime).get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Long> snapshot = metrics.snapshot(runtime);
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Long value = snapshot.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Compilation metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return info;
+    }
+}
@@ -36,6 +36,7 @@ public class DefaultInliningPolicy implements TruffleInliningPolicy {
     private static final String REASON_RECURSION = "number of recursions > " + TruffleCompilerOptions.getValue(TruffleMaximumRecursiveInlining);
     private static final String REASON_MAXIMUM_NODE_COUNT = "deepNodeCount * callSites  > " + TruffleCompilerOptions.getValue(TruffleInliningMaxCallerSize);
     private static final String REASON_MAXIMUM_TOTAL_NODE_COUNT = "totalNodeCount > " + TruffleCompilerOptions.getValue(TruffleInliningMaxCallerSize);
+    private static final String REASON_INLINING_UNSTABLE = "repeatedly invalidated inlining callers";
 
     @Override
     public double calculateScore(TruffleInliningProfile profile) {
@@ -68,6 +69,12 @@ public class DefaultInliningPolicy implements TruffleInliningPolicy {
             return true;
         }
 
+        OptimizedCompilationProfile calleeProfile = profile.getCallNode().getCurrentCallTarget().getCompilationProfile();
+        if (calleeProfile.isInliningUnstable()) {
+            profile.setFailedReason(REASON_INLINING_UNSTABLE);
+            return false;
+        }
+
         int cappedCallSites = Math.min(Math.max(profile.getCallSites(), 1), 10);
         if (profile.getDeepNodeCount() * cappedCallSites > inliningMaxCallerSize) {
             profile.setFailedReason(REASON_MAXIMUM_NODE_COUNT);
@@ -24,6 +24,7 @@
  */
 package org.graalvm.compiler.truffle.runtime;
 
+import java.util.Map;
 import java.util.function.Supplier;
 
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
@@ -147,17 +148,37 @@ final class GraalTVMCI extends TVMCI {
     static class EngineData {
         int splitLimit;
         int splitCount;
+        final CompilationMetrics metrics = new CompilationMetrics();
     }
 
     EngineData getEngineData(RootNode rootNode) {
         return getOrCreateRuntimeData(rootNode, new Supplier<EngineData>() {
             @Override
             public EngineData get() {
-                return new EngineData();
+                EngineData engineData = new EngineData();
+                if (PolyglotCompilerOptions.getValue(rootNode, PolyglotCompilerOptions.MetricsMBean)) {
+                    engineData.metrics.registerMBean(OptimizedCallTarget.runtime());
+                }
+                return engineData;
             }
         });
     }
 
+    @Override
+    protected Map<String, Long> getEngineMetrics(Object runtimeData) {
+        if (runtimeData instanceof EngineData) {
+            return ((EngineData) runtimeData).metrics.snapshot(OptimizedCallTarget.runtime());
+        }
+        return CompilationMetrics.emptySnapshot(OptimizedCallTarget.runtime());
+    }
+
+    @Override
+    protected void onEngineClosed(Object runtimeData) {
+        if (runtimeData instanceof EngineData) {
+            ((EngineData) runtimeData).metrics.close();
+        }
+    }
+
     @Override
     protected void reportPolymorphicSpecialize(Node source) {
         if (TruffleCompilerOptions.getValue(TruffleCompilerOptions.TruffleExperimentalSplitting)) {
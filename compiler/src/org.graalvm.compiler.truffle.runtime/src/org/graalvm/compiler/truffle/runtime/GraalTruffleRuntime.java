@@ -113,14 +113,21 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -130,6 +137,8 @@ import static org.graalvm.compiler.debug.DebugContext.NO_GLOBAL_METRIC_VALUES;
 import static org.graalvm.compiler.serviceprovider.GraalServices.Java8OrEarlier;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilation;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationExceptionsAreThrown;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationQueueColdTimeout;
+import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilationQueuePriority;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompileOnly;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleCompilerThreads;
 import static org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleProfilingEnabled;
@@ -153,8 +162,18 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         truffleCompiler = null;
     }
 
+    /**
+     * The queue of background compilations. By default, compilations are ordered by the
+     * {@linkplain OptimizedCompilationProfile#getCallAndLoopRate() call and loop rate} of their call
+     * targets at the time they are submitted, so that hot call targets do not wait behind a burst of
+     * lukewarm ones. The priority of a queued compilation is {@linkplain #updatePriority updated}
+     * while its call target keeps being called in the interpreter.
+     */
     protected static class BackgroundCompileQueue {
         private final ExecutorService compilationExecutor;
+        private final AtomicLong submissionCounter = new AtomicLong();
+        /* Number of prioritized tasks that were submitted but not started yet. */
+        private final AtomicInteger queuedTasks = new AtomicInteger();
 
         public BackgroundCompileQueue() {
             CompilerThreadFactory factory = new CompilerThreadFactory("TruffleCompilerThread");
@@ -168,12 +187,187 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
                 }
             }
             selectedProcessors = Math.max(1, selectedProcessors);
-            compilationExecutor = Executors.newFixedThreadPool(selectedProcessors, factory);
+            if (TruffleCompilerOptions.getValue(TruffleCompilationQueuePriority)) {
+                compilationExecutor = new ThreadPoolExecutor(selectedProcessors, selectedProcessors, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), factory) {
+                    @Override
+                    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+                        return new PrioritizedTask<>(runnable, value);
+                    }
+
+                    @Override
+                    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+                        return new PrioritizedTask<>(callable);
+                    }
+
+                    @Override
+                    public void execute(Runnable command) {
+                        /* The priority queue only accepts queue entries. */
+                        PrioritizedTask<?> task = command instanceof PrioritizedTask ? (PrioritizedTask<?>) command : new PrioritizedTask<Void>(command, null);
+                        queuedTasks.incrementAndGet();
+                        super.execute(new QueueEntry(task, task.priority));
+                    }
+                };
+            } else {
+                compilationExecutor = Executors.newFixedThreadPool(selectedProcessors, factory);
+            }
         }
 
         public ExecutorService getCompilationExecutor() {
             return compilationExecutor;
         }
+
+        int getQueueSize() {
+            if (compilationExecutor instanceof ThreadPoolExecutor) {
+                if (TruffleCompilerOptions.getValue(TruffleCompilationQueuePriority)) {
+                    return queuedTasks.get();
+                }
+                return ((ThreadPoolExecutor) compilationExecutor).getQueue().size();
+            } else {
+                return 0;
+            }
+        }
+
+        /**
+         * Moves a queued compilation to the position that corresponds to the current hotness of its
+         * call target. Does nothing if the compilation has already started.
+         *
+         * Removing a task from the priority queue takes linear time, so the task is queued again
+         * with its new priority instead. The outdated queue entry stays in the queue and is skipped
+         * when it is polled, because the task was already started by the new entry.
+         */
+        void updatePriority(CancellableCompileTask task) {
+            Future<?> future = task.getFuture();
+            if (future instanceof PrioritizedTask && compilationExecutor instanceof ThreadPoolExecutor) {
+                PrioritizedTask<?> prioritized = (PrioritizedTask<?>) future;
+                if (prioritized.request != null && !prioritized.isStarted()) {
+                    double priority = prioritized.request.computePriority();
+                    if (priority > prioritized.priority) {
+                        prioritized.priority = priority;
+                        ((ThreadPoolExecutor) compilationExecutor).getQueue().offer(new QueueEntry(prioritized, priority));
+                    }
+                }
+            }
+        }
+
+        /**
+         * A task of the compilation executor. A task can have several entries in the queue, only
+         * the first entry that is polled runs it.
+         */
+        private final class PrioritizedTask<T> extends FutureTask<T> {
+            final CompilationRequest request;
+            final long sequence = submissionCounter.getAndIncrement();
+            /* The priority of the most recent queue entry of this task. */
+            volatile double priority;
+            private final AtomicBoolean started = new AtomicBoolean();
+
+            PrioritizedTask(Runnable runnable, T value) {
+                super(runnable, value);
+                this.request = runnable instanceof CompilationRequest ? (CompilationRequest) runnable : null;
+                this.priority = request != null ? request.computePriority() : Double.MAX_VALUE;
+            }
+
+            PrioritizedTask(Callable<T> callable) {
+                super(callable);
+                this.request = null;
+                this.priority = Double.MAX_VALUE;
+            }
+
+            boolean isStarted() {
+                return started.get();
+            }
+
+            void runOnce() {
+                if (started.compareAndSet(false, true)) {
+                    queuedTasks.decrementAndGet();
+                    run();
+                }
+            }
+        }
+
+        /**
+         * An entry of the queue of the compilation executor. Entries are ordered by decreasing
+         * priority and then by the submission order of their tasks.
+         */
+        private final class QueueEntry implements Runnable, Comparable<QueueEntry> {
+            final PrioritizedTask<?> task;
+            final double priority;
+
+            QueueEntry(PrioritizedTask<?> task, double priority) {
+                this.task = task;
+                this.priority = priority;
+            }
+
+            @Override
+            public void run() {
+                task.runOnce();
+            }
+
+            @Override
+            public int compareTo(QueueEntry other) {
+                int result = Double.compare(other.priority, priority);
+                return result != 0 ? result : Long.compare(task.sequence, other.task.sequence);
+            }
+        }
+    }
+
+    /**
+     * The compilation of a call target that waits in the {@link BackgroundCompileQueue}.
+     */
+    private final class CompilationRequest implements Runnable {
+        private final WeakReference<OptimizedCallTarget> weakCallTarget;
+        private final OptionValues optionOverrides;
+        private final CancellableCompileTask cancellable;
+        private final long queuedTime = System.nanoTime();
+        private final int queuedCallAndLoopCount;
+
+        CompilationRequest(OptimizedCallTarget callTarget, OptionValues optionOverrides, CancellableCompileTask cancellable) {
+            this.weakCallTarget = new WeakReference<>(callTarget);
+            this.optionOverrides = optionOverrides;
+            this.cancellable = cancellable;
+            OptimizedCompilationProfile profile = callTarget.getCompilationProfile();
+            this.queuedCallAndLoopCount = profile != null ? profile.getInterpreterCallAndLoopCount() : 0;
+        }
+
+        double computePriority() {
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            OptimizedCompilationProfile profile = callTarget != null ? callTarget.getCompilationProfile() : null;
+            return profile != null ? profile.getCallAndLoopRate() : 0;
+        }
+
+        @SuppressWarnings("try")
+        @Override
+        public void run() {
+            OptimizedCallTarget callTarget = weakCallTarget.get();
+            if (callTarget != null) {
+                try (TruffleOptionsOverrideScope scope = optionOverrides != null ? overrideOptions(optionOverrides.getMap()) : null) {
+                    long queueTime = System.nanoTime() - queuedTime;
+                    listeners.onCompilationPolled(callTarget, getCompilationQueueSize(), queueTime);
+                    if (wentCold(callTarget, queueTime)) {
+                        listeners.onCompilationDequeued(callTarget, null, "Call target went cold while queued.");
+                        return;
+                    }
+                    OptionValues options = TruffleCompilerOptions.getOptions();
+                    doCompile(options, callTarget, cancellable);
+                } finally {
+                    callTarget.resetCompilationTask();
+                }
+            }
+        }
+
+        /**
+         * A call target that was not called at all while it waited in the queue for longer than
+         * {@link TruffleCompilerOptions#TruffleCompilationQueueColdTimeout} is not compiled. If it
+         * is called again, it is resubmitted right away because its profile is still above the
+         * compilation threshold.
+         */
+        private boolean wentCold(OptimizedCallTarget callTarget, long queueTime) {
+            int coldTimeout = TruffleCompilerOptions.getValue(TruffleCompilationQueueColdTimeout);
+            if (coldTimeout <= 0 || queueTime <= TimeUnit.MILLISECONDS.toNanos(coldTimeout)) {
+                return false;
+            }
+            OptimizedCompilationProfile profile = callTarget.getCompilationProfile();
+            return profile != null && profile.getInterpreterCallAndLoopCount() == queuedCallAndLoopCount;
+        }
     }
 
     private Object cachedIncludesExcludes;
@@ -188,6 +382,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
 
     private final Supplier<GraalRuntime> graalRuntimeSupplier;
     private final GraalTVMCI tvmci = new GraalTVMCI();
+    private final ProfileCache.Caches profileCaches = new ProfileCache.Caches();
 
     private volatile GraalTestTVMCI testTvmci;
 
@@ -234,6 +429,10 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         return tvmci;
     }
 
+    ProfileCache.Caches getProfileCaches() {
+        return profileCaches;
+    }
+
     protected TVMCI.Test<?> getTestTvmci() {
         if (testTvmci == null) {
             synchronized (this) {
@@ -423,6 +622,8 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         TraceSplittingListener.install(this);
         StatisticsListener.install(this);
         TraceASTCompilationListener.install(this);
+        ProfileCache.install(this);
+        CompilationMetrics.install(this);
         installShutdownHooks();
     }
 
@@ -706,12 +907,18 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
     protected void doCompile(OptionValues options, OptimizedCallTarget callTarget, Cancellable task) {
         listeners.onCompilationStarted(callTarget);
         TruffleCompiler compiler = getTruffleCompiler();
-        TruffleInlining inlining = new TruffleInlining(callTarget, new DefaultInliningPolicy());
+        OptimizedCompilationProfile profile = callTarget.getCompilationProfile();
+        boolean firstTier = profile != null && profile.isFirstTierCompilation();
+        /* First-tier compilations do not inline other call targets. */
+        TruffleInlining inlining = firstTier ? new TruffleInlining(Collections.<TruffleInliningDecision> emptyList()) : new TruffleInlining(callTarget, new DefaultInliningPolicy());
         CompilationIdentifier compilationId = compiler.getCompilationIdentifier(callTarget);
         try (DebugContext debug = compilationId != null ? compiler.openDebugContext(options, compilationId, callTarget) : null) {
             try (Scope s = debug != null ? debug.scope("Truffle", new TruffleDebugJavaMethod(callTarget)) : null) {
                 maybeDumpTruffleTree(debug, options, callTarget, inlining);
-                compiler.doCompile(debug, compilationId, options, callTarget, inlining, task, listeners.isEmpty() ? null : listeners);
+                compiler.doCompile(debug, compilationId, options, callTarget, inlining, task, listeners.isEmpty() ? null : listeners, firstTier);
+                if (profile != null && callTarget.isValid()) {
+                    profile.reportCodeInstalled();
+                }
             } catch (RuntimeException | Error e) {
                 throw e;
             } catch (Throwable e) {
@@ -764,26 +971,11 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
 
     protected abstract BackgroundCompileQueue getCompileQueue();
 
-    @SuppressWarnings("try")
     public CancellableCompileTask submitForCompilation(OptimizedCallTarget optimizedCallTarget) {
         BackgroundCompileQueue l = getCompileQueue();
-        final WeakReference<OptimizedCallTarget> weakCallTarget = new WeakReference<>(optimizedCallTarget);
         final OptionValues optionOverrides = TruffleCompilerOptions.getCurrentOptionOverrides();
         CancellableCompileTask cancellable = new CancellableCompileTask();
-        cancellable.setFuture(l.compilationExecutor.submit(new Runnable() {
-            @Override
-            public void run() {
-                OptimizedCallTarget callTarget = weakCallTarget.get();
-                if (callTarget != null) {
-                    try (TruffleOptionsOverrideScope scope = optionOverrides != null ? overrideOptions(optionOverrides.getMap()) : null) {
-                        OptionValues options = TruffleCompilerOptions.getOptions();
-                        doCompile(options, callTarget, cancellable);
-                    } finally {
-                        callTarget.resetCompilationTask();
-                    }
-                }
-            }
-        }));
+        cancellable.setFuture(l.compilationExecutor.submit(new CompilationRequest(optimizedCallTarget, optionOverrides, cancellable)));
         // task and future must never diverge from each other
         assert cancellable.future != null;
         return cancellable;
@@ -874,11 +1066,17 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
     }
 
     public int getCompilationQueueSize() {
-        ExecutorService executor = getCompileQueue().compilationExecutor;
-        if (executor instanceof ThreadPoolExecutor) {
-            return ((ThreadPoolExecutor) executor).getQueue().size();
-        } else {
-            return 0;
+        return getCompileQueue().getQueueSize();
+    }
+
+    /**
+     * Updates the position of a queued compilation of {@code optimizedCallTarget} in the
+     * compilation queue after its call target got hotter.
+     */
+    public void updateCompilationPriority(OptimizedCallTarget optimizedCallTarget) {
+        CancellableCompileTask task = optimizedCallTarget.getCompilationTask();
+        if (task != null && task.getFuture() != null) {
+            getCompileQueue().updatePriority(task);
         }
     }
 
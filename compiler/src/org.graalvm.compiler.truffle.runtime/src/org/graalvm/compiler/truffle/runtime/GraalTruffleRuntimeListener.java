@@ -82,6 +82,18 @@ public interface GraalTruffleRuntimeListener {
     default void onCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason) {
     }
 
+    /**
+     * Notifies this object when a compiler thread takes the compilation of {@code target} from the
+     * compilation queue. Followed by either {@link #onCompilationStarted} or
+     * {@link #onCompilationDequeued}, if the compilation is dropped because the target went cold.
+     *
+     * @param target the call target that was taken from the compilation queue
+     * @param queueSize the number of compilations that are still queued
+     * @param queueTime the time in nanoseconds that the compilation waited in the queue
+     */
+    default void onCompilationPolled(OptimizedCallTarget target, int queueSize, long queueTime) {
+    }
+
     /**
      * Notifies this object when compilation of {@code target} is about to start.
      *
@@ -160,6 +172,22 @@ public interface GraalTruffleRuntimeListener {
     default void onCompilationDeoptimized(OptimizedCallTarget target, Frame frame) {
     }
 
+    /**
+     * Notifies this object when {@code target} keeps invalidating compiled code shortly after it
+     * was installed. If the invalidated code is the code of {@code target}, its next compilation
+     * is delayed exponentially. If it is the code of callers that inlined {@code target}, the
+     * target is no longer inlined.
+     *
+     * @param target the call target that keeps invalidating compiled code
+     * @param source the source object that caused the last invalidation. For example the source
+     *            {@link Node} object. May be {@code null}.
+     * @param invalidations the number of invalidations in a row
+     * @param dependents {@code true} if the code of callers that inlined {@code target} was
+     *            invalidated
+     */
+    default void onCompilationInvalidationStorm(OptimizedCallTarget target, Object source, int invalidations, boolean dependents) {
+    }
+
     /**
      * Notifies this object the {@link GraalTruffleRuntime} is being shut down.
      */
@@ -68,6 +68,13 @@ final class GraalTruffleRuntimeListenerDispatcher extends ArrayList<GraalTruffle
         }
     }
 
+    @Override
+    public void onCompilationPolled(OptimizedCallTarget target, int queueSize, long queueTime) {
+        for (GraalTruffleRuntimeListener l : this) {
+            l.onCompilationPolled(target, queueSize, queueTime);
+        }
+    }
+
     @Override
     public void onCompilationFailed(OptimizedCallTarget target, String reason, boolean bailout, boolean permanent) {
         for (GraalTruffleRuntimeListener l : this) {
@@ -117,6 +124,13 @@ final class GraalTruffleRuntimeListenerDispatcher extends ArrayList<GraalTruffle
         }
     }
 
+    @Override
+    public void onCompilationInvalidationStorm(OptimizedCallTarget target, Object source, int invalidations, boolean dependents) {
+        for (GraalTruffleRuntimeListener l : this) {
+            l.onCompilationInvalidationStorm(target, source, invalidations, dependents);
+        }
+    }
+
     @Override
     public void onShutdown() {
         for (GraalTruffleRuntimeListener l : this) {
@@ -152,8 +152,11 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
 
     /**
      * Invalidate node rewriting assumption iff it has been initialized.
+     *
+     * @return {@code true} if the assumption invalidated the code of callers that inlined this
+     *         call target
      */
-    private void invalidateNodeRewritingAssumption() {
+    private boolean invalidateNodeRewritingAssumption() {
         Assumption oldAssumption = NODE_REWRITING_ASSUMPTION_UPDATER.getAndUpdate(this, new UnaryOperator<Assumption>() {
             @Override
             public Assumption apply(Assumption prev) {
@@ -161,8 +164,16 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
             }
         });
         if (oldAssumption != null) {
+            boolean dependents = false;
+            if (oldAssumption instanceof OptimizedAssumption) {
+                OptimizedAssumption optimizedAssumption = (OptimizedAssumption) oldAssumption;
+                optimizedAssumption.removeInvalidDependencies();
+                dependents = optimizedAssumption.countDependencies() > 0;
+            }
             oldAssumption.invalidate();
+            return dependents;
         }
+        return false;
     }
 
     @Override
@@ -254,6 +265,7 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         OptimizedCompilationProfile profile = this.compilationProfile;
         if (CompilerDirectives.inCompiledCode() && profile != null) {
             args = profile.injectArgumentProfile(originalArguments);
+            profile.firstTierCall(this);
         }
         Object result = callProxy(createFrame(getRootNode().getFrameDescriptor(), args));
 
@@ -284,6 +296,16 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
 
     private void notifyDeoptimized(VirtualFrame frame) {
         runtime().getListener().onCompilationDeoptimized(this, frame);
+        if (!isValid()) {
+            /*
+             * Deoptimizations that invalidate the code, e.g. transferToInterpreterAndInvalidate,
+             * do not go through invalidate().
+             */
+            OptimizedCompilationProfile profile = this.compilationProfile;
+            if (profile != null) {
+                profile.reportCodeInvalidated(this, null);
+            }
+        }
     }
 
     static GraalTruffleRuntime runtime() {
@@ -299,6 +321,9 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
             }
             tvmci.onFirstExecution(this);
             this.compilationProfile = createCompilationProfile();
+            if (sourceCallTarget == null) {
+                ProfileCache.seedCallTarget(this);
+            }
         }
     }
 
@@ -316,7 +341,15 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
      * the background. Use {@link #isCompiling()} to find out whether it is actually compiling.
      */
     public final boolean compile() {
-        if (isValid()) {
+        return compile(false);
+    }
+
+    /**
+     * Like {@link #compile()}, but if {@code secondTier} is {@code true}, a target that is already
+     * compiled by a first-tier compilation is compiled again.
+     */
+    final boolean compile(boolean secondTier) {
+        if (isValid() && !secondTier) {
             return true;
         }
         if (!isCompiling()) {
@@ -328,7 +361,7 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
             // Do not try to compile this target concurrently,
             // but do not block other threads if compilation is not asynchronous.
             synchronized (this) {
-                if (isValid()) {
+                if (isValid() && !secondTier) {
                     return true;
                 }
                 if (this.compilationProfile == null) {
@@ -393,6 +426,10 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         if (isValid()) {
             invalidateCode();
             runtime().getListener().onCompilationInvalidated(this, source, reason);
+            OptimizedCompilationProfile profile = this.compilationProfile;
+            if (profile != null) {
+                profile.reportCodeInvalidated(this, source);
+            }
         }
         runtime().cancelInstalledTask(this, source, reason);
     }
@@ -564,10 +601,13 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         CompilerAsserts.neverPartOfCompilation();
         invalidate(newNode, reason);
         /* Notify compiled method that have inlined this call target that the tree changed. */
-        invalidateNodeRewritingAssumption();
+        boolean dependentsInvalidated = invalidateNodeRewritingAssumption();
 
         OptimizedCompilationProfile profile = this.compilationProfile;
         if (profile != null) {
+            if (dependentsInvalidated) {
+                profile.reportDependentsInvalidated(this, newNode);
+            }
             profile.reportNodeReplaced();
             if (cancelInstalledTask(newNode, reason)) {
                 profile.reportInvalidated();
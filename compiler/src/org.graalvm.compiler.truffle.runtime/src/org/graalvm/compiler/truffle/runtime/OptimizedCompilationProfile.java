@@ -35,6 +35,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
 import org.graalvm.options.OptionValues;
@@ -43,12 +44,28 @@ import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.CompilerOptions;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 public class OptimizedCompilationProfile {
 
+    /**
+     * Number of interpreter calls after which the priority of a queued compilation is updated.
+     * Must be a power of two.
+     */
+    private static final int QUEUE_PRIORITY_UPDATE_INTERVAL = 1024;
+
+    private static final AtomicLongFieldUpdater<OptimizedCompilationProfile> CODE_INSTALLED_TIMESTAMP_UPDATER = AtomicLongFieldUpdater.newUpdater(OptimizedCompilationProfile.class,
+                    "codeInstalledTimestamp");
+
+    /**
+     * Maximum number of times the recompilation delay of a call target is doubled during an
+     * invalidation storm.
+     */
+    private static final int MAX_INVALIDATION_BACKOFF = 10;
+
     /**
      * Number of times an installed code for this tree was seen invalidated.
      */
@@ -62,6 +79,36 @@ public class OptimizedCompilationProfile {
 
     private long timestamp;
 
+    private final boolean multiTier;
+    private final int secondTierCompilationThreshold;
+    private int firstTierCallCount;
+    /**
+     * Whether the next compilation of the call target is (or the current one was) a first-tier
+     * compilation. Code produced by a first-tier compilation counts its calls and requests the
+     * second-tier compilation. Deliberately not compilation final: compiled code reads it on every
+     * call, so first-tier code stops counting once the second tier was requested, and the flag can
+     * be reset without invalidating code.
+     */
+    private boolean firstTierCompilation;
+
+    /*
+     * Invalidation storm detection. Compiled code that is invalidated shortly after it was
+     * installed indicates a speculation that keeps failing. After a number of such invalidations
+     * in a row, recompilation is delayed exponentially. A root whose node rewrites repeatedly
+     * invalidate the code of callers that inlined it is no longer inlined.
+     */
+    private final int invalidationStormThreshold;
+    private final long invalidationStormInterval;
+    /*
+     * Written on the compiler thread when code is installed and cleared by the first thread that
+     * reports the invalidation of that code, so every installed code is counted at most once.
+     */
+    private volatile long codeInstalledTimestamp;
+    private int stormInvalidationCount;
+    private long lastDependentsInvalidationTimestamp;
+    private int stormDependentsInvalidationCount;
+    private volatile boolean inliningUnstable;
+
     /*
      * Updating profiling information and its Assumption objects is done without synchronization and
      * atomic operations to keep the overhead as low as possible. This means that there can be races
@@ -83,11 +130,17 @@ public class OptimizedCompilationProfile {
 
     public OptimizedCompilationProfile(OptionValues options) {
         int callThreshold = TruffleCompilerOptions.getValue(TruffleMinInvokeThreshold);
-        int callAndLoopThreshold = PolyglotCompilerOptions.getValue(options, PolyglotCompilerOptions.CompilationThreshold);
+        int lastTierThreshold = PolyglotCompilerOptions.getValue(options, PolyglotCompilerOptions.CompilationThreshold);
+        this.multiTier = PolyglotCompilerOptions.getValue(options, PolyglotCompilerOptions.MultiTier);
+        int callAndLoopThreshold = multiTier ? PolyglotCompilerOptions.getValue(options, PolyglotCompilerOptions.FirstTierCompilationThreshold) : lastTierThreshold;
         assert callThreshold >= 0;
         assert callAndLoopThreshold >= 0;
         this.compilationCallThreshold = Math.min(callThreshold, callAndLoopThreshold);
         this.compilationCallAndLoopThreshold = callAndLoopThreshold;
+        this.secondTierCompilationThreshold = lastTierThreshold;
+        this.firstTierCompilation = multiTier;
+        this.invalidationStormThreshold = PolyglotCompilerOptions.getValue(options, PolyglotCompilerOptions.InvalidationStormThreshold);
+        this.invalidationStormInterval = PolyglotCompilerOptions.getValue(options, PolyglotCompilerOptions.InvalidationStormInterval) * 1_000_000L;
         this.timestamp = System.nanoTime();
     }
 
@@ -275,10 +328,65 @@ public class OptimizedCompilationProfile {
 
     final void reportInvalidated() {
         invalidationCount++;
+        // start over with a first-tier compilation
+        firstTierCompilation = multiTier;
+        firstTierCallCount = 0;
         int reprofile = TruffleCompilerOptions.getValue(TruffleInvalidationReprofileCount);
         ensureProfiling(reprofile, reprofile);
     }
 
+    final void reportCodeInstalled() {
+        codeInstalledTimestamp = System.nanoTime();
+    }
+
+    /**
+     * Called when the installed code of {@code callTarget} is invalidated. Delays the next
+     * compilation exponentially if the code was invalidated shortly after it was installed for
+     * {@link PolyglotCompilerOptions#InvalidationStormThreshold} times in a row.
+     */
+    final void reportCodeInvalidated(OptimizedCallTarget callTarget, Object source) {
+        long installed = CODE_INSTALLED_TIMESTAMP_UPDATER.getAndSet(this, 0);
+        if (installed == 0) {
+            // no code installed or its invalidation was already reported
+            return;
+        }
+        if (System.nanoTime() - installed >= invalidationStormInterval) {
+            stormInvalidationCount = 0;
+            return;
+        }
+        int count = ++stormInvalidationCount;
+        if (count >= invalidationStormThreshold) {
+            int backoff = Math.min(count - invalidationStormThreshold, MAX_INVALIDATION_BACKOFF);
+            int reprofile = (int) Math.min(Integer.MAX_VALUE, (long) secondTierCompilationThreshold << backoff);
+            ensureProfiling(reprofile, reprofile);
+            OptimizedCallTarget.runtime().getListener().onCompilationInvalidationStorm(callTarget, source, count, false);
+        }
+    }
+
+    /**
+     * Called when a node rewrite in {@code callTarget} invalidated the code of callers that
+     * inlined it. Stops inlining of the call target if this happens
+     * {@link PolyglotCompilerOptions#InvalidationStormThreshold} times in a row, each time shortly
+     * after the previous one.
+     */
+    final void reportDependentsInvalidated(OptimizedCallTarget callTarget, Object source) {
+        long now = System.nanoTime();
+        int count = now - lastDependentsInvalidationTimestamp < invalidationStormInterval ? ++stormDependentsInvalidationCount : (stormDependentsInvalidationCount = 1);
+        lastDependentsInvalidationTimestamp = now;
+        if (count >= invalidationStormThreshold && !inliningUnstable) {
+            inliningUnstable = true;
+            OptimizedCallTarget.runtime().getListener().onCompilationInvalidationStorm(callTarget, source, count, true);
+        }
+    }
+
+    /**
+     * Returns {@code true} if node rewrites of the call target repeatedly invalidated the code of
+     * callers that inlined it, so it should no longer be inlined.
+     */
+    public boolean isInliningUnstable() {
+        return inliningUnstable;
+    }
+
     final void reportNodeReplaced() {
         // delay compilation until tree is deemed stable enough
         int replaceBackoff = TruffleCompilerOptions.getValue(TruffleReplaceReprofileCount);
@@ -288,16 +396,41 @@ public class OptimizedCompilationProfile {
     final boolean interpreterCall(OptimizedCallTarget callTarget) {
         int intCallCount = ++interpreterCallCount;
         int intAndLoopCallCount = ++interpreterCallAndLoopCount;
-        if (!callTarget.isCompiling() && !compilationFailed) {
+        if (!callTarget.isCompiling()) {
             // check if call target is hot enough to get compiled, but took not too long to get hot
-            if ((intAndLoopCallCount >= compilationCallAndLoopThreshold && intCallCount >= compilationCallThreshold && !isDeferredCompile(callTarget)) ||
-                            TruffleCompilerOptions.getValue(TruffleCompileImmediately)) {
+            if (!compilationFailed && ((intAndLoopCallCount >= compilationCallAndLoopThreshold && intCallCount >= compilationCallThreshold && !isDeferredCompile(callTarget)) ||
+                            TruffleCompilerOptions.getValue(TruffleCompileImmediately))) {
                 return callTarget.compile();
             }
+        } else if ((intCallCount & (QUEUE_PRIORITY_UPDATE_INTERVAL - 1)) == 0) {
+            // still called in the interpreter while queued: it got hotter
+            OptimizedCallTarget.runtime().updateCompilationPriority(callTarget);
         }
         return false;
     }
 
+    /**
+     * Called on every call of compiled code. Counts the calls of first-tier code and requests the
+     * second-tier compilation when they reach the threshold.
+     */
+    final void firstTierCall(OptimizedCallTarget callTarget) {
+        if (firstTierCompilation) {
+            int count = ++firstTierCallCount;
+            if (count >= secondTierCompilationThreshold) {
+                firstTierCallCount = 0;
+                requestSecondTierCompilation(callTarget);
+            }
+        }
+    }
+
+    @TruffleBoundary
+    private void requestSecondTierCompilation(OptimizedCallTarget callTarget) {
+        if (firstTierCompilation && !callTarget.isCompiling() && !compilationFailed) {
+            firstTierCompilation = false;
+            callTarget.compile(true);
+        }
+    }
+
     private boolean isDeferredCompile(OptimizedCallTarget target) {
         // Workaround for https://bugs.eclipse.org/bugs/show_bug.cgi?id=440019
         int threshold = target.getOptionValue(PolyglotCompilerOptions.QueueTimeThreshold);
@@ -398,6 +531,19 @@ public class OptimizedCompilationProfile {
         return properties;
     }
 
+    /**
+     * Lowers the compilation thresholds for a call target that is known to get hot, e.g., from a
+     * previous run. The thresholds should still allow the AST to specialize before compilation.
+     */
+    void seedCompilationThresholds(int callThreshold, int callAndLoopThreshold) {
+        compilationCallThreshold = Math.min(compilationCallThreshold, callThreshold);
+        compilationCallAndLoopThreshold = Math.min(compilationCallAndLoopThreshold, callAndLoopThreshold);
+    }
+
+    public boolean isFirstTierCompilation() {
+        return firstTierCompilation;
+    }
+
     public int getInvalidationCount() {
         return invalidationCount;
     }
@@ -426,6 +572,16 @@ public class OptimizedCompilationProfile {
         return timestamp;
     }
 
+    /**
+     * Returns the number of interpreter calls and loop iterations per second since the
+     * {@linkplain #getTimestamp() timestamp} of this profile. Used as the priority of queued
+     * compilations.
+     */
+    public double getCallAndLoopRate() {
+        long elapsed = Math.max(1L, System.nanoTime() - timestamp);
+        return interpreterCallAndLoopCount * 1e9 / elapsed;
+    }
+
     public static OptimizedCompilationProfile create(OptionValues options) {
         return new OptimizedCompilationProfile(options);
     }
@@ -58,6 +58,39 @@ public final class PolyglotCompilerOptions {
                     category = OptionCategory.EXPERT)
     public static final OptionKey<Integer> QueueTimeThreshold = new OptionKey<>(50000);
 
+    @Option(help = "Compile guest language roots in two tiers: first quickly without inlining of other roots and without expensive optimizations, " +
+                    "then, once the first-tier code was called CompilationThreshold times, with inlining and all optimizations.",
+                    category = OptionCategory.EXPERT)
+    public static final OptionKey<Boolean> MultiTier = new OptionKey<>(false);
+
+    @Option(help = "Minimum number of invocations or loop iterations needed to compile a guest language root in the first tier (requires MultiTier).",
+                    category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> FirstTierCompilationThreshold = new OptionKey<>(100);
+
+    @Option(help = "Path of a file in which compilation profiles and splitting decisions of guest language roots are kept across runs. " +
+                    "The file is read on first use and written on shutdown. Roots are identified by the contents of their source.",
+                    category = OptionCategory.EXPERT)
+    public static final OptionKey<String> ProfileCache = new OptionKey<>("");
+
+    @Option(help = "Number of invocations or loop iterations needed to compile a guest language root that was compiled in a run that used the same ProfileCache. " +
+                    "Roots that were compiled after fewer invocations or loop iterations in that run are compiled after as many again.",
+                    category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> ProfileCacheCompilationThreshold = new OptionKey<>(10);
+
+    @Option(help = "Register a JMX MBean that exposes the compilation metrics of the engine, e.g., compilation queue wait times, " +
+                    "compilation times, code sizes and deoptimization counts. The MBean is unregistered when the engine is closed.",
+                    category = OptionCategory.EXPERT)
+    public static final OptionKey<Boolean> MetricsMBean = new OptionKey<>(false);
+
+    @Option(help = "Number of times in a row the compiled code of a guest language root may be invalidated shortly after it was installed before its " +
+                    "recompilation is delayed exponentially. Roots whose node rewrites repeatedly invalidate the code of their callers are no longer inlined.",
+                    category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> InvalidationStormThreshold = new OptionKey<>(3);
+
+    @Option(help = "Number of milliseconds compiled code must stay valid to not count towards the InvalidationStormThreshold.",
+                    category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> InvalidationStormInterval = new OptionKey<>(1000);
+
     /*
      * TODO planned options:
      *
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.CompilationResultInfo;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
+
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * Persists compilation profiles of guest language roots across runs, so that a new process can
+ * compile the roots that were hot in a previous run without waiting for the full compilation
+ * threshold, and can repeat the splitting decisions of the previous run.
+ *
+ * Roots are identified by a hash of the characters of their {@link Source}, their
+ * {@link SourceSection} and their name, call sites by the source section of the call node and the
+ * identity of the called root. Roots without source characters are not cached. A cache is read on
+ * first use and written back, merged with the entries that were not updated in the current run, on
+ * shutdown. The engines of a runtime that use the same file share one cache.
+ *
+ * Call sites that were split in a previous run are split at their first call if the
+ * {@link TruffleSplittingStrategy regular splitting heuristic} already allows it then. Only the
+ * profiles that decide when roots are compiled and which call sites are split are cached: the
+ * inlining decisions are recomputed by every compilation.
+ *
+ * The file format is line based: {@code root <calls> <callsAndLoops> <key>} for each root that
+ * was compiled and {@code split <key>} for each call site that was split.
+ */
+final class ProfileCache {
+
+    private static final String ROOT = "root";
+    private static final String SPLIT = "split";
+
+    /** Source hashes are expensive to compute, so they are computed once per source. */
+    private static final Map<Source, String> SOURCE_HASHES = new WeakHashMap<>();
+
+    static final class RootProfile {
+        final int callCount;
+        final int callAndLoopCount;
+
+        RootProfile(int callCount, int callAndLoopCount) {
+            this.callCount = callCount;
+            this.callAndLoopCount = callAndLoopCount;
+        }
+    }
+
+    private final Path file;
+    private final Map<String, RootProfile> roots = new HashMap<>();
+    private final Map<String, Boolean> splits = new HashMap<>();
+    private boolean modified;
+
+    private ProfileCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * The caches used by the engines of a runtime by path.
+     */
+    static final class Caches {
+
+        private final Map<String, ProfileCache> caches = new HashMap<>();
+
+        synchronized ProfileCache get(String path) {
+            ProfileCache cache = caches.get(path);
+            if (cache == null) {
+                cache = new ProfileCache(Paths.get(path));
+                cache.read();
+                caches.put(path, cache);
+            }
+            return cache;
+        }
+
+        synchronized List<ProfileCache> getAll() {
+            return new ArrayList<>(caches.values());
+        }
+    }
+
+    static void install(GraalTruffleRuntime runtime) {
+        runtime.addListener(new ProfileCacheListener(runtime));
+    }
+
+    /**
+     * Returns the cache configured for the engine of a root node, or {@code null} if profiles are
+     * not cached.
+     */
+    static ProfileCache forRoot(RootNode rootNode) {
+        if (rootNode == null) {
+            return null;
+        }
+        String path = PolyglotCompilerOptions.getValue(rootNode, PolyglotCompilerOptions.ProfileCache);
+        if (path.isEmpty()) {
+            return null;
+        }
+        return OptimizedCallTarget.runtime().getProfileCaches().get(path);
+    }
+
+    /**
+     * Lowers the compilation thresholds of a new call target if its root was compiled in a
+     * previous run. The thresholds never exceed the counts at which the root was compiled in that
+     * run, so a root that got hot in a few calls because of its loops is again compiled after as
+     * many calls.
+     */
+    static void seedCallTarget(OptimizedCallTarget target) {
+        ProfileCache cache = forRoot(target.getRootNode());
+        if (cache != null) {
+            String key = rootKey(target.getRootNode());
+            RootProfile profile = key != null ? cache.lookupRoot(key) : null;
+            if (profile != null) {
+                int threshold = PolyglotCompilerOptions.getValue(target.getRootNode(), PolyglotCompilerOptions.ProfileCacheCompilationThreshold);
+                int callThreshold = Math.min(threshold, Math.max(1, profile.callCount));
+                int callAndLoopThreshold = Math.min(threshold, Math.max(1, profile.callAndLoopCount));
+                target.getCompilationProfile().seedCompilationThresholds(callThreshold, callAndLoopThreshold);
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if a call site was split in a previous run.
+     */
+    static boolean wasSplit(OptimizedDirectCallNode callNode) {
+        ProfileCache cache = forRoot(callNode.getRootNode());
+        if (cache != null) {
+            String key = callSiteKey(callNode);
+            return key != null && cache.lookupSplit(key);
+        }
+        return false;
+    }
+
+    synchronized RootProfile lookupRoot(String key) {
+        return roots.get(key);
+    }
+
+    synchronized boolean lookupSplit(String key) {
+        return splits.containsKey(key);
+    }
+
+    synchronized void recordRoot(String key, int callCount, int callAndLoopCount) {
+        roots.put(key, new RootProfile(callCount, callAndLoopCount));
+        modified = true;
+    }
+
+    synchronized void recordSplit(String key) {
+        if (splits.put(key, Boolean.TRUE) == null) {
+            modified = true;
+        }
+    }
+
+    private synchronized void read() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseLine(line);
+            }
+        } catch (IOException | RuntimeException e) {
+            /* A cache that cannot be read only costs warmup time. */
+            roots.clear();
+            splits.clear();
+            OptimizedCallTarget.log("Ignoring unreadable profile cache " + file + ": " + e);
+        }
+    }
+
+    private void parseLine(String line) {
+        if (line.startsWith(ROOT + " ")) {
+            String[] parts = line.split(" ", 4);
+            roots.put(parts[3], new RootProfile(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+        } else if (line.startsWith(SPLIT + " ")) {
+            splits.put(line.substring(SPLIT.length() + 1), Boolean.TRUE);
+        } else if (!line.isEmpty() && !line.startsWith("#")) {
+            throw new IllegalArgumentException("Malformed line: " + line);
+        }
+    }
+
+    synchronized void write() {
+        if (!modified) {
+            return;
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(tmp, StandardCharsets.UTF_8))) {
+                writer.println("# Truffle profile cache");
+                for (Map.Entry<String, RootProfile> entry : new TreeMap<>(roots).entrySet()) {
+                    RootProfile profile = entry.getValue();
+                    writer.println(ROOT + " " + profile.callCount + " " + profile.callAndLoopCount + " " + entry.getKey());
+                }
+                for (String key : new TreeMap<>(splits).keySet()) {
+                    writer.println(SPLIT + " " + key);
+                }
+            }
+            /* Processes sharing the cache must never see a partially written file. */
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            OptimizedCallTarget.log("Could not write profile cache " + file + ": " + e);
+        }
+    }
+
+    static String rootKey(RootNode rootNode) {
+        SourceSection section = rootNode.getSourceSection();
+        String sourceHash = section != null ? sourceHash(section.getSource()) : null;
+        if (sourceHash == null) {
+            return null;
+        }
+        return sourceHash + ":" + section.getCharIndex() + ":" + section.getCharLength() + ":" + rootNode.getName();
+    }
+
+    static String callSiteKey(OptimizedDirectCallNode callNode) {
+        SourceSection section = callNode.getEncapsulatingSourceSection();
+        String sourceHash = section != null ? sourceHash(section.getSource()) : null;
+        String calleeKey = rootKey(callNode.getCallTarget().getRootNode());
+        if (sourceHash == null || calleeKey == null) {
+            return null;
+        }
+        return sourceHash + ":" + section.getCharIndex() + ":" + section.getCharLength() + "->" + calleeKey;
+    }
+
+    private static String sourceHash(Source source) {
+        if (source == null || !source.hasCharacters()) {
+            return null;
+        }
+        synchronized (SOURCE_HASHES) {
+            String hash = SOURCE_HASHES.get(source);
+            if (hash == null) {
+                hash = digest(source.getCharacters().toString());
+                SOURCE_HASHES.put(source, hash);
+            }
+            return hash;
+        }
+    }
+
+    private static String digest(String characters) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(characters.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format("%02x", hash[i] & 0xff));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalError(e);
+        }
+    }
+
+    private static final class ProfileCacheListener implements GraalTruffleRuntimeListener {
+
+        private final GraalTruffleRuntime runtime;
+
+        ProfileCacheListener(GraalTruffleRuntime runtime) {
+            this.runtime = runtime;
+        }
+
+        @Override
+        public void onCompilationSuccess(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph, CompilationResultInfo result) {
+            if (target.getSourceCallTarget() != null) {
+                /* Splits are recreated from the split call sites. */
+                return;
+            }
+            ProfileCache cache = forRoot(target.getRootNode());
+            if (cache != null) {
+                String key = rootKey(target.getRootNode());
+                OptimizedCompilationProfile profile = target.getCompilationProfile();
+                if (key != null && profile != null) {
+                    cache.recordRoot(key, profile.getInterpreterCallCount(), profile.getInterpreterCallAndLoopCount());
+                }
+            }
+        }
+
+        @Override
+        public void onCompilationSplit(OptimizedDirectCallNode callNode) {
+            ProfileCache cache = forRoot(callNode.getRootNode());
+            if (cache != null) {
+                String key = callSiteKey(callNode);
+                if (key != null) {
+                    cache.recordSplit(key);
+                }
+            }
+        }
+
+        @Override
+        public void onShutdown() {
+            for (ProfileCache cache : runtime.getProfileCaches().getAll()) {
+                cache.write();
+            }
+        }
+    }
+}
@@ -69,7 +69,8 @@ final class TruffleSplittingStrategy {
             }
             return;
         }
-        if (call.getCallCount() == 2) {
+        // call sites that were split in a previous run do not wait for their second call
+        if (call.getCallCount() == 2 || (call.getCallCount() == 1 && ProfileCache.wasSplit(call))) {
             final GraalTVMCI.EngineData engineData = getEngineData(call, tvmci);
             if (shouldSplit(call, engineData)) {
                 engineData.splitCount += call.getCurrentCallTarget().getUninitializedNodeCount();
@@ -73,6 +73,8 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
     private final IntSummaryStatistics deferCompilations = new IntSummaryStatistics();
     private final LongSummaryStatistics timeToQueue = new LongSummaryStatistics();
     private final LongSummaryStatistics timeToCompilation = new LongSummaryStatistics();
+    private final LongSummaryStatistics timeInQueue = new LongSummaryStatistics();
+    private final IntSummaryStatistics queueSize = new IntSummaryStatistics();
 
     private final IntSummaryStatistics nodeCount = new IntSummaryStatistics();
     private final IntSummaryStatistics nodeCountTrivial = new IntSummaryStatistics();
@@ -141,6 +143,12 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
         }
     }
 
+    @Override
+    public synchronized void onCompilationPolled(OptimizedCallTarget target, int remainingQueueSize, long queueTime) {
+        timeInQueue.accept(queueTime);
+        queueSize.accept(remainingQueueSize);
+    }
+
     @Override
     public synchronized void onCompilationDequeued(OptimizedCallTarget target, Object source, CharSequence reason) {
         dequeues++;
@@ -265,6 +273,8 @@ public final class StatisticsListener extends AbstractGraalTruffleRuntimeListene
 
         printStatisticTime(rt, "Time to queue", timeToQueue);
         printStatisticTime(rt, "Time to compilation", timeToCompilation);
+        printStatisticTime(rt, "Time in compilation queue", timeInQueue);
+        printStatistic(rt, "Compilation queue size when polled", queueSize);
 
         printStatisticTime(rt, "Compilation time", compilationTime);
         printStatisticTime(rt, "  Truffle Tier", compilationTimeTruffleTier);
@@ -163,6 +163,16 @@ public final class TraceCompilationListener extends AbstractGraalTruffleRuntimeL
         runtime.logEvent(0, "opt invalidated", target.toString(), properties);
     }
 
+    @Override
+    public void onCompilationInvalidationStorm(OptimizedCallTarget target, Object source, int invalidations, boolean dependents) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        addSourceInfo(properties, source);
+        properties.put("Invalidations", invalidations);
+        properties.put("Action", dependents ? "not inlined" : "recompilation delayed");
+        properties.putAll(target.getDebugProperties(null));
+        runtime.logEvent(0, "opt storm", target.toString(), properties);
+    }
+
     private static void addSourceInfo(Map<String, Object> properties, Object source) {
         if (source != null) {
             properties.put("SourceClass", source.getClass().getSimpleName());
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import org.graalvm.compiler.core.common.CancellationBailoutException;
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugHandlersFactory;
+import org.graalvm.compiler.debug.DebugOptions;
+import org.graalvm.compiler.graph.SourceLanguagePosition;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
+import org.graalvm.compiler.truffle.common.TruffleInliningPlan;
+import org.graalvm.compiler.truffle.compiler.TruffleCompilerImpl;
+import org.graalvm.compiler.truffle.runtime.DefaultInliningPolicy;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.compiler.truffle.runtime.TruffleInlining;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.Assumption;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.RootNode;
+
+import jdk.vm.ci.meta.JavaConstant;
+
+/**
+ * Tests that a compilation is cancelled if an assumption it depends on is invalidated while it is
+ * partially evaluated, and that the compilation can be retried with the encoded graphs cached by
+ * the cancelled one.
+ */
+public class CancelledCompilationTest {
+
+    private static final class CallerRootNode extends RootNode {
+
+        private final Assumption assumption;
+        @Child private DirectCallNode callNode;
+
+        private CallerRootNode(Assumption assumption, RootCallTarget callee) {
+            super(null);
+            this.assumption = assumption;
+            this.callNode = Truffle.getRuntime().createDirectCallNode(callee);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            if (assumption.isValid()) {
+                return callNode.call(frame.getArguments());
+            }
+            return -1;
+        }
+    }
+
+    private static final class CalleeRootNode extends RootNode {
+
+        private CalleeRootNode() {
+            super(null);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            return 42;
+        }
+    }
+
+    /**
+     * Invalidates the assumption when partial evaluation asks whether to inline the callee, that
+     * is, after the assumption was recorded in the graph.
+     */
+    private static final class InvalidatingInliningPlan implements TruffleInliningPlan {
+
+        private final TruffleInliningPlan delegate;
+        private final Assumption assumption;
+
+        private InvalidatingInliningPlan(TruffleInliningPlan delegate, Assumption assumption) {
+            this.delegate = delegate;
+            this.assumption = assumption;
+        }
+
+        @Override
+        public Decision findDecision(JavaConstant callNode) {
+            assumption.invalidate();
+            try {
+                /* Assumptions are checked at most every 10ms during the compilation. */
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            return delegate.findDecision(callNode);
+        }
+
+        @Override
+        public SourceLanguagePosition getPosition(JavaConstant node) {
+            return delegate.getPosition(node);
+        }
+    }
+
+    private static final String MISSES = "EncodedGraphCacheMisses";
+
+    @Test
+    public void testAssumptionInvalidatedDuringCompilation() {
+        GraalTruffleRuntime runtime = GraalTruffleRuntime.getRuntime();
+        Assumption assumption = runtime.createAssumption("test");
+        RootCallTarget callee = runtime.createCallTarget(new CalleeRootNode());
+        OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new CallerRootNode(assumption, callee));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(42, target.call());
+        }
+
+        TruffleCompilerImpl compiler = (TruffleCompilerImpl) runtime.newTruffleCompiler();
+        try (DebugContext debug = createDebugContext()) {
+            TruffleInliningPlan inliningPlan = new InvalidatingInliningPlan(new TruffleInlining(target, new DefaultInliningPolicy()), assumption);
+            compiler.compileAST(debug, target, inliningPlan, compiler.getCompilationIdentifier(target), null, null);
+            Assert.fail("compilation should have been cancelled");
+        } catch (CancellationBailoutException e) {
+            Assert.assertFalse(e.isPermanent());
+        }
+        Assert.assertFalse(assumption.isValid());
+        Assert.assertFalse(target.isValid());
+
+        long retryMisses = compile(compiler, target);
+        Assert.assertTrue(target.isValid());
+        Assert.assertEquals(-1, target.call());
+
+        /*
+         * The cancellation must not purge the encoded graph cache: the retry reuses the graphs
+         * decoded before the cancellation and misses fewer graphs than a compilation with a new
+         * cache.
+         */
+        target.invalidate(this, "test");
+        long freshMisses = compile((TruffleCompilerImpl) runtime.newTruffleCompiler(), target);
+        Assert.assertTrue(target.isValid());
+        Assert.assertTrue("retry: " + retryMisses + " misses, new cache: " + freshMisses + " misses", retryMisses < freshMisses);
+    }
+
+    private static long compile(TruffleCompilerImpl compiler, OptimizedCallTarget target) {
+        try (DebugContext debug = createDebugContext()) {
+            CompilationIdentifier compilationId = compiler.getCompilationIdentifier(target);
+            compiler.compileAST(debug, target, new TruffleInlining(target, new DefaultInliningPolicy()), compilationId, null, null);
+            return DebugContext.counter(MISSES).getCurrentValue(debug);
+        }
+    }
+
+    private static DebugContext createDebugContext() {
+        OptionValues options = new OptionValues(TruffleCompilerOptions.getOptions(), DebugOptions.Counters, MISSES);
+        return DebugContext.create(options, DebugHandlersFactory.LOADER);
+    }
+}
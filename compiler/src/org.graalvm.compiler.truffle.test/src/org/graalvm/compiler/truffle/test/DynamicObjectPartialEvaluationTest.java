@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import org.graalvm.compiler.truffle.test.nodes.AbstractTestNode;
+import org.graalvm.compiler.truffle.test.nodes.RootTestNode;
+import org.junit.Test;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.DynamicObjectFactory;
+import com.oracle.truffle.api.object.FinalLocationException;
+import com.oracle.truffle.api.object.IncompatibleLocationException;
+import com.oracle.truffle.api.object.Layout;
+import com.oracle.truffle.api.object.Location;
+import com.oracle.truffle.api.object.ObjectType;
+import com.oracle.truffle.api.object.Shape;
+
+public class DynamicObjectPartialEvaluationTest extends PartialEvaluationTest {
+
+    private static final int PROPERTY_COUNT = 8;
+
+    public static Object constant42() {
+        return 42;
+    }
+
+    static final class AllocateAndStoreNode extends AbstractTestNode {
+
+        private final Shape shape;
+        private final DynamicObjectFactory factory;
+        @CompilationFinal(dimensions = 1) private final Location[] locations;
+
+        AllocateAndStoreNode(Shape shape) {
+            this.shape = shape;
+            this.factory = shape.createFactory();
+            this.locations = new Location[PROPERTY_COUNT];
+            for (int i = 0; i < PROPERTY_COUNT; i++) {
+                locations[i] = shape.getProperty("p" + i).getLocation();
+            }
+        }
+
+        @ExplodeLoop
+        @Override
+        public int execute(VirtualFrame frame) {
+            DynamicObject object = factory.newInstance(0, 0, 0, 0, 0, 0, 0, 0);
+            try {
+                locations[0].set(object, 40, shape);
+                locations[PROPERTY_COUNT - 1].set(object, 2, shape);
+            } catch (IncompatibleLocationException | FinalLocationException e) {
+                CompilerDirectives.transferToInterpreter();
+                throw new AssertionError(e);
+            }
+            int sum = 0;
+            for (int i = 0; i < PROPERTY_COUNT; i++) {
+                sum += (int) locations[i].get(object, shape);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Objects are allocated with extension arrays sized from the allocation site feedback of their
+     * root shape. The feedback must not prevent escape analysis from removing a new object.
+     */
+    @Test
+    public void allocateWithAllocationSiteFeedback() {
+        Shape rootShape = Layout.createLayout().createShape(new ObjectType());
+        Shape shape = rootShape;
+        for (int i = 0; i < PROPERTY_COUNT; i++) {
+            shape = shape.defineProperty("p" + i, 0, 0);
+        }
+
+        // grow an object of the same root shape beyond the properties of the factory shape
+        DynamicObject grown = rootShape.newInstance();
+        for (int i = 0; i < PROPERTY_COUNT + 4; i++) {
+            grown.define("p" + i, i);
+        }
+
+        RootTestNode rootNode = new RootTestNode(new FrameDescriptor(), "allocateWithAllocationSiteFeedback", new AllocateAndStoreNode(shape));
+        assertPartialEvalEquals("constant42", rootNode);
+    }
+}
@@ -29,6 +29,7 @@ import java.lang.reflect.Field;
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
 import com.oracle.truffle.api.frame.FrameSlotKind;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -87,4 +88,29 @@ public class NewFrameNodeTest extends PartialEvaluationTest {
         Assert.assertEquals(version, fd.getVersion());
         Assert.assertTrue(version.isValid());
     }
+
+    @Test
+    public void foldedSlotKindInvalidatesOnlyOnItsOwnKindChange() {
+        final FrameDescriptor fd = new FrameDescriptor();
+        final FrameSlot read = fd.addFrameSlot("read", FrameSlotKind.Int);
+        final FrameSlot unread = fd.addFrameSlot("unread", FrameSlotKind.Int);
+
+        final RootTestNode rootNode = new RootTestNode(fd, "foldedSlotKind", new AbstractTestNode() {
+            @Override
+            public int execute(VirtualFrame frame) {
+                return fd.getFrameSlotKind(read) == FrameSlotKind.Int ? 42 : 41;
+            }
+        });
+
+        final OptimizedCallTarget callTarget = compileHelper("foldedSlotKind", rootNode, new Object[]{});
+        Assert.assertTrue(callTarget.isValid());
+        Assert.assertEquals(42, callTarget.call());
+
+        fd.setFrameSlotKind(unread, FrameSlotKind.Long);
+        Assert.assertTrue(callTarget.isValid());
+
+        fd.setFrameSlotKind(read, FrameSlotKind.Long);
+        Assert.assertFalse(callTarget.isValid());
+        Assert.assertEquals(41, callTarget.call());
+    }
 }
@@ -38,6 +38,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.lang.reflect.Field;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -45,8 +46,10 @@ import org.graalvm.compiler.core.common.util.Util;
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions.TruffleOptionsOverrideScope;
 import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntimeListener;
 import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
 import org.graalvm.compiler.truffle.runtime.OptimizedOSRLoopNode;
+import org.graalvm.compiler.truffle.runtime.PolyglotCompilerOptions;
 import org.graalvm.compiler.truffle.test.nodes.AbstractTestNode;
 import org.graalvm.compiler.truffle.test.nodes.ConstantTestNode;
 import org.graalvm.compiler.truffle.test.nodes.RootTestNode;
@@ -266,6 +269,114 @@ public class OptimizedCallTargetTest extends TestWithSynchronousCompiling {
         }
     }
 
+    @Test
+    public void testInvalidationStormBackoff() {
+        try (TruffleOptionsOverrideScope s = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleCompilationThreshold, 10)) {
+            final int compilationThreshold = TruffleCompilerOptions.getValue(TruffleCompilationThreshold);
+            final int stormThreshold = PolyglotCompilerOptions.InvalidationStormThreshold.getDefaultValue();
+            final AtomicInteger storms = new AtomicInteger();
+            GraalTruffleRuntimeListener listener = new GraalTruffleRuntimeListener() {
+                @Override
+                public void onCompilationInvalidationStorm(OptimizedCallTarget target, Object source, int invalidations, boolean dependents) {
+                    assertFalse(dependents);
+                    storms.incrementAndGet();
+                }
+            };
+            runtime.addListener(listener);
+            try {
+                OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), "testInvalidationStormBackoff", new ConstantTestNode(42)));
+                for (int i = 0; i < compilationThreshold; i++) {
+                    target.call();
+                }
+                assertCompiled(target);
+
+                // code that is invalidated right away is recompiled right away at first
+                for (int i = 1; i < stormThreshold; i++) {
+                    target.invalidate(this, "test");
+                    target.call();
+                    assertCompiled(target);
+                }
+                assertEquals(0, storms.get());
+
+                // then the recompilation delay doubles with every invalidation
+                int delay = compilationThreshold;
+                for (int storm = 1; storm <= 3; storm++) {
+                    target.invalidate(this, "test");
+                    for (int i = 0; i < delay; i++) {
+                        assertNotCompiled(target);
+                        target.call();
+                    }
+                    assertCompiled(target);
+                    assertEquals(storm, storms.get());
+                    delay *= 2;
+                }
+            } finally {
+                runtime.removeListener(listener);
+            }
+        }
+    }
+
+    @Test
+    public void testDeoptimizationStormBackoff() {
+        try (TruffleOptionsOverrideScope s = TruffleCompilerOptions.overrideOptions(TruffleCompilerOptions.TruffleCompilationThreshold, 10)) {
+            final int compilationThreshold = TruffleCompilerOptions.getValue(TruffleCompilationThreshold);
+            final int stormThreshold = PolyglotCompilerOptions.InvalidationStormThreshold.getDefaultValue();
+            final AtomicInteger storms = new AtomicInteger();
+            final AtomicInteger compilations = new AtomicInteger();
+            GraalTruffleRuntimeListener listener = new GraalTruffleRuntimeListener() {
+                @Override
+                public void onCompilationStarted(OptimizedCallTarget target) {
+                    compilations.incrementAndGet();
+                }
+
+                @Override
+                public void onCompilationInvalidationStorm(OptimizedCallTarget target, Object source, int invalidations, boolean dependents) {
+                    assertFalse(dependents);
+                    storms.incrementAndGet();
+                }
+            };
+            runtime.addListener(listener);
+            try {
+                // the compiled code invalidates itself on every call
+                OptimizedCallTarget target = (OptimizedCallTarget) runtime.createCallTarget(new RootTestNode(new FrameDescriptor(), "testDeoptimizationStormBackoff", new AbstractTestNode() {
+                    @Override
+                    public int execute(VirtualFrame frame) {
+                        if (CompilerDirectives.inCompiledCode()) {
+                            CompilerDirectives.transferToInterpreterAndInvalidate();
+                        }
+                        return 42;
+                    }
+                }));
+                for (int i = 0; i < compilationThreshold; i++) {
+                    target.call();
+                }
+                assertEquals(1, compilations.get());
+                assertNotCompiled(target);
+
+                // code that deoptimizes right away is recompiled right away at first
+                for (int i = 1; i < stormThreshold; i++) {
+                    assertEquals(0, storms.get());
+                    target.call();
+                    assertEquals(i + 1, compilations.get());
+                    assertNotCompiled(target);
+                }
+                assertEquals(1, storms.get());
+
+                // then the next compilation is delayed
+                int compiled = compilations.get();
+                for (int i = 1; i < compilationThreshold; i++) {
+                    target.call();
+                    assertEquals(compiled, compilations.get());
+                }
+                target.call();
+                assertEquals(compiled + 1, compilations.get());
+                assertEquals(2, storms.get());
+            } finally {
+                runtime.removeListener(listener);
+            }
+        }
+    }
+
     @Test
     public void testCompileOnly1() {
         final int compilationThreshold = TruffleCompilerOptions.getValue(TruffleCompilationThreshold);
@@ -24,6 +24,13 @@
  */
 package org.graalvm.compiler.truffle.test;
 
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.graalvm.compiler.truffle.common.TruffleCompilerOptions;
 import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
 import org.graalvm.options.OptionDescriptor;
@@ -91,6 +98,71 @@ public class PolyglotEngineOptionsTest extends TestWithSynchronousCompiling {
         context.close();
     }
 
+    @Test
+    public void testMultiTier() {
+        Context context = Context.newBuilder("sl").option("compiler.MultiTier", "true").option("compiler.FirstTierCompilationThreshold", "5").option(COMPILATION_THRESHOLD_OPTION,
+                        "20").build();
+        context.enter();
+
+        context.eval("sl", "function test() {}");
+        SLFunction test = SLLanguage.getCurrentContext().getFunctionRegistry().getFunction("test");
+        OptimizedCallTarget target = (OptimizedCallTarget) test.getCallTarget();
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertFalse(isExecuteCompiled(test));
+            target.call();
+        }
+        // first tier
+        Assert.assertTrue(isExecuteCompiled(test));
+        Assert.assertTrue(target.getCompilationProfile().isFirstTierCompilation());
+        for (int i = 0; i < 20; i++) {
+            target.call();
+        }
+        // second tier
+        Assert.assertTrue(isExecuteCompiled(test));
+        Assert.assertFalse(target.getCompilationProfile().isFirstTierCompilation());
+
+        context.leave();
+        context.close();
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        Context context = Context.newBuilder("sl").option(COMPILATION_THRESHOLD_OPTION, "10").option("compiler.MetricsMBean", "true").build();
+        Map<String, Long> before = context.getEngine().getMetrics();
+        Assert.assertEquals(Long.valueOf(0), before.get("compilation.succeeded"));
+        context.enter();
+
+        context.eval("sl", "function test() {}");
+        SLFunction test = SLLanguage.getCurrentContext().getFunctionRegistry().getFunction("test");
+        for (int i = 0; i < 10; i++) {
+            test.getCallTarget().call();
+        }
+        Assert.assertTrue(isExecuteCompiled(test));
+
+        Map<String, Long> metrics = context.getEngine().getMetrics();
+        Assert.assertEquals(Long.valueOf(1), metrics.get("compilation.started"));
+        Assert.assertEquals(Long.valueOf(1), metrics.get("compilation.succeeded"));
+        Assert.assertEquals(Long.valueOf(0), metrics.get("compilation.failed"));
+        Assert.assertTrue(metrics.get("compilation.truffleTier.time.total") > 0);
+        Assert.assertTrue(metrics.get("compilation.graalTier.time.total") > 0);
+        Assert.assertTrue(metrics.get("compilation.codeSize.max") > 0);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> names = server.queryNames(new ObjectName("org.graalvm.compiler.truffle:type=CompilationMetrics,*"), null);
+        boolean found = false;
+        for (ObjectName name : names) {
+            if (Long.valueOf(1).equals(server.getAttribute(name, "compilation.succeeded")) && metrics.get("compilation.codeSize.total").equals(server.getAttribute(name, "compilation.codeSize.total"))) {
+                found = true;
+            }
+        }
+        Assert.assertTrue(found);
+
+        context.leave();
+        context.close();
+        Assert.assertTrue(server.queryNames(new ObjectName("org.graalvm.compiler.truffle:type=CompilationMetrics,*"), null).size() < names.size());
+    }
+
     private static boolean isExecuteCompiled(SLFunction value) {
         return ((OptimizedCallTarget) value.getCallTarget()).isValid();
     }
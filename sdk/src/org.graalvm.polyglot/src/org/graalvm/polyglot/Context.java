@@ -707,6 +707,10 @@ public final class Context implements AutoCloseable {
             return this;
         }
 
+        String[] getPermittedLanguages() {
+            return onlyLanguages;
+        }
+
         /**
          * Sets the standard output stream to be used for this context. If not set then the standard
          * output stream configured for the {@link #engine(Engine) engine} is used or standard error
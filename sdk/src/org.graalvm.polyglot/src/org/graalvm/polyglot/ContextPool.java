@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.polyglot;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A pool of pre-initialized {@link Context contexts} that allows to evaluate unrelated requests in
+ * isolated contexts without paying the costs of creating and initializing a context for every
+ * request. Contexts are {@link #acquire() acquired} from the pool, used for one request and then
+ * {@link #release(Context) released} to the pool again. On release the global state of all
+ * initialized languages of the context is reset, such that the next request cannot observe any
+ * state of the previous one. Contexts of languages that do not support to reset their state are
+ * closed instead of being reused.
+ * <p>
+ * Resetting a context does not invalidate the {@link Value values} that were obtained from it.
+ * Values must not be used after their context was released, as they would otherwise access the
+ * state of the next request.
+ * <p>
+ * Context pools are created using {@link Engine#createContextPool(Context.Builder, int)}. All
+ * contexts of a pool share the engine of the pool. Context pools are thread-safe.
+ *
+ * @see Engine#createContextPool(Context.Builder, int)
+ * @since 1.0
+ */
+public final class ContextPool implements AutoCloseable {
+
+    private final Context.Builder builder;
+    private final String[] initializeLanguages;
+    private final int maxIdleContexts;
+    private final ArrayDeque<Context> idleContexts = new ArrayDeque<>();
+    private final Set<Context> acquiredContexts = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean closed;
+
+    ContextPool(Context.Builder builder, int maxIdleContexts) {
+        this.builder = builder;
+        this.initializeLanguages = builder.getPermittedLanguages();
+        this.maxIdleContexts = maxIdleContexts;
+        for (int i = 0; i < maxIdleContexts; i++) {
+            idleContexts.add(createContext());
+        }
+    }
+
+    /**
+     * Returns an idle context of the pool or creates a new one if there is no idle context. The
+     * returned context must be {@link #release(Context) released} after use.
+     *
+     * @throws IllegalStateException if the pool is already closed.
+     * @since 1.0
+     */
+    public Context acquire() {
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("The context pool is already closed.");
+            }
+            Context context = idleContexts.pollFirst();
+            if (context != null) {
+                acquiredContexts.add(context);
+                return context;
+            }
+        }
+        Context context = createContext();
+        synchronized (this) {
+            acquiredContexts.add(context);
+        }
+        return context;
+    }
+
+    /**
+     * Returns a context that was {@link #acquire() acquired} from this pool. The global state of
+     * all initialized languages of the context is reset before it is handed out again. The context
+     * is closed instead if a language does not support to reset its state, if the context is still
+     * entered or executing on any other thread, if the pool already has enough idle contexts or if
+     * the pool is closed. Executions on other threads are {@link Context#close(boolean) cancelled}
+     * before the context is closed. The context and all values obtained from it must not be used
+     * after it was released.
+     *
+     * @throws PolyglotException in case the reset failed due to a guest language error.
+     * @throws IllegalArgumentException if the context was not acquired from this pool or was
+     *             already released.
+     * @throws IllegalStateException if the context is still explicitly entered on the current
+     *             thread. The context is not released in that case.
+     * @since 1.0
+     */
+    public void release(Context context) {
+        Objects.requireNonNull(context);
+        synchronized (this) {
+            if (!acquiredContexts.remove(context)) {
+                throw new IllegalArgumentException("The context was not acquired from this pool or was already released.");
+            }
+        }
+        boolean reused = false;
+        try {
+            reused = context.impl.reset(context) && offer(context);
+        } finally {
+            if (!reused) {
+                boolean released = false;
+                try {
+                    context.close(true);
+                    released = true;
+                } finally {
+                    if (!released) {
+                        synchronized (this) {
+                            acquiredContexts.add(context);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized boolean offer(Context context) {
+        if (closed || idleContexts.size() >= maxIdleContexts) {
+            return false;
+        }
+        idleContexts.addFirst(context);
+        return true;
+    }
+
+    /**
+     * Closes all idle contexts of the pool. Contexts that are currently acquired are closed when
+     * they are {@link #release(Context) released}. Closing the pool does not close its engine.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void close() {
+        Context[] contexts;
+        synchronized (this) {
+            closed = true;
+            contexts = idleContexts.toArray(new Context[idleContexts.size()]);
+            idleContexts.clear();
+        }
+        for (Context context : contexts) {
+            context.close();
+        }
+    }
+
+    private Context createContext() {
+        Context context;
+        synchronized (builder) {
+            context = builder.build();
+        }
+        for (String language : initializeLanguages) {
+            context.initialize(language);
+        }
+        return context;
+    }
+
+}
@@ -208,6 +208,39 @@ public final class Engine implements AutoCloseable {
         return impl.getImplementationName();
     }
 
+    /**
+     * Returns a snapshot of the metrics that the runtime collects for this engine, e.g., about the
+     * compilation of guest language code. The metrics are returned by name, in a stable order.
+     * Counts are cumulative since the engine was created, times are in nanoseconds and sizes in
+     * bytes. The available metrics depend on the runtime and may change without notice. The
+     * returned map is unmodifiable and empty if the runtime does not collect any metrics.
+     *
+     * @since 1.0
+     */
+    public Map<String, Long> getMetrics() {
+        return impl.getMetrics();
+    }
+
+    /**
+     * Creates a {@link ContextPool pool} of contexts that are built with the given context builder
+     * and use this engine. The builder is configured to use this engine and must not be modified
+     * afterwards. The pool is filled with <code>maxIdleContexts</code> contexts eagerly. If the
+     * builder restricts the permitted languages, the permitted languages are initialized in every
+     * context before it is handed out.
+     *
+     * @param contextBuilder the builder to create the contexts of the pool with
+     * @param maxIdleContexts the maximum number of idle contexts the pool keeps for reuse
+     * @throws IllegalArgumentException if <code>maxIdleContexts</code> is negative.
+     * @since 1.0
+     */
+    public ContextPool createContextPool(Context.Builder contextBuilder, int maxIdleContexts) {
+        Objects.requireNonNull(contextBuilder);
+        if (maxIdleContexts < 0) {
+            throw new IllegalArgumentException("The maximum number of idle contexts must not be negative.");
+        }
+        return new ContextPool(contextBuilder.engine(this), maxIdleContexts);
+    }
+
     /**
      * Creates a new engine instance with default configuration. The engine is constructed with the
      * same configuration as it will be as when constructed implicitly using the context builder.
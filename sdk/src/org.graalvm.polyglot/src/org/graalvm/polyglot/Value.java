@@ -157,6 +157,61 @@ public final class Value {
         impl.setArrayElement(receiver, index, value);
     }
 
+    /**
+     * Reads the array elements from <code>index</code> to <code>index + length - 1</code> into a
+     * primitive Java array or a {@link java.nio.Buffer buffer} with a single call. This is much
+     * faster than reading the elements one by one using {@link #getArrayElement(long)}, in
+     * particular for host arrays with the same element type as the target. The target may be an
+     * array of any primitive type or a {@link java.nio.ByteBuffer}, {@link java.nio.CharBuffer},
+     * {@link java.nio.ShortBuffer}, {@link java.nio.IntBuffer}, {@link java.nio.LongBuffer},
+     * {@link java.nio.FloatBuffer} or {@link java.nio.DoubleBuffer}. Elements are stored at
+     * absolute indices of the target, starting with <code>targetOffset</code>; the position of a
+     * target buffer is not changed. Every element must be convertible to the element type of the
+     * target without loss of precision.
+     *
+     * @throws ArrayIndexOutOfBoundsException if one of the array indices does not exist. The
+     *             elements before it are already stored in the target.
+     * @throws UnsupportedOperationException if the value does not have any
+     *             {@link #hasArrayElements() array elements} or if one of the elements is not
+     *             readable.
+     * @throws ClassCastException if an element cannot be converted to the element type of the
+     *             target.
+     * @throws IllegalArgumentException if the target is not a primitive array or buffer.
+     * @throws IndexOutOfBoundsException if the range does not fit into the target.
+     * @throws IllegalStateException if the context is already closed.
+     * @throws PolyglotException if a guest language error occurred during execution.
+     * @since 1.0
+     */
+    public void getArrayElements(long index, Object target, int targetOffset, int length) {
+        impl.getArrayElements(receiver, index, target, targetOffset, length);
+    }
+
+    /**
+     * Sets the array elements from <code>index</code> to <code>index + length - 1</code> to the
+     * values of a primitive Java array or a {@link java.nio.Buffer buffer} with a single call. This
+     * is much faster than setting the elements one by one using
+     * {@link #setArrayElement(long, Object)}, in particular for host arrays with the same element
+     * type as the source. The supported sources are the same as for
+     * {@link #getArrayElements(long, Object, int, int)}. Elements are taken from absolute indices
+     * of the source, starting with <code>sourceOffset</code>; the position of a source buffer is
+     * not changed.
+     *
+     * @throws ArrayIndexOutOfBoundsException if one of the array indices does not exist. The
+     *             elements before it are already set.
+     * @throws UnsupportedOperationException if the value does not have any
+     *             {@link #hasArrayElements() array elements} or if one of the elements is not
+     *             modifiable.
+     * @throws ClassCastException if an element of the source is not accepted by the array.
+     * @throws IllegalArgumentException if the source is not a primitive array or buffer.
+     * @throws IndexOutOfBoundsException if the range does not fit into the source.
+     * @throws IllegalStateException if the context is already closed.
+     * @throws PolyglotException if a guest language error occurred during execution.
+     * @since 1.0
+     */
+    public void setArrayElements(long index, Object source, int sourceOffset, int length) {
+        impl.setArrayElements(receiver, index, source, sourceOffset, length);
+    }
+
     /**
      * Removes an array element at a given index. Returns <code>true</code> if the underlying array
      * element could be removed, otherwise <code>false</code>.
@@ -317,6 +317,8 @@ public abstract class AbstractPolyglotImpl {
         public abstract Value getBindings(String language);
 
         public abstract Value getPolyglotBindings();
+
+        public abstract boolean reset(Context sourceContext);
     }
 
     public abstract static class AbstractEngineImpl {
@@ -347,6 +349,8 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract String getImplementationName();
 
+        public abstract Map<String, Long> getMetrics();
+
     }
 
     public abstract static class AbstractExceptionImpl {
@@ -477,6 +481,22 @@ public abstract class AbstractPolyglotImpl {
             throw unsupported(receiver, "setArrayElement(long, Object)", "hasArrayElements()");
         }
 
+        public void getArrayElements(Object receiver, long index, Object target, int targetOffset, int length) {
+            getArrayElementsUnsupported(receiver);
+        }
+
+        public final void getArrayElementsUnsupported(Object receiver) {
+            throw unsupported(receiver, "getArrayElements(long, Object, int, int)", "hasArrayElements()");
+        }
+
+        public void setArrayElements(Object receiver, long index, Object source, int sourceOffset, int length) {
+            setArrayElementsUnsupported(receiver);
+        }
+
+        public final void setArrayElementsUnsupported(Object receiver) {
+            throw unsupported(receiver, "setArrayElements(long, Object, int, int)", "hasArrayElements()");
+        }
+
         public boolean removeArrayElement(Object receiver, long index) {
             return removeArrayElementUnsupported(receiver);
         }
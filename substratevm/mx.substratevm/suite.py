@@ -268,6 +268,19 @@ suite = {
             "findbugs": "false",
         },
 
+        "com.oracle.svm.hosted.test": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "com.oracle.svm.hosted",
+                "mx:JUNIT",
+            ],
+            "checkstyle": "com.oracle.svm.core",
+            "workingSets": "SVM",
+            "javaCompliance": "8+",
+            "findbugs": "false",
+        },
+
         "com.oracle.svm.reflect": {
             "subDir": "src",
             "sourceDirs": ["src"],
@@ -620,6 +633,20 @@ suite = {
           "testDistribution" : True,
         },
 
+        "SVM_HOSTED_TESTS" : {
+          "relpath" : True,
+          "dependencies" : [
+            "com.oracle.svm.hosted.test",
+          ],
+          "distDependencies": [
+            "SVM",
+          ],
+          "exclude": [
+            "mx:JUNIT",
+          ],
+          "testDistribution" : True,
+        },
+
         "POLYGLOT_NATIVE_API" : {
             "dependencies": [
                 "org.graalvm.polyglot.nativeapi",
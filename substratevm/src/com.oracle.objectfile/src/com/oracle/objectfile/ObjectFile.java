@@ -1581,20 +1581,26 @@ public abstract class ObjectFile {
     }
 
     public void writeBuffer(List<Element> sortedObjectFileElements, ByteBuffer out) {
-        /* Emit each one! */
-        for (Element e : sortedObjectFileElements) {
-            int off = (int) decisionsTaken.get(e).getDecision(LayoutDecision.Kind.OFFSET).getValue();
-            assert off != Integer.MAX_VALUE; // not allowed any more -- this was a broken approach
-            out.position(off);
-            int expectedSize = (int) decisionsTaken.get(e).getDecidedValue(LayoutDecision.Kind.SIZE);
-            byte[] content = (byte[]) decisionsTaken.get(e).getDecidedValue(LayoutDecision.Kind.CONTENT);
-            out.put(content);
-            int emittedSize = out.position() - off;
-            assert emittedSize >= 0;
-            if (emittedSize != expectedSize) {
-                throw new IllegalStateException("For element " + e + ", expected size " + expectedSize + " but emitted size " + emittedSize);
-            }
-
+        /*
+         * Emit each one! Once all offsets are decided, every element occupies its own disjoint range
+         * of the output, so the (potentially very large) section contents can be copied in
+         * parallel. Each element writes through its own view of the buffer so that positions are
+         * not shared between threads.
+         */
+        sortedObjectFileElements.parallelStream().forEach(e -> writeElement(e, out.duplicate()));
+    }
+
+    private void writeElement(Element e, ByteBuffer out) {
+        int off = (int) decisionsTaken.get(e).getDecision(LayoutDecision.Kind.OFFSET).getValue();
+        assert off != Integer.MAX_VALUE; // not allowed any more -- this was a broken approach
+        out.position(off);
+        int expectedSize = (int) decisionsTaken.get(e).getDecidedValue(LayoutDecision.Kind.SIZE);
+        byte[] content = (byte[]) decisionsTaken.get(e).getDecidedValue(LayoutDecision.Kind.CONTENT);
+        out.put(content);
+        int emittedSize = out.position() - off;
+        assert emittedSize >= 0;
+        if (emittedSize != expectedSize) {
+            throw new IllegalStateException("For element " + e + ", expected size " + expectedSize + " but emitted size " + emittedSize);
         }
     }
 
@@ -251,13 +251,37 @@ public class ELFRelocationSection extends ELFSection {
 
     @Override
     public byte[] getOrDecideContent(Map<Element, LayoutDecisionMap> alreadyDecided, byte[] contentHint) {
-        /* We blat out our list of relocation records. */
-        OutputAssembler oa = AssemblyBuffer.createOutputAssembler(ByteBuffer.allocate(entries.size() * new EntryStruct().getWrittenSize()).order(getOwner().getByteOrder()));
+        /*
+         * We blat out our list of relocation records as one batch: the records are written straight
+         * into a buffer of the exact final size, reusing a single EntryStruct, so that neither
+         * per-record objects nor a final copy of the blob are needed. Entries are sorted by offset
+         * and therefore tend to come in runs against the same section and symbol, so the last
+         * lookups are cached.
+         */
+        int entrySize = getEntrySize();
+        byte[] content = new byte[entries.size() * entrySize];
+        OutputAssembler oa = AssemblyBuffer.createOutputAssembler(ByteBuffer.wrap(content).order(getOwner().getByteOrder()));
+        EntryStruct struct = new EntryStruct();
+        ELFSection lastSection = null;
+        long lastSectionVaddr = 0;
+        ELFSymtab.Entry lastSym = null;
+        int lastSymIndex = -1;
         for (Entry ent : entries.keySet()) {
-            long offset = !isDynamic() ? ent.offset : (int) alreadyDecided.get(ent.section).getDecidedValue(LayoutDecision.Kind.VADDR) + ent.offset;
-            long info;
-            int symIndex = syms.indexOf(ent.sym);
+            long offset = ent.offset;
+            if (isDynamic()) {
+                if (ent.section != lastSection) {
+                    lastSection = ent.section;
+                    lastSectionVaddr = (int) alreadyDecided.get(ent.section).getDecidedValue(LayoutDecision.Kind.VADDR);
+                }
+                offset += lastSectionVaddr;
+            }
+            if (ent.sym != lastSym) {
+                lastSym = ent.sym;
+                lastSymIndex = syms.indexOf(ent.sym);
+            }
+            int symIndex = lastSymIndex;
             assert symIndex >= 0 : "symbol not found";
+            long info;
             switch (getOwner().getFileClass()) {
                 case ELFCLASS32:
                     info = ((symIndex << 8) & 0xffffffffL) + (ent.t.toLong() & 0xffL);
@@ -268,10 +292,13 @@ public class ELFRelocationSection extends ELFSection {
                 default:
                     throw new RuntimeException(getOwner().getFileClass().toString());
             }
-            long addend = ent.addend;
-            new EntryStruct(offset, info, addend).write(oa);
+            struct.offset = offset;
+            struct.info = info;
+            struct.addend = withExplicitAddends ? ent.addend : 0L;
+            struct.write(oa);
         }
-        return oa.getBlob();
+        assert oa.pos() == content.length;
+        return content;
     }
 
     @Override
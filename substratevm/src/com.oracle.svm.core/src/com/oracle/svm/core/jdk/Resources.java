@@ -31,10 +31,14 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.Platform;
@@ -49,11 +53,63 @@ import com.oracle.svm.core.util.VMError;
  *
  * Registered resources are then available from {@link DynamicHub#getResource classes} and
  * {@link Target_java_lang_ClassLoader class loaders}.
+ *
+ * Large resources can be stored compressed in the image heap (see
+ * {@link ResourcesFeature.Options#CompressResourcesLargerThan}). They are decompressed on first
+ * access, so resources that are never used at run time do not cost more than their compressed
+ * size.
  */
 public final class Resources {
 
     static class ResourcesSupport {
-        final Map<String, List<byte[]>> resources = new HashMap<>();
+        final Map<String, ResourceList> resources = new HashMap<>();
+    }
+
+    /** The contents of one resource, possibly compressed. */
+    static final class ResourceData {
+        private final byte[] compressed;
+        private final int length;
+        /** Volatile so that a lazily inflated array is only seen with its contents. */
+        private volatile byte[] data;
+
+        ResourceData(byte[] data) {
+            this.compressed = null;
+            this.length = data.length;
+            this.data = data;
+        }
+
+        ResourceData(byte[] compressed, int length) {
+            this.compressed = compressed;
+            this.length = length;
+        }
+
+        byte[] getData() {
+            byte[] result = data;
+            if (result == null) {
+                /*
+                 * Concurrent first accesses may each inflate the resource. One of the arrays wins,
+                 * all of them have the same contents.
+                 */
+                result = inflate(compressed, length);
+                data = result;
+            }
+            return result;
+        }
+    }
+
+    /** The resources registered for one name, decompressed lazily on access. */
+    static final class ResourceList extends AbstractList<byte[]> {
+        final List<ResourceData> entries = new ArrayList<>();
+
+        @Override
+        public byte[] get(int index) {
+            return entries.get(index).getData();
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
     }
 
     private Resources() {
@@ -91,12 +147,54 @@ public final class Resources {
         byte[] res = new byte[pos];
         System.arraycopy(arr, 0, res, 0, pos);
 
-        List<byte[]> list = support.resources.get(name);
+        ResourceList list = support.resources.get(name);
         if (list == null) {
-            list = new ArrayList<>();
+            list = new ResourceList();
             support.resources.put(name, list);
         }
-        list.add(res);
+        list.entries.add(createData(res));
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    private static ResourceData createData(byte[] data) {
+        int threshold = ResourcesFeature.Options.CompressResourcesLargerThan.getValue();
+        if (threshold <= 0 || data.length <= threshold) {
+            return new ResourceData(data);
+        }
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[data.length];
+            int compressedLength = deflater.deflate(buffer);
+            if (!deflater.finished() || compressedLength >= data.length) {
+                /* Incompressible: the compressed form would not be smaller. */
+                return new ResourceData(data);
+            }
+            byte[] compressed = new byte[compressedLength];
+            System.arraycopy(buffer, 0, compressed, 0, compressedLength);
+            return new ResourceData(compressed, data.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] result = new byte[length];
+            int pos = 0;
+            while (pos < length && !inflater.finished()) {
+                pos += inflater.inflate(result, pos, length - pos);
+            }
+            VMError.guarantee(pos == length, "Compressed resource has the wrong length");
+            return result;
+        } catch (DataFormatException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        } finally {
+            inflater.end();
+        }
     }
 
     public static List<byte[]> get(String name) {
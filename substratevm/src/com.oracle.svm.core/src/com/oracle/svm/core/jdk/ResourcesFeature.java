@@ -54,6 +54,9 @@ public final class ResourcesFeature implements Feature {
     public static class Options {
         @Option(help = "Regexp to match names of resources to be included in the image.", type = OptionType.User)//
         public static final HostedOptionKey<String> IncludeResources = new HostedOptionKey<>("");
+
+        @Option(help = "Store resources larger than the given number of bytes compressed in the image, and decompress them on first access. 0 disables compression.")//
+        public static final HostedOptionKey<Integer> CompressResourcesLargerThan = new HostedOptionKey<>(0);
     }
 
     @Override
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.oracle.svm.hosted.image.CallChainClustering;
+
+public class CallChainClusteringTest {
+
+    private static CallChainClustering<String> createCallChain(int clusterSizeLimit) {
+        CallChainClustering<String> clustering = new CallChainClustering<>(clusterSizeLimit);
+        for (String method : new String[]{"cold", "unrelated", "b", "a", "main"}) {
+            clustering.addMethod(method, 16);
+        }
+        clustering.addCall("main", "a");
+        clustering.addCall("a", "b");
+        clustering.setHotness("main", 10);
+        clustering.setHotness("a", 8);
+        clustering.setHotness("b", 6);
+        clustering.setHotness("unrelated", 7);
+        clustering.setCold("cold");
+        return clustering;
+    }
+
+    @Test
+    public void testCalleesFollowCallers() {
+        assertEquals(Arrays.asList("main", "a", "b", "unrelated", "cold"), createCallChain(64).computeOrder());
+    }
+
+    @Test
+    public void testComputeOrderTwice() {
+        CallChainClustering<String> clustering = createCallChain(64);
+        assertEquals(clustering.computeOrder(), clustering.computeOrder());
+
+        StringWriter report = new StringWriter();
+        clustering.printReport(new PrintWriter(report), method -> method);
+        /* One header line and one line per method. */
+        assertEquals(6, report.toString().split("\\R").length);
+    }
+
+    @Test
+    public void testClusterSizeLimit() {
+        assertEquals(Arrays.asList("main", "a", "unrelated", "b", "cold"), createCallChain(32).computeOrder());
+    }
+
+    @Test
+    public void testCallSiteCount() {
+        CallChainClustering<String> clustering = new CallChainClustering<>(64);
+        for (String method : new String[]{"a", "b", "c", "x", "y"}) {
+            clustering.addMethod(method, 16);
+        }
+        clustering.addCall("a", "x");
+        clustering.addCall("a", "x");
+        clustering.addCall("a", "x");
+        clustering.addCall("b", "y");
+        clustering.addCall("c", "y");
+        assertEquals(3, clustering.getCallSiteCount("x"));
+        assertEquals(2, clustering.getCallSiteCount("y"));
+        assertEquals(0, clustering.getCallSiteCount("a"));
+    }
+
+    private static CallChainClustering<String> createSharedCallee() {
+        CallChainClustering<String> clustering = new CallChainClustering<>(64);
+        for (String method : new String[]{"hot", "warm", "shared"}) {
+            clustering.addMethod(method, 16);
+        }
+        clustering.addCall("hot", "shared");
+        clustering.addCall("warm", "shared");
+        clustering.addCall("warm", "shared");
+        clustering.setHotness("hot", 100);
+        clustering.setHotness("warm", 10);
+        clustering.setHotness("shared", 50);
+        return clustering;
+    }
+
+    @Test
+    public void testMostCallSites() {
+        assertEquals(Arrays.asList("hot", "warm", "shared"), createSharedCallee().computeOrder());
+    }
+
+    @Test
+    public void testCallsWeighedByCallerHotness() {
+        CallChainClustering<String> clustering = createSharedCallee();
+        clustering.weighCallsByCallerHotness();
+        assertEquals(Arrays.asList("hot", "shared", "warm"), clustering.computeOrder());
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * A summary of the classes on the image class path that is computed by parsing class files
+ * instead of loading them: class names, super types and the runtime-visible annotations of
+ * classes and their members. It allows {@link ImageClassLoader} to load only the classes that a
+ * query can actually match.
+ *
+ * The summaries of jar files are cached in a directory, keyed by a hash of the jar contents, so
+ * that unchanged jars are not parsed again by later image builds. Directories are always parsed
+ * because their contents typically change between builds.
+ */
+final class ClassPathIndex {
+
+    private static final int CACHE_FORMAT_VERSION = 1;
+    private static final String CLASS_SUFFIX = ".class";
+
+    /** The summary of one class file. Type names use the {@link Class#getName()} format. */
+    static final class Entry {
+        final String name;
+        final String superName;
+        final String[] interfaceNames;
+        final boolean isAnnotation;
+        /** The annotation types present on the class. */
+        final Set<String> classAnnotations;
+        /** The annotation types present on any of the declared fields or methods. */
+        final Set<String> memberAnnotations;
+
+        Entry(String name, String superName, String[] interfaceNames, boolean isAnnotation, Set<String> classAnnotations, Set<String> memberAnnotations) {
+            this.name = name;
+            this.superName = superName;
+            this.interfaceNames = interfaceNames;
+            this.isAnnotation = isAnnotation;
+            this.classAnnotations = classAnnotations;
+            this.memberAnnotations = memberAnnotations;
+        }
+    }
+
+    private final Path cacheDirectory;
+
+    ClassPathIndex(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the summaries of all classes in a jar file or directory. Subdirectories contained in
+     * {@code excludes} are not visited.
+     */
+    List<Entry> scan(Path path, Set<Path> excludes) throws IOException {
+        if (Files.isDirectory(path)) {
+            return scanDirectory(path, excludes);
+        }
+        String hash = contentHash(path);
+        Path cacheFile = cacheDirectory.resolve(hash + ".idx");
+        if (Files.isRegularFile(cacheFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+                List<Entry> cached = readEntries(in);
+                if (cached != null) {
+                    return cached;
+                }
+            } catch (IOException ex) {
+                /* A corrupt cache file is treated like a missing one. */
+            }
+        }
+        List<Entry> entries = scanJar(path);
+        writeCacheFile(cacheFile, entries);
+        return entries;
+    }
+
+    private static List<Entry> scanDirectory(Path root, Set<Path> excludes) throws IOException {
+        List<Entry> result = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (excludes.contains(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return super.preVisitDirectory(dir, attrs);
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (file.getFileName().toString().endsWith(CLASS_SUFFIX)) {
+                    addEntry(result, Files.readAllBytes(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                /* Silently ignore inaccessible files or directories. */
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return result;
+    }
+
+    private static List<Entry> scanJar(Path jar) throws IOException {
+        List<Entry> result = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                if (!zipEntry.isDirectory() && zipEntry.getName().endsWith(CLASS_SUFFIX)) {
+                    try (InputStream in = zip.getInputStream(zipEntry)) {
+                        addEntry(result, readAllBytes(in));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reading the class file and parsing it are separate steps, so that I/O errors are reported
+     * while malformed or truncated class files are skipped.
+     */
+    private static void addEntry(List<Entry> result, byte[] classFile) {
+        Entry entry;
+        try {
+            entry = ClassFileReader.read(new DataInputStream(new ByteArrayInputStream(classFile)));
+        } catch (IOException | RuntimeException ex) {
+            /* Like class loading errors, malformed class files are ignored. */
+            return;
+        }
+        if (entry != null) {
+            result.add(entry);
+        }
+    }
+
+    private static byte[] readAllBytes(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String contentHash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            while (in.read(buffer) != -1) {
+                /* Only the digest is of interest. */
+            }
+        }
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest()) {
+            result.append(String.format("%02x", b & 0xff));
+        }
+        return result.toString();
+    }
+
+    private static void writeCacheFile(Path cacheFile, List<Entry> entries) {
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            /* Write to a temporary file first so that concurrent builds never see partial files. */
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                writeEntries(out, entries);
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            /* Caching is best effort: the next build parses the jar file again. */
+        }
+    }
+
+    private static void writeEntries(DataOutputStream out, List<Entry> entries) throws IOException {
+        out.writeInt(CACHE_FORMAT_VERSION);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeUTF(entry.name);
+            out.writeUTF(entry.superName == null ? "" : entry.superName);
+            writeStrings(out, entry.interfaceNames.length, Arrays.asList(entry.interfaceNames));
+            out.writeBoolean(entry.isAnnotation);
+            writeStrings(out, entry.classAnnotations.size(), entry.classAnnotations);
+            writeStrings(out, entry.memberAnnotations.size(), entry.memberAnnotations);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, int count, Collection<String> strings) throws IOException {
+        out.writeInt(count);
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static List<Entry> readEntries(DataInputStream in) throws IOException {
+        if (in.readInt() != CACHE_FORMAT_VERSION) {
+            return null;
+        }
+        int count = in.readInt();
+        List<Entry> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            String superName = in.readUTF();
+            String[] interfaceNames = readStrings(in).toArray(new String[0]);
+            boolean isAnnotation = in.readBoolean();
+            Set<String> classAnnotations = readStrings(in);
+            Set<String> memberAnnotations = readStrings(in);
+            result.add(new Entry(name, superName.isEmpty() ? null : superName, interfaceNames, isAnnotation, classAnnotations, memberAnnotations));
+        }
+        return result;
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count == 0) {
+            return Collections.emptySet();
+        }
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            result.add(in.readUTF());
+        }
+        return result;
+    }
+
+    /**
+     * A minimal class file parser that extracts only the information needed for an {@link Entry}.
+     */
+    private static final class ClassFileReader {
+
+        private static final int ACC_ANNOTATION = 0x2000;
+        private static final int ACC_MODULE = 0x8000;
+        private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+        private final DataInputStream in;
+        private String[] utf8;
+        private int[] classNameIndex;
+
+        private ClassFileReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        static Entry read(DataInputStream in) throws IOException {
+            return new ClassFileReader(in).read();
+        }
+
+        private Entry read() throws IOException {
+            if (in.readInt() != 0xCAFEBABE) {
+                return null;
+            }
+            in.readUnsignedShort(); // minor_version
+            in.readUnsignedShort(); // major_version
+            readConstantPool();
+
+            int accessFlags = in.readUnsignedShort();
+            if ((accessFlags & ACC_MODULE) != 0) {
+                return null;
+            }
+            String name = className(in.readUnsignedShort());
+            int superIndex = in.readUnsignedShort();
+            String superName = superIndex == 0 ? null : className(superIndex);
+            String[] interfaceNames = new String[in.readUnsignedShort()];
+            for (int i = 0; i < interfaceNames.length; i++) {
+                interfaceNames[i] = className(in.readUnsignedShort());
+            }
+
+            Set<String> memberAnnotations = new HashSet<>();
+            for (int members = 0; members < 2; members++) { // fields, then methods
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    in.readUnsignedShort(); // access_flags
+                    in.readUnsignedShort(); // name_index
+                    in.readUnsignedShort(); // descriptor_index
+                    readAttributes(memberAnnotations);
+                }
+            }
+            Set<String> classAnnotations = new HashSet<>();
+            readAttributes(classAnnotations);
+
+            return new Entry(name, superName, interfaceNames, (accessFlags & ACC_ANNOTATION) != 0, emptyIfNone(classAnnotations), emptyIfNone(memberAnnotations));
+        }
+
+        private static Set<String> emptyIfNone(Set<String> set) {
+            return set.isEmpty() ? Collections.emptySet() : set;
+        }
+
+        private void readConstantPool() throws IOException {
+            int count = in.readUnsignedShort();
+            utf8 = new String[count];
+            classNameIndex = new int[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1: // Utf8
+                        utf8[i] = in.readUTF();
+                        break;
+                    case 7: // Class
+                        classNameIndex[i] = in.readUnsignedShort();
+                        break;
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        in.skipBytes(2);
+                        break;
+                    case 15: // MethodHandle
+                        in.skipBytes(3);
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        in.skipBytes(4);
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        in.skipBytes(8);
+                        i++; // takes two constant pool slots
+                        break;
+                    default:
+                        throw new IOException("Unknown constant pool tag " + tag);
+                }
+            }
+        }
+
+        private String className(int index) {
+            return utf8[classNameIndex[index]].replace('/', '.');
+        }
+
+        private void readAttributes(Set<String> annotations) throws IOException {
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+                if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                    int numAnnotations = in.readUnsignedShort();
+                    for (int j = 0; j < numAnnotations; j++) {
+                        annotations.add(readAnnotation());
+                    }
+                } else {
+                    skipFully(length);
+                }
+            }
+        }
+
+        /** Reads an annotation and returns its type name. */
+        private String readAnnotation() throws IOException {
+            String descriptor = utf8[in.readUnsignedShort()];
+            int numPairs = in.readUnsignedShort();
+            for (int i = 0; i < numPairs; i++) {
+                in.readUnsignedShort(); // element_name_index
+                skipElementValue();
+            }
+            /* Convert the descriptor "Lpkg/Name;" to the class name "pkg.Name". */
+            return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+        }
+
+        private void skipElementValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 'e':
+                    in.skipBytes(4);
+                    break;
+                case '@':
+                    readAnnotation();
+                    break;
+                case '[':
+                    int numValues = in.readUnsignedShort();
+                    for (int i = 0; i < numValues; i++) {
+                        skipElementValue();
+                    }
+                    break;
+                default:
+                    in.skipBytes(2);
+                    break;
+            }
+        }
+
+        private void skipFully(int length) throws IOException {
+            int remaining = length;
+            while (remaining > 0) {
+                int skipped = in.skipBytes(remaining);
+                if (skipped <= 0) {
+                    throw new IOException("Truncated class file");
+                }
+                remaining -= skipped;
+            }
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URI;
@@ -48,13 +49,21 @@ import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -81,6 +90,14 @@ public final class ImageClassLoader {
     private static final int CLASS_LENGTH = ".class".length();
     private static final int CLASS_LOADING_TIMEOUT_IN_MINUTES = 10;
 
+    /**
+     * System property that names a directory for caching {@link ClassPathIndex class path scan
+     * results}. When set, the class path is indexed instead of eagerly loading all classes, and
+     * classes are loaded only when a query can match them. A system property is used because the
+     * class loader is created before the hosted options are parsed.
+     */
+    public static final String CLASS_PATH_SCAN_CACHE_PROPERTY = "substratevm.ClassPathScanCache";
+
     static {
         /*
          * ImageClassLoader is one of the first classes used during image generation, so early
@@ -96,6 +113,13 @@ public final class ImageClassLoader {
     private final EconomicSet<Method> systemMethods = EconomicSet.create();
     private final EconomicSet<Field> systemFields = EconomicSet.create();
 
+    /**
+     * The index of all classes on the class path if classes are loaded lazily, or null if all
+     * classes are loaded eagerly into {@link #systemClasses}.
+     */
+    private Map<String, ClassPathIndex.Entry> indexedClasses;
+    private final Map<String, Optional<Class<?>>> lazilyLoadedClasses = new ConcurrentHashMap<>();
+
     private ImageClassLoader(Platform platform, String[] classpath, ClassLoader classLoader) {
         this.platform = platform;
         this.classpath = classpath;
@@ -130,8 +154,6 @@ public final class ImageClassLoader {
     }
 
     private void initAllClasses() {
-        final ForkJoinPool executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
-
         Set<Path> uniquePaths = new TreeSet<>(Comparator.comparing(ImageClassLoader::toRealPath));
         final boolean debugGR8964 = Boolean.valueOf(System.getProperty("debug_gr_8964", "false"));
         if (debugGR8964) {
@@ -176,11 +198,55 @@ public final class ImageClassLoader {
                                             .flatMap(ImageClassLoader::toClassPathEntries)
                                             .collect(Collectors.toList()));
         }
+
+        String scanCacheDirectory = System.getProperty(CLASS_PATH_SCAN_CACHE_PROPERTY);
+        if (scanCacheDirectory != null) {
+            /* The index needs the class path order, uniquePaths is ordered by real paths. */
+            Map<Path, Path> orderedPaths = new LinkedHashMap<>();
+            Arrays.stream(classpath).flatMap(ImageClassLoader::toClassPathEntries).forEach(path -> orderedPaths.putIfAbsent(toRealPath(path), path));
+            indexAllClasses(orderedPaths.values(), Paths.get(scanCacheDirectory));
+            return;
+        }
+
+        final ForkJoinPool executor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
         uniquePaths.parallelStream().forEach(path -> loadClassesFromPath(executor, path));
 
         executor.awaitQuiescence(CLASS_LOADING_TIMEOUT_IN_MINUTES, TimeUnit.MINUTES);
     }
 
+    private void indexAllClasses(Collection<Path> classPathEntries, Path cacheDirectory) {
+        try {
+            Files.createDirectories(cacheDirectory);
+        } catch (IOException ex) {
+            throw shouldNotReachHere("Cannot create class path scan cache directory " + cacheDirectory, ex);
+        }
+        ClassPathIndex index = new ClassPathIndex(cacheDirectory);
+        /* The collected list keeps the order of the class path entries. */
+        List<List<ClassPathIndex.Entry>> scanned = classPathEntries.parallelStream().map(path -> indexClassesFromPath(index, path)).collect(Collectors.toList());
+
+        /* Like a class loader, the first class path entry that contains a class wins. */
+        Map<String, ClassPathIndex.Entry> result = new HashMap<>();
+        for (List<ClassPathIndex.Entry> entries : scanned) {
+            for (ClassPathIndex.Entry entry : entries) {
+                result.putIfAbsent(entry.name, entry);
+            }
+        }
+        indexedClasses = result;
+    }
+
+    private static List<ClassPathIndex.Entry> indexClassesFromPath(ClassPathIndex index, Path path) {
+        if (!Files.exists(path)) {
+            return Collections.emptyList();
+        }
+        try {
+            return index.scan(path, excludeDirectories);
+        } catch (ClosedByInterruptException ignored) {
+            throw new InterruptImageBuilding();
+        } catch (IOException e) {
+            throw shouldNotReachHere(e);
+        }
+    }
+
     static Stream<Path> toClassPathEntries(String classPathEntry) {
         Path entry = Paths.get(classPathEntry);
         if (entry.getFileName().toString().endsWith("*")) {
@@ -310,6 +376,115 @@ public final class ImageClassLoader {
         return true;
     }
 
+    private Class<?> loadIndexedClass(String className) {
+        return lazilyLoadedClasses.computeIfAbsent(className, name -> {
+            try {
+                Class<?> systemClass = Class.forName(name, false, classLoader);
+                if (includedInPlatform(systemClass)) {
+                    return Optional.of(systemClass);
+                }
+            } catch (Throwable t) {
+                handleClassLoadingError(t);
+            }
+            return Optional.empty();
+        }).orElse(null);
+    }
+
+    /**
+     * Returns the classes that a query has to look at: all classes if they were loaded eagerly,
+     * otherwise the indexed classes that the candidate filter accepts, which are loaded now.
+     */
+    private Iterable<Class<?>> candidateClasses(Predicate<ClassPathIndex.Entry> candidateFilter) {
+        if (indexedClasses == null) {
+            return systemClasses;
+        }
+        return indexedClasses.values().parallelStream()
+                        .filter(candidateFilter)
+                        .map(entry -> loadIndexedClass(entry.name))
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+    }
+
+    private Iterable<Method> candidateMethods(Predicate<ClassPathIndex.Entry> candidateFilter) {
+        if (indexedClasses == null) {
+            return systemMethods;
+        }
+        List<Method> result = new ArrayList<>();
+        for (Class<?> clazz : candidateClasses(candidateFilter)) {
+            try {
+                for (Method method : clazz.getDeclaredMethods()) {
+                    if (NativeImageGenerator.includedIn(platform, method.getAnnotation(Platforms.class))) {
+                        result.add(method);
+                    }
+                }
+            } catch (Throwable t) {
+                handleClassLoadingError(t);
+            }
+        }
+        return result;
+    }
+
+    private Iterable<Field> candidateFields(Predicate<ClassPathIndex.Entry> candidateFilter) {
+        if (indexedClasses == null) {
+            return systemFields;
+        }
+        List<Field> result = new ArrayList<>();
+        for (Class<?> clazz : candidateClasses(candidateFilter)) {
+            try {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (NativeImageGenerator.includedIn(platform, field.getAnnotation(Platforms.class))) {
+                        result.add(field);
+                    }
+                }
+            } catch (Throwable t) {
+                handleClassLoadingError(t);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Conservatively determines from the index whether a class can be a subtype of the given base
+     * class. Super types that are not on the class path, e.g., JDK classes, are loaded to find out.
+     */
+    private boolean maybeSubtype(String className, Class<?> baseClass, Map<String, Boolean> cache) {
+        if (className == null) {
+            return false;
+        } else if (className.equals(baseClass.getName())) {
+            return true;
+        }
+        Boolean cached = cache.get(className);
+        if (cached != null) {
+            return cached;
+        }
+        ClassPathIndex.Entry entry = indexedClasses.get(className);
+        boolean result = false;
+        if (entry != null) {
+            result = maybeSubtype(entry.superName, baseClass, cache);
+            for (int i = 0; !result && i < entry.interfaceNames.length; i++) {
+                result = maybeSubtype(entry.interfaceNames[i], baseClass, cache);
+            }
+        } else {
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                result = baseClass.isAssignableFrom(clazz);
+            } catch (Throwable t) {
+                handleClassLoadingError(t);
+            }
+        }
+        cache.put(className, result);
+        return result;
+    }
+
+    private boolean hasClassAnnotation(ClassPathIndex.Entry entry, String annotationName, boolean inherited) {
+        for (ClassPathIndex.Entry cur = entry; cur != null; cur = inherited && cur.superName != null ? indexedClasses.get(cur.superName) : null) {
+            if (cur.classAnnotations.contains(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public URL findResourceByName(String resource) {
         return classLoader.getResource(resource);
     }
@@ -362,7 +537,8 @@ public final class ImageClassLoader {
 
     public <T> List<Class<? extends T>> findSubclasses(Class<T> baseClass) {
         ArrayList<Class<? extends T>> result = new ArrayList<>();
-        for (Class<?> systemClass : systemClasses) {
+        Map<String, Boolean> subtypeCache = new ConcurrentHashMap<>();
+        for (Class<?> systemClass : candidateClasses(entry -> maybeSubtype(entry.name, baseClass, subtypeCache))) {
             if (baseClass.isAssignableFrom(systemClass)) {
                 result.add(systemClass.asSubclass(baseClass));
             }
@@ -372,7 +548,9 @@ public final class ImageClassLoader {
 
     public List<Class<?>> findAnnotatedClasses(Class<? extends Annotation> annotationClass) {
         ArrayList<Class<?>> result = new ArrayList<>();
-        for (Class<?> systemClass : systemClasses) {
+        String annotationName = annotationClass.getName();
+        boolean inherited = annotationClass.isAnnotationPresent(Inherited.class);
+        for (Class<?> systemClass : candidateClasses(entry -> hasClassAnnotation(entry, annotationName, inherited))) {
             if (systemClass.getAnnotation(annotationClass) != null) {
                 result.add(systemClass);
             }
@@ -382,7 +560,8 @@ public final class ImageClassLoader {
 
     public List<Method> findAnnotatedMethods(Class<? extends Annotation> annotationClass) {
         ArrayList<Method> result = new ArrayList<>();
-        for (Method method : systemMethods) {
+        String annotationName = annotationClass.getName();
+        for (Method method : candidateMethods(entry -> entry.memberAnnotations.contains(annotationName))) {
             if (method.getAnnotation(annotationClass) != null) {
                 result.add(method);
             }
@@ -392,7 +571,8 @@ public final class ImageClassLoader {
 
     public List<Method> findAnnotatedMethods(Class<? extends Annotation>[] annotationClasses) {
         ArrayList<Method> result = new ArrayList<>();
-        for (Method method : systemMethods) {
+        List<String> annotationNames = Arrays.stream(annotationClasses).map(Class::getName).collect(Collectors.toList());
+        for (Method method : candidateMethods(entry -> entry.memberAnnotations.containsAll(annotationNames))) {
             boolean match = true;
             for (Class<? extends Annotation> annotationClass : annotationClasses) {
                 if (method.getAnnotation(annotationClass) == null) {
@@ -409,7 +589,8 @@ public final class ImageClassLoader {
 
     List<Field> findAnnotatedFields(Class<? extends Annotation> annotationClass) {
         ArrayList<Field> result = new ArrayList<>();
-        for (Field field : systemFields) {
+        String annotationName = annotationClass.getName();
+        for (Field field : candidateFields(entry -> entry.memberAnnotations.contains(annotationName))) {
             if (field.getAnnotation(annotationClass) != null) {
                 result.add(field);
             }
@@ -419,7 +600,7 @@ public final class ImageClassLoader {
 
     @SuppressWarnings("unchecked")
     public List<Class<? extends Annotation>> allAnnotations() {
-        return StreamSupport.stream(systemClasses.spliterator(), false)
+        return StreamSupport.stream(candidateClasses(entry -> entry.isAnnotation).spliterator(), false)
                         .filter(Class::isAnnotation)
                         .map(clazz -> (Class<? extends Annotation>) clazz)
                         .collect(Collectors.toList());
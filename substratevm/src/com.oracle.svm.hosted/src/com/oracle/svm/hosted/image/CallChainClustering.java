@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.image;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+
+/**
+ * Orders the methods of a call graph with the call-chain clustering heuristic: methods are visited
+ * in decreasing order of hotness, and the cluster of each method is appended to the cluster of its
+ * most frequent caller as long as the merged cluster stays below a size limit. Clusters are then
+ * laid out by decreasing density (hotness per byte of code), followed by all methods that are
+ * considered cold. Ties are broken by the order in which methods were added.
+ *
+ * @param <T> the type of the methods
+ */
+public final class CallChainClustering<T> {
+
+    private final class Node {
+        final T method;
+        final int index;
+        final int size;
+        final Map<Node, Double> callers = new IdentityHashMap<>();
+        double hotness;
+        boolean cold;
+        Cluster cluster;
+
+        Node(T method, int index, int size) {
+            this.method = method;
+            this.index = index;
+            this.size = size;
+        }
+
+        Node heaviestCaller() {
+            Node result = null;
+            double resultWeight = 0;
+            for (Entry<Node, Double> entry : callers.entrySet()) {
+                Node caller = entry.getKey();
+                double weight = entry.getValue();
+                if (caller != this && !caller.cold && (weight > resultWeight || (weight == resultWeight && result != null && caller.index < result.index))) {
+                    result = caller;
+                    resultWeight = weight;
+                }
+            }
+            return result;
+        }
+    }
+
+    private final class Cluster {
+        final List<Node> nodes = new ArrayList<>();
+        final int firstIndex;
+        long size;
+        double hotness;
+
+        Cluster(Node node) {
+            this.firstIndex = node.index;
+            add(node);
+        }
+
+        void add(Node node) {
+            nodes.add(node);
+            node.cluster = this;
+            size += node.size;
+            hotness += node.hotness;
+        }
+
+        double density() {
+            return hotness / Math.max(size, 1);
+        }
+    }
+
+    private final Map<T, Node> nodes = new IdentityHashMap<>();
+    private final List<Node> nodesInOriginalOrder = new ArrayList<>();
+    private final int clusterSizeLimit;
+    private final List<Cluster> hotClusters = new ArrayList<>();
+    private final List<Node> coldNodes = new ArrayList<>();
+
+    /**
+     * @param clusterSizeLimit the maximum size of a cluster, in the unit of the method sizes
+     */
+    public CallChainClustering(int clusterSizeLimit) {
+        this.clusterSizeLimit = clusterSizeLimit;
+    }
+
+    /**
+     * Adds a method with a hotness of zero. Methods must be added before calls between them.
+     */
+    public void addMethod(T method, int size) {
+        Node node = new Node(method, nodesInOriginalOrder.size(), size);
+        nodes.put(method, node);
+        nodesInOriginalOrder.add(node);
+    }
+
+    public boolean containsMethod(T method) {
+        return nodes.containsKey(method);
+    }
+
+    /**
+     * Adds a call site in {@code caller} that calls {@code callee}.
+     */
+    public void addCall(T caller, T callee) {
+        nodes.get(callee).callers.merge(nodes.get(caller), 1d, Double::sum);
+    }
+
+    /**
+     * Returns the number of call sites that call a method.
+     */
+    public int getCallSiteCount(T method) {
+        double result = 0;
+        for (double weight : nodes.get(method).callers.values()) {
+            result += weight;
+        }
+        return (int) result;
+    }
+
+    public void setHotness(T method, double hotness) {
+        nodes.get(method).hotness = hotness;
+    }
+
+    /**
+     * Marks a method as cold: it is placed after all hot methods and never attracts its callees.
+     */
+    public void setCold(T method) {
+        nodes.get(method).cold = true;
+    }
+
+    /**
+     * Scales the weight of every call site by the hotness of its caller, for hotness values that
+     * are execution counts. Calls made by a method are as frequent as the method itself
+     * (approximately).
+     */
+    public void weighCallsByCallerHotness() {
+        for (Node node : nodesInOriginalOrder) {
+            for (Entry<Node, Double> entry : node.callers.entrySet()) {
+                entry.setValue(entry.getValue() * Math.max(entry.getKey().hotness, 1));
+            }
+        }
+    }
+
+    /**
+     * Returns the methods in the order in which they should be placed. The order is computed from
+     * scratch on every call.
+     */
+    public List<T> computeOrder() {
+        hotClusters.clear();
+        coldNodes.clear();
+        List<Node> hotNodes = new ArrayList<>();
+        for (Node node : nodesInOriginalOrder) {
+            if (node.cold) {
+                coldNodes.add(node);
+            } else {
+                hotNodes.add(node);
+                new Cluster(node);
+            }
+        }
+        hotNodes.sort(Comparator.comparingDouble((Node n) -> -n.hotness).thenComparingInt(n -> n.index));
+
+        for (Node node : hotNodes) {
+            Node caller = node.heaviestCaller();
+            if (caller == null) {
+                continue;
+            }
+            Cluster callerCluster = caller.cluster;
+            Cluster calleeCluster = node.cluster;
+            if (callerCluster == calleeCluster || callerCluster.size + calleeCluster.size > clusterSizeLimit) {
+                continue;
+            }
+            for (Node n : calleeCluster.nodes) {
+                callerCluster.add(n);
+            }
+            calleeCluster.nodes.clear();
+        }
+
+        for (Node node : hotNodes) {
+            /* Every cluster is represented by the node it was created for. */
+            if (node.cluster.nodes.get(0) == node) {
+                hotClusters.add(node.cluster);
+            }
+        }
+        hotClusters.sort(Comparator.comparingDouble((Cluster c) -> -c.density()).thenComparingInt(c -> c.firstIndex));
+
+        List<T> result = new ArrayList<>(nodesInOriginalOrder.size());
+        for (Cluster cluster : hotClusters) {
+            for (Node node : cluster.nodes) {
+                result.add(node.method);
+            }
+        }
+        for (Node node : coldNodes) {
+            result.add(node.method);
+        }
+        assert result.size() == nodesInOriginalOrder.size();
+        return result;
+    }
+
+    /**
+     * Prints the cluster, hotness and size of every method in the order of the last
+     * {@link #computeOrder()}.
+     */
+    public void printReport(PrintWriter writer, Function<T, String> formatter) {
+        writer.format("%-8s %-16s %-8s %s%n", "Cluster", "Hotness", "Size", "Method");
+        int clusterIndex = 0;
+        for (Cluster cluster : hotClusters) {
+            for (Node node : cluster.nodes) {
+                writer.format("%-8d %-16.1f %-8d %s%n", clusterIndex, node.hotness, node.size, formatter.apply(node.method));
+            }
+            clusterIndex++;
+        }
+        for (Node node : coldNodes) {
+            writer.format("%-8s %-16s %-8d %s%n", "cold", "-", node.size, formatter.apply(node.method));
+        }
+    }
+}
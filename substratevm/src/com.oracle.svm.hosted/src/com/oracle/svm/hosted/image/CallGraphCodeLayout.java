@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018, 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.image;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.core.common.NumUtil;
+
+import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.hosted.meta.HostedMethod;
+import com.oracle.svm.hosted.meta.HostedType;
+
+import jdk.vm.ci.code.site.Call;
+import jdk.vm.ci.code.site.Infopoint;
+
+/**
+ * Computes the order in which compiled methods are placed in the text section, so that hot callers
+ * end up close to their callees and rarely executed code is moved out of the way. The ordering
+ * follows the call-chain clustering heuristic, see {@link CallChainClustering}.
+ *
+ * The call graph is built from the direct and single-implementation virtual calls recorded in the
+ * compilation results. If a profile is available, its method execution counts are used as
+ * hotness; otherwise one plus the number of incoming call sites serves as a static estimate, so that
+ * methods without callers, such as entry points, are not less hot than unreachable code.
+ */
+final class CallGraphCodeLayout {
+
+    private final List<HostedMethod> methods = new ArrayList<>();
+    private final CallChainClustering<HostedMethod> clustering;
+
+    CallGraphCodeLayout(Map<HostedMethod, CompilationResult> compilations, int clusterSizeLimit) {
+        this.clustering = new CallChainClustering<>(clusterSizeLimit);
+        for (Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
+            int size = NumUtil.roundUp(entry.getValue().getTargetCodeSize(), NativeImageCodeCache.CODE_ALIGNMENT);
+            clustering.addMethod(entry.getKey(), size);
+            methods.add(entry.getKey());
+        }
+        for (Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
+            for (Infopoint infopoint : entry.getValue().getInfopoints()) {
+                if (infopoint instanceof Call && ((Call) infopoint).target instanceof HostedMethod) {
+                    HostedMethod callee = lookupCallee((Call) infopoint);
+                    if (callee != null) {
+                        clustering.addCall(entry.getKey(), callee);
+                    }
+                }
+            }
+        }
+    }
+
+    private HostedMethod lookupCallee(Call call) {
+        HostedMethod target = (HostedMethod) call.target;
+        if (!call.direct) {
+            HostedMethod[] implementations = target.getImplementations();
+            if (implementations.length != 1) {
+                /* Megamorphic call sites do not give a useful placement hint. */
+                return null;
+            }
+            target = implementations[0];
+        }
+        return clustering.containsMethod(target) ? target : null;
+    }
+
+    /**
+     * Computes the hotness of all methods. The profile maps method names in the format
+     * {@code %H.%n(%p)} to execution counts; methods that do not appear in a non-empty profile are
+     * considered cold. Without a profile, the hotness of a method is one plus the number of call
+     * sites that call it.
+     */
+    void computeHotness(Map<String, Long> profile) {
+        for (HostedMethod method : methods) {
+            if (method.isDeoptTarget() || isThrowable(method.getDeclaringClass())) {
+                /* Only reached on deoptimization or on exceptional paths. */
+                clustering.setCold(method);
+            } else if (!profile.isEmpty()) {
+                Long count = profile.get(method.format("%H.%n(%p)"));
+                if (count == null || count == 0) {
+                    clustering.setCold(method);
+                } else {
+                    clustering.setHotness(method, count);
+                }
+            } else {
+                clustering.setHotness(method, 1 + clustering.getCallSiteCount(method));
+            }
+        }
+        if (!profile.isEmpty()) {
+            clustering.weighCallsByCallerHotness();
+        }
+    }
+
+    private static boolean isThrowable(HostedType type) {
+        for (HostedType cur = type; cur != null; cur = cur.getSuperclass()) {
+            if (cur.toJavaName(true).equals("java.lang.Throwable")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the methods in the order in which they should be placed in the code cache.
+     */
+    List<HostedMethod> computeOrder() {
+        return clustering.computeOrder();
+    }
+
+    void printReport(PrintWriter writer) {
+        clustering.printReport(writer, method -> method.format("%H.%n(%p)"));
+    }
+
+    /**
+     * Reads a profile with one {@code <count> <method>} entry per line. Empty lines and lines
+     * starting with {@code #} are ignored.
+     */
+    static Map<String, Long> readProfile(String fileName) {
+        Map<String, Long> result = new HashMap<>();
+        if (fileName.isEmpty()) {
+            return result;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(fileName));
+        } catch (IOException ex) {
+            throw UserError.abort("Could not read code layout profile " + fileName + ": " + ex.getMessage());
+        }
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int separator = trimmed.indexOf(' ');
+            try {
+                long count = Long.parseLong(separator < 0 ? trimmed : trimmed.substring(0, separator));
+                if (separator > 0) {
+                    result.merge(trimmed.substring(separator + 1).trim(), count, Long::sum);
+                    continue;
+                }
+            } catch (NumberFormatException ex) {
+                /* Reported below. */
+            }
+            throw UserError.abort("Malformed line in code layout profile " + fileName + ": " + line);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
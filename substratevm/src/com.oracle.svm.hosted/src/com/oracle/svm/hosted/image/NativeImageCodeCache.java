@@ -44,6 +44,7 @@ import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.word.WordFactory;
 
 import com.oracle.graal.pointsto.meta.AnalysisMethod;
+import com.oracle.graal.pointsto.reports.ReportUtils;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.code.CodeInfoEncoder;
 import com.oracle.svm.core.code.CodeInfoQueryResult;
@@ -83,6 +84,18 @@ public class NativeImageCodeCache {
     public static class Options {
         @Option(help = "Verify that all possible deoptimization entry points have been properly compiled and registered in the metadata")//
         public static final HostedOptionKey<Boolean> VerifyDeoptimizationEntryPoints = new HostedOptionKey<>(false);
+
+        @Option(help = "Place compiled methods in the order of a call-graph based layout, keeping hot callers close to their callees and moving cold code to the end")//
+        public static final HostedOptionKey<Boolean> CodeLayoutByCallGraph = new HostedOptionKey<>(false);
+
+        @Option(help = "File with method execution counts used as hotness by CodeLayoutByCallGraph. Each line has the format '<count> <method>', where method is formatted as %H.%n(%p)")//
+        public static final HostedOptionKey<String> CodeLayoutProfile = new HostedOptionKey<>("");
+
+        @Option(help = "Maximum size in bytes of a cluster of methods that CodeLayoutByCallGraph places next to each other")//
+        public static final HostedOptionKey<Integer> CodeLayoutClusterSize = new HostedOptionKey<>(64 * 1024);
+
+        @Option(help = "Print the method order chosen by CodeLayoutByCallGraph to a report file")//
+        public static final HostedOptionKey<Boolean> PrintCodeLayout = new HostedOptionKey<>(false);
     }
 
     public static final int CODE_ALIGNMENT = 16;
@@ -231,12 +244,11 @@ public class NativeImageCodeCache {
             // Assign a location to all methods.
             assert codeCacheSize == 0;
             HostedMethod firstMethod = null;
-            for (Entry<HostedMethod, CompilationResult> entry : compilations.entrySet()) {
-                HostedMethod method = entry.getKey();
+            for (HostedMethod method : computeMethodOrder()) {
                 if (firstMethod == null) {
                     firstMethod = method;
                 }
-                CompilationResult compilation = entry.getValue();
+                CompilationResult compilation = compilations.get(method);
                 compilationsByStart.put(codeCacheSize, compilation);
                 method.setCodeAddressOffset(codeCacheSize);
                 codeCacheSize = NumUtil.roundUp(codeCacheSize + compilation.getTargetCodeSize(), CODE_ALIGNMENT);
@@ -279,6 +291,19 @@ public class NativeImageCodeCache {
         }
     }
 
+    private Iterable<HostedMethod> computeMethodOrder() {
+        if (!Options.CodeLayoutByCallGraph.getValue()) {
+            return compilations.keySet();
+        }
+        CallGraphCodeLayout layout = new CallGraphCodeLayout(compilations, Options.CodeLayoutClusterSize.getValue());
+        layout.computeHotness(CallGraphCodeLayout.readProfile(Options.CodeLayoutProfile.getValue()));
+        List<HostedMethod> order = layout.computeOrder();
+        if (Options.PrintCodeLayout.getValue()) {
+            ReportUtils.report("code layout", SubstrateOptions.Path.getValue() + "/reports", "code_layout", "txt", layout::printReport);
+        }
+        return order;
+    }
+
     private void verifyDeoptEntries(ImageCodeInfo imageCodeInfo) {
         boolean hasError = false;
         List<Entry<AnalysisMethod, Set<Long>>> deoptEntries = new ArrayList<>(CompilationInfoSupport.singleton().getDeoptEntries().entrySet());
@@ -26,10 +26,13 @@ package com.oracle.svm.hosted.image;
 
 import static com.oracle.svm.core.util.VMError.shouldNotReachHere;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -50,6 +53,7 @@ import org.graalvm.compiler.core.common.NumUtil;
 import org.graalvm.compiler.core.common.SuppressFBWarnings;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.debug.Indent;
+import org.graalvm.compiler.options.Option;
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.c.function.CFunctionPointer;
 import org.graalvm.nativeimage.c.function.RelocatedPointer;
@@ -57,6 +61,7 @@ import org.graalvm.word.WordBase;
 
 import com.oracle.graal.pointsto.meta.AnalysisUniverse;
 import com.oracle.svm.core.HostedIdentityHashCodeProvider;
+import com.oracle.svm.core.JavaMainWrapper;
 import com.oracle.svm.core.StaticFieldsSupport;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.amd64.FrameAccess;
@@ -69,6 +74,7 @@ import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.hub.LayoutEncoding;
 import com.oracle.svm.core.jdk.StringInternSupport;
 import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.core.option.HostedOptionKey;
 import com.oracle.svm.core.util.UserError;
 import com.oracle.svm.core.util.VMError;
 import com.oracle.svm.hosted.NativeImageOptions;
@@ -89,6 +95,20 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 
 public final class NativeImageHeap {
 
+    public static class Options {
+        @Option(help = "Place the image heap objects that are reachable from startup roots at the beginning of their heap partition, in the order in which they are reached")//
+        public static final HostedOptionKey<Boolean> ImageHeapLayoutByStartupOrder = new HostedOptionKey<>(false);
+
+        @Option(help = "Comma-separated list of classes and static fields (formatted as %H.%n) that are accessed during startup, in access order. Used by ImageHeapLayoutByStartupOrder")//
+        public static final HostedOptionKey<String> ImageHeapStartupRoots = new HostedOptionKey<>(JavaMainWrapper.class.getName());
+
+        @Option(help = "File with classes and static fields (formatted as %H.%n), one per line, in the order in which they were first accessed in a training run. Used by ImageHeapLayoutByStartupOrder after the ImageHeapStartupRoots")//
+        public static final HostedOptionKey<String> ImageHeapStartupOrderFile = new HostedOptionKey<>("");
+
+        @Option(help = "Merge equal primitive arrays that are only reachable through immutable fields, such as string contents, in the image heap, even when they are distinct objects in the host heap")//
+        public static final HostedOptionKey<Boolean> DeduplicateImmutableImageHeapObjects = new HostedOptionKey<>(false);
+    }
+
     @Fold
     static boolean useHeapBase() {
         return SubstrateOptions.UseHeapBaseRegister.getValue() && ImageSingletons.lookup(CompressEncoding.class).hasBase();
@@ -148,6 +168,129 @@ public final class NativeImageHeap {
 
         addObjectsPhase.disallow();
         assert addObjectWorklist.isEmpty();
+
+        if (Options.ImageHeapLayoutByStartupOrder.getValue()) {
+            layoutByStartupOrder(debug);
+        }
+    }
+
+    /**
+     * Assigns the offsets of all objects within their partitions. Objects reachable from the
+     * startup roots come first, in breadth-first order from the roots, so that the objects touched
+     * early at run time share as few pages as possible. All other objects follow in the order in
+     * which they were added to the heap.
+     */
+    @SuppressWarnings("try")
+    private void layoutByStartupOrder(DebugContext debug) {
+        try (Indent indent = debug.logAndIndent("layout heap by startup order")) {
+            Set<ObjectInfo> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<ObjectInfo> worklist = new ArrayDeque<>();
+            for (Object root : collectStartupRoots()) {
+                ObjectInfo info = objects.get(root);
+                if (info != null && reached.add(info)) {
+                    worklist.add(info);
+                }
+            }
+            while (!worklist.isEmpty()) {
+                ObjectInfo info = worklist.poll();
+                info.allocateInHeapPartition(layout);
+                for (Object target : referencedObjects(info)) {
+                    ObjectInfo targetInfo = objects.get(target);
+                    if (targetInfo != null && reached.add(targetInfo)) {
+                        worklist.add(targetInfo);
+                    }
+                }
+            }
+            debug.log("startup objects: %d of %d", reached.size(), objectsInDiscoveryOrder.size());
+
+            for (ObjectInfo info : objectsInDiscoveryOrder) {
+                if (!reached.contains(info)) {
+                    info.allocateInHeapPartition(layout);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the hubs and static field values of the classes and the values of the static fields
+     * named by the startup root options, in the order in which they are named.
+     */
+    private List<Object> collectStartupRoots() {
+        List<String> names = new ArrayList<>();
+        for (String name : Options.ImageHeapStartupRoots.getValue().split(",")) {
+            names.add(name.trim());
+        }
+        String orderFile = Options.ImageHeapStartupOrderFile.getValue();
+        if (!orderFile.isEmpty()) {
+            try {
+                for (String line : Files.readAllLines(Paths.get(orderFile))) {
+                    names.add(line.trim());
+                }
+            } catch (IOException ex) {
+                throw UserError.abort("Could not read image heap startup order file " + orderFile + ": " + ex.getMessage());
+            }
+        }
+
+        Map<String, HostedType> typesByName = new HashMap<>();
+        for (HostedType type : getUniverse().getTypes()) {
+            typesByName.put(type.toJavaName(true), type);
+        }
+        Map<String, List<HostedField>> staticFieldsByName = new HashMap<>();
+        for (HostedField field : getUniverse().getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.isWritten() && field.isAccessed() && field.getType().getStorageKind() == JavaKind.Object) {
+                staticFieldsByName.computeIfAbsent(field.format("%H.%n"), n -> new ArrayList<>()).add(field);
+                staticFieldsByName.computeIfAbsent(field.getDeclaringClass().toJavaName(true), n -> new ArrayList<>()).add(field);
+            }
+        }
+
+        List<Object> roots = new ArrayList<>();
+        for (String name : names) {
+            if (name.isEmpty() || name.startsWith("#")) {
+                continue;
+            }
+            HostedType type = typesByName.get(name);
+            if (type != null) {
+                roots.add(type.getHub());
+            }
+            for (HostedField field : staticFieldsByName.getOrDefault(name, Collections.emptyList())) {
+                roots.add(readObjectField(field, null));
+            }
+        }
+        return roots;
+    }
+
+    /** The objects referenced by an object in the native image heap, in field order. */
+    private List<Object> referencedObjects(ObjectInfo info) {
+        List<Object> result = new ArrayList<>();
+        Object object = info.getObject();
+        HostedClass clazz = info.getClazz();
+        result.add(clazz.getHub());
+        if (clazz.isInstanceClass()) {
+            JavaConstant con = SubstrateObjectConstant.forObject(object);
+            for (HostedField field : clazz.getInstanceFields(true)) {
+                if (field.isAccessed() && field.getJavaKind() == JavaKind.Object) {
+                    JavaConstant value = field.readValue(con);
+                    if (value.getJavaKind() == JavaKind.Object) {
+                        result.add(SubstrateObjectConstant.asObject(value));
+                    }
+                }
+            }
+            HybridLayout<?> hybridLayout = hybridLayouts.get(clazz);
+            if (hybridLayout != null) {
+                /* The hybrid array is written inline, so its elements are referenced directly. */
+                Object hybridArray = readObjectField(hybridLayout.getArrayField(), con);
+                if (hybridArray instanceof Object[]) {
+                    for (Object element : (Object[]) hybridArray) {
+                        result.add(aUniverse.replaceObject(element));
+                    }
+                }
+            }
+        } else if (object instanceof Object[]) {
+            for (Object element : (Object[]) object) {
+                result.add(aUniverse.replaceObject(element));
+            }
+        }
+        return result;
     }
 
     private static Object readObjectField(HostedField field, JavaConstant receiver) {
@@ -256,13 +399,18 @@ public final class NativeImageHeap {
         // ... canonicalizable and the canonicalized instance. But I can not do that in Java.
         final boolean canonicalizable = isCanonicalizable(original, parentCanonicalizable);
         debug.log("canonicalizable: %b", canonicalizable);
-        final Object canonical = canonicalizable ? canonicalize(original) : original;
+        Object canonical = canonicalizable ? canonicalize(original) : original;
+        if (!canonicalizable && Options.DeduplicateImmutableImageHeapObjects.getValue() && isDeduplicationCandidate(original, immutableFromParent)) {
+            canonical = deduplicate(original);
+        }
 
         final ObjectInfo existing = objects.get(canonical);
         if (existing != null) {
             if (canonical != original) {
                 existing.update(original, identityHashCode);
-                objects.putIfAbsent(original, existing);
+                if (objects.putIfAbsent(original, existing) == null && !canonicalizable && deduplicationHistogram != null) {
+                    deduplicationHistogram.add(existing, existing.getSize());
+                }
             }
             debug.log("already existing object");
         } else {
@@ -296,6 +444,11 @@ public final class NativeImageHeap {
             readOnlyRelocatable.printHistogram();
             writablePrimitive.printHistogram();
             writableReference.printHistogram();
+            if (deduplicationHistogram != null) {
+                deduplicationHistogram.printHeadings(String.format("=== Deduplicated objects   count: %d  size: %d ===", //
+                                deduplicationHistogram.getTotalCount(), deduplicationHistogram.getTotalSize()));
+                deduplicationHistogram.print();
+            }
         }
         if (NativeImageOptions.PrintImageHeapPartitionSizes.getValue()) {
             readOnlyPrimitive.printSize();
@@ -384,6 +537,24 @@ public final class NativeImageHeap {
         }
     }
 
+    /**
+     * Can an object that is not canonicalizable be merged with an equal object anyway? Only if
+     * neither its contents nor its identity can be observed by the image: that is the case for
+     * primitive arrays that are reachable only through immutable fields, such as the contents of
+     * strings. Strings and boxed primitives are not merged because {@code ==} on distinct instances
+     * and their identity hash codes must keep their results. Other arrays may be written by their
+     * users, or compared by identity as sentinels like the empty {@code Object[]} arrays in
+     * {@link ArrayList}.
+     */
+    private static boolean isDeduplicationCandidate(Object object, boolean immutableFromParent) {
+        return immutableFromParent && object.getClass().isArray() && object.getClass().getComponentType().isPrimitive();
+    }
+
+    private Object deduplicate(final Object object) {
+        final Object existing = deduplicationMap.putIfAbsent(new CanonicalizedObjectHolder(object), object);
+        return existing != null ? existing : object;
+    }
+
     /**
      * It has been determined that an object should be added to the model of the native image heap.
      * This is the mechanics of recursively adding the object and all its fields and array elements
@@ -505,7 +676,11 @@ public final class NativeImageHeap {
         }
 
         final HeapPartition partition = choosePartition(!written || immutable, references, relocatable);
-        info.assignToHeapPartition(partition, layout);
+        info.setHeapPartition(partition);
+        if (!Options.ImageHeapLayoutByStartupOrder.getValue()) {
+            /* Otherwise, offsets are assigned once all objects are known. */
+            info.allocateInHeapPartition(layout);
+        }
     }
 
     /** Determine if an object in the host heap will be immutable in the native image heap. */
@@ -527,6 +702,7 @@ public final class NativeImageHeap {
         ObjectInfo info = new ObjectInfo(canonical, size, clazz, identityHashCode, reason);
         assert !objects.containsKey(canonical);
         objects.put(canonical, info);
+        objectsInDiscoveryOrder.add(info);
         if (canonical != original && !objects.containsKey(original)) {
             objects.put(original, objects.get(canonical));
         }
@@ -950,6 +1126,7 @@ public final class NativeImageHeap {
         this.metaAccess = metaAccess;
         this.layout = ConfigurationValues.getObjectLayout();
 
+        deduplicationHistogram = NativeImageOptions.PrintHeapHistogram.getValue() ? new HeapHistogram() : null;
         readOnlyPrimitive = HeapPartition.factory("readOnlyPrimitive", this, false);
         readOnlyReference = HeapPartition.factory("readOnlyReference", this, false);
         readOnlyRelocatable = HeapPartition.factory("readOnlyRelocatable", this, false);
@@ -989,6 +1166,9 @@ public final class NativeImageHeap {
      */
     protected final Map<Object, ObjectInfo> objects = new IdentityHashMap<>();
 
+    /** The distinct native image objects, in the order in which they were added. */
+    private final List<ObjectInfo> objectsInDiscoveryOrder = new ArrayList<>();
+
     /** Objects that must not be written to the native image heap. */
     private final Set<Object> blacklist = Collections.newSetFromMap(new IdentityHashMap<>());
 
@@ -1007,6 +1187,13 @@ public final class NativeImageHeap {
 
     /** The canonicalization map. */
     private final Map<CanonicalizedObjectHolder, Object> canonicalizationMap = new HashMap<>();
+    /** Equal objects that are merged by {@link Options#DeduplicateImmutableImageHeapObjects}. */
+    private final Map<CanonicalizedObjectHolder, Object> deduplicationMap = new HashMap<>();
+    /**
+     * The objects that were merged into an equal object, if
+     * {@link NativeImageOptions#PrintHeapHistogram} is enabled.
+     */
+    private final HeapHistogram deduplicationHistogram;
     /** A list of classes that are known to be canonicalizable. */
     private final List<Class<?>> knownCanonicalizableClasses = new ArrayList<>();
     /** A list classes that are known not to be canonicalizable. */
@@ -1150,9 +1337,13 @@ public final class NativeImageHeap {
             this.reason = reason;
         }
 
-        void assignToHeapPartition(HeapPartition objectPartition, ObjectLayout layout) {
+        void setHeapPartition(HeapPartition objectPartition) {
             assert partition == null;
             partition = objectPartition;
+        }
+
+        void allocateInHeapPartition(ObjectLayout layout) {
+            assert partition != null && offsetInPartition == -1L : "object must be allocated exactly once";
             offsetInPartition = partition.allocate(this);
             assert layout.isAligned(offsetInPartition) : "start: " + offsetInPartition + " must be aligned.";
             assert layout.isAligned(size) : "size: " + size + " must be aligned.";
@@ -1329,6 +1520,14 @@ public final class NativeImageHeap {
                 return Arrays.equals((int[]) object, (int[]) ((CanonicalizedObjectHolder) o).object);
             } else if (object instanceof long[]) {
                 return Arrays.equals((long[]) object, (long[]) ((CanonicalizedObjectHolder) o).object);
+            } else if (object instanceof short[]) {
+                return Arrays.equals((short[]) object, (short[]) ((CanonicalizedObjectHolder) o).object);
+            } else if (object instanceof boolean[]) {
+                return Arrays.equals((boolean[]) object, (boolean[]) ((CanonicalizedObjectHolder) o).object);
+            } else if (object instanceof float[]) {
+                return Arrays.equals((float[]) object, (float[]) ((CanonicalizedObjectHolder) o).object);
+            } else if (object instanceof double[]) {
+                return Arrays.equals((double[]) object, (double[]) ((CanonicalizedObjectHolder) o).object);
             } else if (object instanceof Object[]) {
                 return Arrays.deepEquals((Object[]) object, (Object[]) ((CanonicalizedObjectHolder) o).object);
             } else {
@@ -1346,6 +1545,14 @@ public final class NativeImageHeap {
                 return Arrays.hashCode((int[]) object);
             } else if (object instanceof long[]) {
                 return Arrays.hashCode((long[]) object);
+            } else if (object instanceof short[]) {
+                return Arrays.hashCode((short[]) object);
+            } else if (object instanceof boolean[]) {
+                return Arrays.hashCode((boolean[]) object);
+            } else if (object instanceof float[]) {
+                return Arrays.hashCode((float[]) object);
+            } else if (object instanceof double[]) {
+                return Arrays.hashCode((double[]) object);
             } else if (object instanceof Object[]) {
                 return Arrays.deepHashCode((Object[]) object);
             } else {
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.benchmark;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.ImportStatic;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.oracle.truffle.api.object.ArrayStrategy;
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.DynamicObjectFactory;
+import com.oracle.truffle.api.object.FinalLocationException;
+import com.oracle.truffle.api.object.IncompatibleLocationException;
+import com.oracle.truffle.api.object.Layout;
+import com.oracle.truffle.api.object.Location;
+import com.oracle.truffle.api.object.ObjectType;
+import com.oracle.truffle.api.object.Shape;
+
+/**
+ * Compares appending and summing the elements of an array of integers kept in an
+ * {@link ArrayStrategy} store with a boxed {@code Object[]} store. The strategy arrays are
+ * {@link DynamicObject dynamic objects} holding the store and the length in properties, and their
+ * elements are accessed through nodes that cache the strategy of the store, the way a guest language
+ * would implement its arrays.
+ */
+@State(Scope.Thread)
+public class ArrayStrategyBenchmark extends TruffleBenchmark {
+
+    private static final int SIZE = 10000;
+
+    private static final Layout LAYOUT = Layout.createLayout();
+    private static final Shape ARRAY_SHAPE = LAYOUT.createShape(new ObjectType()).//
+                    defineProperty("store", null, 0, (shape, value) -> shape.allocator().locationForType(Object.class)).//
+                    defineProperty("length", 0, 0, (shape, value) -> shape.allocator().locationForType(int.class));
+    private static final Location STORE_LOCATION = ARRAY_SHAPE.getProperty("store").getLocation();
+    private static final Location LENGTH_LOCATION = ARRAY_SHAPE.getProperty("length").getLocation();
+    private static final DynamicObjectFactory ARRAY_FACTORY = ARRAY_SHAPE.createFactory();
+
+    private Object[] boxedStore;
+    private DynamicObject array;
+    private final CallTarget append = Truffle.getRuntime().createCallTarget(new AppendRootNode());
+    private final CallTarget sum = Truffle.getRuntime().createCallTarget(new SumRootNode());
+
+    @Setup
+    public void setup() {
+        boxedStore = new Object[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            boxedStore[i] = i;
+        }
+        array = (DynamicObject) append.call();
+    }
+
+    @Benchmark
+    public Object appendBoxed() {
+        Object[] result = new Object[8];
+        for (int i = 0; i < SIZE; i++) {
+            if (i >= result.length) {
+                result = Arrays.copyOf(result, result.length * 2);
+            }
+            result[i] = i;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Object appendStrategy() {
+        return append.call();
+    }
+
+    @Benchmark
+    public int sumBoxed() {
+        int result = 0;
+        for (int i = 0; i < SIZE; i++) {
+            result += (int) boxedStore[i];
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Object sumStrategy() {
+        return sum.call(array);
+    }
+
+    static Object getStore(DynamicObject object) {
+        return STORE_LOCATION.get(object, ARRAY_SHAPE);
+    }
+
+    static int getLength(DynamicObject object) {
+        return (int) LENGTH_LOCATION.get(object, ARRAY_SHAPE);
+    }
+
+    static void setStore(DynamicObject object, Object store, int length) {
+        try {
+            STORE_LOCATION.set(object, store, ARRAY_SHAPE);
+            LENGTH_LOCATION.set(object, length, ARRAY_SHAPE);
+        } catch (IncompatibleLocationException | FinalLocationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class AppendRootNode extends RootNode {
+
+        @Child private WriteElementNode write = ArrayStrategyBenchmarkFactory.WriteElementNodeGen.create();
+
+        AppendRootNode() {
+            super(null);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            DynamicObject object = ARRAY_FACTORY.newInstance(ArrayStrategy.INT.newStore(8), 0);
+            for (int i = 0; i < SIZE; i++) {
+                int length = getLength(object);
+                setStore(object, write.execute(getStore(object), length, length, i), length + 1);
+            }
+            return object;
+        }
+    }
+
+    private static final class SumRootNode extends RootNode {
+
+        @Child private ReadElementNode read = ArrayStrategyBenchmarkFactory.ReadElementNodeGen.create();
+
+        SumRootNode() {
+            super(null);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            DynamicObject object = (DynamicObject) frame.getArguments()[0];
+            Object store = getStore(object);
+            int length = getLength(object);
+            int result = 0;
+            for (int i = 0; i < length; i++) {
+                try {
+                    result += read.executeInt(store, i);
+                } catch (UnexpectedResultException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    throw new IllegalStateException("not an int array");
+                }
+            }
+            return result;
+        }
+    }
+
+    @ImportStatic(ArrayStrategy.class)
+    abstract static class ReadElementNode extends Node {
+
+        abstract Object execute(Object store, int index);
+
+        abstract int executeInt(Object store, int index) throws UnexpectedResultException;
+
+        @Specialization(guards = "forStore(store) == strategy", limit = "5", rewriteOn = UnexpectedResultException.class)
+        static int doInt(Object store, int index,
+                        @Cached("forStore(store)") ArrayStrategy strategy) throws UnexpectedResultException {
+            return strategy.getInt(store, index);
+        }
+
+        @Specialization(guards = "forStore(store) == strategy", limit = "5", replaces = "doInt")
+        static Object doGeneric(Object store, int index,
+                        @Cached("forStore(store)") ArrayStrategy strategy) {
+            return strategy.get(store, index);
+        }
+    }
+
+    @ImportStatic(ArrayStrategy.class)
+    abstract static class WriteElementNode extends Node {
+
+        abstract Object execute(Object store, int length, int index, Object value);
+
+        @Specialization(guards = "forStore(store) == strategy", limit = "5")
+        static Object doCached(Object store, int length, int index, Object value,
+                        @Cached("forStore(store)") ArrayStrategy strategy) {
+            return strategy.write(store, length, index, value);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+
+/**
+ * Simulates several threads parsing functions that share a frame descriptor, e.g., the top-level
+ * scope of a program, while every thread also parses functions with frame descriptors of their
+ * own. Parsing looks up the slot of every variable access and specializes the slot kinds.
+ */
+@Threads(4)
+public class FrameDescriptorBenchmark extends TruffleBenchmark {
+
+    private static final int VARIABLES = 64;
+    private static final String[] IDENTIFIERS = new String[VARIABLES];
+
+    static {
+        for (int i = 0; i < VARIABLES; i++) {
+            IDENTIFIERS[i] = "v" + i;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedDescriptor {
+
+        final FrameDescriptor descriptor = new FrameDescriptor();
+
+        @Setup
+        public void setup() {
+            for (int i = 0; i < VARIABLES; i++) {
+                descriptor.addFrameSlot(IDENTIFIERS[i], FrameSlotKind.Long);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object parseSharedScope(SharedDescriptor state) {
+        FrameDescriptor descriptor = state.descriptor;
+        FrameSlot slot = null;
+        for (int i = 0; i < VARIABLES; i++) {
+            slot = descriptor.findOrAddFrameSlot(IDENTIFIERS[i]);
+            descriptor.setFrameSlotKind(slot, FrameSlotKind.Long);
+        }
+        return slot;
+    }
+
+    @Benchmark
+    public Object parseLocalScope() {
+        FrameDescriptor descriptor = new FrameDescriptor();
+        for (int i = 0; i < VARIABLES; i++) {
+            descriptor.findOrAddFrameSlot(IDENTIFIERS[i], FrameSlotKind.Illegal);
+        }
+        for (int i = 0; i < VARIABLES; i++) {
+            FrameSlot slot = descriptor.findOrAddFrameSlot(IDENTIFIERS[i]);
+            descriptor.setFrameSlotKind(slot, FrameSlotKind.Int);
+        }
+        return descriptor;
+    }
+
+    @Benchmark
+    public Object snapshotSharedScope(SharedDescriptor state) {
+        return state.descriptor.getSlots();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.benchmark;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node.Children;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * Measures the time from the start of a process until a guest program has executed a fixed amount
+ * of work, i.e., the time to peak performance. Every measurement runs in a new process. With
+ * {@code profileCache} enabled, the first fork records the compilation profiles of the program in
+ * a file and the following forks start from these profiles.
+ */
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WarmupBenchmark extends TruffleBenchmark {
+
+    private static final String WARMUP_LANGUAGE = "benchmark-warmup-language";
+    private static final String PROFILE_CACHE_OPTION = "compiler.ProfileCache";
+    private static final int FUNCTIONS = 50;
+    private static final int ITERATIONS = 20000;
+
+    @State(Scope.Benchmark)
+    public static class ProgramState {
+
+        @Param({"false", "true"}) boolean profileCache;
+
+        Context context;
+        Source program;
+
+        @Setup
+        public void setup() {
+            Engine engine = Engine.create();
+            if (profileCache && engine.getOptions().get(PROFILE_CACHE_OPTION) != null) {
+                engine.close();
+                File file = new File(System.getProperty("java.io.tmpdir"), "truffle-warmup-benchmark.profile");
+                engine = Engine.newBuilder().option(PROFILE_CACHE_OPTION, file.getAbsolutePath()).build();
+            }
+            context = Context.newBuilder(WARMUP_LANGUAGE).engine(engine).build();
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < FUNCTIONS; i++) {
+                text.append("function").append(i).append('\n');
+            }
+            program = Source.create(WARMUP_LANGUAGE, text.toString());
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public long timeToPeak(ProgramState state) {
+        long sum = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sum += state.context.eval(state.program).asLong();
+        }
+        return sum;
+    }
+
+    /*
+     * Every line of a source is a function. Evaluating the source calls all functions, each
+     * function does a bit of arithmetic on its argument.
+     */
+    @TruffleLanguage.Registration(id = WARMUP_LANGUAGE, name = "")
+    public static class WarmupLanguage extends TruffleLanguage<Object> {
+
+        @Override
+        protected Object createContext(Env env) {
+            return new Object();
+        }
+
+        @Override
+        protected boolean isObjectOfLanguage(Object object) {
+            return false;
+        }
+
+        @Override
+        protected CallTarget parse(ParsingRequest request) throws Exception {
+            com.oracle.truffle.api.source.Source source = request.getSource();
+            String[] lines = source.getCharacters().toString().split("\n");
+            DirectCallNode[] calls = new DirectCallNode[lines.length];
+            int index = 0;
+            for (int i = 0; i < lines.length; i++) {
+                SourceSection section = source.createSection(index, lines[i].length());
+                calls[i] = DirectCallNode.create(Truffle.getRuntime().createCallTarget(new FunctionNode(this, section, i)));
+                index += lines[i].length() + 1;
+            }
+            return Truffle.getRuntime().createCallTarget(new ProgramNode(this, source.createSection(0, source.getLength()), calls));
+        }
+    }
+
+    static final class ProgramNode extends RootNode {
+
+        private final SourceSection sourceSection;
+        @Children private final DirectCallNode[] calls;
+
+        ProgramNode(TruffleLanguage<?> language, SourceSection sourceSection, DirectCallNode[] calls) {
+            super(language);
+            this.sourceSection = sourceSection;
+            this.calls = calls;
+        }
+
+        @Override
+        public SourceSection getSourceSection() {
+            return sourceSection;
+        }
+
+        @Override
+        @ExplodeLoop
+        public Object execute(VirtualFrame frame) {
+            long sum = 0;
+            for (int i = 0; i < calls.length; i++) {
+                sum += (long) calls[i].call(new Object[]{i});
+            }
+            return sum;
+        }
+    }
+
+    static final class FunctionNode extends RootNode {
+
+        private final SourceSection sourceSection;
+        private final int index;
+
+        FunctionNode(TruffleLanguage<?> language, SourceSection sourceSection, int index) {
+            super(language);
+            this.sourceSection = sourceSection;
+            this.index = index;
+        }
+
+        @Override
+        public SourceSection getSourceSection() {
+            return sourceSection;
+        }
+
+        @Override
+        public String getName() {
+            return "function" + index;
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            int argument = (int) frame.getArguments()[0];
+            return (long) (argument * 31 + index) ^ argument;
+        }
+    }
+}
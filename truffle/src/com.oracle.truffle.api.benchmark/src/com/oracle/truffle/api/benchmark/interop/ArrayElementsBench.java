@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.benchmark.interop;
+
+import java.nio.DoubleBuffer;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares copying the elements of a large array element by element with the bulk transfer of
+ * {@link Value#getArrayElements(long, Object, int, int)}.
+ */
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class ArrayElementsBench {
+    private static final int SIZE = 100000;
+
+    private Context context;
+    private Value hostArray;
+    private Value proxyArray;
+    private final double[] target = new double[SIZE];
+    private final DoubleBuffer targetBuffer = DoubleBuffer.allocate(SIZE);
+
+    @Setup
+    public void setup() {
+        context = Context.create();
+        double[] doubles = new double[SIZE];
+        Object[] boxed = new Object[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            doubles[i] = i;
+            boxed[i] = (double) i;
+        }
+        hostArray = context.asValue(doubles);
+        proxyArray = context.asValue(ProxyArray.fromArray(boxed));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public double[] hostElementWise() {
+        for (int i = 0; i < SIZE; i++) {
+            target[i] = hostArray.getArrayElement(i).asDouble();
+        }
+        return target;
+    }
+
+    @Benchmark
+    public double[] hostBulk() {
+        hostArray.getArrayElements(0, target, 0, SIZE);
+        return target;
+    }
+
+    @Benchmark
+    public DoubleBuffer hostBulkBuffer() {
+        hostArray.getArrayElements(0, targetBuffer, 0, SIZE);
+        return targetBuffer;
+    }
+
+    @Benchmark
+    public double[] proxyElementWise() {
+        for (int i = 0; i < SIZE; i++) {
+            target[i] = proxyArray.getArrayElement(i).asDouble();
+        }
+        return target;
+    }
+
+    @Benchmark
+    public double[] proxyBulk() {
+        proxyArray.getArrayElements(0, target, 0, SIZE);
+        return target;
+    }
+}
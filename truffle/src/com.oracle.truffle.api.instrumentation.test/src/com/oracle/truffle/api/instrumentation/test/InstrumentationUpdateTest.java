@@ -177,8 +177,98 @@ public class InstrumentationUpdateTest {
         assertExecuted(evalRoot.getChild(), evalRoot.getChild().getChild());
     }
 
+    /*
+     * Test that a root with source sections of several sources is found by bindings filtering on
+     * any of its sources.
+     */
+    @Test
+    public void testMultiSourceRoot() {
+        com.oracle.truffle.api.source.Source otherSource = com.oracle.truffle.api.source.Source.newBuilder("InstrumentationUpdateLanguage", "other", "other").build();
+        MyRoot evalRoot = eval((lang) -> {
+            MyRoot root = new MyRoot(language, language.request.getSource().createSection(0, 5));
+            root.child = new InstrumentationUpdateNode(language.request.getSource().createSection(0, 1));
+            root.child.child = new InstrumentationUpdateNode(otherSource.createSection(0, 5));
+            return root;
+        }, "root1");
+        com.oracle.truffle.api.source.Source rootSource = evalRoot.getSourceSection().getSource();
+
+        List<LoadSourceSectionEvent> rootSourceEvents = attachLoadListener(SourceSectionFilter.newBuilder().sourceIs(rootSource).build());
+        assertLoaded(rootSourceEvents, evalRoot.getChild());
+
+        List<LoadSourceSectionEvent> otherSourceEvents = attachLoadListener(SourceSectionFilter.newBuilder().sourceIs(otherSource).build());
+        assertLoaded(otherSourceEvents, evalRoot.getChild().getChild());
+    }
+
+    /*
+     * Test that a root indexed by its source is still found by bindings filtering on the source of
+     * a node inserted later.
+     */
+    @Test
+    public void testInsertNodeOfOtherSource() {
+        com.oracle.truffle.api.source.Source otherSource = com.oracle.truffle.api.source.Source.newBuilder("InstrumentationUpdateLanguage", "other", "other").build();
+        MyRoot evalRoot = eval((lang) -> {
+            MyRoot root = new MyRoot(language, language.request.getSource().createSection(0, 5));
+            root.child = new InstrumentationUpdateNode(language.request.getSource().createSection(0, 1));
+            return root;
+        }, "root1");
+        com.oracle.truffle.api.source.Source rootSource = evalRoot.getSourceSection().getSource();
+
+        // the first lookup computes the root bits, the second one finds the root indexed
+        List<LoadSourceSectionEvent> rootSourceEvents = attachLoadListener(SourceSectionFilter.newBuilder().sourceIs(rootSource).build());
+        assertLoaded(rootSourceEvents, evalRoot.getChild());
+        rootSourceEvents = attachLoadListener(SourceSectionFilter.newBuilder().sourceIs(rootSource).build());
+        assertLoaded(rootSourceEvents, evalRoot.getChild());
+
+        evalRoot.getChild().setChild(new InstrumentationUpdateNode(otherSource.createSection(0, 5)));
+        evalRoot.notifyChildInsert();
+
+        List<LoadSourceSectionEvent> otherSourceEvents = attachLoadListener(SourceSectionFilter.newBuilder().sourceIs(otherSource).build());
+        assertLoaded(otherSourceEvents, evalRoot.getChild().getChild());
+    }
+
+    /*
+     * Test that a root indexed by its source is still found by bindings filtering on the source of
+     * a node inserted while no bindings were attached.
+     */
+    @Test
+    public void testInsertNodeOfOtherSourceWithoutBindings() {
+        com.oracle.truffle.api.source.Source otherSource = com.oracle.truffle.api.source.Source.newBuilder("InstrumentationUpdateLanguage", "other", "other").build();
+        MyRoot evalRoot = eval((lang) -> {
+            MyRoot root = new MyRoot(language, language.request.getSource().createSection(0, 5));
+            root.child = new InstrumentationUpdateNode(language.request.getSource().createSection(0, 1));
+            return root;
+        }, "root1");
+        com.oracle.truffle.api.source.Source rootSource = evalRoot.getSourceSection().getSource();
+
+        SourceSectionFilter rootSourceFilter = SourceSectionFilter.newBuilder().sourceIs(rootSource).build();
+        instrumentEnv.getInstrumenter().attachLoadSourceSectionListener(rootSourceFilter, (e) -> {
+        }, true).dispose();
+        instrumentEnv.getInstrumenter().attachLoadSourceSectionListener(rootSourceFilter, (e) -> {
+        }, true).dispose();
+
+        evalRoot.getChild().setChild(new InstrumentationUpdateNode(otherSource.createSection(0, 5)));
+        evalRoot.notifyChildInsert();
+
+        List<LoadSourceSectionEvent> otherSourceEvents = attachLoadListener(SourceSectionFilter.newBuilder().sourceIs(otherSource).build());
+        assertLoaded(otherSourceEvents, evalRoot.getChild().getChild());
+    }
+
+    private List<LoadSourceSectionEvent> attachLoadListener(SourceSectionFilter eventFilter) {
+        List<LoadSourceSectionEvent> events = new ArrayList<>();
+        instrumentEnv.getInstrumenter().attachLoadSourceSectionListener(eventFilter, new LoadSourceSectionListener() {
+            public void onLoad(LoadSourceSectionEvent event) {
+                events.add(event);
+            }
+        }, true);
+        return events;
+    }
+
     private void assertLoaded(Node... children) {
-        Iterator<LoadSourceSectionEvent> loadIterator = loadEvents.iterator();
+        assertLoaded(loadEvents, children);
+    }
+
+    private static void assertLoaded(List<LoadSourceSectionEvent> events, Node... children) {
+        Iterator<LoadSourceSectionEvent> loadIterator = events.iterator();
         for (Node loadedChild : children) {
             Assert.assertTrue(loadIterator.hasNext());
             Assert.assertSame(loadedChild, loadIterator.next().getNode());
@@ -238,6 +238,50 @@ public class SourceSectionListenerTest extends AbstractInstrumentationTest {
         }
     }
 
+    @Test
+    public void testLoadSourceSectionsOfSource() throws IOException {
+        SourceSection[] sourceSections1 = sections("STATEMENT(EXPRESSION)", "STATEMENT(EXPRESSION)", "EXPRESSION");
+        SourceSection[] sourceSections2 = sections("EXPRESSION(EXPRESSION)", "EXPRESSION(EXPRESSION)", "EXPRESSION");
+        run(sourceSections1[0].getSource());
+        run(sourceSections2[0].getSource());
+
+        TestLoadSourceSectionsOfSource impl = engine.getInstruments().get("testLoadSourceSectionsOfSource").lookup(TestLoadSourceSectionsOfSource.class);
+        // only roots of the filtered source are reported, including already loaded ones
+        assertEvents(impl.events, sourceSections1);
+        assertSections(impl.query(), sourceSections1);
+
+        run(sourceSections2[0].getSource());
+        assertEvents(impl.events, sourceSections1);
+
+        SourceSection[] sourceSections3 = sections("STATEMENT(EXPRESSION, EXPRESSION)", "STATEMENT(EXPRESSION, EXPRESSION)", "EXPRESSION");
+        run(sourceSections3[0].getSource());
+        assertEvents(impl.events, merge(sourceSections1, sourceSections3));
+    }
+
+    @Registration(id = "testLoadSourceSectionsOfSource", services = TestLoadSourceSectionsOfSource.class)
+    public static class TestLoadSourceSectionsOfSource extends TruffleInstrument {
+
+        private final List<LoadSourceSectionEvent> events = new ArrayList<>();
+        private SourceSectionFilter filter;
+        private Instrumenter instrumenter;
+
+        @Override
+        protected void onCreate(Env env) {
+            instrumenter = env.getInstrumenter();
+            filter = SourceSectionFilter.newBuilder().sourceIs((s) -> s.getCharacters().toString().startsWith("STATEMENT")).build();
+            instrumenter.attachLoadSourceSectionListener(filter, new LoadSourceSectionListener() {
+                public void onLoad(LoadSourceSectionEvent event) {
+                    events.add(event);
+                }
+            }, true);
+            env.registerService(this);
+        }
+
+        private List<com.oracle.truffle.api.source.SourceSection> query() {
+            return instrumenter.querySourceSections(filter);
+        }
+    }
+
     @Test
     public void testLoadSourceSectionException() throws IOException {
         assureEnabled(engine.getInstruments().get("testLoadSourceSectionException"));
@@ -27,12 +27,15 @@ package com.oracle.truffle.api.instrumentation;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -41,7 +44,6 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
@@ -81,37 +83,36 @@ final class InstrumentationHandler {
     private final Object sourceVM;
 
     /*
-     * The contract is the following: "sources" and "sourcesList" can only be accessed while
+     * The contract is the following: "sources" and "sourcesList" can only be updated while
      * synchronized on "sources". both will only be lazily initialized from "loadedRoots" when the
      * first sourceBindings is added, by calling lazyInitializeSourcesList(). "sourcesList" will be
-     * null as long as the sources haven't been initialized.
+     * null as long as the sources haven't been initialized. Roots are traversed to find their
+     * sources before the lock is taken.
      */
-    private final Map<Source, Void> sources = Collections.synchronizedMap(new WeakHashMap<Source, Void>());
+    private final WeakSourceSet sources = new WeakSourceSet();
     /* Load order needs to be preserved for sources, thats why we store sources again in a list. */
     private final AtomicReference<Collection<Source>> sourcesListRef = new AtomicReference<>();
     private volatile boolean hasSourceBindings;
     /*
      * The contract is the following: "sourcesExecuted" and "sourcesExecutedList" can only be
-     * accessed while synchronized on "sourcesExecuted". Both will only be lazily initialized from
+     * updated while synchronized on "sourcesExecuted". Both will only be lazily initialized from
      * "onFirstExecution" when the first sourceExecutedBindings is added, by calling
      * lazyInitializeSourcesExecutedList(). "sourcesExecutedList" will be null as long as the
      * sources haven't been executed.
      */
-    private final Map<Source, Void> sourcesExecuted = Collections.synchronizedMap(new WeakHashMap<Source, Void>());
+    private final WeakSourceSet sourcesExecuted = new WeakSourceSet();
     /* Load order needs to be preserved for sources, thats why we store sources again in a list. */
     private final AtomicReference<Collection<Source>> sourcesExecutedListRef = new AtomicReference<>();
     private volatile boolean hasSourceExecutedBindings;
 
-    private final Collection<RootNode> loadedRoots = new WeakAsyncList<>(256);
-    private final Collection<RootNode> executedRoots = new WeakAsyncList<>(64);
+    private final SourceIndexedRoots loadedRoots = new SourceIndexedRoots(256);
+    private final SourceIndexedRoots executedRoots = new SourceIndexedRoots(64);
     private final Collection<AllocationReporter> allocationReporters = new WeakAsyncList<>(16);
 
     private final Collection<EventBinding.Source<?>> executionBindings = new EventBindingList<>(8);
     private final Collection<EventBinding.Source<?>> sourceSectionBindings = new EventBindingList<>(8);
     private final Collection<EventBinding.Source<?>> sourceBindings = new EventBindingList<>(8);
-    private final FindSourcesVisitor findSourcesVisitor = new FindSourcesVisitor(sources, sourcesListRef);
     private final Collection<EventBinding.Source<?>> sourceExecutedBindings = new EventBindingList<>(8);
-    private final FindSourcesVisitor findSourcesExecutedVisitor = new FindSourcesVisitor(sourcesExecuted, sourcesExecutedListRef);
     private final Collection<EventBinding<? extends OutputStream>> outputStdBindings = new EventBindingList<>(1);
     private final Collection<EventBinding<? extends OutputStream>> outputErrBindings = new EventBindingList<>(1);
     private final Collection<EventBinding.Allocation<? extends AllocationListener>> allocationBindings = new EventBindingList<>(2);
@@ -148,18 +149,13 @@ final class InstrumentationHandler {
         }
         assert root.getLanguageInfo() != null;
         if (hasSourceBindings) {
+            Collection<Source> foundSources = findSources(root);
             final Source[] rootSources;
             synchronized (sources) {
                 if (!sourceBindings.isEmpty()) {
                     // we'll add to the sourcesList, so it needs to be initialized
                     lazyInitializeSourcesList();
-
-                    SourceSection sourceSection = root.getSourceSection();
-                    if (sourceSection != null) {
-                        findSourcesVisitor.adoptSource(sourceSection.getSource());
-                    }
-                    visitRoot(root, root, findSourcesVisitor, false);
-                    rootSources = findSourcesVisitor.getSources();
+                    rootSources = adoptSources(sources, sourcesListRef.get(), foundSources);
                 } else {
                     hasSourceBindings = false;
                     sources.clear();
@@ -187,14 +183,7 @@ final class InstrumentationHandler {
 
     private static class FindSourcesVisitor extends AbstractNodeVisitor {
 
-        private final Map<Source, Void> sources;
-        private final AtomicReference<Collection<Source>> sourcesListRef;
-        private final List<Source> rootSources = new ArrayList<>(5);
-
-        FindSourcesVisitor(Map<Source, Void> sources, AtomicReference<Collection<Source>> sourcesListRef) {
-            this.sources = sources;
-            this.sourcesListRef = sourcesListRef;
-        }
+        private final Set<Source> rootSources = new LinkedHashSet<>(5);
 
         @Override
         boolean shouldVisit() {
@@ -204,28 +193,49 @@ final class InstrumentationHandler {
         @Override
         protected void visitInstrumentable(Node parentInstrumentable, SourceSection parentSourceSection, Node instrumentableNode, SourceSection sourceSection) {
             if (sourceSection != null) {
-                adoptSource(sourceSection.getSource());
+                rootSources.add(sourceSection.getSource());
             }
         }
 
-        void adoptSource(Source source) {
-            assert Thread.holdsLock(sources);
-            if (!sources.containsKey(source)) {
-                sources.put(source, null);
-                sourcesListRef.get().add(source);
-                rootSources.add(source);
-            }
+    }
+
+    /**
+     * Finds the sources of all source sections of a root. Must not be called while holding the
+     * lock of a source set if the whole AST needs to be traversed.
+     */
+    private Collection<Source> findSources(RootNode root) {
+        int rootBits = RootNodeBits.get(root);
+        if (RootNodeBits.isNoSourceSection(rootBits)) {
+            return Collections.emptySet();
         }
+        SourceSection sourceSection = root.getSourceSection();
+        if (RootNodeBits.isSameSource(rootBits) && sourceSection != null) {
+            return Collections.singleton(sourceSection.getSource());
+        }
+        FindSourcesVisitor visitor = new FindSourcesVisitor();
+        if (sourceSection != null) {
+            visitor.rootSources.add(sourceSection.getSource());
+        }
+        visitRoot(root, root, visitor, false);
+        return visitor.rootSources;
+    }
 
-        Source[] getSources() {
-            if (rootSources.isEmpty()) {
-                return null;
+    /**
+     * Adds the sources of a root to a source set and its list, returns the sources that were not
+     * contained in the set before or <code>null</code>.
+     */
+    private static Source[] adoptSources(WeakSourceSet sourceSet, Collection<Source> sourceList, Collection<Source> rootSources) {
+        List<Source> newSources = null;
+        for (Source source : rootSources) {
+            if (sourceSet.add(source)) {
+                sourceList.add(source);
+                if (newSources == null) {
+                    newSources = new ArrayList<>(rootSources.size());
+                }
+                newSources.add(source);
             }
-            Source[] sourcesArray = rootSources.toArray(new Source[rootSources.size()]);
-            rootSources.clear();
-            return sourcesArray;
         }
-
+        return newSources == null ? null : newSources.toArray(new Source[newSources.size()]);
     }
 
     void onFirstExecution(RootNode root) {
@@ -234,29 +244,13 @@ final class InstrumentationHandler {
         }
         assert root.getLanguageInfo() != null;
         if (hasSourceExecutedBindings) {
+            Collection<Source> foundSources = findSources(root);
             final Source[] rootSources;
             synchronized (sourcesExecuted) {
                 if (!sourceExecutedBindings.isEmpty()) {
                     // we'll add to the sourcesExecutedList, so it needs to be initialized
                     lazyInitializeSourcesExecutedList();
-
-                    int rootBits = RootNodeBits.get(root);
-                    if (RootNodeBits.isNoSourceSection(rootBits)) {
-                        rootSources = null;
-                    } else {
-                        SourceSection sourceSection = root.getSourceSection();
-                        if (RootNodeBits.isSameSource(rootBits) && sourceSection != null) {
-                            Source source = sourceSection.getSource();
-                            findSourcesExecutedVisitor.adoptSource(source);
-                            rootSources = new Source[]{source};
-                        } else {
-                            if (sourceSection != null) {
-                                findSourcesExecutedVisitor.adoptSource(sourceSection.getSource());
-                            }
-                            visitRoot(root, root, findSourcesExecutedVisitor, false);
-                            rootSources = findSourcesExecutedVisitor.getSources();
-                        }
-                    }
+                    rootSources = adoptSources(sourcesExecuted, sourcesExecutedListRef.get(), foundSources);
                 } else {
                     hasSourceExecutedBindings = false;
                     sourcesExecuted.clear();
@@ -368,7 +362,7 @@ final class InstrumentationHandler {
         this.executionBindings.add(binding);
 
         if (!executedRoots.isEmpty()) {
-            visitRoots(executedRoots, new InsertWrappersWithBindingVisitor(binding));
+            visitRoots(executedRoots, binding, new InsertWrappersWithBindingVisitor(binding));
         }
 
         if (TRACE) {
@@ -386,7 +380,7 @@ final class InstrumentationHandler {
         this.sourceSectionBindings.add(binding);
         if (notifyLoaded) {
             if (!loadedRoots.isEmpty()) {
-                visitRoots(loadedRoots, new NotifyLoadedWithBindingVisitor(binding));
+                visitRoots(loadedRoots, binding, new NotifyLoadedWithBindingVisitor(binding));
             }
         }
 
@@ -403,7 +397,7 @@ final class InstrumentationHandler {
         }
 
         if (!loadedRoots.isEmpty()) {
-            visitRoots(loadedRoots, new NotifyLoadedWithBindingVisitor(binding));
+            visitRoots(loadedRoots, binding, new NotifyLoadedWithBindingVisitor(binding));
         }
 
         if (TRACE) {
@@ -541,31 +535,7 @@ final class InstrumentationHandler {
             Collection<Source> sourcesList = new WeakAsyncList<>(16);
             sourcesListRef.set(sourcesList);
             for (RootNode root : loadedRoots) {
-                int rootBits = RootNodeBits.get(root);
-                if (RootNodeBits.isNoSourceSection(rootBits)) {
-                    continue;
-                } else {
-                    SourceSection sourceSection = root.getSourceSection();
-                    if (RootNodeBits.isSameSource(rootBits) && sourceSection != null) {
-                        Source source = sourceSection.getSource();
-                        if (!sources.containsKey(source)) {
-                            sources.put(source, null);
-                            sourcesList.add(source);
-                        }
-                    } else {
-                        if (sourceSection != null) {
-                            findSourcesVisitor.adoptSource(sourceSection.getSource());
-                        }
-                        visitRoot(root, root, findSourcesVisitor, false);
-                        for (Source source : findSourcesVisitor.rootSources) {
-                            if (!sources.containsKey(source)) {
-                                sources.put(source, null);
-                                sourcesList.add(source);
-                            }
-                        }
-                        findSourcesVisitor.rootSources.clear();
-                    }
-                }
+                adoptSources(sources, sourcesList, findSources(root));
             }
         }
     }
@@ -580,41 +550,24 @@ final class InstrumentationHandler {
             Collection<Source> sourcesExecutedList = new WeakAsyncList<>(16);
             sourcesExecutedListRef.set(sourcesExecutedList);
             for (RootNode root : executedRoots) {
-                int rootBits = RootNodeBits.get(root);
-                if (RootNodeBits.isNoSourceSection(rootBits)) {
-                    continue;
-                } else {
-                    SourceSection sourceSection = root.getSourceSection();
-                    if (RootNodeBits.isSameSource(rootBits) && sourceSection != null) {
-                        Source source = sourceSection.getSource();
-                        if (!sourcesExecuted.containsKey(source)) {
-                            sourcesExecuted.put(source, null);
-                            sourcesExecutedList.add(source);
-                        }
-                    } else {
-                        if (sourceSection != null) {
-                            findSourcesExecutedVisitor.adoptSource(sourceSection.getSource());
-                        }
-                        visitRoot(root, root, findSourcesExecutedVisitor, false);
-                        for (Source source : findSourcesExecutedVisitor.rootSources) {
-                            if (!sourcesExecuted.containsKey(source)) {
-                                sourcesExecuted.put(source, null);
-                                sourcesExecutedList.add(source);
-                            }
-                        }
-                        findSourcesExecutedVisitor.rootSources.clear();
-                    }
-                }
+                adoptSources(sourcesExecuted, sourcesExecutedList, findSources(root));
             }
         }
     }
 
-    private void visitRoots(Collection<RootNode> roots, AbstractNodeVisitor addBindingsVisitor) {
+    private void visitRoots(Iterable<RootNode> roots, AbstractNodeVisitor addBindingsVisitor) {
         for (RootNode root : roots) {
             visitRoot(root, root, addBindingsVisitor, false);
         }
     }
 
+    /**
+     * Visits only the roots that may be instrumented by the filter of a binding.
+     */
+    private void visitRoots(SourceIndexedRoots roots, EventBinding.Source<?> binding, AbstractNodeVisitor bindingVisitor) {
+        visitRoots(roots.findCandidates(binding.getFilter()), bindingVisitor);
+    }
+
     @SuppressWarnings("deprecation")
     void disposeBinding(EventBinding<?> binding) {
         if (TRACE) {
@@ -624,7 +577,7 @@ final class InstrumentationHandler {
         if (binding instanceof EventBinding.Source) {
             EventBinding.Source<?> sourceBinding = (EventBinding.Source<?>) binding;
             if (sourceBinding.isExecutionEvent()) {
-                visitRoots(executedRoots, new DisposeWrappersVisitor(sourceBinding));
+                visitRoots(executedRoots, sourceBinding, new DisposeWrappersVisitor(sourceBinding));
             }
         } else if (binding instanceof EventBinding.Allocation) {
             EventBinding.Allocation<?> allocationBinding = (EventBinding.Allocation<?>) binding;
@@ -752,6 +705,10 @@ final class InstrumentationHandler {
         if (!executionBindings.isEmpty()) {
             visitRoot(rootNode, parentInstrumentable, new InsertWrappersVisitor(executionBindings), true);
         }
+        if (sourceSectionBindings.isEmpty() && executionBindings.isEmpty()) {
+            // the inserted nodes were not visited, the root bits are recomputed on the next visit
+            RootNodeBits.set(rootNode, RootNodeBits.getUninitialized());
+        }
     }
 
     private static void notifySourceBindingsLoaded(Collection<EventBinding.Source<?>> bindings, Source source) {
@@ -1049,9 +1006,12 @@ final class InstrumentationHandler {
 
         if (visitor.shouldVisit() || forceRootBitComputation) {
             if (forceRootBitComputation) {
-                visitor.computingRootNodeBits = RootNodeBits.isUninitialized(visitor.rootBits) ? RootNodeBits.getAll() : visitor.rootBits;
+                // bits of a partially visited root can only be updated if they are known already
+                visitor.computingRootNodeBits = visitor.rootBits;
             } else if (RootNodeBits.isUninitialized(visitor.rootBits)) {
                 visitor.computingRootNodeBits = RootNodeBits.getAll();
+            } else {
+                visitor.computingRootNodeBits = RootNodeBits.getUninitialized();
             }
 
             if (TRACE) {
@@ -2025,6 +1985,257 @@ final class InstrumentationHandler {
 
     }
 
+    /**
+     * Roots in load order, additionally indexed by their root source once their
+     * {@link RootNodeBits root bits} show that all their source sections are in that source. Roots
+     * whose bits are not computed yet or that span several sources are not indexed. Bindings with
+     * a filter on sources only visit the roots of the sources that pass the filter and the roots
+     * that are not indexed. The index is built when the first such binding is attached.
+     */
+    private static final class SourceIndexedRoots implements Iterable<RootNode> {
+
+        private static final int MIN_PRUNE_THRESHOLD = 1024;
+
+        private final Collection<RootNode> roots;
+
+        /*
+         * All fields below are guarded by this. The index is only updated when candidates are
+         * looked up, entries of collected roots are also pruned when roots are added.
+         */
+        private boolean indexed;
+        private int nextOrder;
+        private int entryCount;
+        private int pruneThreshold = MIN_PRUNE_THRESHOLD;
+        private List<IndexedRoot> pending = new ArrayList<>();
+        private List<IndexedRoot> unindexed = new ArrayList<>();
+        private final Map<Source, List<IndexedRoot>> bySource = new HashMap<>();
+
+        SourceIndexedRoots(int initialCapacity) {
+            this.roots = new WeakAsyncList<>(initialCapacity);
+        }
+
+        void add(RootNode root) {
+            synchronized (this) {
+                roots.add(root);
+                if (indexed) {
+                    pending.add(new IndexedRoot(root, nextOrder++));
+                    if (++entryCount >= pruneThreshold) {
+                        pruneCleared();
+                    }
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return roots.isEmpty();
+        }
+
+        @Override
+        public Iterator<RootNode> iterator() {
+            return roots.iterator();
+        }
+
+        /**
+         * Returns the roots in load order that may be instrumented by a binding with the given
+         * filter.
+         */
+        Iterable<RootNode> findCandidates(SourceSectionFilter filter) {
+            if (!filter.isRootSourceFiltered()) {
+                return roots;
+            }
+            List<IndexedRoot> candidates = new ArrayList<>();
+            synchronized (this) {
+                if (!indexed) {
+                    for (RootNode root : roots) {
+                        pending.add(new IndexedRoot(root, nextOrder++));
+                    }
+                    entryCount = pending.size();
+                    indexed = true;
+                }
+                updateIndex();
+                candidates.addAll(pending);
+                candidates.addAll(unindexed);
+                Iterator<Map.Entry<Source, List<IndexedRoot>>> entries = bySource.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Map.Entry<Source, List<IndexedRoot>> entry = entries.next();
+                    List<IndexedRoot> sourceRoots = entry.getValue();
+                    if (filter.isInstrumentedRootSource(entry.getKey())) {
+                        sourceRoots.removeIf(IndexedRoot::isCleared);
+                        candidates.addAll(sourceRoots);
+                    } else {
+                        revalidate(sourceRoots, candidates);
+                    }
+                    if (sourceRoots.isEmpty()) {
+                        entries.remove();
+                    }
+                }
+            }
+            candidates.sort(null);
+            List<RootNode> result = new ArrayList<>(candidates.size());
+            for (IndexedRoot indexedRoot : candidates) {
+                RootNode root = indexedRoot.get();
+                if (root != null) {
+                    result.add(root);
+                }
+            }
+            return result;
+        }
+
+        /*
+         * Inserted nodes may add source sections of other sources to an indexed root, which clears
+         * its same source bit, or reset its bits if they were not visited. Such roots are moved out
+         * of the index and remain candidates.
+         */
+        private void revalidate(List<IndexedRoot> sourceRoots, List<IndexedRoot> candidates) {
+            Iterator<IndexedRoot> iterator = sourceRoots.iterator();
+            while (iterator.hasNext()) {
+                IndexedRoot indexedRoot = iterator.next();
+                RootNode root = indexedRoot.get();
+                if (root == null) {
+                    iterator.remove();
+                    entryCount--;
+                    continue;
+                }
+                int rootBits = RootNodeBits.get(root);
+                if (RootNodeBits.isUninitialized(rootBits)) {
+                    iterator.remove();
+                    pending.add(indexedRoot);
+                    candidates.add(indexedRoot);
+                } else if (!RootNodeBits.isSameSource(rootBits)) {
+                    iterator.remove();
+                    unindexed.add(indexedRoot);
+                    candidates.add(indexedRoot);
+                }
+            }
+        }
+
+        private void updateIndex() {
+            assert Thread.holdsLock(this);
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<IndexedRoot> stillPending = new ArrayList<>();
+            for (IndexedRoot indexedRoot : pending) {
+                RootNode root = indexedRoot.get();
+                if (root == null) {
+                    entryCount--;
+                    continue;
+                }
+                int rootBits = RootNodeBits.get(root);
+                if (RootNodeBits.isUninitialized(rootBits)) {
+                    stillPending.add(indexedRoot);
+                    continue;
+                }
+                SourceSection sourceSection = root.getSourceSection();
+                if (RootNodeBits.isSameSource(rootBits) && !RootNodeBits.isNoSourceSection(rootBits) && sourceSection != null) {
+                    bySource.computeIfAbsent(sourceSection.getSource(), (s) -> new ArrayList<>()).add(indexedRoot);
+                } else {
+                    unindexed.add(indexedRoot);
+                }
+            }
+            pending = stillPending;
+            entryCount -= removeCleared(unindexed);
+        }
+
+        private void pruneCleared() {
+            assert Thread.holdsLock(this);
+            entryCount -= removeCleared(pending);
+            entryCount -= removeCleared(unindexed);
+            Iterator<List<IndexedRoot>> sourceRoots = bySource.values().iterator();
+            while (sourceRoots.hasNext()) {
+                List<IndexedRoot> list = sourceRoots.next();
+                entryCount -= removeCleared(list);
+                if (list.isEmpty()) {
+                    sourceRoots.remove();
+                }
+            }
+            pruneThreshold = Math.max(MIN_PRUNE_THRESHOLD, entryCount * 2);
+        }
+
+        private static int removeCleared(List<IndexedRoot> list) {
+            int size = list.size();
+            list.removeIf(IndexedRoot::isCleared);
+            return size - list.size();
+        }
+
+    }
+
+    private static final class IndexedRoot extends WeakReference<RootNode> implements Comparable<IndexedRoot> {
+
+        private final int order;
+
+        IndexedRoot(RootNode root, int order) {
+            super(root);
+            this.order = order;
+        }
+
+        boolean isCleared() {
+            return get() == null;
+        }
+
+        @Override
+        public int compareTo(IndexedRoot o) {
+            return Integer.compare(order, o.order);
+        }
+
+    }
+
+    /**
+     * A concurrent set of sources that does not prevent the sources from being collected.
+     */
+    private static final class WeakSourceSet {
+
+        private final ConcurrentHashMap<SourceReference, Boolean> sources = new ConcurrentHashMap<>();
+        private final ReferenceQueue<Source> queue = new ReferenceQueue<>();
+
+        /**
+         * Returns <code>true</code> if the source was not contained in this set.
+         */
+        boolean add(Source source) {
+            expungeStaleEntries();
+            return sources.putIfAbsent(new SourceReference(source, queue), Boolean.TRUE) == null;
+        }
+
+        void clear() {
+            sources.clear();
+        }
+
+        private void expungeStaleEntries() {
+            Reference<? extends Source> stale;
+            while ((stale = queue.poll()) != null) {
+                sources.remove(stale);
+            }
+        }
+
+    }
+
+    private static final class SourceReference extends WeakReference<Source> {
+
+        private final int hash;
+
+        SourceReference(Source source, ReferenceQueue<Source> queue) {
+            super(source, queue);
+            this.hash = source.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof SourceReference)) {
+                return false;
+            }
+            Source source = get();
+            return source != null && source.equals(((SourceReference) obj).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
     static final AccessorInstrumentHandler ACCESSOR = new AccessorInstrumentHandler();
 
     static final class AccessorInstrumentHandler extends Accessor {
@@ -63,7 +63,7 @@ final class RootNodeBits {
     }
 
     static int setHasDifferentSource(int bits) {
-        return bits & ~NO_SOURCE_SECTION;
+        return bits & ~SAME_SOURCE;
     }
 
     static int setHasSourceSection(int bits) {
@@ -82,6 +82,10 @@ final class RootNodeBits {
         return bits == 0;
     }
 
+    static int getUninitialized() {
+        return 0;
+    }
+
     static int getAll() {
         return ALL;
     }
@@ -185,6 +185,32 @@ public final class SourceSectionFilter {
         return true;
     }
 
+    /**
+     * Returns <code>true</code> if the filter excludes roots whose source sections are all in
+     * {@link RootNodeBits#isSameSource(int) the same source} based on that source alone.
+     */
+    boolean isRootSourceFiltered() {
+        for (EventFilterExpression exp : expressions) {
+            if (exp.isRootSourceFiltered()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>false</code> if roots whose source sections are all in the given source are
+     * never {@link #isInstrumentedRoot(Set, SourceSection, RootNode, int) instrumented}.
+     */
+    boolean isInstrumentedRootSource(Source rootSource) {
+        for (EventFilterExpression exp : expressions) {
+            if (exp.isRootSourceFiltered() && !exp.isSourceIncluded(rootSource)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     boolean isInstrumentedNode(Set<Class<?>> providedTags, Node instrumentedNode, SourceSection sourceSection) {
         assert InstrumentationHandler.isInstrumentableNode(instrumentedNode, sourceSection);
         for (EventFilterExpression exp : expressions) {
@@ -718,6 +744,13 @@ public final class SourceSectionFilter {
             return false;
         }
 
+        /*
+         * Expressions that exclude same source roots by their root source in isRootIncluded.
+         */
+        boolean isRootSourceFiltered() {
+            return false;
+        }
+
         @Override
         public final int compareTo(EventFilterExpression o) {
             return getOrder() - o.getOrder();
@@ -744,6 +777,11 @@ public final class SourceSectionFilter {
                 return true;
             }
 
+            @Override
+            boolean isRootSourceFiltered() {
+                return true;
+            }
+
             @Override
             boolean isSourceIncluded(Source src) {
                 if (src == null) {
@@ -834,6 +872,11 @@ public final class SourceSectionFilter {
                 return true;
             }
 
+            @Override
+            boolean isRootSourceFiltered() {
+                return true;
+            }
+
             @Override
             boolean isSourceIncluded(Source src) {
                 for (Source otherSource : sources) {
@@ -898,6 +941,11 @@ public final class SourceSectionFilter {
                 return true;
             }
 
+            @Override
+            boolean isRootSourceFiltered() {
+                return true;
+            }
+
             @Override
             boolean isSourceIncluded(Source source) {
                 String mimeType = source.getMimeType();
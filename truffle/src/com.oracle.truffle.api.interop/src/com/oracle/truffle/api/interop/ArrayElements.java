@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.interop;
+
+import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Accesses the elements of the primitive arrays and buffers that are used as targets and sources
+ * of {@link ForeignAccess#sendReadElements bulk element transfers}.
+ */
+final class ArrayElements {
+
+    private ArrayElements() {
+    }
+
+    @TruffleBoundary
+    static void checkRange(Object elements, int offset, int length) {
+        if (elements == null) {
+            throw new NullPointerException();
+        }
+        int size;
+        if (elements instanceof Buffer) {
+            if (!(elements instanceof ByteBuffer || elements instanceof CharBuffer || elements instanceof ShortBuffer || elements instanceof IntBuffer || elements instanceof LongBuffer ||
+                            elements instanceof FloatBuffer || elements instanceof DoubleBuffer)) {
+                throw unsupportedElements(elements);
+            }
+            size = ((Buffer) elements).limit();
+        } else if (elements.getClass().isArray() && elements.getClass().getComponentType().isPrimitive()) {
+            size = Array.getLength(elements);
+        } else {
+            throw unsupportedElements(elements);
+        }
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException(String.format("Range [%s, %s) is out of bounds for %s elements.", offset, (long) offset + length, size));
+        }
+    }
+
+    private static IllegalArgumentException unsupportedElements(Object elements) {
+        return new IllegalArgumentException(String.format("Expected a primitive array or buffer but got %s.", elements.getClass().getTypeName()));
+    }
+
+    @TruffleBoundary
+    static Object get(Object elements, int index) {
+        if (elements instanceof ByteBuffer) {
+            return ((ByteBuffer) elements).get(index);
+        } else if (elements instanceof CharBuffer) {
+            return ((CharBuffer) elements).get(index);
+        } else if (elements instanceof ShortBuffer) {
+            return ((ShortBuffer) elements).get(index);
+        } else if (elements instanceof IntBuffer) {
+            return ((IntBuffer) elements).get(index);
+        } else if (elements instanceof LongBuffer) {
+            return ((LongBuffer) elements).get(index);
+        } else if (elements instanceof FloatBuffer) {
+            return ((FloatBuffer) elements).get(index);
+        } else if (elements instanceof DoubleBuffer) {
+            return ((DoubleBuffer) elements).get(index);
+        } else {
+            return Array.get(elements, index);
+        }
+    }
+
+    @TruffleBoundary
+    static void set(Object elements, int index, Object value) throws UnsupportedTypeException {
+        Object converted = convert(value, elementType(elements));
+        if (converted == null) {
+            throw UnsupportedTypeException.raise(new Object[]{value});
+        }
+        if (elements instanceof ByteBuffer) {
+            ((ByteBuffer) elements).put(index, (byte) converted);
+        } else if (elements instanceof CharBuffer) {
+            ((CharBuffer) elements).put(index, (char) converted);
+        } else if (elements instanceof ShortBuffer) {
+            ((ShortBuffer) elements).put(index, (short) converted);
+        } else if (elements instanceof IntBuffer) {
+            ((IntBuffer) elements).put(index, (int) converted);
+        } else if (elements instanceof LongBuffer) {
+            ((LongBuffer) elements).put(index, (long) converted);
+        } else if (elements instanceof FloatBuffer) {
+            ((FloatBuffer) elements).put(index, (float) converted);
+        } else if (elements instanceof DoubleBuffer) {
+            ((DoubleBuffer) elements).put(index, (double) converted);
+        } else {
+            Array.set(elements, index, converted);
+        }
+    }
+
+    /**
+     * Unboxes a boxed foreign primitive read from an array. Bulk reads of boxed elements are rare,
+     * so the nodes are not cached.
+     */
+    @TruffleBoundary
+    static Object unbox(TruffleObject value) throws UnsupportedTypeException {
+        if (ForeignAccess.sendIsBoxed(Message.IS_BOXED.createNode(), value)) {
+            try {
+                return ForeignAccess.sendUnbox(Message.UNBOX.createNode(), value);
+            } catch (UnsupportedMessageException e) {
+                // not unboxable after all
+            }
+        }
+        throw UnsupportedTypeException.raise(new Object[]{value});
+    }
+
+    private static Class<?> elementType(Object elements) {
+        if (elements instanceof ByteBuffer) {
+            return byte.class;
+        } else if (elements instanceof CharBuffer) {
+            return char.class;
+        } else if (elements instanceof ShortBuffer) {
+            return short.class;
+        } else if (elements instanceof IntBuffer) {
+            return int.class;
+        } else if (elements instanceof LongBuffer) {
+            return long.class;
+        } else if (elements instanceof FloatBuffer) {
+            return float.class;
+        } else if (elements instanceof DoubleBuffer) {
+            return double.class;
+        } else {
+            return elements.getClass().getComponentType();
+        }
+    }
+
+    /**
+     * Converts an interop primitive to the given primitive type without loss of precision. Returns
+     * <code>null</code> if that is not possible.
+     */
+    private static Object convert(Object value, Class<?> type) {
+        if (type == boolean.class) {
+            return value instanceof Boolean ? value : null;
+        } else if (type == char.class) {
+            if (value instanceof Character) {
+                return value;
+            } else if (value instanceof String && ((String) value).length() == 1) {
+                return ((String) value).charAt(0);
+            }
+            return null;
+        } else if (!(value instanceof Number)) {
+            return null;
+        }
+        boolean floating = value instanceof Double || value instanceof Float;
+        if (!floating && !(value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long)) {
+            return null;
+        }
+        Number number = (Number) value;
+        if (type == double.class) {
+            if (floating) {
+                return number.doubleValue();
+            }
+            long l = number.longValue();
+            double d = l;
+            return d != 0x1p63 && (long) d == l ? d : null;
+        } else if (type == float.class) {
+            if (value instanceof Float) {
+                return value;
+            } else if (floating) {
+                double d = number.doubleValue();
+                float f = (float) d;
+                return f == d || Double.isNaN(d) ? f : null;
+            }
+            long l = number.longValue();
+            float f = l;
+            return f != 0x1p63f && (long) f == l ? f : null;
+        }
+        long l;
+        if (floating) {
+            double d = number.doubleValue();
+            l = (long) d;
+            if (l != d || d == 0x1p63) {
+                return null;
+            }
+        } else {
+            l = number.longValue();
+        }
+        if (type == long.class) {
+            return l;
+        } else if (type == int.class) {
+            return (int) l == l ? (Object) (int) l : null;
+        } else if (type == short.class) {
+            return (short) l == l ? (Object) (short) l : null;
+        } else if (type == byte.class) {
+            return (byte) l == l ? (Object) (byte) l : null;
+        }
+        return null;
+    }
+
+}
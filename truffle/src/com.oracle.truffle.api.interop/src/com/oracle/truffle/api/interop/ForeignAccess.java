@@ -29,6 +29,7 @@ import java.util.List;
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -266,6 +267,101 @@ public final class ForeignAccess {
         }
     }
 
+    /**
+     * Reads a range of array elements of the foreign receiver object into a primitive Java array or
+     * a {@link java.nio.Buffer buffer}. The elements from <code>index</code> to
+     * <code>index + length - 1</code> are stored at the absolute indices of the <code>target</code>
+     * starting with <code>targetOffset</code>. Supported targets are arrays of any primitive type
+     * and {@link java.nio.ByteBuffer byte}, char, short, int, long, float and double buffers. If the
+     * receiver is a Java array of the same element type the elements are copied in bulk, otherwise
+     * each element is read by executing the <code>readNode</code> and converted to the element type
+     * of the target without loss of precision.
+     *
+     * @param readNode the node created by {@link Message#READ}.{@link Message#createNode()}
+     * @param receiver foreign object to read the elements from
+     * @param index the index of the first element to read
+     * @param target the primitive array or buffer to store the elements in
+     * @param targetOffset the index of the target to store the first element at
+     * @param length the number of elements to read
+     * @throws ClassCastException if the createNode has not been created by
+     *             {@link Message#createNode()} method.
+     * @throws IllegalArgumentException if the target is not a supported primitive array or buffer
+     * @throws IndexOutOfBoundsException if the range does not fit into the target
+     * @throws UnsupportedMessageException if the <code>receiver</code> does not support reading
+     *             elements
+     * @throws UnknownIdentifierException if one of the indices cannot be read. The unknown
+     *             identifier is that index, the elements before it are already stored in the
+     *             target.
+     * @throws UnsupportedTypeException if an element cannot be converted to the element type of
+     *             the target
+     * @since 1.0
+     */
+    public static void sendReadElements(Node readNode, TruffleObject receiver, long index, Object target, int targetOffset, int length)
+                    throws UnknownIdentifierException, UnsupportedMessageException, UnsupportedTypeException {
+        ArrayElements.checkRange(target, targetOffset, length);
+        if (ACCESSOR.readHostArrayElements(receiver, index, target, targetOffset, length)) {
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            Object value;
+            try {
+                value = sendRead(readNode, receiver, index + i);
+            } catch (UnknownIdentifierException e) {
+                throw unknownElementIndex(index + i);
+            }
+            if (value instanceof TruffleObject) {
+                value = ArrayElements.unbox((TruffleObject) value);
+            }
+            ArrayElements.set(target, targetOffset + i, value);
+        }
+    }
+
+    /**
+     * Writes a range of array elements of the foreign receiver object from a primitive Java array
+     * or a {@link java.nio.Buffer buffer}. The elements from <code>index</code> to
+     * <code>index + length - 1</code> are set to the values at the absolute indices of the
+     * <code>source</code> starting with <code>sourceOffset</code>. The supported sources are the
+     * same as for {@link #sendReadElements(Node, TruffleObject, long, Object, int, int)}. If the
+     * receiver is a Java array of the same element type the elements are copied in bulk, otherwise
+     * each element is written by executing the <code>writeNode</code>.
+     *
+     * @param writeNode the node created by {@link Message#WRITE}.{@link Message#createNode()}
+     * @param receiver foreign object to write the elements to
+     * @param index the index of the first element to write
+     * @param source the primitive array or buffer to take the values from
+     * @param sourceOffset the index of the source to take the first value from
+     * @param length the number of elements to write
+     * @throws ClassCastException if the createNode has not been created by
+     *             {@link Message#createNode()} method.
+     * @throws IllegalArgumentException if the source is not a supported primitive array or buffer
+     * @throws IndexOutOfBoundsException if the range does not fit into the source
+     * @throws UnsupportedMessageException if the <code>receiver</code> does not support writing
+     *             elements
+     * @throws UnknownIdentifierException if one of the indices cannot be written. The unknown
+     *             identifier is that index, the elements before it are already written.
+     * @throws UnsupportedTypeException if the receiver does not accept one of the values
+     * @since 1.0
+     */
+    public static void sendWriteElements(Node writeNode, TruffleObject receiver, long index, Object source, int sourceOffset, int length)
+                    throws UnknownIdentifierException, UnsupportedMessageException, UnsupportedTypeException {
+        ArrayElements.checkRange(source, sourceOffset, length);
+        if (ACCESSOR.writeHostArrayElements(receiver, index, source, sourceOffset, length)) {
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            try {
+                sendWrite(writeNode, receiver, index + i, ArrayElements.get(source, sourceOffset + i));
+            } catch (UnknownIdentifierException e) {
+                throw unknownElementIndex(index + i);
+            }
+        }
+    }
+
+    @TruffleBoundary
+    private static RuntimeException unknownElementIndex(long index) {
+        return UnknownIdentifierException.raise(String.valueOf(index));
+    }
+
     /**
      * Sends a {@link Message#REMOVE REMOVE message} to the foreign receiver object by executing the
      * <code> removeNode </code>.
@@ -1400,5 +1496,5 @@ public final class ForeignAccess {
         }
     }
 
-    @SuppressWarnings("unused") private static final InteropAccessor ACCESSOR = new InteropAccessor();
+    private static final InteropAccessor ACCESSOR = new InteropAccessor();
 }
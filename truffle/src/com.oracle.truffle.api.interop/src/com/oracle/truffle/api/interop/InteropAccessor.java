@@ -25,6 +25,7 @@
 package com.oracle.truffle.api.interop;
 
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.impl.Accessor;
 import com.oracle.truffle.api.interop.ForeignAccess.StandardFactory;
@@ -33,6 +34,18 @@ import com.oracle.truffle.api.nodes.RootNode;
 
 class InteropAccessor extends Accessor {
 
+    @TruffleBoundary
+    boolean readHostArrayElements(TruffleObject receiver, long index, Object target, int offset, int length) {
+        EngineSupport engine = engineSupport();
+        return engine != null && engine.readHostArrayElements(receiver, index, target, offset, length);
+    }
+
+    @TruffleBoundary
+    boolean writeHostArrayElements(TruffleObject receiver, long index, Object source, int offset, int length) {
+        EngineSupport engine = engineSupport();
+        return engine != null && engine.writeHostArrayElements(receiver, index, source, offset, length);
+    }
+
     @Override
     protected InteropSupport interopSupport() {
         return new InteropSupport() {
@@ -129,6 +142,11 @@ class InteropAccessor extends Accessor {
                     throw new AssertionError("Invalid node object: Node objects must be of type TruffleObject.");
                 }
             }
+
+            @Override
+            public void checkArrayElementsRange(Object elements, int offset, int length) {
+                ArrayElements.checkRange(elements, offset, length);
+            }
         };
     }
 
@@ -0,0 +1,637 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.object;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+
+/**
+ * Storage strategy for the indexed elements of array-like guest objects. A strategy describes the
+ * representation of an element store, e.g. an {@code int[]} for arrays of small integers, and is
+ * selected by the values that are written to it. Writing a value that the current strategy cannot
+ * represent transparently converts the store to a more general strategy, so that arrays of
+ * primitive values are kept unboxed for as long as possible. Integers written to {@link #LONG} or
+ * {@link #DOUBLE} stores are widened.
+ * <p>
+ * Strategies are singletons and can be compared by identity, which makes them suitable as cached
+ * values in specializations:
+ *
+ * <pre>
+ * &#64;Specialization(guards = "forStore(store) == strategy", limit = "5")
+ * Object doRead(Object store, int index, &#64;Cached("forStore(store)") ArrayStrategy strategy) {
+ *     return strategy.get(store, index);
+ * }
+ * </pre>
+ *
+ * The typed accessors, e.g. {@link #getInt(Object, int)} and {@link #setInt(Object, int, int)},
+ * read and write elements without boxing them.
+ *
+ * The strategy does not track the length of the array, which is maintained by the guest object.
+ * Elements beyond the length are unspecified.
+ *
+ * @since 1.0
+ */
+public abstract class ArrayStrategy {
+
+    /**
+     * Strategy for elements that are all {@link Integer}s, stored in an {@code int[]}.
+     *
+     * @since 1.0
+     */
+    public static final ArrayStrategy INT = new IntArrayStrategy();
+
+    /**
+     * Strategy for elements that are all {@link Long}s or {@link Integer}s, stored in a
+     * {@code long[]}.
+     *
+     * @since 1.0
+     */
+    public static final ArrayStrategy LONG = new LongArrayStrategy();
+
+    /**
+     * Strategy for elements that are all {@link Double}s or {@link Integer}s, stored in a
+     * {@code double[]}.
+     *
+     * @since 1.0
+     */
+    public static final ArrayStrategy DOUBLE = new DoubleArrayStrategy();
+
+    /**
+     * Strategy for arbitrary elements, stored in an {@code Object[]}.
+     *
+     * @since 1.0
+     */
+    public static final ArrayStrategy OBJECT = new ObjectArrayStrategy();
+
+    /**
+     * Strategy for arbitrary elements at few, widely spread indices, stored in a hash map. Absent
+     * elements are read as {@code null}.
+     *
+     * @since 1.0
+     */
+    public static final ArrayStrategy SPARSE = new SparseArrayStrategy();
+
+    /*
+     * Minimum number of missing elements between the length and the written index for which a
+     * store becomes sparse.
+     */
+    private static final int SPARSE_GAP = 1024;
+
+    ArrayStrategy() {
+    }
+
+    /**
+     * Returns the strategy that created the given element store.
+     *
+     * @throws IllegalArgumentException if the store was not created by a strategy
+     * @since 1.0
+     */
+    public static ArrayStrategy forStore(Object store) {
+        if (store instanceof int[]) {
+            return INT;
+        } else if (store instanceof long[]) {
+            return LONG;
+        } else if (store instanceof double[]) {
+            return DOUBLE;
+        } else if (store instanceof Object[]) {
+            return OBJECT;
+        } else if (store instanceof SparseStore) {
+            return SPARSE;
+        }
+        throw new IllegalArgumentException("not an element store");
+    }
+
+    /**
+     * Returns the most specific dense strategy that can represent the given value.
+     *
+     * @since 1.0
+     */
+    public static ArrayStrategy forValue(Object value) {
+        if (value instanceof Integer) {
+            return INT;
+        } else if (value instanceof Long) {
+            return LONG;
+        } else if (value instanceof Double) {
+            return DOUBLE;
+        }
+        return OBJECT;
+    }
+
+    /**
+     * Allocates a new element store of this strategy.
+     *
+     * @param capacity the number of elements the store can hold
+     * @since 1.0
+     */
+    public abstract Object newStore(int capacity);
+
+    /**
+     * Returns the number of elements the given store of this strategy can hold.
+     *
+     * @since 1.0
+     */
+    public abstract int capacity(Object store);
+
+    /**
+     * Returns {@code true} if this strategy can represent the given value without loss of
+     * information. {@link #get(Object, int) Reading} it back returns an equal value of the same
+     * class, except for {@link Integer}s in {@link #LONG} and {@link #DOUBLE} stores, which are
+     * read back widened.
+     *
+     * @since 1.0
+     */
+    public abstract boolean accepts(Object value);
+
+    /**
+     * Reads the element at the given index of a store of this strategy.
+     *
+     * @since 1.0
+     */
+    public abstract Object get(Object store, int index);
+
+    /**
+     * Writes an element to a store of this strategy. The value must be {@link #accepts(Object)
+     * accepted} and the index must be smaller than the {@link #capacity(Object) capacity} of the
+     * store, use {@link #write(Object, int, int, Object)} otherwise.
+     *
+     * @since 1.0
+     */
+    public abstract void set(Object store, int index, Object value);
+
+    /**
+     * Reads the element at the given index of a store of this strategy as an {@code int}.
+     *
+     * @throws UnexpectedResultException if the element is not an {@link Integer}
+     * @since 1.0
+     */
+    public int getInt(Object store, int index) throws UnexpectedResultException {
+        Object value = get(store, index);
+        if (value instanceof Integer) {
+            return (int) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    /**
+     * Reads the element at the given index of a store of this strategy as a {@code long}.
+     * {@link Integer} elements are widened.
+     *
+     * @throws UnexpectedResultException if the element is neither a {@link Long} nor an
+     *             {@link Integer}
+     * @since 1.0
+     */
+    public long getLong(Object store, int index) throws UnexpectedResultException {
+        Object value = get(store, index);
+        if (value instanceof Long) {
+            return (long) value;
+        } else if (value instanceof Integer) {
+            return (int) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    /**
+     * Reads the element at the given index of a store of this strategy as a {@code double}.
+     * {@link Integer} elements are widened.
+     *
+     * @throws UnexpectedResultException if the element is neither a {@link Double} nor an
+     *             {@link Integer}
+     * @since 1.0
+     */
+    public double getDouble(Object store, int index) throws UnexpectedResultException {
+        Object value = get(store, index);
+        if (value instanceof Double) {
+            return (double) value;
+        } else if (value instanceof Integer) {
+            return (int) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    /**
+     * Writes an {@code int} element to a store of this strategy. All strategies accept
+     * {@code int}s. The index must be smaller than the {@link #capacity(Object) capacity} of the
+     * store.
+     *
+     * @since 1.0
+     */
+    public void setInt(Object store, int index, int value) {
+        set(store, index, value);
+    }
+
+    /**
+     * Writes a {@code long} element to a store of this strategy. The strategy must
+     * {@link #accepts(Object) accept} {@link Long}s and the index must be smaller than the
+     * {@link #capacity(Object) capacity} of the store.
+     *
+     * @since 1.0
+     */
+    public void setLong(Object store, int index, long value) {
+        set(store, index, value);
+    }
+
+    /**
+     * Writes a {@code double} element to a store of this strategy. The strategy must
+     * {@link #accepts(Object) accept} {@link Double}s and the index must be smaller than the
+     * {@link #capacity(Object) capacity} of the store.
+     *
+     * @since 1.0
+     */
+    public void setDouble(Object store, int index, double value) {
+        set(store, index, value);
+    }
+
+    /**
+     * Returns a copy of a store of this strategy with the given capacity. Elements beyond the new
+     * capacity are dropped.
+     *
+     * @since 1.0
+     */
+    public abstract Object copyOf(Object store, int newCapacity);
+
+    /**
+     * Returns the most specific strategy that can represent the elements of both this and the
+     * given strategy. {@link #INT} generalizes to {@link #LONG} or {@link #DOUBLE}, which represent
+     * all {@code int}s exactly. {@link #LONG} and {@link #DOUBLE} generalize to {@link #OBJECT}.
+     *
+     * @since 1.0
+     */
+    public final ArrayStrategy generalize(ArrayStrategy other) {
+        if (this == other) {
+            return this;
+        } else if (this == SPARSE || other == SPARSE) {
+            return SPARSE;
+        } else if (this == INT && (other == LONG || other == DOUBLE)) {
+            return other;
+        } else if (other == INT && (this == LONG || this == DOUBLE)) {
+            return this;
+        }
+        return OBJECT;
+    }
+
+    /**
+     * Returns the most specific strategy that can represent the elements of this strategy and the
+     * given value.
+     *
+     * @since 1.0
+     */
+    public final ArrayStrategy generalizeForValue(Object value) {
+        if (accepts(value)) {
+            return this;
+        }
+        return generalize(forValue(value));
+    }
+
+    /**
+     * Converts the first {@code length} elements of a store of this strategy to a new store of the
+     * target strategy.
+     *
+     * @throws IllegalArgumentException if the target strategy cannot represent all elements of this
+     *             strategy
+     * @since 1.0
+     */
+    @TruffleBoundary
+    public final Object convert(Object store, int length, ArrayStrategy target) {
+        if (generalize(target) != target) {
+            throw new IllegalArgumentException("cannot convert " + this + " elements to " + target);
+        }
+        return convert(store, length, target, Math.max(length, capacity(store)));
+    }
+
+    private Object convert(Object store, int length, ArrayStrategy target, int newCapacity) {
+        Object newStore = target.newStore(newCapacity);
+        for (int i = 0; i < length; i++) {
+            target.set(newStore, i, get(store, i));
+        }
+        return newStore;
+    }
+
+    /**
+     * Writes an element to a store of this strategy, growing the store or converting it to a more
+     * general strategy if necessary. The strategy of the returned store is determined with
+     * {@link #forStore(Object)}.
+     *
+     * @param store a store of this strategy
+     * @param length the number of elements in use, which are preserved if the store is replaced
+     * @param index the index of the element
+     * @param value the value of the element
+     * @return the store that contains the written element, either the given store or a new one
+     * @since 1.0
+     */
+    public final Object write(Object store, int length, int index, Object value) {
+        if (index >= 0 && index < capacity(store) && accepts(value)) {
+            set(store, index, value);
+            return store;
+        }
+        return writeSlowPath(store, length, index, value);
+    }
+
+    @TruffleBoundary
+    private Object writeSlowPath(Object store, int length, int index, Object value) {
+        if (index < 0) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        ArrayStrategy target = generalizeForValue(value);
+        int capacity = capacity(store);
+        int newCapacity = capacity;
+        if (index >= capacity) {
+            if (index - length >= Math.max(SPARSE_GAP, length)) {
+                target = SPARSE;
+            }
+            newCapacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(index + 1L, capacity * 2L));
+        }
+        Object newStore;
+        if (target == this) {
+            newStore = copyOf(store, newCapacity);
+        } else {
+            newStore = convert(store, Math.min(length, capacity), target, newCapacity);
+        }
+        target.set(newStore, index, value);
+        return newStore;
+    }
+
+    private static final class IntArrayStrategy extends ArrayStrategy {
+
+        @Override
+        public Object newStore(int capacity) {
+            return new int[capacity];
+        }
+
+        @Override
+        public int capacity(Object store) {
+            return ((int[]) store).length;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return value instanceof Integer;
+        }
+
+        @Override
+        public Object get(Object store, int index) {
+            return ((int[]) store)[index];
+        }
+
+        @Override
+        public void set(Object store, int index, Object value) {
+            ((int[]) store)[index] = (int) value;
+        }
+
+        @Override
+        public int getInt(Object store, int index) {
+            return ((int[]) store)[index];
+        }
+
+        @Override
+        public long getLong(Object store, int index) {
+            return ((int[]) store)[index];
+        }
+
+        @Override
+        public double getDouble(Object store, int index) {
+            return ((int[]) store)[index];
+        }
+
+        @Override
+        public void setInt(Object store, int index, int value) {
+            ((int[]) store)[index] = value;
+        }
+
+        @Override
+        public Object copyOf(Object store, int newCapacity) {
+            return Arrays.copyOf((int[]) store, newCapacity);
+        }
+
+        @Override
+        public String toString() {
+            return "int";
+        }
+    }
+
+    private static final class LongArrayStrategy extends ArrayStrategy {
+
+        @Override
+        public Object newStore(int capacity) {
+            return new long[capacity];
+        }
+
+        @Override
+        public int capacity(Object store) {
+            return ((long[]) store).length;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return value instanceof Long || value instanceof Integer;
+        }
+
+        @Override
+        public Object get(Object store, int index) {
+            return ((long[]) store)[index];
+        }
+
+        @Override
+        public void set(Object store, int index, Object value) {
+            ((long[]) store)[index] = value instanceof Integer ? (int) value : (long) value;
+        }
+
+        @Override
+        public long getLong(Object store, int index) {
+            return ((long[]) store)[index];
+        }
+
+        @Override
+        public void setInt(Object store, int index, int value) {
+            ((long[]) store)[index] = value;
+        }
+
+        @Override
+        public void setLong(Object store, int index, long value) {
+            ((long[]) store)[index] = value;
+        }
+
+        @Override
+        public Object copyOf(Object store, int newCapacity) {
+            return Arrays.copyOf((long[]) store, newCapacity);
+        }
+
+        @Override
+        public String toString() {
+            return "long";
+        }
+    }
+
+    private static final class DoubleArrayStrategy extends ArrayStrategy {
+
+        @Override
+        public Object newStore(int capacity) {
+            return new double[capacity];
+        }
+
+        @Override
+        public int capacity(Object store) {
+            return ((double[]) store).length;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return value instanceof Double || value instanceof Integer;
+        }
+
+        @Override
+        public Object get(Object store, int index) {
+            return ((double[]) store)[index];
+        }
+
+        @Override
+        public void set(Object store, int index, Object value) {
+            ((double[]) store)[index] = value instanceof Integer ? (int) value : (double) value;
+        }
+
+        @Override
+        public double getDouble(Object store, int index) {
+            return ((double[]) store)[index];
+        }
+
+        @Override
+        public void setInt(Object store, int index, int value) {
+            ((double[]) store)[index] = value;
+        }
+
+        @Override
+        public void setDouble(Object store, int index, double value) {
+            ((double[]) store)[index] = value;
+        }
+
+        @Override
+        public Object copyOf(Object store, int newCapacity) {
+            return Arrays.copyOf((double[]) store, newCapacity);
+        }
+
+        @Override
+        public String toString() {
+            return "double";
+        }
+    }
+
+    private static final class ObjectArrayStrategy extends ArrayStrategy {
+
+        @Override
+        public Object newStore(int capacity) {
+            return new Object[capacity];
+        }
+
+        @Override
+        public int capacity(Object store) {
+            return ((Object[]) store).length;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        public Object get(Object store, int index) {
+            return ((Object[]) store)[index];
+        }
+
+        @Override
+        public void set(Object store, int index, Object value) {
+            ((Object[]) store)[index] = value;
+        }
+
+        @Override
+        public Object copyOf(Object store, int newCapacity) {
+            return Arrays.copyOf((Object[]) store, newCapacity);
+        }
+
+        @Override
+        public String toString() {
+            return "Object";
+        }
+    }
+
+    private static final class SparseArrayStrategy extends ArrayStrategy {
+
+        @Override
+        public Object newStore(int capacity) {
+            return new SparseStore();
+        }
+
+        @Override
+        public int capacity(Object store) {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return true;
+        }
+
+        @TruffleBoundary
+        @Override
+        public Object get(Object store, int index) {
+            if (index < 0) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            return ((SparseStore) store).elements.get(index);
+        }
+
+        @TruffleBoundary
+        @Override
+        public void set(Object store, int index, Object value) {
+            if (index < 0) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            ((SparseStore) store).elements.put(index, value);
+        }
+
+        @TruffleBoundary
+        @Override
+        public Object copyOf(Object store, int newCapacity) {
+            SparseStore copy = new SparseStore();
+            for (Map.Entry<Integer, Object> entry : ((SparseStore) store).elements.entrySet()) {
+                if (entry.getKey() < newCapacity) {
+                    copy.elements.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return "sparse";
+        }
+    }
+
+    private static final class SparseStore {
+        final Map<Integer, Object> elements = new HashMap<>();
+    }
+}
@@ -121,14 +121,17 @@ public class FrameDescriptorTest {
 
         Assumption originalVersion = d.getVersion();
         Assumption copyVersion = copy.getVersion();
+        Assumption originalKind = d.getFrameSlotKindAssumption(first);
+        Assumption copyKind = copy.getFrameSlotKindAssumption(firstCopy);
         copy.setFrameSlotKind(firstCopy, FrameSlotKind.Int);
         assertEquals("Kind is changed", copy.getFrameSlotKind(firstCopy), FrameSlotKind.Int);
         assertEquals("Kind is changed in original too!", d.getFrameSlotKind(first), FrameSlotKind.Int);
-        assertNotEquals("Kind was changed, therefore original's version has to be updated", originalVersion, d.getVersion());
-        assertNotEquals("Kind was changed, therefore copy's version has to be updated", copyVersion, copy.getVersion());
+        assertFalse("Kind was changed, therefore original's kind assumption has to be invalidated", originalKind.isValid());
+        assertFalse("Kind was changed, therefore copy's kind assumption has to be invalidated", copyKind.isValid());
+        assertSame("Kind assumption is shared", d.getFrameSlotKindAssumption(first), copy.getFrameSlotKindAssumption(firstCopy));
+        assertEquals("Kind was changed, but original's layout has not", originalVersion, d.getVersion());
+        assertEquals("Kind was changed, but copy's layout has not", copyVersion, copy.getVersion());
 
-        originalVersion = d.getVersion();
-        copyVersion = copy.getVersion();
         d.addFrameSlot("v3", "i5", FrameSlotKind.Byte);
         assertNotEquals("A slot was added to original, its version has to be updated", originalVersion, d.getVersion());
         assertEquals("A slot was added to original but not in the copy, its version has remain", copyVersion, copy.getVersion());
@@ -164,8 +167,6 @@ public class FrameDescriptorTest {
 
         // change kind
         d.setFrameSlotKind(s3, FrameSlotKind.Object);
-        assertFalse(version.isValid());
-        version = d.getVersion();
         assertTrue(version.isValid());
 
         // remove slot
@@ -175,6 +176,33 @@ public class FrameDescriptorTest {
         assertTrue(version.isValid());
     }
 
+    @Test
+    public void kindAssumption() {
+        FrameDescriptor d = new FrameDescriptor();
+        s1 = d.addFrameSlot("v1", FrameSlotKind.Illegal);
+        s2 = d.addFrameSlot("v2", FrameSlotKind.Illegal);
+
+        Assumption kind1 = d.getFrameSlotKindAssumption(s1);
+        Assumption kind2 = d.getFrameSlotKindAssumption(s2);
+        assertTrue(kind1.isValid());
+        assertTrue(kind2.isValid());
+        assertNotEquals(kind1, kind2);
+
+        d.setFrameSlotKind(s1, FrameSlotKind.Int);
+        assertFalse(kind1.isValid());
+        assertTrue("Other slots are not affected", kind2.isValid());
+        kind1 = d.getFrameSlotKindAssumption(s1);
+        assertTrue(kind1.isValid());
+
+        d.setFrameSlotKind(s1, FrameSlotKind.Int);
+        assertTrue("Setting the same kind does not invalidate", kind1.isValid());
+
+        // adding a slot does not change kinds
+        s3 = d.addFrameSlot("v3");
+        assertTrue(kind1.isValid());
+        assertTrue(kind2.isValid());
+    }
+
     @Test
     public void notInFrameAssumption() {
         FrameDescriptor d = new FrameDescriptor();
@@ -102,6 +102,25 @@ public class FrameDescriptorThreadSafetyTest {
         }
     }
 
+    @Test
+    public void findFrameSlotOnlyReturnsPublishedSlots() throws InterruptedException {
+        final FrameDescriptor frameDescriptor = makeThreadSafe(new FrameDescriptor());
+
+        List<List<Boolean>> results = content(PARTIES_COUNT, ITERATIONS,
+                        (partyIndex, iteration) -> {
+                            if (partyIndex == 0) {
+                                frameDescriptor.addFrameSlot("v" + iteration);
+                                return true;
+                            }
+                            FrameSlot slot = frameDescriptor.findFrameSlot("v" + iteration);
+                            return slot == null || frameDescriptor.getSlots().contains(slot);
+                        });
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertTrue(results.get(i).stream().allMatch(v -> v));
+        }
+    }
+
     @Test
     public void removeFrameSlot() throws InterruptedException {
         final FrameDescriptor frameDescriptor = makeThreadSafe(new FrameDescriptor());
@@ -137,8 +156,8 @@ public class FrameDescriptorThreadSafetyTest {
                         () -> frameDescriptor.setFrameSlotKind(slot, FrameSlotKind.Boolean),
                         (partyIndex, iteration) -> {
                             frameDescriptor.setFrameSlotKind(slot, FrameSlotKind.Int);
-                            Assumption version = frameDescriptor.getVersion();
-                            return Pair.create(version, version.isValid());
+                            Assumption kindAssumption = frameDescriptor.getFrameSlotKindAssumption(slot);
+                            return Pair.create(kindAssumption, kindAssumption.isValid());
                         });
 
         for (int i = 0; i < ITERATIONS; i++) {
@@ -161,6 +180,32 @@ public class FrameDescriptorThreadSafetyTest {
         }
     }
 
+    @Test
+    public void setFrameSlotKindOfDifferentSlots() throws InterruptedException {
+        final FrameDescriptor frameDescriptor = makeThreadSafe(new FrameDescriptor());
+        final FrameSlot unchanged = frameDescriptor.addFrameSlot("unchanged", FrameSlotKind.Int);
+        final FrameSlot[] slots = new FrameSlot[PARTIES_COUNT];
+        for (int i = 0; i < PARTIES_COUNT; i++) {
+            slots[i] = frameDescriptor.addFrameSlot("v" + i);
+        }
+        final Assumption version = frameDescriptor.getVersion();
+        final Assumption unchangedKind = frameDescriptor.getFrameSlotKindAssumption(unchanged);
+
+        List<List<FrameSlotKind>> results = content(PARTIES_COUNT, ITERATIONS,
+                        (partyIndex, iteration) -> {
+                            FrameSlotKind kind = iteration % 2 == 0 ? FrameSlotKind.Long : FrameSlotKind.Double;
+                            frameDescriptor.setFrameSlotKind(slots[partyIndex], kind);
+                            return frameDescriptor.getFrameSlotKind(slots[partyIndex]);
+                        });
+
+        assertTrue("Kind changes must not invalidate the frame version", version.isValid());
+        assertTrue("Kind changes must not invalidate other slots", unchangedKind.isValid());
+        for (int i = 0; i < ITERATIONS; i++) {
+            FrameSlotKind expected = i % 2 == 0 ? FrameSlotKind.Long : FrameSlotKind.Double;
+            assertTrue(results.get(i).stream().allMatch(v -> v == expected));
+        }
+    }
+
     @Test(expected = UnsupportedOperationException.class)
     public void getSlotsReturnsUnmodifiableSnapshot() {
         final FrameDescriptor frameDescriptor = makeThreadSafe(new FrameDescriptor());
@@ -216,6 +216,36 @@ public class OverloadedTest extends ProxyLanguageEnvTest {
         assertEquals("int", num.parameter);
     }
 
+    @Test
+    public void testMegamorphicOverloaded() throws InteropException {
+        Node n = Message.INVOKE.createNode();
+        Num num = new Num();
+        TruffleObject numobj = asTruffleObject(num);
+        // more argument type combinations than the call site caches
+        for (int i = 0; i < 3; i++) {
+            ForeignAccess.sendInvoke(n, numobj, "d", (byte) 42);
+            assertEquals("int", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "d", 42.1f);
+            assertEquals("double", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "d", (short) 42);
+            assertEquals("int", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "d", 0x8000_0000L);
+            assertEquals("double", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "d", 42);
+            assertEquals("int", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "d", 42.1d);
+            assertEquals("double", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "d", 42L);
+            assertEquals("int", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "x", asTruffleObject(BigInteger.TEN));
+            assertEquals("BigInteger", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "x", asTruffleObject(new AtomicInteger(22)));
+            assertEquals("Number", num.parameter);
+            ForeignAccess.sendInvoke(n, numobj, "x", new UnboxableToInt(21));
+            assertEquals("int", num.parameter);
+        }
+    }
+
     @Test
     public void testNarrowing() throws InteropException {
         Node n = Message.INVOKE.createNode();
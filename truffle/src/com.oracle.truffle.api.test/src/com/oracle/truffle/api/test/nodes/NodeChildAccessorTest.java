@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.test.nodes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.api.dsl.GeneratedBy;
+import com.oracle.truffle.api.dsl.NodeChild;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.NodeChildAccessor;
+import com.oracle.truffle.api.nodes.NodeUtil;
+
+public class NodeChildAccessorTest {
+
+    @Test
+    public void testGenerated() throws ClassNotFoundException {
+        Assert.assertTrue(NodeChildAccessor.class.isAssignableFrom(Class.forName(accessorName(BinaryNode.class))));
+        Assert.assertTrue(NodeChildAccessor.class.isAssignableFrom(Class.forName(accessorName(BlockNode.class))));
+        Assert.assertTrue(NodeChildAccessor.class.isAssignableFrom(Class.forName(accessorName(TernaryNode.class))));
+    }
+
+    @Test
+    public void testGeneratedForPrivateFields() throws ClassNotFoundException {
+        Assert.assertTrue(NodeChildAccessor.class.isAssignableFrom(Class.forName(accessorName(PrivateChildNode.class))));
+        Assert.assertTrue(NodeChildAccessor.class.isAssignableFrom(Class.forName(accessorName(PrivateNode.class))));
+    }
+
+    @Test
+    public void testGeneratedForDSLNodes() throws ClassNotFoundException {
+        LeafNode leaf = new LeafNode();
+        Node node = NodeChildAccessorTestFactory.IdentityNodeGen.create(new ConstantNode(leaf));
+        Assert.assertTrue(NodeChildAccessor.class.isAssignableFrom(Class.forName(accessorName(node.getClass()))));
+        node.adoptChildren();
+        Assert.assertEquals(2, NodeUtil.countNodes(node));
+        Node copy = node.deepCopy();
+        Assert.assertEquals(2, NodeUtil.countNodes(copy));
+        Node copiedChild = NodeUtil.findNodeChildren(copy).get(0);
+        Assert.assertNotSame(NodeUtil.findNodeChildren(node).get(0), copiedChild);
+        Assert.assertSame(copy, copiedChild.getParent());
+    }
+
+    @Test
+    public void testUnambiguousNames() throws ClassNotFoundException {
+        Assert.assertNotEquals(accessorName(Outer.Inner.class), accessorName(Outer_Inner.class));
+        Assert.assertEquals(Outer.Inner.class.getName(), generatedBy(Class.forName(accessorName(Outer.Inner.class))));
+        Assert.assertEquals(Outer_Inner.class.getName(), generatedBy(Class.forName(accessorName(Outer_Inner.class))));
+
+        LeafNode leaf1 = new LeafNode();
+        LeafNode leaf2 = new LeafNode();
+        new Outer.Inner(leaf1).adoptChildren();
+        new Outer_Inner(leaf2).adoptChildren();
+        Assert.assertNotNull(leaf1.getParent());
+        Assert.assertNotNull(leaf2.getParent());
+    }
+
+    @Test
+    public void testPrivateFields() {
+        LeafNode leaf = new LeafNode();
+        PrivateChildNode node = new PrivateChildNode(leaf);
+        node.adoptChildren();
+        Assert.assertSame(node, leaf.getParent());
+
+        PrivateChildNode copy = (PrivateChildNode) node.deepCopy();
+        Assert.assertNotSame(leaf, copy.getChild());
+        Assert.assertSame(copy, copy.getChild().getParent());
+
+        LeafNode newLeaf = leaf.replace(new LeafNode());
+        Assert.assertSame(newLeaf, node.getChild());
+        Assert.assertSame(node, newLeaf.getParent());
+    }
+
+    @Test
+    public void testReflectiveFallback() {
+        class LocalNode extends Node {
+
+            @Child Node child;
+
+            LocalNode(Node child) {
+                this.child = child;
+            }
+        }
+        LeafNode leaf = new LeafNode();
+        LocalNode node = new LocalNode(leaf);
+        node.adoptChildren();
+        Assert.assertSame(node, leaf.getParent());
+
+        LocalNode copy = (LocalNode) node.deepCopy();
+        Assert.assertNotSame(leaf, copy.child);
+        Assert.assertSame(copy, copy.child.getParent());
+    }
+
+    @Test
+    public void testPrivateNodeClass() {
+        LeafNode leaf1 = new LeafNode();
+        LeafNode leaf2 = new LeafNode();
+        PrivateNode node = new PrivateNode(leaf1, leaf2);
+        node.adoptChildren();
+        Assert.assertSame(node, leaf1.getParent());
+        Assert.assertSame(node, leaf2.getParent());
+        Assert.assertEquals(3, NodeUtil.countNodes(node));
+
+        PrivateNode copy = (PrivateNode) node.deepCopy();
+        Assert.assertNotSame(node.children, copy.children);
+        Assert.assertSame(copy, copy.child.getParent());
+        Assert.assertSame(copy, copy.children[0].getParent());
+
+        LeafNode newLeaf = leaf2.replace(new LeafNode());
+        Assert.assertSame(newLeaf, node.children[0]);
+        Assert.assertSame(node, newLeaf.getParent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReplacePrivateIllegalType() {
+        LeafNode leaf = new LeafNode();
+        PrivateNode node = new PrivateNode(leaf, new LeafNode());
+        node.adoptChildren();
+        leaf.replace(new BlockNode());
+    }
+
+    @Test
+    public void testAdopt() {
+        LeafNode leaf1 = new LeafNode();
+        LeafNode leaf2 = new LeafNode();
+        LeafNode leaf3 = new LeafNode();
+        LeafNode leaf4 = new LeafNode();
+        TernaryNode ternary = new TernaryNode(leaf1, leaf2, leaf3);
+        BlockNode block = new BlockNode(ternary, null, leaf4);
+        block.adoptChildren();
+
+        Assert.assertSame(block, ternary.getParent());
+        Assert.assertSame(block, leaf4.getParent());
+        Assert.assertSame(ternary, leaf1.getParent());
+        Assert.assertSame(ternary, leaf2.getParent());
+        Assert.assertSame(ternary, leaf3.getParent());
+        Assert.assertEquals(6, NodeUtil.countNodes(block));
+    }
+
+    @Test
+    public void testChildrenOrder() {
+        LeafNode leaf1 = new LeafNode();
+        LeafNode leaf2 = new LeafNode();
+        LeafNode leaf3 = new LeafNode();
+        TernaryNode ternary = new TernaryNode(leaf1, leaf2, leaf3);
+
+        List<Node> children = new ArrayList<>();
+        for (Node child : ternary.getChildren()) {
+            children.add(child);
+        }
+        Assert.assertEquals(children, NodeUtil.findNodeChildren(ternary));
+        Assert.assertSame(leaf1, children.get(0));
+        Assert.assertSame(leaf2, children.get(1));
+        Assert.assertSame(leaf3, children.get(2));
+    }
+
+    @Test
+    public void testReplace() {
+        LeafNode leaf1 = new LeafNode();
+        LeafNode leaf2 = new LeafNode();
+        LeafNode leaf3 = new LeafNode();
+        BinaryNode binary = new BinaryNode(leaf1, null);
+        BlockNode block = new BlockNode(binary, leaf2);
+        block.adoptChildren();
+
+        LeafNode newLeaf1 = leaf1.replace(new LeafNode());
+        LeafNode newLeaf2 = leaf2.replace(new LeafNode());
+        Assert.assertSame(newLeaf1, binary.left);
+        Assert.assertSame(binary, newLeaf1.getParent());
+        Assert.assertSame(newLeaf2, block.children[1]);
+        Assert.assertSame(block, newLeaf2.getParent());
+        Assert.assertFalse(NodeUtil.replaceChild(binary, leaf3, new LeafNode()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReplaceIllegalType() {
+        BinaryNode binary = new BinaryNode(new LeafNode(), new LeafNode());
+        binary.adoptChildren();
+        binary.right.replace(new BlockNode());
+    }
+
+    @Test
+    public void testDeepCopy() {
+        LeafNode leaf1 = new LeafNode();
+        LeafNode leaf2 = new LeafNode();
+        BinaryNode binary = new BinaryNode(leaf1, null);
+        BlockNode block = new BlockNode(binary, leaf2);
+        block.adoptChildren();
+
+        BlockNode copy = (BlockNode) block.deepCopy();
+        Assert.assertNotSame(block.children, copy.children);
+        Assert.assertEquals(2, copy.children.length);
+        BinaryNode binaryCopy = (BinaryNode) copy.children[0];
+        Assert.assertNotSame(binary, binaryCopy);
+        Assert.assertSame(copy, binaryCopy.getParent());
+        Assert.assertNotSame(leaf1, binaryCopy.left);
+        Assert.assertSame(binaryCopy, binaryCopy.left.getParent());
+        Assert.assertNull(binaryCopy.right);
+        Assert.assertNotSame(leaf2, copy.children[1]);
+        Assert.assertSame(copy, copy.children[1].getParent());
+    }
+
+    private static String accessorName(Class<?> nodeClass) {
+        StringBuilder name = new StringBuilder();
+        Class<?> current = nodeClass;
+        while (current.getEnclosingClass() != null) {
+            name.insert(0, "_" + current.getSimpleName().replace("_", "_1"));
+            current = current.getEnclosingClass();
+        }
+        return current.getName().replace("_", "_1") + name + "_ChildAccessor";
+    }
+
+    private static String generatedBy(Class<?> accessorClass) {
+        return accessorClass.getAnnotation(GeneratedBy.class).value().getName();
+    }
+
+    static class LeafNode extends Node {
+    }
+
+    static class BinaryNode extends Node {
+
+        @Child Node left;
+        @Child LeafNode right;
+
+        BinaryNode(Node left, LeafNode right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    static class TernaryNode extends BinaryNode {
+
+        @Child Node third;
+
+        TernaryNode(Node left, LeafNode right, Node third) {
+            super(left, right);
+            this.third = third;
+        }
+    }
+
+    static class BlockNode extends Node {
+
+        @Children final Node[] children;
+
+        BlockNode(Node... children) {
+            this.children = children;
+        }
+    }
+
+    static class PrivateChildNode extends Node {
+
+        @Child private Node child;
+
+        PrivateChildNode(Node child) {
+            this.child = child;
+        }
+
+        Node getChild() {
+            return child;
+        }
+    }
+
+    private static class PrivateNode extends Node {
+
+        @Child LeafNode child;
+        @Children final LeafNode[] children;
+
+        PrivateNode(LeafNode child, LeafNode... children) {
+            this.child = child;
+            this.children = children;
+        }
+    }
+
+    static class Outer {
+
+        static class Inner extends Node {
+
+            @Child Node child;
+
+            Inner(Node child) {
+                this.child = child;
+            }
+        }
+    }
+
+    static class Outer_Inner extends Node {
+
+        @Child Node child;
+
+        Outer_Inner(Node child) {
+            this.child = child;
+        }
+    }
+
+    abstract static class ValueNode extends Node {
+
+        abstract Object execute(VirtualFrame frame);
+    }
+
+    static class ConstantNode extends ValueNode {
+
+        private final Object value;
+
+        ConstantNode(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(VirtualFrame frame) {
+            return value;
+        }
+    }
+
+    @NodeChild("operand")
+    abstract static class IdentityNode extends ValueNode {
+
+        @Specialization
+        Object doDefault(Object operand) {
+            return operand;
+        }
+    }
+}
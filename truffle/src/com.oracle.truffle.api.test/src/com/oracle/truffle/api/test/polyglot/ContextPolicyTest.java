@@ -28,7 +28,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.graalvm.options.OptionCategory;
 import org.graalvm.options.OptionDescriptors;
@@ -55,11 +59,12 @@ public class ContextPolicyTest {
     private static final String SINGLE_LANGUAGE = "OneContextPolicy";
     private static final String SINGLE_REUSE_LANGUAGE = "OneReuseContextPolicy";
     private static final String MULTIPLE_LANGUAGE = "ManyContextPolicy";
+    private static final String SLOW_SOURCE = "slow";
 
     static List<TruffleLanguage<?>> languageInstances = new ArrayList<>();
     static List<TruffleLanguage<?>> contextCreate = new ArrayList<>();
     static List<TruffleLanguage<?>> contextDispose = new ArrayList<>();
-    static List<TruffleLanguage<?>> parseRequest = new ArrayList<>();
+    static List<TruffleLanguage<?>> parseRequest = Collections.synchronizedList(new ArrayList<>());
 
     @After
     @Before
@@ -125,6 +130,29 @@ public class ContextPolicyTest {
         engine.close();
     }
 
+    @Test
+    public void testManyLanguageConcurrentASTParsing() throws Exception {
+        Source source = Source.create(MULTIPLE_LANGUAGE, SLOW_SOURCE);
+        Engine engine = Engine.create();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                Context context = Context.newBuilder().engine(engine).build();
+                context.eval(source);
+                context.close();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        // contexts that evaluate the source at the same time wait for a single parse
+        assertEquals(1, parseRequest.size());
+        engine.close();
+    }
+
     @Test
     public void testOneReuseLanguageASTParsing() {
         Source source0 = Source.create(SINGLE_REUSE_LANGUAGE, "s0");
@@ -449,6 +477,9 @@ public class ContextPolicyTest {
         @Override
         protected CallTarget parse(ParsingRequest request) throws Exception {
             parseRequest.add(this);
+            if (request.getSource().getCharacters().toString().equals(SLOW_SOURCE)) {
+                Thread.sleep(100);
+            }
             return Truffle.getRuntime().createCallTarget(RootNode.createConstantNode(42));
         }
 
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.ContextPool;
+import org.graalvm.polyglot.Engine;
+import org.junit.After;
+import org.junit.Test;
+
+import com.oracle.truffle.api.TruffleLanguage.Env;
+
+public class ContextPoolTest {
+
+    private final AtomicInteger createCount = new AtomicInteger();
+    private final AtomicInteger resetCount = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        ProxyLanguage.setDelegate(new ProxyLanguage());
+    }
+
+    private void setupLanguage(boolean resettable) {
+        ProxyLanguage.setDelegate(new ProxyLanguage() {
+            @Override
+            protected LanguageContext createContext(Env env) {
+                createCount.incrementAndGet();
+                return super.createContext(env);
+            }
+
+            @Override
+            protected boolean isThreadAccessAllowed(Thread thread, boolean singleThreaded) {
+                return true;
+            }
+
+            @Override
+            protected boolean resetContext(LanguageContext context) {
+                resetCount.incrementAndGet();
+                return resettable;
+            }
+        });
+    }
+
+    @Test
+    public void testReuse() {
+        setupLanguage(true);
+        Engine engine = Engine.create();
+        ContextPool pool = engine.createContextPool(Context.newBuilder(ProxyLanguage.ID), 1);
+        assertEquals(1, createCount.get());
+
+        Context context = pool.acquire();
+        assertEquals(1, createCount.get());
+        context.getPolyglotBindings().putMember("a", 42);
+        pool.release(context);
+        assertEquals(1, resetCount.get());
+
+        Context reused = pool.acquire();
+        assertSame(context, reused);
+        assertFalse(reused.getPolyglotBindings().hasMember("a"));
+        assertEquals(1, createCount.get());
+
+        // the pool is empty, a new context is created
+        Context other = pool.acquire();
+        assertNotSame(reused, other);
+        assertEquals(2, createCount.get());
+
+        // only one idle context is kept, the second one is closed
+        pool.release(reused);
+        pool.release(other);
+        assertClosed(other);
+        assertSame(reused, pool.acquire());
+
+        pool.close();
+        engine.close();
+    }
+
+    @Test
+    public void testNotResettable() {
+        setupLanguage(false);
+        Engine engine = Engine.create();
+        ContextPool pool = engine.createContextPool(Context.newBuilder(ProxyLanguage.ID), 2);
+        assertEquals(2, createCount.get());
+
+        Context context = pool.acquire();
+        pool.release(context);
+        assertEquals(1, resetCount.get());
+        assertClosed(context);
+
+        assertNotSame(context, pool.acquire());
+        pool.close();
+        engine.close();
+    }
+
+    @Test
+    public void testClose() {
+        setupLanguage(true);
+        Engine engine = Engine.create();
+        ContextPool pool = engine.createContextPool(Context.newBuilder(ProxyLanguage.ID), 1);
+        Context acquired = pool.acquire();
+        Context idle = pool.acquire();
+        pool.release(idle);
+        pool.close();
+        assertClosed(idle);
+
+        try {
+            pool.acquire();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+
+        // contexts released to a closed pool are closed
+        pool.release(acquired);
+        assertClosed(acquired);
+        assertTrue(engine.getLanguages().containsKey(ProxyLanguage.ID));
+        engine.close();
+    }
+
+    @Test
+    public void testEnteredContextNotReused() {
+        setupLanguage(true);
+        Engine engine = Engine.create();
+        ContextPool pool = engine.createContextPool(Context.newBuilder(ProxyLanguage.ID), 1);
+        Context context = pool.acquire();
+        context.enter();
+        try {
+            pool.release(context);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        assertEquals(0, resetCount.get());
+        context.leave();
+
+        // the failed release did not release the context
+        pool.release(context);
+        assertEquals(1, resetCount.get());
+        assertSame(context, pool.acquire());
+        pool.close();
+        engine.close();
+    }
+
+    @Test
+    public void testActiveOnOtherThread() throws InterruptedException {
+        setupLanguage(true);
+        Engine engine = Engine.create();
+        ContextPool pool = engine.createContextPool(Context.newBuilder(ProxyLanguage.ID), 1);
+        Context context = pool.acquire();
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            context.enter();
+            try {
+                entered.countDown();
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                // interrupted by the release
+            } finally {
+                context.leave();
+            }
+        });
+        thread.start();
+        entered.await();
+
+        // the context is closed as soon as the other thread left it
+        pool.release(context);
+        thread.join();
+        assertEquals(0, resetCount.get());
+        assertClosed(context);
+        pool.close();
+        engine.close();
+    }
+
+    @Test
+    public void testForeignContext() {
+        setupLanguage(true);
+        Engine engine = Engine.create();
+        ContextPool pool = engine.createContextPool(Context.newBuilder(ProxyLanguage.ID), 1);
+        ContextPool otherPool = engine.createContextPool(Context.newBuilder(ProxyLanguage.ID), 1);
+        Context foreign = otherPool.acquire();
+        try {
+            pool.release(foreign);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        Context created = Context.newBuilder(ProxyLanguage.ID).engine(engine).build();
+        try {
+            pool.release(created);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals(0, resetCount.get());
+        created.close();
+
+        // a context cannot be released twice
+        Context context = pool.acquire();
+        pool.release(context);
+        try {
+            pool.release(context);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals(1, resetCount.get());
+
+        otherPool.release(foreign);
+        otherPool.close();
+        pool.close();
+        engine.close();
+    }
+
+    private static void assertClosed(Context context) {
+        try {
+            context.getPolyglotBindings();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+}
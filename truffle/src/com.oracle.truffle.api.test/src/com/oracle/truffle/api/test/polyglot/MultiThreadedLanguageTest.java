@@ -338,6 +338,96 @@ public class MultiThreadedLanguageTest {
         assertTrue(executor.shutdownNow().isEmpty());
     }
 
+    @Test
+    public void testMultiThreadedEnterLeave() throws InterruptedException, ExecutionException {
+        MultiThreadedLanguage.isThreadAccessAllowed = (req) -> {
+            return true;
+        };
+        final int threadCount = 16;
+        final int iterations = 1000;
+        ExecutorService executor = createExecutor(threadCount);
+        Context context = Context.create(MultiThreadedLanguage.ID);
+        eval(context, (env) -> null);
+
+        // all threads are entered at the same time once to force multi-threading
+        CountDownLatch allEntered = new CountDownLatch(threadCount);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(executor.submit(() -> {
+                eval(context, (env) -> {
+                    allEntered.countDown();
+                    try {
+                        allEntered.await();
+                    } catch (InterruptedException e) {
+                    }
+                    return null;
+                });
+                for (int iteration = 0; iteration < iterations; iteration++) {
+                    Value value = eval(context, (env) -> MultiThreadedLanguage.getContext());
+                    assertSame(MultiThreadedLanguage.langContext, value.asHostObject());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        assertEquals(threadCount + 1, initializeCount.get());
+        assertEquals(1, initializeMultiThreadingCount.get());
+
+        context.close();
+        assertEquals(threadCount + 1, disposeCount.get());
+    }
+
+    @Test
+    public void testEnterNewThreadsDuringFailedClose() throws Throwable {
+        MultiThreadedLanguage.isThreadAccessAllowed = (req) -> {
+            return true;
+        };
+        Context context = Context.create(MultiThreadedLanguage.ID);
+        ExecutorService executor = createExecutor(1);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Future<?> executing = executor.submit(() -> {
+            eval(context, (env) -> {
+                entered.countDown();
+                try {
+                    done.await();
+                } catch (InterruptedException e) {
+                }
+                return null;
+            });
+        });
+        entered.await();
+
+        // a close that fails because of the executing thread must not reject new threads
+        AtomicReference<Throwable> seenError = new AtomicReference<>();
+        Thread enterer = new Thread(() -> {
+            for (int i = 0; i < 200 && seenError.get() == null; i++) {
+                Thread thread = new Thread(() -> eval(context, (env) -> null));
+                thread.setUncaughtExceptionHandler((t, e) -> seenError.set(e));
+                thread.start();
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        enterer.start();
+        while (enterer.isAlive()) {
+            try {
+                context.close();
+                fail();
+            } catch (IllegalStateException e) {
+            }
+        }
+        done.countDown();
+        executing.get();
+        context.close();
+        if (seenError.get() != null) {
+            throw seenError.get();
+        }
+    }
+
     @Test
     public void testAccessTruffleContextPolyglotThread() throws Throwable {
         MultiThreadedLanguage.isThreadAccessAllowed = (req) -> {
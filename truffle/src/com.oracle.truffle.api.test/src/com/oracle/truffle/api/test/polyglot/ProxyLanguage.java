@@ -151,6 +151,16 @@ public class ProxyLanguage extends TruffleLanguage<LanguageContext> {
         }
     }
 
+    @Override
+    protected boolean resetContext(LanguageContext context) {
+        if (wrapper) {
+            delegate.languageInstance = this;
+            return delegate.resetContext(context);
+        } else {
+            return super.resetContext(context);
+        }
+    }
+
     @Override
     protected void disposeThread(LanguageContext context, Thread thread) {
 
@@ -37,6 +37,7 @@ import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
 import java.lang.reflect.Method;
+import java.nio.DoubleBuffer;
 import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.ArrayList;
@@ -45,6 +46,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -57,6 +59,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import org.graalvm.polyglot.PolyglotException;
 import org.graalvm.polyglot.TypeLiteral;
 import org.graalvm.polyglot.Value;
+import org.graalvm.polyglot.proxy.ProxyArray;
 import org.graalvm.polyglot.proxy.ProxyObject;
 import org.hamcrest.CoreMatchers;
 import org.junit.Before;
@@ -301,6 +304,50 @@ public class ValueHostInteropTest extends AbstractPolyglotTest {
         assertEquals(10, readX.execute().asInt());
     }
 
+    public static class OverloadedPOJO {
+        public int x = 41;
+        public static int y = 42;
+
+        public String over(int value) {
+            return "int";
+        }
+
+        public String over(String value) {
+            return "string";
+        }
+
+        public static String over(boolean value) {
+            return "boolean";
+        }
+
+        public static String staticOnly() {
+            return "static";
+        }
+    }
+
+    @Test
+    public void lazyMembersResolveOverloadsAndStatics() {
+        Value pojo = context.asValue(new OverloadedPOJO());
+        // field lookup before any method lookup
+        assertEquals(41, pojo.getMember("x").asInt());
+        assertEquals("int", pojo.getMember("over").execute(1).asString());
+        assertEquals("string", pojo.getMember("over").execute("a").asString());
+        assertFalse(pojo.hasMember("y"));
+        assertFalse(pojo.hasMember("staticOnly"));
+        assertEquals(new HashSet<>(Arrays.asList("x", "over")), pojo.getMemberKeys());
+
+        Value statics = context.asValue(languageEnv.lookupHostSymbol(OverloadedPOJO.class.getName()));
+        assertEquals(42, statics.getMember("y").asInt());
+        assertEquals("boolean", statics.getMember("over").execute(true).asString());
+        assertEquals("static", statics.getMember("staticOnly").execute().asString());
+        assertFalse(statics.hasMember("x"));
+        assertTrue(statics.getMember("over").canExecute());
+        assertEquals(new HashSet<>(Arrays.asList("y", "over", "staticOnly", "class")), statics.getMemberKeys());
+
+        Value newInstance = statics.newInstance();
+        assertEquals(41, newInstance.getMember("x").asInt());
+    }
+
     @Test
     public void arrayHasSize() {
         Value arrObj = context.asValue(new String[]{"Hello", "World", "!"});
@@ -318,6 +365,79 @@ public class ValueHostInteropTest extends AbstractPolyglotTest {
         assertEquals(0L, arrObj.getArraySize());
     }
 
+    @Test
+    public void arrayElementsBulk() {
+        double[] host = new double[]{1.5, 2.5, 3.5, 4.5};
+        Value arrObj = context.asValue(host);
+
+        double[] doubles = new double[5];
+        arrObj.getArrayElements(1, doubles, 1, 3);
+        assertArrayEquals(new double[]{0, 2.5, 3.5, 4.5, 0}, doubles, 0);
+
+        DoubleBuffer buffer = DoubleBuffer.allocate(4);
+        arrObj.getArrayElements(0, buffer, 0, 4);
+        assertEquals(0, buffer.position());
+        assertArrayEquals(host, buffer.array(), 0);
+
+        arrObj.setArrayElements(2, new double[]{7, 8, 9}, 1, 2);
+        assertArrayEquals(new double[]{1.5, 2.5, 8, 9}, host, 0);
+
+        arrObj.setArrayElements(0, DoubleBuffer.wrap(new double[]{5, 6}), 0, 2);
+        assertArrayEquals(new double[]{5, 6, 8, 9}, host, 0);
+
+        // element types differ: converted element by element
+        long[] longs = new long[4];
+        arrObj.getArrayElements(0, longs, 0, 4);
+        assertArrayEquals(new long[]{5, 6, 8, 9}, longs);
+
+        try {
+            context.asValue(new double[]{0.5}).getArrayElements(0, new int[1], 0, 1);
+            fail();
+        } catch (ClassCastException e) {
+        }
+        try {
+            arrObj.getArrayElements(2, doubles, 0, 3);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid array index 4 "));
+        }
+        try {
+            arrObj.setArrayElements(3, new double[2], 0, 2);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid array index 4 "));
+        }
+        try {
+            arrObj.getArrayElements(0, doubles, 4, 2);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+        }
+        try {
+            arrObj.getArrayElements(0, new Object[4], 0, 4);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            context.asValue(new Data()).getArrayElements(0, doubles, 0, 1);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    @Test
+    public void arrayElementsBulkProxy() {
+        Object[] values = new Object[]{1, 2L, 3.0};
+        Value arrObj = context.asValue(ProxyArray.fromArray(values));
+
+        double[] doubles = new double[3];
+        arrObj.getArrayElements(0, doubles, 0, 3);
+        assertArrayEquals(new double[]{1, 2, 3}, doubles, 0);
+
+        arrObj.setArrayElements(1, new int[]{42, 43}, 0, 2);
+        assertEquals(42, ((Value) values[1]).asInt());
+        assertEquals(43, ((Value) values[2]).asInt());
+    }
+
     private static final TypeLiteral<List<String>> LIST_STRING = new TypeLiteral<List<String>>() {
     };
 
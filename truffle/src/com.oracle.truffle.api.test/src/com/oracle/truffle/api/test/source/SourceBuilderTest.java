@@ -41,6 +41,7 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.jar.JarOutputStream;
@@ -161,6 +162,42 @@ public class SourceBuilderTest extends AbstractPolyglotTest {
         assertTrue(source.hasCharacters());
     }
 
+    @Test
+    public void testBuildLargeBinaryFileSource() throws IOException {
+        File file = File.createTempFile("Large", ".bin").getCanonicalFile();
+        file.deleteOnExit();
+        byte[] bytes = new byte[2 * 1024 * 1024];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+
+        org.graalvm.polyglot.Source source = org.graalvm.polyglot.Source.newBuilder("TestJS", file).mimeType("application/test-js").build();
+        assertTrue(source.hasBytes());
+        ByteSequence content = source.getBytes();
+        assertEquals(bytes.length, content.length());
+        assertEquals(bytes[12345], content.byteAt(12345));
+        assertEquals(ByteSequence.create(bytes), content);
+        assertEquals(content, ByteSequence.create(bytes));
+        assertEquals(ByteSequence.create(bytes).hashCode(), content.hashCode());
+        Assert.assertArrayEquals(Arrays.copyOfRange(bytes, 100, 200), content.subSequence(100, 200).toByteArray());
+        assertEquals(source, org.graalvm.polyglot.Source.newBuilder("TestJS", file).mimeType("application/test-js").build());
+
+        // the contents of an existing source do not change with the file
+        byte[] changedBytes = new byte[bytes.length / 2];
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(changedBytes);
+        }
+        assertEquals(bytes.length, content.length());
+        assertEquals(bytes[12345], content.byteAt(12345));
+        assertEquals(ByteSequence.create(bytes), content);
+        org.graalvm.polyglot.Source changedSource = org.graalvm.polyglot.Source.newBuilder("TestJS", file).mimeType("application/test-js").build();
+        assertEquals(ByteSequence.create(changedBytes), changedSource.getBytes());
+        assertNotEquals(source, changedSource);
+    }
+
     private static void assertFails(Callable<?> callable, Class<? extends Exception> exception) {
         try {
             callable.call();
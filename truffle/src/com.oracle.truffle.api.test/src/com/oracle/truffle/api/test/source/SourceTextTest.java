@@ -281,4 +281,29 @@ public class SourceTextTest {
         Source source = Source.newBuilder("", "Hi", name).build();
         assertEquals(name, source.getName());
     }
+
+    @Test
+    public void lazyLineMapTest() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            for (int j = 0; j < i % 7; j++) {
+                text.append('x');
+            }
+            text.append('\n');
+        }
+        text.append("last");
+        String string = text.toString();
+        for (CharSequence characters : new CharSequence[]{string, new StringBuilder(string)}) {
+            Source source = Source.newBuilder("", characters, "lazy").build();
+            assertEquals(5000 % 7, source.getLineLength(5001));
+            assertEquals(string.indexOf("last"), source.getLineStartOffset(10001));
+            assertEquals(4, source.getLineLength(10001));
+            assertEquals(1, source.getLineNumber(0));
+            int offset = source.getLineStartOffset(9000);
+            assertEquals(9000, source.getLineNumber(offset));
+            assertEquals(1, source.getColumnNumber(offset));
+            assertEquals(10001, source.getLineCount());
+            assertEquals(string.length(), source.getLength());
+        }
+    }
 }
@@ -567,6 +567,30 @@ public abstract class TruffleLanguage<C> {
     protected void disposeContext(C context) {
     }
 
+    /**
+     * Resets the context created by
+     * {@link #createContext(com.oracle.truffle.api.TruffleLanguage.Env)} to the state it had right
+     * after it was {@link #initializeContext(Object) initialized}, such that no global state of
+     * previous evaluations is observable anymore. This allows embedders to reuse a
+     * {@link org.graalvm.polyglot.Context context} for an unrelated request, e.g., when it is
+     * returned to a {@link org.graalvm.polyglot.ContextPool context pool}, without paying the
+     * costs of creating and initializing a new one. The context is entered on the current thread
+     * and no other thread is entered while the reset is performed.
+     * <p>
+     * Languages that can restore their global state cheaply, e.g., by discarding the global scope
+     * and re-installing their builtins, should override this method and return <code>true</code>.
+     * If <code>false</code> is returned, which is the default, the context is not reused but
+     * closed.
+     *
+     * @param context the context created by
+     *            {@link #createContext(com.oracle.truffle.api.TruffleLanguage.Env)}
+     * @return <code>true</code> if the context was reset, else <code>false</code>
+     * @since 1.0
+     */
+    protected boolean resetContext(C context) {
+        return false;
+    }
+
     /**
      * Parses the {@link ParsingRequest#getSource() provided source} and generates its appropriate
      * AST representation. The parsing should execute no user code, it should only create the
@@ -2380,6 +2404,11 @@ public abstract class TruffleLanguage<C> {
             env.getSpi().disposeThread(env.context, current);
         }
 
+        @Override
+        public boolean resetContext(Env env) {
+            return env.getSpi().resetContext(env.context);
+        }
+
         @Override
         public Object evalInContext(Source source, Node node, final MaterializedFrame mFrame) {
             CallTarget target = API.nodes().getLanguage(node.getRootNode()).parse(source, node, mFrame);
@@ -25,13 +25,14 @@
 package com.oracle.truffle.api.frame;
 
 import java.util.AbstractSet;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 import com.oracle.truffle.api.Assumption;
@@ -52,9 +53,20 @@ import org.graalvm.collections.EconomicMap;
  */
 public final class FrameDescriptor implements Cloneable {
 
+    private static final FrameSlot[] EMPTY_SLOTS = new FrameSlot[0];
+
     private final Object defaultValue;
-    private final ArrayList<FrameSlot> slots;
-    private final EconomicMap<Object, FrameSlot> identifierToSlotMap;
+    /*
+     * The slots and the identifier map are only modified while holding the lock. The slots array is
+     * copied on write, so readers can use the current array as an immutable snapshot, and the
+     * identifier map can be read concurrently. Lookups of existing slots therefore never lock,
+     * which keeps concurrent parsing threads from contending on the descriptor. New slots are
+     * published in the slots array before they are added to the identifier map, and removed slots
+     * are removed from the identifier map before the slots array is updated, so a slot that is
+     * found by its identifier is always contained in the current slots.
+     */
+    private volatile FrameSlot[] slots;
+    private final ConcurrentHashMap<Object, FrameSlot> identifierToSlotMap;
     @CompilationFinal private volatile Assumption version;
     private EconomicMap<Object, Assumption> identifierToNotInFrameAssumptionMap;
     @CompilationFinal private volatile int size;
@@ -93,8 +105,8 @@ public final class FrameDescriptor implements Cloneable {
     private FrameDescriptor(Object defaultValue, Object lock) {
         CompilerAsserts.neverPartOfCompilation("do not create a FrameDescriptor from compiled code");
         this.defaultValue = defaultValue;
-        this.slots = new ArrayList<>();
-        this.identifierToSlotMap = EconomicMap.create();
+        this.slots = EMPTY_SLOTS;
+        this.identifierToSlotMap = new ConcurrentHashMap<>();
         this.version = createVersion();
         this.lock = lock == null ? this : lock;
     }
@@ -170,7 +182,10 @@ public final class FrameDescriptor implements Cloneable {
             }
             FrameSlot slot = new FrameSlot(this, identifier, info, kind, size);
             size++;
-            slots.add(slot);
+            FrameSlot[] oldSlots = slots;
+            FrameSlot[] newSlots = Arrays.copyOf(oldSlots, oldSlots.length + 1);
+            newSlots[oldSlots.length] = slot;
+            slots = newSlots;
             identifierToSlotMap.put(identifier, slot);
             updateVersion();
             invalidateNotInFrameAssumption(identifier);
@@ -187,9 +202,7 @@ public final class FrameDescriptor implements Cloneable {
      */
     public FrameSlot findFrameSlot(Object identifier) {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
-        synchronized (lock) {
-            return identifierToSlotMap.get(identifier);
-        }
+        return identifierToSlotMap.get(identifier);
     }
 
     /**
@@ -202,8 +215,12 @@ public final class FrameDescriptor implements Cloneable {
      */
     public FrameSlot findOrAddFrameSlot(Object identifier) {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
+        FrameSlot result = findFrameSlot(identifier);
+        if (result != null) {
+            return result;
+        }
         synchronized (lock) {
-            FrameSlot result = findFrameSlot(identifier);
+            result = findFrameSlot(identifier);
             if (result != null) {
                 return result;
             }
@@ -222,8 +239,12 @@ public final class FrameDescriptor implements Cloneable {
      */
     public FrameSlot findOrAddFrameSlot(Object identifier, FrameSlotKind kind) {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
+        FrameSlot result = findFrameSlot(identifier);
+        if (result != null) {
+            return result;
+        }
         synchronized (lock) {
-            FrameSlot result = findFrameSlot(identifier);
+            result = findFrameSlot(identifier);
             if (result != null) {
                 return result;
             }
@@ -243,8 +264,12 @@ public final class FrameDescriptor implements Cloneable {
      */
     public FrameSlot findOrAddFrameSlot(Object identifier, Object info, FrameSlotKind kind) {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
+        FrameSlot result = findFrameSlot(identifier);
+        if (result != null) {
+            return result;
+        }
         synchronized (lock) {
-            FrameSlot result = findFrameSlot(identifier);
+            result = findFrameSlot(identifier);
             if (result != null) {
                 return result;
             }
@@ -267,8 +292,13 @@ public final class FrameDescriptor implements Cloneable {
             if (slot == null) {
                 throw new IllegalArgumentException("no such frame slot: " + identifier);
             }
-            slots.remove(slot);
-            identifierToSlotMap.removeKey(identifier);
+            FrameSlot[] oldSlots = slots;
+            FrameSlot[] newSlots = new FrameSlot[oldSlots.length - 1];
+            int index = Arrays.asList(oldSlots).indexOf(slot);
+            System.arraycopy(oldSlots, 0, newSlots, 0, index);
+            System.arraycopy(oldSlots, index + 1, newSlots, index, newSlots.length - index);
+            identifierToSlotMap.remove(identifier);
+            slots = newSlots;
             updateVersion();
             getNotInFrameAssumption(identifier);
         }
@@ -294,7 +324,9 @@ public final class FrameDescriptor implements Cloneable {
 
     /**
      * Changes the kind of the provided slot. Change of the slot kind is done on <em>slow path</em>
-     * and invalidates assumptions about version of {@link FrameDescriptor this descriptor}.
+     * and invalidates the {@link #getFrameSlotKindAssumption(FrameSlot) kind assumption} of the
+     * slot. The {@link #getVersion() version} of {@link FrameDescriptor this descriptor} is not
+     * affected.
      *
      * @param frameSlot the slot
      * @param kind new kind of the slot
@@ -309,36 +341,43 @@ public final class FrameDescriptor implements Cloneable {
 
     private void setFrameSlotKindSlow(FrameSlot frameSlot, FrameSlotKind kind) {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
-        synchronized (lock) {
-            assert checkFrameSlotOwnershipUnsafe(frameSlot);
-            /*
-             * Not checking that the frame slot is not removed from the FrameDescriptor letting it
-             * continue will only result in extra version update.
-             */
+        assert checkFrameSlotOwnership(frameSlot);
+        /*
+         * Kind changes only synchronize on the slot, so threads specializing different slots do
+         * not contend and do not invalidate each other's assumptions. Not checking that the frame
+         * slot is not removed from the FrameDescriptor letting it continue will only result in an
+         * extra invalidation.
+         */
+        synchronized (frameSlot) {
             if (frameSlot.kind != kind) { // recheck under lock
                 /*
                  * First, only invalidate before updating kind so it's impossible to read a new kind
                  * and old still valid assumption.
                  */
-                frameSlot.descriptor.version.invalidate();
-                if (frameSlot.sharedWith != null) {
-                    for (FrameDescriptor frameDescriptor : frameSlot.sharedWith.keySet()) {
-                        assert frameDescriptor.lock == lock;
-                        frameDescriptor.version.invalidate();
-                    }
-                }
+                frameSlot.kindAssumption.invalidate();
                 frameSlot.kind = kind;
-                frameSlot.descriptor.version = createVersion();
-                if (frameSlot.sharedWith != null) {
-                    for (FrameDescriptor frameDescriptor : frameSlot.sharedWith.keySet()) {
-                        assert frameDescriptor.lock == lock;
-                        frameDescriptor.version = createVersion();
-                    }
-                }
+                frameSlot.kindAssumption = FrameSlot.createKindAssumption();
             }
         }
     }
 
+    /**
+     * Returns an assumption that the {@link #getFrameSlotKind(FrameSlot) kind} of the provided slot
+     * does not change. The assumption is invalidated by the next
+     * {@link #setFrameSlotKind(FrameSlot, FrameSlotKind) kind change} of the slot, after which a
+     * new assumption is returned. Compiled code that depends on the kind of a slot should register
+     * this assumption instead of the {@link #getVersion() version} of the descriptor, which is not
+     * invalidated by kind changes.
+     *
+     * @param frameSlot the slot
+     * @return an assumption invalidated when the kind of the slot changes
+     * @since 1.0
+     */
+    public Assumption getFrameSlotKindAssumption(FrameSlot frameSlot) {
+        assert checkFrameSlotOwnership(frameSlot);
+        return frameSlot.kindAssumption;
+    }
+
     private boolean checkFrameSlotOwnershipUnsafe(FrameSlot frameSlot) {
         return frameSlot.descriptor == this || (frameSlot.sharedWith != null && frameSlot.sharedWith.containsKey(this));
     }
@@ -376,9 +415,7 @@ public final class FrameDescriptor implements Cloneable {
      */
     public List<? extends FrameSlot> getSlots() {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
-        synchronized (lock) {
-            return Collections.unmodifiableList(new ArrayList<>(slots));
-        }
+        return Collections.unmodifiableList(Arrays.asList(slots));
     }
 
     /**
@@ -390,9 +427,12 @@ public final class FrameDescriptor implements Cloneable {
      */
     public Set<Object> getIdentifiers() {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
-        synchronized (lock) {
-            return unmodifiableSetFromEconomicMap(EconomicMap.create(identifierToSlotMap));
+        FrameSlot[] currentSlots = slots;
+        EconomicMap<Object, FrameSlot> identifiers = EconomicMap.create(currentSlots.length);
+        for (FrameSlot slot : currentSlots) {
+            identifiers.put(slot.getIdentifier(), slot);
         }
+        return unmodifiableSetFromEconomicMap(identifiers);
     }
 
     private static <K> Set<K> unmodifiableSetFromEconomicMap(EconomicMap<K, ?> map) {
@@ -472,14 +512,11 @@ public final class FrameDescriptor implements Cloneable {
      */
     public FrameDescriptor copy() {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
-        synchronized (lock) {
-            FrameDescriptor clonedFrameDescriptor = new FrameDescriptor(this.defaultValue);
-            for (int i = 0; i < slots.size(); i++) {
-                FrameSlot slot = slots.get(i);
-                clonedFrameDescriptor.addFrameSlot(slot.getIdentifier(), slot.getInfo(), FrameSlotKind.Illegal);
-            }
-            return clonedFrameDescriptor;
+        FrameDescriptor clonedFrameDescriptor = new FrameDescriptor(this.defaultValue);
+        for (FrameSlot slot : slots) {
+            clonedFrameDescriptor.addFrameSlot(slot.getIdentifier(), slot.getInfo(), FrameSlotKind.Illegal);
         }
+        return clonedFrameDescriptor;
     }
 
     /**
@@ -497,7 +534,7 @@ public final class FrameDescriptor implements Cloneable {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
         synchronized (lock) {
             FrameDescriptor clonedFrameDescriptor = new FrameDescriptor(this.defaultValue, lock);
-            clonedFrameDescriptor.slots.addAll(slots);
+            clonedFrameDescriptor.slots = slots;
             clonedFrameDescriptor.identifierToSlotMap.putAll(identifierToSlotMap);
             for (FrameSlot slot : slots) {
                 slot.shareWith(clonedFrameDescriptor);
@@ -517,10 +554,11 @@ public final class FrameDescriptor implements Cloneable {
 
     /**
      * Returns an assumption reflecting the frame's current version, which is updated every time a
-     * slot is added or removed, or an existing slot's kind is changed. This assumption is
-     * associated with compiled code that depends on the internal frame layout.
+     * slot is added or removed. This assumption is associated with compiled code that depends on
+     * the internal frame layout. Changes of the kind of a slot only invalidate the
+     * {@link #getFrameSlotKindAssumption(FrameSlot) kind assumption} of that slot.
      *
-     * @return an assumption invalidated when a slot is added or removed, or a slot kind changed.
+     * @return an assumption invalidated when a slot is added or removed.
      * @since 0.8 or earlier
      */
     public Assumption getVersion() {
@@ -585,22 +623,20 @@ public final class FrameDescriptor implements Cloneable {
     @Override
     public String toString() {
         CompilerAsserts.neverPartOfCompilation(NEVER_PART_OF_COMPILATION_MESSAGE);
-        synchronized (lock) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("FrameDescriptor@").append(Integer.toHexString(hashCode()));
-            sb.append("{");
-            boolean comma = false;
-            for (FrameSlot slot : slots) {
-                if (comma) {
-                    sb.append(", ");
-                } else {
-                    comma = true;
-                }
-                sb.append(slot.getIndex()).append(":").append(slot.getIdentifier());
+        StringBuilder sb = new StringBuilder();
+        sb.append("FrameDescriptor@").append(Integer.toHexString(hashCode()));
+        sb.append("{");
+        boolean comma = false;
+        for (FrameSlot slot : slots) {
+            if (comma) {
+                sb.append(", ");
+            } else {
+                comma = true;
             }
-            sb.append("}");
-            return sb.toString();
+            sb.append(slot.getIndex()).append(":").append(slot.getIdentifier());
         }
+        sb.append("}");
+        return sb.toString();
     }
 
     /** @since 0.14 */
@@ -27,8 +27,10 @@ package com.oracle.truffle.api.frame;
 import java.util.Map;
 import java.util.WeakHashMap;
 
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.Truffle;
 
 /**
  * A slot in a {@link Frame} and {@link FrameDescriptor} that can store a value of a given type.
@@ -55,6 +57,11 @@ public final class FrameSlot implements Cloneable {
      * field.
      */
     @CompilationFinal volatile FrameSlotKind kind;
+    /*
+     * Replaced on every kind change. Read by the compiler when it allocates a frame that uses the
+     * kind of this slot, so it must always be present.
+     */
+    @CompilationFinal volatile Assumption kindAssumption;
 
     FrameSlot(FrameDescriptor descriptor, Object identifier, Object info, FrameSlotKind kind, int index) {
         this.descriptor = descriptor;
@@ -62,6 +69,7 @@ public final class FrameSlot implements Cloneable {
         this.info = info;
         this.index = index;
         this.kind = kind;
+        this.kindAssumption = createKindAssumption();
         this.sharedWith = null;
     }
 
@@ -116,8 +124,8 @@ public final class FrameSlot implements Cloneable {
 
     /**
      * Changes the kind of this slot. Change of the slot kind is done on <em>slow path</em> and
-     * invalidates assumptions about version of the {@link FrameDescriptor descriptor} it belongs
-     * to.
+     * invalidates the {@link FrameDescriptor#getFrameSlotKindAssumption(FrameSlot) kind
+     * assumption} of this slot.
      *
      * @param kind new kind of the slot
      * @since 0.8 or earlier
@@ -152,6 +160,10 @@ public final class FrameSlot implements Cloneable {
         return this.descriptor;
     }
 
+    static Assumption createKindAssumption() {
+        return Truffle.getRuntime().createAssumption("frame slot kind");
+    }
+
     void shareWith(FrameDescriptor frameDescriptor) {
         if (sharedWith == null) {
             sharedWith = new WeakHashMap<>();
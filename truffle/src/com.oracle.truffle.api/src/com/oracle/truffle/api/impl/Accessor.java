@@ -30,6 +30,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
@@ -147,6 +148,8 @@ public abstract class Accessor {
         public abstract Object createDefaultNodeObject(Node node);
 
         public abstract boolean isValidNodeObject(Object obj);
+
+        public abstract void checkArrayElementsRange(Object elements, int offset, int length);
     }
 
     public abstract static class EngineSupport {
@@ -308,6 +311,10 @@ public abstract class Accessor {
 
         public abstract boolean isHostSymbol(Object guestObject);
 
+        public abstract boolean readHostArrayElements(Object receiver, long index, Object target, int offset, int length);
+
+        public abstract boolean writeHostArrayElements(Object receiver, long index, Object source, int offset, int length);
+
     }
 
     public abstract static class LanguageSupport {
@@ -377,6 +384,8 @@ public abstract class Accessor {
 
         public abstract void finalizeContext(Env localEnv);
 
+        public abstract boolean resetContext(Env localEnv);
+
         public abstract Iterable<Scope> findLocalScopes(Env env, Node node, Frame frame);
 
         public abstract Iterable<Scope> findTopScopes(Env env);
@@ -694,6 +703,19 @@ public abstract class Accessor {
         return SUPPORT.isGuestCallStackFrame(element);
     }
 
+    protected Map<String, Long> getEngineMetrics(Object runtimeData) {
+        if (SUPPORT == null) {
+            return Collections.emptyMap();
+        }
+        return SUPPORT.getEngineMetrics(runtimeData);
+    }
+
+    protected void onEngineClosed(Object runtimeData) {
+        if (SUPPORT != null) {
+            SUPPORT.onEngineClosed(runtimeData);
+        }
+    }
+
     protected void initializeProfile(CallTarget target, Class<?>[] argmentTypes) {
         SUPPORT.initializeProfile(target, argmentTypes);
     }
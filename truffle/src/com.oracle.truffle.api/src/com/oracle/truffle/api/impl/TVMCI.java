@@ -24,6 +24,8 @@
  */
 package com.oracle.truffle.api.impl;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
 
@@ -288,4 +290,26 @@ public abstract class TVMCI {
     @SuppressWarnings("unused")
     protected void reportPolymorphicSpecialize(Node node) {
     }
+
+    /**
+     * Returns the metrics collected by the runtime for the engine that owns the given
+     * {@link #getOrCreateRuntimeData(RootNode, Supplier) runtime data}, which is {@code null} if
+     * no data was created for the engine yet.
+     *
+     * @since 1.0
+     */
+    protected Map<String, Long> getEngineMetrics(@SuppressWarnings("unused") Object runtimeData) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Invoked when the engine that owns the given {@link #getOrCreateRuntimeData(RootNode, Supplier)
+     * runtime data} is closed. The runtime data is {@code null} if no data was created for the
+     * engine.
+     *
+     * @since 1.0
+     */
+    @SuppressWarnings("unused")
+    protected void onEngineClosed(Object runtimeData) {
+    }
 }
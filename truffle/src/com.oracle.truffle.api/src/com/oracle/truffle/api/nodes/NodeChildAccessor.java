@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.nodes;
+
+import java.lang.reflect.Field;
+
+import com.oracle.truffle.api.nodes.Node.Child;
+import com.oracle.truffle.api.nodes.Node.Children;
+
+/**
+ * Accesses the {@link Child @Child} and {@link Children @Children} fields declared by a single
+ * node class without reflection. Subclasses are generated by the Truffle DSL annotation processor
+ * and are used by {@link NodeClass} to adopt, visit, copy and replace children. Fields that the
+ * generated code cannot access directly, e.g. private fields or fields of a private node class, are
+ * accessed through field offsets resolved when the accessor is created. If no accessor was
+ * generated for a class that declares children, e.g. because it is a local class, the fields are
+ * accessed reflectively instead.
+ * <p>
+ * The accessor of a class only accesses the fields declared by that class, fields declared by
+ * superclasses are accessed with the accessors of the superclasses. This class is not intended to
+ * be subclassed by language implementations.
+ *
+ * @since 1.0
+ */
+@SuppressWarnings("deprecation")
+public abstract class NodeChildAccessor {
+
+    private final Class<? extends Node> nodeClass;
+    private final NodeFieldAccessor[] indirectFields;
+
+    /**
+     * Creates an accessor for the children fields declared by a node class.
+     *
+     * @param nodeClass the class that declares the accessed fields
+     * @param indirectFields the names of the children fields of the class that are not accessed
+     *            directly by the generated code but through {@link #getField(int, Node)} and
+     *            {@link #setField(int, Node, Object)}
+     * @since 1.0
+     */
+    protected NodeChildAccessor(Class<? extends Node> nodeClass, String... indirectFields) {
+        this.nodeClass = nodeClass;
+        this.indirectFields = new NodeFieldAccessor[indirectFields.length];
+        for (int i = 0; i < indirectFields.length; i++) {
+            try {
+                Field field = nodeClass.getDeclaredField(indirectFields[i]);
+                NodeFieldAccessor.NodeFieldKind kind = field.getAnnotation(Children.class) != null ? NodeFieldAccessor.NodeFieldKind.CHILDREN : NodeFieldAccessor.NodeFieldKind.CHILD;
+                this.indirectFields[i] = NodeFieldAccessor.create(kind, field);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Children field not found", e);
+            }
+        }
+    }
+
+    final Class<? extends Node> getNodeClass() {
+        return nodeClass;
+    }
+
+    /**
+     * Adopts all children of a node that do not have the node as parent yet.
+     *
+     * @since 1.0
+     */
+    protected abstract void adoptChildren(Node node);
+
+    /**
+     * Adopts all children of a node and returns the number of nodes in the adopted subtrees.
+     *
+     * @since 1.0
+     */
+    protected abstract int adoptChildrenAndCount(Node node);
+
+    /**
+     * Visits all non-null children of a node in declaration order.
+     *
+     * @return {@code false} if the visitor returned {@code false} for a child, {@code true}
+     *         otherwise
+     * @since 1.0
+     */
+    protected abstract boolean forEachChild(Node node, NodeVisitor visitor);
+
+    /**
+     * Replaces the children of a shallow copy of a node with deep copies of the children of the
+     * original node.
+     *
+     * @since 1.0
+     */
+    protected abstract void copyChildren(Node original, Node copy);
+
+    /**
+     * Replaces the first occurrence of a child of a node.
+     *
+     * @return {@code true} if the child was found, {@code false} otherwise
+     * @since 1.0
+     */
+    protected abstract boolean replaceChild(Node node, Node oldChild, Node newChild, boolean adopt);
+
+    /** @since 1.0 */
+    protected static void adopt(Node parent, Object child) {
+        if (child != null) {
+            Node node = (Node) child;
+            if (node.getParent() != parent) {
+                parent.adoptHelper(node);
+            }
+        }
+    }
+
+    /** @since 1.0 */
+    protected static void adoptAll(Node parent, Object[] children) {
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                adopt(parent, children[i]);
+            }
+        }
+    }
+
+    /** @since 1.0 */
+    protected static int adoptAndCount(Node parent, Object child) {
+        if (child != null) {
+            return parent.adoptAndCountHelper((Node) child);
+        }
+        return 0;
+    }
+
+    /** @since 1.0 */
+    protected static int adoptAllAndCount(Node parent, Object[] children) {
+        int count = 0;
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                count += adoptAndCount(parent, children[i]);
+            }
+        }
+        return count;
+    }
+
+    /** @since 1.0 */
+    protected static boolean visit(NodeVisitor visitor, Object child) {
+        return child == null || visitor.visit((Node) child);
+    }
+
+    /** @since 1.0 */
+    protected static boolean visitAll(NodeVisitor visitor, Object[] children) {
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                if (!visit(visitor, children[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** @since 1.0 */
+    protected static Object copyChild(Node copy, Object child) {
+        if (child == null) {
+            return null;
+        }
+        Node clonedChild = ((Node) child).deepCopy();
+        clonedChild.setParent(copy);
+        return clonedChild;
+    }
+
+    /** @since 1.0 */
+    protected static Object[] copyChildren(Node copy, Object[] children) {
+        if (children == null) {
+            return null;
+        }
+        Object[] clonedChildren = children.clone();
+        for (int i = 0; i < clonedChildren.length; i++) {
+            clonedChildren[i] = copyChild(copy, children[i]);
+        }
+        return clonedChildren;
+    }
+
+    /**
+     * Reads an indirectly accessed children field of a node.
+     *
+     * @param index the index of the field in the names passed to the constructor
+     * @since 1.0
+     */
+    protected final Object getField(int index, Node node) {
+        return indirectFields[index].getObject(node);
+    }
+
+    /**
+     * Writes an indirectly accessed children field of a node.
+     *
+     * @param index the index of the field in the names passed to the constructor
+     * @since 1.0
+     */
+    protected final void setField(int index, Node node, Object value) {
+        indirectFields[index].putObject(node, value);
+    }
+
+    /**
+     * Replaces the child stored in an indirectly accessed {@link Child @Child} field if it is the
+     * old child and adopts the new child if requested.
+     *
+     * @param index the index of the field in the names passed to the constructor
+     * @return {@code true} if the child was found, {@code false} otherwise
+     * @since 1.0
+     */
+    protected final boolean replaceField(int index, Node node, Node oldChild, Node newChild, boolean adopt) {
+        NodeFieldAccessor field = indirectFields[index];
+        if (field.getObject(node) != oldChild) {
+            return false;
+        }
+        replacement(field.getName(), field.getType(), node, newChild, adopt);
+        field.putObject(node, newChild);
+        return true;
+    }
+
+    /**
+     * Checks that a new child can be stored in a {@link Child @Child} field and adopts it if
+     * requested.
+     *
+     * @return the new child
+     * @since 1.0
+     */
+    protected final Object replacement(String fieldName, Class<?> fieldType, Node node, Node newChild, boolean adopt) {
+        if (newChild != null && !fieldType.isInstance(newChild)) {
+            throw new IllegalArgumentException("Cannot set " + fieldType.getName() + " field " + nodeClass.getName() + "." + fieldName + " to " + newChild.getClass().getName());
+        }
+        if (adopt) {
+            node.adoptHelper(newChild);
+        }
+        return newChild;
+    }
+
+    /**
+     * Replaces the first occurrence of a child in a {@link Children @Children} array.
+     *
+     * @return {@code true} if the child was found, {@code false} otherwise
+     * @since 1.0
+     */
+    protected final boolean replaceElement(String fieldName, Object[] children, Node node, Node oldChild, Node newChild, boolean adopt) {
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == oldChild) {
+                    if (adopt) {
+                        node.adoptHelper(newChild);
+                    }
+                    try {
+                        children[i] = newChild;
+                    } catch (ArrayStoreException e) {
+                        throw new IllegalArgumentException("Cannot set element of " + children.getClass().getName() + " field " + nodeClass.getName() + "." + fieldName + " to " +
+                                        (newChild == null ? "null" : newChild.getClass().getName()));
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** @since 1.0 */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + nodeClass.getName() + "]";
+    }
+}
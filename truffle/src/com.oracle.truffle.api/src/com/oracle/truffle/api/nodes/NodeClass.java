@@ -161,4 +161,26 @@ public abstract class NodeClass {
     boolean nodeFieldsOrderedByKind() {
         return false;
     }
+
+    /**
+     * Returns the generated accessors for the children fields of this class and its superclasses,
+     * ordered from the root of the class hierarchy, or {@code null} if the children fields must be
+     * accessed through {@link #getNodeFields()}.
+     */
+    NodeChildAccessor[] getChildAccessors() {
+        return null;
+    }
+
+    /**
+     * Returns the {@link #isCloneableField(Object) cloneable} fields of this class.
+     */
+    Object[] getCloneableNodeFields() {
+        List<Object> cloneableFields = new ArrayList<>();
+        for (Object field : getNodeFields()) {
+            if (isCloneableField(field)) {
+                cloneableFields.add(field);
+            }
+        }
+        return cloneableFields.toArray();
+    }
 }
@@ -24,9 +24,11 @@
  */
 package com.oracle.truffle.api.nodes;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -43,10 +45,16 @@ import com.oracle.truffle.api.nodes.Node.Children;
 @SuppressWarnings("deprecation")
 final class NodeClassImpl extends NodeClass {
     private static final NodeFieldAccessor[] EMPTY_NODE_FIELD_ARRAY = new NodeFieldAccessor[0];
+    private static final NodeChildAccessor[] EMPTY_CHILD_ACCESSOR_ARRAY = new NodeChildAccessor[0];
+
+    private static final boolean USE_GENERATED_ACCESSORS = Boolean.parseBoolean(System.getProperty("truffle.generatedNodeAccessors", "true"));
+    private static final String CHILD_ACCESSOR_SUFFIX = "_ChildAccessor";
 
     // The comprehensive list of all fields.
     private final NodeFieldAccessor[] fields;
     private final NodeFieldAccessor parentField;
+    private final NodeFieldAccessor[] cloneableFields;
+    private final NodeChildAccessor[] childAccessors;
 
     private final Class<? extends Node> clazz;
 
@@ -82,6 +90,91 @@ final class NodeClassImpl extends NodeClass {
         this.fields = fieldsList.toArray(EMPTY_NODE_FIELD_ARRAY);
         this.parentField = parentFieldTmp;
         this.clazz = clazz;
+        this.cloneableFields = getCloneableFields();
+        this.childAccessors = USE_GENERATED_ACCESSORS ? lookupChildAccessors(clazz, fields) : null;
+    }
+
+    /*
+     * Generated accessors only access the fields declared by a single class, so a class can use
+     * them only if there is an accessor for every class in its hierarchy that declares children.
+     */
+    private static NodeChildAccessor[] lookupChildAccessors(Class<? extends Node> clazz, NodeFieldAccessor[] fields) {
+        if (clazz == Node.class) {
+            return EMPTY_CHILD_ACCESSOR_ARRAY;
+        }
+        NodeChildAccessor[] inherited = NodeClass.get(clazz.getSuperclass().asSubclass(Node.class)).getChildAccessors();
+        if (inherited == null) {
+            return null;
+        }
+        boolean declaresChildren = false;
+        for (NodeFieldAccessor field : fields) {
+            if (field.getDeclaringClass() == clazz && field.getKind() != NodeFieldAccessor.NodeFieldKind.DATA) {
+                declaresChildren = true;
+                break;
+            }
+        }
+        if (!declaresChildren) {
+            return inherited;
+        }
+        NodeChildAccessor accessor = loadChildAccessor(clazz);
+        if (accessor == null) {
+            return null;
+        }
+        NodeChildAccessor[] accessors = Arrays.copyOf(inherited, inherited.length + 1);
+        accessors[inherited.length] = accessor;
+        return accessors;
+    }
+
+    private static NodeChildAccessor loadChildAccessor(Class<? extends Node> clazz) {
+        String accessorName = childAccessorName(clazz);
+        if (accessorName == null) {
+            return null;
+        }
+        try {
+            Class<?> accessorClass = Class.forName(accessorName, true, clazz.getClassLoader());
+            if (!NodeChildAccessor.class.isAssignableFrom(accessorClass)) {
+                return null;
+            }
+            Constructor<?> constructor = accessorClass.getDeclaredConstructor(Class.class);
+            constructor.setAccessible(true);
+            return (NodeChildAccessor) constructor.newInstance(clazz);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // the accessor is only an optimization, the fields can still be accessed reflectively
+            return null;
+        }
+    }
+
+    /*
+     * Must be kept in sync with NodeChildAccessorProcessor: the simple names of the class and its
+     * enclosing classes are joined with '_', after escaping '_' as "_1" and '$' as "_2".
+     */
+    private static String childAccessorName(Class<?> clazz) {
+        StringBuilder name = new StringBuilder();
+        Class<?> current = clazz;
+        Class<?> topLevel = clazz;
+        while (current != null) {
+            if (current.isAnonymousClass() || current.isLocalClass()) {
+                return null;
+            }
+            StringBuilder simpleName = new StringBuilder();
+            for (char c : current.getSimpleName().toCharArray()) {
+                if (c == '_') {
+                    simpleName.append("_1");
+                } else if (c == '$') {
+                    simpleName.append("_2");
+                } else {
+                    simpleName.append(c);
+                }
+            }
+            name.insert(0, current == clazz ? simpleName : simpleName.append('_'));
+            topLevel = current;
+            current = current.getEnclosingClass();
+        }
+        String topLevelName = topLevel.getName();
+        String packagePrefix = topLevelName.substring(0, topLevelName.lastIndexOf('.') + 1);
+        return packagePrefix + name.append(CHILD_ACCESSOR_SUFFIX);
     }
 
     private static void collectInstanceFields(Class<? extends Object> clazz, List<NodeFieldAccessor> fieldsList) {
@@ -299,4 +392,14 @@ final class NodeClassImpl extends NodeClass {
         return true;
     }
 
+    @Override
+    NodeChildAccessor[] getChildAccessors() {
+        return childAccessors;
+    }
+
+    @Override
+    Object[] getCloneableNodeFields() {
+        return cloneableFields;
+    }
+
 }
@@ -141,6 +141,17 @@ public final class NodeUtil {
 
         clone.setParent(null);
 
+        NodeChildAccessor[] accessors = nodeClass.getChildAccessors();
+        if (accessors != null) {
+            for (NodeChildAccessor accessor : accessors) {
+                accessor.copyChildren(orig, clone);
+            }
+            for (Object field : nodeClass.getCloneableNodeFields()) {
+                copyCloneableField(nodeClass, field, orig, clone);
+            }
+            return clone;
+        }
+
         for (Object field : nodeClass.getNodeFields()) {
             if (nodeClass.isChildField(field)) {
                 Node child = (Node) nodeClass.getFieldObject(field, orig);
@@ -163,10 +174,7 @@ public final class NodeUtil {
                     nodeClass.putFieldObject(field, clone, clonedChildren);
                 }
             } else if (nodeClass.isCloneableField(field)) {
-                Object cloneable = nodeClass.getFieldObject(field, clone);
-                if (cloneable != null && cloneable == nodeClass.getFieldObject(field, orig)) {
-                    nodeClass.putFieldObject(field, clone, ((NodeCloneable) cloneable).clone());
-                }
+                copyCloneableField(nodeClass, field, orig, clone);
             } else if (nodeClass.nodeFieldsOrderedByKind()) {
                 break;
             }
@@ -174,12 +182,33 @@ public final class NodeUtil {
         return clone;
     }
 
+    private static void copyCloneableField(NodeClass nodeClass, Object field, Node orig, Node clone) {
+        Object cloneable = nodeClass.getFieldObject(field, clone);
+        if (cloneable != null && cloneable == nodeClass.getFieldObject(field, orig)) {
+            nodeClass.putFieldObject(field, clone, ((NodeCloneable) cloneable).clone());
+        }
+    }
+
     /** @since 0.8 or earlier */
     public static List<Node> findNodeChildren(Node node) {
         CompilerAsserts.neverPartOfCompilation("do not call Node.findNodeChildren from compiled code");
-        List<Node> nodes = new ArrayList<>();
+        final List<Node> nodes = new ArrayList<>();
         NodeClass nodeClass = node.getNodeClass();
 
+        NodeChildAccessor[] accessors = nodeClass.getChildAccessors();
+        if (accessors != null) {
+            NodeVisitor collector = new NodeVisitor() {
+                public boolean visit(Node child) {
+                    nodes.add(child);
+                    return true;
+                }
+            };
+            for (NodeChildAccessor accessor : accessors) {
+                accessor.forEachChild(node, collector);
+            }
+            return nodes;
+        }
+
         for (Object nodeField : nodeClass.getNodeFields()) {
             if (nodeClass.isChildField(nodeField)) {
                 Object child = nodeClass.getFieldObject(nodeField, node);
@@ -218,6 +247,13 @@ public final class NodeUtil {
      */
     static void adoptChildrenHelper(Node currentNode) {
         NodeClass clazz = currentNode.getNodeClass();
+        NodeChildAccessor[] accessors = clazz.getChildAccessors();
+        if (accessors != null) {
+            for (NodeChildAccessor accessor : accessors) {
+                accessor.adoptChildren(currentNode);
+            }
+            return;
+        }
         for (Object field : clazz.getNodeFields()) {
             if (clazz.isChildField(field)) {
                 Object child = clazz.getFieldObject(field, currentNode);
@@ -256,6 +292,13 @@ public final class NodeUtil {
     static int adoptChildrenAndCountHelper(Node currentNode) {
         int count = 0;
         NodeClass clazz = currentNode.getNodeClass();
+        NodeChildAccessor[] accessors = clazz.getChildAccessors();
+        if (accessors != null) {
+            for (NodeChildAccessor accessor : accessors) {
+                count += accessor.adoptChildrenAndCount(currentNode);
+            }
+            return count;
+        }
         for (Object field : clazz.getNodeFields()) {
             if (clazz.isChildField(field)) {
                 Object child = clazz.getFieldObject(field, currentNode);
@@ -287,6 +330,16 @@ public final class NodeUtil {
         CompilerAsserts.neverPartOfCompilation("do not replace Node child from compiled code");
         NodeClass nodeClass = parent.getNodeClass();
 
+        NodeChildAccessor[] accessors = nodeClass.getChildAccessors();
+        if (accessors != null) {
+            for (NodeChildAccessor accessor : accessors) {
+                if (accessor.replaceChild(parent, oldChild, newChild, adopt)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         for (Object nodeField : nodeClass.getNodeFields()) {
             if (nodeClass.isChildField(nodeField)) {
                 if (nodeClass.getFieldObject(nodeField, parent) == oldChild) {
@@ -402,6 +455,16 @@ public final class NodeUtil {
         Objects.requireNonNull(visitor);
         NodeClass nodeClass = parent.getNodeClass();
 
+        NodeChildAccessor[] accessors = nodeClass.getChildAccessors();
+        if (accessors != null) {
+            for (NodeChildAccessor accessor : accessors) {
+                if (!accessor.forEachChild(parent, visitor)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         for (Object field : nodeClass.getNodeFields()) {
             if (nodeClass.isChildField(field)) {
                 Object child = nodeClass.getFieldObject(field, parent);
@@ -431,9 +494,21 @@ public final class NodeUtil {
         return true;
     }
 
-    static boolean forEachChildRecursive(Node parent, NodeVisitor visitor) {
+    static boolean forEachChildRecursive(Node parent, NodeVisitor nodeVisitor) {
         NodeClass nodeClass = parent.getNodeClass();
 
+        NodeChildAccessor[] accessors = nodeClass.getChildAccessors();
+        if (accessors != null) {
+            NodeVisitor recursiveVisitor = nodeVisitor instanceof RecursiveVisitor ? nodeVisitor : new RecursiveVisitor(nodeVisitor);
+            for (NodeChildAccessor accessor : accessors) {
+                if (!accessor.forEachChild(parent, recursiveVisitor)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        NodeVisitor visitor = nodeVisitor instanceof RecursiveVisitor ? ((RecursiveVisitor) nodeVisitor).visitor : nodeVisitor;
         for (Object field : nodeClass.getNodeFields()) {
             if (nodeClass.isChildField(field)) {
                 if (!visitChild((Node) nodeClass.getFieldObject(field, parent), visitor)) {
@@ -458,6 +533,22 @@ public final class NodeUtil {
         return true;
     }
 
+    /*
+     * Visits the children passed by a generated child accessor and their subtrees.
+     */
+    private static final class RecursiveVisitor implements NodeVisitor {
+
+        private final NodeVisitor visitor;
+
+        RecursiveVisitor(NodeVisitor visitor) {
+            this.visitor = visitor;
+        }
+
+        public boolean visit(Node node) {
+            return visitor.visit(node) && forEachChildRecursive(node, this);
+        }
+    }
+
     private static boolean visitChild(Node child, NodeVisitor visitor) {
         if (child == null) {
             return true;
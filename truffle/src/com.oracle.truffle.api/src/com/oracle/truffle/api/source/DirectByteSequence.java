@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.api.source;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.graalvm.polyglot.io.ByteSequence;
+
+/**
+ * Byte contents of a file copied into memory outside of the Java heap, so that large byte based
+ * sources do not occupy the heap. The file is read completely when the sequence is created, later
+ * changes of the file are not visible. A mapped file would be a live view of the file and could
+ * change the contents of an existing source.
+ */
+final class DirectByteSequence implements ByteSequence {
+
+    private final ByteBuffer buffer;
+    private int hash;
+
+    private DirectByteSequence(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    static DirectByteSequence read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new OutOfMemoryError("Too many bytes.");
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("File " + path + " was truncated while it was read.");
+                }
+            }
+            buffer.flip();
+            return new DirectByteSequence(buffer.asReadOnlyBuffer());
+        }
+    }
+
+    public int length() {
+        return buffer.limit();
+    }
+
+    public byte byteAt(int index) {
+        if (index < 0 || index >= buffer.limit()) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return buffer.get(index);
+    }
+
+    public ByteSequence subSequence(int startIndex, int endIndex) {
+        if (startIndex < 0 || endIndex > buffer.limit() || startIndex > endIndex) {
+            throw new IndexOutOfBoundsException("start " + startIndex + ", end " + endIndex + ", length " + buffer.limit());
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(startIndex);
+        slice.limit(endIndex);
+        return new DirectByteSequence(slice.slice());
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[buffer.limit()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (obj instanceof DirectByteSequence) {
+            return buffer.equals(((DirectByteSequence) obj).buffer);
+        } else if (obj instanceof ByteSequence) {
+            ByteSequence other = (ByteSequence) obj;
+            int length = buffer.limit();
+            if (length != other.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(i) != other.byteAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Same hash code as byte array sequences of the same content, computed once as it requires
+     * reading all bytes.
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = 1;
+            int length = buffer.limit();
+            for (int i = 0; i < length; i++) {
+                result = 31 * result + buffer.get(i);
+            }
+            hash = result;
+        }
+        return result;
+    }
+}
@@ -134,6 +134,7 @@ public abstract class Source {
     private static final String URI_SCHEME = "truffle";
     private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
     private static final int BUFFER_SIZE = 8192;
+    private static final int DIRECT_FILE_SIZE = 1 << 20;
     static final Class<?> BYTE_SEQUENCE_CLASS = ByteSequence.create(new byte[0]).getClass();
 
     private static final InternedSources SOURCES = new InternedSources();
@@ -917,7 +918,7 @@ public abstract class Source {
                     if (isCharacterBased(language, useMimeType)) {
                         useContent = read(file);
                     } else {
-                        useContent = ByteSequence.create(readBytes(file));
+                        useContent = readByteSequence(file);
                     }
                 }
             }
@@ -967,6 +968,17 @@ public abstract class Source {
         return SOURCES.intern(key);
     }
 
+    /*
+     * Large files are read into memory outside of the heap. Truffle files may not be backed by the
+     * default file system and are always read into the heap.
+     */
+    static ByteSequence readByteSequence(File file) throws IOException {
+        if (!SourceAccessor.isTruffleFile(file) && file.length() >= DIRECT_FILE_SIZE) {
+            return DirectByteSequence.read(file.toPath());
+        }
+        return ByteSequence.create(readBytes(file));
+    }
+
     static byte[] readBytes(File file) throws IOException {
         return SourceAccessor.isTruffleFile(file) ? SourceAccessor.readTruffleFile(file) : Files.readAllBytes(file.toPath());
     }
@@ -1172,7 +1184,7 @@ public abstract class Source {
     }
 
     static ByteSequence enforceByteSequenceContracts(ByteSequence sequence) {
-        if (BYTE_SEQUENCE_CLASS.isInstance(sequence)) {
+        if (BYTE_SEQUENCE_CLASS.isInstance(sequence) || sequence instanceof DirectByteSequence) {
             return sequence;
         } else if (sequence instanceof ByteSequenceWrapper) {
             // already wrapped
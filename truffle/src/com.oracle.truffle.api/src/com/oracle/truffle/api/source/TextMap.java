@@ -24,7 +24,7 @@
  */
 package com.oracle.truffle.api.source;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A utility for converting between coordinate systems in a string of text interspersed with newline
@@ -56,44 +56,93 @@ import java.util.ArrayList;
  */
 final class TextMap {
 
-    // 0-based offsets of newline characters in the text, with sentinel
-    private final int[] nlOffsets;
+    private final CharSequence text;
     // The number of characters in the text, including newlines (which count as 1).
     private final int textLength;
-    // Is the final text character a newline?
-    final boolean finalNL;
+    // The part of the text scanned for newlines so far.
+    private volatile Lines lines;
+
+    /*
+     * 0-based offsets of the first character of every line found in the scanned part of the text,
+     * i.e. 0 and the offsets following each newline character. Newlines are only searched for when
+     * a query needs them, so the map is built incrementally up to the offset or line queried.
+     * Snapshots share the offsets array, which is only written beyond the count of any published
+     * snapshot.
+     */
+    private static final class Lines {
+        final int[] starts;
+        final int count;
+        // Offset up to which the text has been scanned for newlines.
+        final int scanned;
+
+        Lines(int[] starts, int count, int scanned) {
+            this.starts = starts;
+            this.count = count;
+            this.scanned = scanned;
+        }
+    }
 
-    TextMap(int[] nlOffsets, int textLength, boolean finalNL) {
-        this.nlOffsets = nlOffsets;
-        this.textLength = textLength;
-        this.finalNL = finalNL;
+    private TextMap(CharSequence text) {
+        this.text = text;
+        this.textLength = text.length();
+        this.lines = new Lines(new int[8], 1, 0);
     }
 
     /**
      * Constructs map permitting translation between 0-based character offsets and 1-based
-     * lines/columns.
+     * lines/columns. The text is scanned for newlines lazily.
      */
     public static TextMap fromCharSequence(CharSequence text) {
-        final int textLength = text.length();
-        final ArrayList<Integer> lines = new ArrayList<>();
-        lines.add(0);
-        int offset = 0;
-        while (offset < textLength) {
+        return new TextMap(text);
+    }
+
+    private Lines scanToOffset(int offset) {
+        Lines current = lines;
+        if (current.scanned >= offset || current.scanned == textLength) {
+            return current;
+        }
+        return scan(Math.min(offset, textLength), Integer.MAX_VALUE);
+    }
+
+    private Lines scanToLine(int line) {
+        Lines current = lines;
+        if (current.count >= line || current.scanned == textLength) {
+            return current;
+        }
+        return scan(textLength, line);
+    }
+
+    private synchronized Lines scan(int toOffset, int toLine) {
+        Lines current = lines;
+        int[] starts = current.starts;
+        int count = current.count;
+        int offset = current.scanned;
+        while (offset < toOffset && count < toLine) {
             final int nlIndex = indexOf(text, '\n', offset);
-            if (nlIndex >= 0) {
-                offset = nlIndex + 1;
-                lines.add(offset);
+            if (nlIndex < 0) {
+                offset = textLength;
             } else {
-                break;
+                offset = nlIndex + 1;
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length << 1);
+                }
+                starts[count++] = offset;
             }
         }
-        lines.add(Integer.MAX_VALUE);
-        final int[] nlOffsets = new int[lines.size()];
-        for (int line = 0; line < lines.size(); line++) {
-            nlOffsets[line] = lines.get(line);
+        if (offset != current.scanned) {
+            current = new Lines(starts, count, offset);
+            lines = current;
         }
-        final boolean finalNL = textLength > 0 && (textLength == nlOffsets[nlOffsets.length - 2]);
-        return new TextMap(nlOffsets, textLength, finalNL);
+        return current;
+    }
+
+    private Lines scanAll() {
+        return scanToOffset(textLength);
+    }
+
+    // Is the final text character a newline?
+    private boolean finalNL() {
+        return textLength > 0 && text.charAt(textLength - 1) == '\n';
     }
 
     private static int indexOf(CharSequence seq, int ch, int fromIndex) {
@@ -133,12 +182,13 @@ final class TextMap {
         if (offset < 0 || offset > textLength) {
             throw new IllegalArgumentException("offset out of bounds");
         }
-        return binarySearchLine(nlOffsets, offset) + 1;
+        final Lines l = scanToOffset(offset);
+        return binarySearchLine(l.starts, l.count, offset) + 1;
     }
 
-    private static int binarySearchLine(int[] a, int key) {
+    private static int binarySearchLine(int[] a, int length, int key) {
         int low = 0;
-        int high = a.length - 1;
+        int high = length - 1;
 
         int mid = 0;
         int midVal;
@@ -166,7 +216,8 @@ final class TextMap {
      * @throws IllegalArgumentException if the offset is outside the string.
      */
     public int offsetToCol(int offset) throws IllegalArgumentException {
-        return 1 + offset - nlOffsets[offsetToLine(offset) - 1];
+        final int line = offsetToLine(offset);
+        return 1 + offset - lines.starts[line - 1];
     }
 
     /**
@@ -184,7 +235,8 @@ final class TextMap {
         if (textLength == 0) {
             return 0;
         }
-        return finalNL ? nlOffsets.length - 2 : nlOffsets.length - 1;
+        final int count = scanAll().count;
+        return finalNL() ? count - 1 : count;
     }
 
     /**
@@ -194,10 +246,11 @@ final class TextMap {
      * @throws IllegalArgumentException if there is no such line in the text.
      */
     public int lineStartOffset(int line) throws IllegalArgumentException {
-        if (lineOutOfRange(line)) {
+        final Lines l = scanToLine(line);
+        if (lineOutOfRange(l, line)) {
             throw new IllegalArgumentException("line out of bounds");
         }
-        return nlOffsets[line - 1];
+        return l.starts[line - 1];
     }
 
     /**
@@ -207,20 +260,21 @@ final class TextMap {
      * @throws IllegalArgumentException if there is no such line in the text.
      */
     public int lineLength(int line) throws IllegalArgumentException {
-        if (lineOutOfRange(line)) {
+        final Lines l = scanToLine(line + 1);
+        if (lineOutOfRange(l, line)) {
             throw new IllegalArgumentException("line out of bounds");
         }
-        if (line == nlOffsets.length - 1) {
-            return textLength - nlOffsets[line - 1];
+        if (line == l.count) {
+            return textLength - l.starts[line - 1];
         }
-        return (nlOffsets[line] - nlOffsets[line - 1]) - 1;
+        return (l.starts[line] - l.starts[line - 1]) - 1;
     }
 
     /**
      * Is the line number out of range.
      */
-    private boolean lineOutOfRange(int line) {
-        return line <= 0 || line >= nlOffsets.length;
+    private static boolean lineOutOfRange(Lines l, int line) {
+        return line <= 0 || line > l.count;
     }
 
 }
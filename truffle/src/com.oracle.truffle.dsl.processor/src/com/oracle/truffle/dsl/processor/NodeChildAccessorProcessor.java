@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.dsl.processor;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import com.oracle.truffle.api.dsl.GeneratedBy;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.Node.Child;
+import com.oracle.truffle.api.nodes.Node.Children;
+import com.oracle.truffle.api.nodes.NodeChildAccessor;
+import com.oracle.truffle.api.nodes.NodeVisitor;
+import com.oracle.truffle.dsl.processor.java.ElementUtils;
+import com.oracle.truffle.dsl.processor.java.model.CodeAnnotationMirror;
+import com.oracle.truffle.dsl.processor.java.model.CodeAnnotationValue;
+import com.oracle.truffle.dsl.processor.java.model.CodeExecutableElement;
+import com.oracle.truffle.dsl.processor.java.model.CodeTree;
+import com.oracle.truffle.dsl.processor.java.model.CodeTreeBuilder;
+import com.oracle.truffle.dsl.processor.java.model.CodeTypeElement;
+import com.oracle.truffle.dsl.processor.java.model.CodeTypeMirror.DeclaredCodeTypeMirror;
+import com.oracle.truffle.dsl.processor.java.model.CodeTypeMirror.WildcardTypeMirror;
+import com.oracle.truffle.dsl.processor.java.model.CodeVariableElement;
+import com.oracle.truffle.dsl.processor.java.transform.FixWarningsVisitor;
+import com.oracle.truffle.dsl.processor.java.transform.GenerateOverrideVisitor;
+
+/**
+ * Generates a {@link NodeChildAccessor} for each node class that declares fields annotated with
+ * {@link Child} or {@link Children}. The generated class is placed in the package of the node
+ * class. Its name joins the simple names of the node class and its enclosing classes with
+ * {@code '_'}, after escaping {@code '_'} as {@code "_1"} and {@code '$'} as {@code "_2"}, and
+ * appends {@value #CLASS_SUFFIX}. For example the accessor of {@code com.foo.Bar.Baz} is
+ * {@code com.foo.Bar_Baz_ChildAccessor} and the accessor of {@code com.foo.Bar_Baz} is
+ * {@code com.foo.Bar_1Baz_ChildAccessor}.
+ *
+ * Fields that cannot be accessed from the package of the node class, such as private fields, final
+ * {@link Children} fields or fields of private or generic classes, are accessed through field
+ * offsets. No accessor is generated for local and anonymous classes, they keep using reflection. No
+ * errors are reported for invalid children fields, they are reported when the node class is
+ * initialized.
+ */
+@SupportedAnnotationTypes({"com.oracle.truffle.api.nodes.Node.Child", "com.oracle.truffle.api.nodes.Node.Children"})
+public final class NodeChildAccessorProcessor extends AbstractProcessor {
+
+    static final String CLASS_SUFFIX = "_ChildAccessor";
+
+    private final Set<Element> processed = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latest();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            return false;
+        }
+        ProcessorContext context = new ProcessorContext(processingEnv, null);
+        ProcessorContext.setThreadLocalInstance(context);
+        try {
+            Set<TypeElement> nodeTypes = new LinkedHashSet<>();
+            for (Class<? extends Annotation> annotation : Arrays.asList(Child.class, Children.class)) {
+                for (Element field : roundEnv.getElementsAnnotatedWith(annotation)) {
+                    Element enclosing = field.getEnclosingElement();
+                    if (field.getKind() == ElementKind.FIELD && enclosing.getKind() == ElementKind.CLASS && processed.add(enclosing)) {
+                        nodeTypes.add((TypeElement) enclosing);
+                    }
+                }
+            }
+            for (TypeElement nodeType : nodeTypes) {
+                try {
+                    CodeTypeElement unit = generateAccessor(context, nodeType);
+                    if (unit == null) {
+                        continue;
+                    }
+                    DeclaredType overrideType = (DeclaredType) context.getType(Override.class);
+                    DeclaredType unusedType = (DeclaredType) context.getType(SuppressWarnings.class);
+                    unit.accept(new GenerateOverrideVisitor(overrideType), null);
+                    unit.accept(new FixWarningsVisitor(context.getEnvironment(), unusedType, overrideType), null);
+                    unit.accept(new CodeWriter(context.getEnvironment(), nodeType), null);
+                } catch (Throwable e) {
+                    // never throw annotation processor exceptions to the compiler
+                    // it might screw up its state.
+                    handleThrowable(e, nodeType);
+                }
+            }
+            return false;
+        } finally {
+            ProcessorContext.setThreadLocalInstance(null);
+        }
+    }
+
+    private void handleThrowable(Throwable t, Element e) {
+        String message = "Uncaught error in " + getClass().getSimpleName() + " while processing " + e + " ";
+        processingEnv.getMessager().printMessage(Kind.ERROR, message + ": " + ElementUtils.printException(t), e);
+    }
+
+    private static String createAccessorClassName(TypeElement nodeType) {
+        StringBuilder name = new StringBuilder(escapeName(nodeType));
+        Element enclosing = nodeType.getEnclosingElement();
+        while (enclosing.getKind() != ElementKind.PACKAGE) {
+            name.insert(0, escapeName(enclosing) + "_");
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append(CLASS_SUFFIX).toString();
+    }
+
+    private static String escapeName(Element element) {
+        return element.getSimpleName().toString().replace("_", "_1").replace("$", "_2");
+    }
+
+    private static CodeTypeElement generateAccessor(ProcessorContext context, TypeElement nodeType) {
+        TypeMirror accessorType = context.getType(NodeChildAccessor.class);
+        if (accessorType == null) {
+            // compiled against a Truffle version without child accessors
+            return null;
+        }
+        if (!ElementUtils.isAssignable(nodeType.asType(), context.getType(Node.class)) || !isNamedType(nodeType)) {
+            return null;
+        }
+        boolean accessibleNode = isAccessibleType(nodeType);
+        boolean deprecated = accessibleNode && isDeprecated(context, nodeType);
+        List<VariableElement> fields = new ArrayList<>();
+        List<VariableElement> indirectFields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(nodeType.getEnclosedElements())) {
+            boolean child = field.getAnnotation(Child.class) != null;
+            boolean children = field.getAnnotation(Children.class) != null;
+            if (field.getModifiers().contains(Modifier.STATIC) || (!child && !children)) {
+                continue;
+            }
+            TypeMirror type = erasure(context, field);
+            if ((child && field.getModifiers().contains(Modifier.FINAL)) || type.getKind() != (children ? TypeKind.ARRAY : TypeKind.DECLARED)) {
+                // invalid children field
+                return null;
+            }
+            if (!accessibleNode || field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.FINAL) || !isAccessibleType(type)) {
+                indirectFields.add(field);
+            } else {
+                TypeElement typeElement = ElementUtils.fromTypeMirror(type);
+                deprecated |= typeElement != null && isDeprecated(context, typeElement);
+            }
+            fields.add(field);
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+
+        PackageElement pack = context.getEnvironment().getElementUtils().getPackageOf(nodeType);
+        String className = createAccessorClassName(nodeType);
+        CodeTypeElement accessor = new CodeTypeElement(ElementUtils.modifiers(Modifier.FINAL), ElementKind.CLASS, pack, className);
+        accessor.setSuperClass(accessorType);
+        if (accessibleNode) {
+            addGeneratedBy(context, accessor, nodeType);
+        }
+        if (deprecated) {
+            DeclaredType suppressWarnings = context.getDeclaredType(SuppressWarnings.class);
+            CodeAnnotationMirror suppressWarningsAnnotation = new CodeAnnotationMirror(suppressWarnings);
+            suppressWarningsAnnotation.setElementValue(ElementUtils.findExecutableElement(suppressWarnings, "value"),
+                            new CodeAnnotationValue(Arrays.asList(new CodeAnnotationValue("deprecation"))));
+            accessor.addAnnotationMirror(suppressWarningsAnnotation);
+        }
+
+        TypeMirror nodeTypeMirror = context.getEnvironment().getTypeUtils().erasure(nodeType.asType());
+        TypeMirror nodeMirror = context.getType(Node.class);
+        TypeMirror booleanMirror = context.getType(boolean.class);
+        boolean hasDirectFields = indirectFields.size() < fields.size();
+
+        CodeExecutableElement constructor = new CodeExecutableElement(ElementUtils.modifiers(), null, className);
+        TypeMirror classType = new DeclaredCodeTypeMirror((TypeElement) context.getDeclaredType(Class.class).asElement(),
+                        Arrays.asList(new WildcardTypeMirror(nodeMirror, null)));
+        constructor.addParameter(new CodeVariableElement(classType, "nodeClass"));
+        CodeTreeBuilder builder = constructor.createBuilder();
+        builder.startStatement().startSuperCall().string("nodeClass");
+        for (VariableElement field : indirectFields) {
+            builder.doubleQuote(field.getSimpleName().toString());
+        }
+        builder.end().end();
+        accessor.add(constructor);
+
+        CodeExecutableElement adoptChildren = createMethod(context.getType(void.class), "adoptChildren", new CodeVariableElement(nodeMirror, "node"));
+        builder = adoptChildren.createBuilder();
+        if (hasDirectFields) {
+            castNode(builder, nodeTypeMirror, "cast", "node");
+        }
+        for (VariableElement field : fields) {
+            builder.startStatement().startCall(isChildren(field) ? "adoptAll" : "adopt").string("node").tree(read(field, indirectFields, "cast", "node")).end().end();
+        }
+        accessor.add(adoptChildren);
+
+        CodeExecutableElement adoptChildrenAndCount = createMethod(context.getType(int.class), "adoptChildrenAndCount", new CodeVariableElement(nodeMirror, "node"));
+        builder = adoptChildrenAndCount.createBuilder();
+        if (hasDirectFields) {
+            castNode(builder, nodeTypeMirror, "cast", "node");
+        }
+        builder.startReturn();
+        String sep = "";
+        for (VariableElement field : fields) {
+            builder.string(sep).startCall(isChildren(field) ? "adoptAllAndCount" : "adoptAndCount").string("node").tree(read(field, indirectFields, "cast", "node")).end();
+            sep = " + ";
+        }
+        builder.end();
+        accessor.add(adoptChildrenAndCount);
+
+        CodeExecutableElement forEachChild = createMethod(booleanMirror, "forEachChild", new CodeVariableElement(nodeMirror, "node"),
+                        new CodeVariableElement(context.getType(NodeVisitor.class), "visitor"));
+        builder = forEachChild.createBuilder();
+        if (hasDirectFields) {
+            castNode(builder, nodeTypeMirror, "cast", "node");
+        }
+        builder.startReturn();
+        sep = "";
+        for (VariableElement field : fields) {
+            builder.string(sep).startCall(isChildren(field) ? "visitAll" : "visit").string("visitor").tree(read(field, indirectFields, "cast", "node")).end();
+            sep = " && ";
+        }
+        builder.end();
+        accessor.add(forEachChild);
+
+        CodeExecutableElement copyChildren = createMethod(context.getType(void.class), "copyChildren", new CodeVariableElement(nodeMirror, "original"),
+                        new CodeVariableElement(nodeMirror, "copy"));
+        builder = copyChildren.createBuilder();
+        if (hasDirectFields) {
+            castNode(builder, nodeTypeMirror, "originalCast", "original");
+            castNode(builder, nodeTypeMirror, "copyCast", "copy");
+        }
+        for (VariableElement field : fields) {
+            String name = field.getSimpleName().toString();
+            int indirectIndex = indirectFields.indexOf(field);
+            if (indirectIndex >= 0) {
+                builder.startStatement().startCall("setField").string(String.valueOf(indirectIndex)).string("copy");
+                builder.startCall(isChildren(field) ? "copyChildren" : "copyChild").string("copy").tree(read(field, indirectFields, "originalCast", "original")).end();
+                builder.end().end();
+            } else {
+                builder.startStatement().string("copyCast." + name + " = ").cast(erasure(context, field));
+                builder.startCall(isChildren(field) ? "copyChildren" : "copyChild").string("copy").string("originalCast." + name).end();
+                builder.end();
+            }
+        }
+        accessor.add(copyChildren);
+
+        CodeExecutableElement replaceChild = createMethod(booleanMirror, "replaceChild", new CodeVariableElement(nodeMirror, "node"),
+                        new CodeVariableElement(nodeMirror, "oldChild"), new CodeVariableElement(nodeMirror, "newChild"), new CodeVariableElement(booleanMirror, "adopt"));
+        builder = replaceChild.createBuilder();
+        if (hasDirectFields) {
+            castNode(builder, nodeTypeMirror, "cast", "node");
+        }
+        for (VariableElement field : fields) {
+            String name = field.getSimpleName().toString();
+            int indirectIndex = indirectFields.indexOf(field);
+            if (isChildren(field)) {
+                builder.startIf().startCall("replaceElement").doubleQuote(name).tree(read(field, indirectFields, "cast", "node")).string("node").string("oldChild").string("newChild").string(
+                                "adopt").end().end();
+                builder.startBlock().returnTrue().end();
+            } else if (indirectIndex >= 0) {
+                builder.startIf().startCall("replaceField").string(String.valueOf(indirectIndex)).string("node").string("oldChild").string("newChild").string("adopt").end().end();
+                builder.startBlock().returnTrue().end();
+            } else {
+                TypeMirror type = erasure(context, field);
+                builder.startIf().string("cast." + name + " == oldChild").end().startBlock();
+                builder.startStatement().string("cast." + name + " = ").cast(type);
+                builder.startCall("replacement").doubleQuote(name).typeLiteral(type).string("node").string("newChild").string("adopt").end();
+                builder.end();
+                builder.returnTrue();
+                builder.end();
+            }
+        }
+        builder.returnFalse();
+        accessor.add(replaceChild);
+
+        return accessor;
+    }
+
+    /*
+     * Reads a children field, indirectly accessed children arrays are cast to Object[] for the
+     * array helpers.
+     */
+    private static CodeTree read(VariableElement field, List<VariableElement> indirectFields, String castName, String nodeName) {
+        CodeTreeBuilder builder = CodeTreeBuilder.createBuilder();
+        int indirectIndex = indirectFields.indexOf(field);
+        if (indirectIndex < 0) {
+            builder.string(castName + "." + field.getSimpleName().toString());
+        } else if (isChildren(field)) {
+            builder.string("(Object[]) ").startCall("getField").string(String.valueOf(indirectIndex)).string(nodeName).end();
+        } else {
+            builder.startCall("getField").string(String.valueOf(indirectIndex)).string(nodeName).end();
+        }
+        return builder.build();
+    }
+
+    private static boolean isDeprecated(ProcessorContext context, TypeElement type) {
+        Element current = type;
+        while (current.getKind() != ElementKind.PACKAGE) {
+            if (context.getEnvironment().getElementUtils().isDeprecated(current)) {
+                return true;
+            }
+            current = current.getEnclosingElement();
+        }
+        return ElementUtils.isDeprecated(type);
+    }
+
+    private static boolean isChildren(VariableElement field) {
+        return field.getAnnotation(Children.class) != null;
+    }
+
+    private static void castNode(CodeTreeBuilder builder, TypeMirror nodeType, String name, String value) {
+        builder.startStatement().type(nodeType).string(" " + name + " = ").cast(nodeType).string(value).end();
+    }
+
+    private static CodeExecutableElement createMethod(TypeMirror returnType, String name, CodeVariableElement... parameters) {
+        CodeExecutableElement method = new CodeExecutableElement(ElementUtils.modifiers(Modifier.PROTECTED), returnType, name);
+        for (CodeVariableElement parameter : parameters) {
+            method.addParameter(parameter);
+        }
+        return method;
+    }
+
+    private static TypeMirror erasure(ProcessorContext context, VariableElement field) {
+        return context.getEnvironment().getTypeUtils().erasure(field.asType());
+    }
+
+    private static boolean isAccessibleType(TypeMirror type) {
+        switch (type.getKind()) {
+            case ARRAY:
+                return isAccessibleType(((ArrayType) type).getComponentType());
+            case DECLARED:
+                return isAccessibleType((TypeElement) ((DeclaredType) type).asElement());
+            default:
+                return type.getKind().isPrimitive();
+        }
+    }
+
+    /*
+     * Generic classes are accessed indirectly to keep the generated casts free of raw types.
+     */
+    private static boolean isAccessibleType(TypeElement type) {
+        Element current = type;
+        while (current.getKind() != ElementKind.PACKAGE) {
+            if (!current.getKind().isClass() && !current.getKind().isInterface()) {
+                // local and anonymous classes
+                return false;
+            }
+            TypeElement currentType = (TypeElement) current;
+            if (currentType.getModifiers().contains(Modifier.PRIVATE) || !currentType.getTypeParameters().isEmpty() || currentType.getSimpleName().length() == 0) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    /*
+     * The accessor of a class is found by name, so local and anonymous classes are not supported.
+     */
+    private static boolean isNamedType(TypeElement type) {
+        Element current = type;
+        while (current.getKind() != ElementKind.PACKAGE) {
+            if (!current.getKind().isClass() && !current.getKind().isInterface() || current.getSimpleName().length() == 0) {
+                return false;
+            }
+            current = current.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private static void addGeneratedBy(ProcessorContext context, CodeTypeElement generatedType, TypeElement generatedByType) {
+        DeclaredType generatedBy = (DeclaredType) context.getType(GeneratedBy.class);
+        // only do this if generatedBy is on the classpath.
+        if (generatedBy != null) {
+            CodeAnnotationMirror generatedByAnnotation = new CodeAnnotationMirror(generatedBy);
+            generatedByAnnotation.setElementValue(generatedByAnnotation.findExecutableElement("value"), new CodeAnnotationValue(generatedByType.asType()));
+            generatedType.addAnnotationMirror(generatedByAnnotation);
+        }
+    }
+}
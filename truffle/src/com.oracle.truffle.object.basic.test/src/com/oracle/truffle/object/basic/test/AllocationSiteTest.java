@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.object.basic.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.Layout;
+import com.oracle.truffle.api.object.ObjectType;
+import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.object.ObjectStorageOptions;
+import com.oracle.truffle.object.ShapeImpl;
+import com.oracle.truffle.object.basic.DefaultLayoutFactory;
+import com.oracle.truffle.object.basic.DynamicObjectBasic;
+
+public class AllocationSiteTest {
+
+    final Layout layout = new DefaultLayoutFactory().createLayout(Layout.newLayout());
+
+    @Test
+    public void testPresizedExtensionArrays() {
+        ShapeImpl rootShape = (ShapeImpl) layout.createShape(new ObjectType());
+        assertEquals(0, rootShape.getAllocationObjectArrayCapacity());
+
+        DynamicObject first = rootShape.newInstance();
+        fill(first, 10);
+        ShapeImpl finalShape = (ShapeImpl) first.getShape();
+        assertTrue(finalShape.getObjectArrayCapacity() > 0);
+        assertEquals(Math.min(finalShape.getObjectArrayCapacity(), ObjectStorageOptions.AllocationSiteCapacityLimit), rootShape.getAllocationObjectArrayCapacity());
+
+        // objects allocated later start with the capacity and end up in the same shape
+        DynamicObject second = rootShape.newInstance();
+        fill(second, 10);
+        assertSame(finalShape, second.getShape());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(new Value(i), second.get("p" + i));
+        }
+
+        // a pre-sized object can still be resized and extended
+        second.delete("p3");
+        second.define("q", new Value(42));
+        assertEquals(new Value(42), second.get("q"));
+        assertEquals(new Value(9), second.get("p9"));
+    }
+
+    @Test
+    public void testCapacityLimit() {
+        ShapeImpl rootShape = (ShapeImpl) layout.createShape(new ObjectType());
+        DynamicObject object = rootShape.newInstance();
+        fill(object, 100);
+        assertTrue(rootShape.getAllocationObjectArrayCapacity() <= Math.max(ObjectStorageOptions.AllocationSiteCapacityLimit, 0));
+
+        Shape otherRoot = layout.createShape(new ObjectType());
+        assertEquals(0, ((ShapeImpl) otherRoot).getAllocationObjectArrayCapacity());
+    }
+
+    @Test
+    public void testReallocationAvoided() throws Exception {
+        Assume.assumeTrue(ObjectStorageOptions.AllocationSiteCapacityLimit > 0);
+        ShapeImpl rootShape = (ShapeImpl) layout.createShape(new ObjectType());
+        fill(rootShape.newInstance(), 10);
+
+        DynamicObject object = rootShape.newInstance();
+        Object[] objectStore = getObjectStore(object);
+        assertNotNull(objectStore);
+        fill(object, 10);
+        assertSame(objectStore, getObjectStore(object));
+    }
+
+    @Test
+    public void testUnusedCapacityDecays() {
+        Assume.assumeTrue(ObjectStorageOptions.AllocationSiteCapacityLimit > 0);
+        ShapeImpl rootShape = (ShapeImpl) layout.createShape(new ObjectType());
+        fill(rootShape.newInstance(), 10);
+        int capacity = rootShape.getAllocationObjectArrayCapacity();
+        assertTrue(capacity > 0);
+
+        // objects using the additional slots keep the capacity
+        for (int i = 0; i < 1000; i++) {
+            fill(rootShape.newInstance(), 10);
+        }
+        assertEquals(capacity, rootShape.getAllocationObjectArrayCapacity());
+
+        // objects not using them let it shrink until no more slack is allocated
+        for (int i = 0; i < 1000; i++) {
+            rootShape.newInstance();
+        }
+        assertEquals(0, rootShape.getAllocationObjectArrayCapacity());
+
+        // and objects growing again restore it
+        fill(rootShape.newInstance(), 10);
+        assertEquals(capacity, rootShape.getAllocationObjectArrayCapacity());
+    }
+
+    private static Object[] getObjectStore(DynamicObject object) throws ReflectiveOperationException {
+        Field field = DynamicObjectBasic.class.getDeclaredField("objext");
+        field.setAccessible(true);
+        return (Object[]) field.get(object);
+    }
+
+    private static void fill(DynamicObject object, int count) {
+        for (int i = 0; i < count; i++) {
+            object.define("p" + i, new Value(i));
+        }
+    }
+
+    static final class Value {
+        final int value;
+
+        Value(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Value && ((Value) obj).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+}
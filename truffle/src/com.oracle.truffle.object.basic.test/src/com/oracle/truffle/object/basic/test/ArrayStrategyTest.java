@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.truffle.object.basic.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.oracle.truffle.api.nodes.UnexpectedResultException;
+import com.oracle.truffle.api.object.ArrayStrategy;
+
+public class ArrayStrategyTest {
+
+    @Test
+    public void testForValue() {
+        assertSame(ArrayStrategy.INT, ArrayStrategy.forValue(1));
+        assertSame(ArrayStrategy.LONG, ArrayStrategy.forValue(1L));
+        assertSame(ArrayStrategy.DOUBLE, ArrayStrategy.forValue(1.0));
+        assertSame(ArrayStrategy.OBJECT, ArrayStrategy.forValue("1"));
+        assertSame(ArrayStrategy.OBJECT, ArrayStrategy.forValue(null));
+    }
+
+    @Test
+    public void testGrow() {
+        Object store = ArrayStrategy.INT.newStore(2);
+        for (int i = 0; i < 100; i++) {
+            store = ArrayStrategy.forStore(store).write(store, i, i, i);
+        }
+        assertSame(ArrayStrategy.INT, ArrayStrategy.forStore(store));
+        assertTrue(ArrayStrategy.INT.capacity(store) >= 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, ArrayStrategy.INT.get(store, i));
+        }
+    }
+
+    @Test
+    public void testGeneralize() {
+        Object store = ArrayStrategy.INT.newStore(4);
+        store = ArrayStrategy.INT.write(store, 0, 0, 42);
+        assertSame(store, ArrayStrategy.INT.write(store, 1, 1, 43));
+
+        Object generic = ArrayStrategy.INT.write(store, 2, 2, "44");
+        assertSame(ArrayStrategy.OBJECT, ArrayStrategy.forStore(generic));
+        assertEquals(42, ArrayStrategy.OBJECT.get(generic, 0));
+        assertEquals(43, ArrayStrategy.OBJECT.get(generic, 1));
+        assertEquals("44", ArrayStrategy.OBJECT.get(generic, 2));
+
+        assertSame(ArrayStrategy.DOUBLE, ArrayStrategy.DOUBLE.generalizeForValue(1.5));
+        assertSame(ArrayStrategy.DOUBLE, ArrayStrategy.DOUBLE.generalizeForValue(1));
+        assertSame(ArrayStrategy.OBJECT, ArrayStrategy.DOUBLE.generalizeForValue(1L));
+        assertSame(ArrayStrategy.OBJECT, ArrayStrategy.LONG.generalizeForValue(1.5));
+        assertSame(ArrayStrategy.SPARSE, ArrayStrategy.SPARSE.generalizeForValue(1));
+    }
+
+    @Test
+    public void testWiden() {
+        Object store = ArrayStrategy.INT.newStore(4);
+        store = ArrayStrategy.INT.write(store, 0, 0, 42);
+        Object longs = ArrayStrategy.INT.write(store, 1, 1, 43L);
+        assertSame(ArrayStrategy.LONG, ArrayStrategy.forStore(longs));
+        assertEquals(42L, ArrayStrategy.LONG.get(longs, 0));
+        assertEquals(43L, ArrayStrategy.LONG.get(longs, 1));
+        assertSame(longs, ArrayStrategy.LONG.write(longs, 2, 2, 44));
+        assertEquals(44L, ArrayStrategy.LONG.get(longs, 2));
+
+        Object doubles = ArrayStrategy.INT.write(store, 1, 1, 1.5);
+        assertSame(ArrayStrategy.DOUBLE, ArrayStrategy.forStore(doubles));
+        assertEquals(42.0, ArrayStrategy.DOUBLE.get(doubles, 0));
+        assertEquals(1.5, ArrayStrategy.DOUBLE.get(doubles, 1));
+
+        Object generic = ArrayStrategy.LONG.write(longs, 3, 3, 1.5);
+        assertSame(ArrayStrategy.OBJECT, ArrayStrategy.forStore(generic));
+        assertEquals(42L, ArrayStrategy.OBJECT.get(generic, 0));
+        assertEquals(1.5, ArrayStrategy.OBJECT.get(generic, 3));
+    }
+
+    @Test
+    public void testTypedAccess() throws UnexpectedResultException {
+        Object ints = ArrayStrategy.INT.newStore(2);
+        ArrayStrategy.INT.setInt(ints, 0, 42);
+        assertEquals(42, ArrayStrategy.INT.getInt(ints, 0));
+        assertEquals(42L, ArrayStrategy.INT.getLong(ints, 0));
+        assertEquals(42.0, ArrayStrategy.INT.getDouble(ints, 0), 0);
+
+        Object longs = ArrayStrategy.LONG.newStore(2);
+        ArrayStrategy.LONG.setInt(longs, 0, 42);
+        ArrayStrategy.LONG.setLong(longs, 1, 1L << 40);
+        assertEquals(42L, ArrayStrategy.LONG.getLong(longs, 0));
+        assertEquals(1L << 40, ArrayStrategy.LONG.getLong(longs, 1));
+        try {
+            ArrayStrategy.LONG.getInt(longs, 0);
+            fail();
+        } catch (UnexpectedResultException e) {
+            assertEquals(42L, e.getResult());
+        }
+
+        Object doubles = ArrayStrategy.DOUBLE.newStore(2);
+        ArrayStrategy.DOUBLE.setInt(doubles, 0, 42);
+        ArrayStrategy.DOUBLE.setDouble(doubles, 1, 1.5);
+        assertEquals(42.0, ArrayStrategy.DOUBLE.getDouble(doubles, 0), 0);
+        assertEquals(1.5, ArrayStrategy.DOUBLE.getDouble(doubles, 1), 0);
+
+        Object objects = ArrayStrategy.OBJECT.newStore(2);
+        ArrayStrategy.OBJECT.setLong(objects, 0, 42L);
+        ArrayStrategy.OBJECT.setInt(objects, 1, 43);
+        assertEquals(42L, ArrayStrategy.OBJECT.getLong(objects, 0));
+        assertEquals(43, ArrayStrategy.OBJECT.getInt(objects, 1));
+        try {
+            ArrayStrategy.OBJECT.getDouble(objects, 0);
+            fail();
+        } catch (UnexpectedResultException e) {
+            assertEquals(42L, e.getResult());
+        }
+    }
+
+    @Test
+    public void testNegativeIndex() {
+        for (ArrayStrategy strategy : new ArrayStrategy[]{ArrayStrategy.INT, ArrayStrategy.OBJECT, ArrayStrategy.SPARSE}) {
+            Object store = strategy.newStore(4);
+            try {
+                strategy.write(store, 0, -1, 42);
+                fail(strategy.toString());
+            } catch (ArrayIndexOutOfBoundsException e) {
+            }
+        }
+        try {
+            ArrayStrategy.SPARSE.get(ArrayStrategy.SPARSE.newStore(0), -1);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+    }
+
+    @Test
+    public void testSparse() {
+        Object store = ArrayStrategy.DOUBLE.newStore(4);
+        store = ArrayStrategy.DOUBLE.write(store, 0, 0, 1.5);
+        store = ArrayStrategy.DOUBLE.write(store, 1, 1000000, 2.5);
+        assertSame(ArrayStrategy.SPARSE, ArrayStrategy.forStore(store));
+        assertEquals(1.5, ArrayStrategy.SPARSE.get(store, 0));
+        assertEquals(2.5, ArrayStrategy.SPARSE.get(store, 1000000));
+        assertNull(ArrayStrategy.SPARSE.get(store, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConvertToMoreSpecific() {
+        Object store = ArrayStrategy.OBJECT.newStore(1);
+        ArrayStrategy.OBJECT.convert(store, 1, ArrayStrategy.INT);
+    }
+
+    @Test
+    public void testConvert() {
+        Object store = ArrayStrategy.LONG.newStore(3);
+        ArrayStrategy.LONG.set(store, 0, 1L);
+        ArrayStrategy.LONG.set(store, 1, 2L);
+        Object converted = ArrayStrategy.LONG.convert(store, 2, ArrayStrategy.OBJECT);
+        assertEquals(3, ArrayStrategy.OBJECT.capacity(converted));
+        assertEquals(1L, ArrayStrategy.OBJECT.get(converted, 0));
+        assertEquals(2L, ArrayStrategy.OBJECT.get(converted, 1));
+    }
+}
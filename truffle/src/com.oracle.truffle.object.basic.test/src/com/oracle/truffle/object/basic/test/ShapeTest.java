@@ -24,6 +24,7 @@
  */
 package com.oracle.truffle.object.basic.test;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.oracle.truffle.api.object.Layout;
@@ -31,6 +32,7 @@ import com.oracle.truffle.api.object.Layout.ImplicitCast;
 import com.oracle.truffle.api.object.ObjectType;
 import com.oracle.truffle.api.object.Property;
 import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.object.ShapeImpl;
 import com.oracle.truffle.object.basic.DefaultLayoutFactory;
 
 public class ShapeTest {
@@ -75,4 +77,25 @@ public class ShapeTest {
                         "\"a\":int@0" +
                         "\n}", shapeWithExtArray);
     }
+
+    @Test
+    public void testTransitionCache() {
+        Layout layout = new DefaultLayoutFactory().createLayout(Layout.newLayout());
+        Shape rootShape = layout.createShape(new ObjectType());
+        int count = 20;
+        Shape[] successors = new Shape[count];
+        for (int i = 0; i < count; i++) {
+            successors[i] = rootShape.defineProperty("p" + i, i, 0);
+            // previously added transitions are still cached
+            for (int j = 0; j <= i; j++) {
+                Assert.assertSame(successors[j], rootShape.defineProperty("p" + j, j, 0));
+            }
+            Assert.assertEquals(i + 1, ((ShapeImpl) rootShape).getTransitionMapForRead().size());
+        }
+        for (int i = 0; i < count; i++) {
+            Assert.assertTrue(rootShape.hasTransitionWithKey("p" + i));
+            Assert.assertSame(rootShape, successors[i].getParent());
+        }
+        Assert.assertFalse(rootShape.hasTransitionWithKey("q"));
+    }
 }
@@ -51,15 +51,25 @@ public class DynamicObjectBasic extends DynamicObjectImpl {
         super(shape);
     }
 
+    /**
+     * Extension arrays are allocated with the capacity that objects of the same root shape grew to
+     * before, so that adding the same properties again does not need to grow them. Extension
+     * arrays may therefore be larger than the capacity described by the shape.
+     */
     @Override
     protected final void initialize(Shape shape) {
         assert getObjectStore(shape) == null;
-        int capacity = ((ShapeImpl) shape).getObjectArrayCapacity();
+        ShapeImpl shapeImpl = (ShapeImpl) shape;
+        int capacity = shapeImpl.getAllocationObjectArrayCapacity();
         if (capacity != 0) {
             this.setObjectStore(new Object[capacity], shape);
         }
-        if (((ShapeImpl) shape).getPrimitiveArrayCapacity() != 0) {
-            this.setPrimitiveStore(new long[((ShapeImpl) shape).getPrimitiveArrayCapacity()], shape);
+        int primitiveCapacity = shapeImpl.getAllocationPrimitiveArrayCapacity();
+        if (primitiveCapacity != 0) {
+            this.setPrimitiveStore(new long[primitiveCapacity], shape);
+        }
+        if (capacity > shapeImpl.getObjectArrayCapacity() || primitiveCapacity > shapeImpl.getPrimitiveArrayCapacity()) {
+            shapeImpl.recordPresizedAllocation();
         }
     }
 
@@ -71,7 +81,13 @@ public class DynamicObjectBasic extends DynamicObjectImpl {
         int oldObjectArrayCapacity = ((ShapeImpl) oldShape).getObjectArrayCapacity();
         int newObjectArrayCapacity = ((ShapeImpl) newShape).getObjectArrayCapacity();
         if (oldObjectArrayCapacity != newObjectArrayCapacity) {
-            growObjectStoreIntl(oldObjectArrayCapacity, newObjectArrayCapacity, oldShape);
+            Object[] oldObjectStore = this.getObjectStore(oldShape);
+            if (oldObjectStore == null || oldObjectStore.length < newObjectArrayCapacity) {
+                growObjectStoreIntl(oldObjectArrayCapacity, newObjectArrayCapacity, oldShape);
+                ((ShapeImpl) newShape).recordAllocationArrayCapacity();
+            } else {
+                ((ShapeImpl) newShape).recordPresizedSlotUse();
+            }
         }
     }
 
@@ -100,7 +116,13 @@ public class DynamicObjectBasic extends DynamicObjectImpl {
             // due to obsolescence, we might have to reserve an empty primitive array slot
             this.setPrimitiveStore(null, newShape);
         } else if (oldPrimitiveCapacity != newPrimitiveCapacity) {
-            growPrimitiveStoreIntl(oldPrimitiveCapacity, newPrimitiveCapacity, oldShape);
+            long[] oldPrimitiveArray = this.getPrimitiveStore(oldShape);
+            if (oldPrimitiveArray == null || oldPrimitiveArray.length < newPrimitiveCapacity) {
+                growPrimitiveStoreIntl(oldPrimitiveCapacity, newPrimitiveCapacity, oldShape);
+                ((ShapeImpl) newShape).recordAllocationArrayCapacity();
+            } else {
+                ((ShapeImpl) newShape).recordPresizedSlotUse();
+            }
         }
     }
 
@@ -188,10 +210,10 @@ public class DynamicObjectBasic extends DynamicObjectImpl {
     protected final boolean checkExtensionArrayInvariants(Shape newShape) {
         assert getShape() == newShape;
         assert (getObjectStore(newShape) == null && ((ShapeImpl) newShape).getObjectArrayCapacity() == 0) ||
-                        (getObjectStore(newShape) != null && getObjectStore(newShape).length == ((ShapeImpl) newShape).getObjectArrayCapacity());
+                        (getObjectStore(newShape) != null && getObjectStore(newShape).length >= ((ShapeImpl) newShape).getObjectArrayCapacity());
         if (((ShapeImpl) newShape).hasPrimitiveArray()) {
             assert (getPrimitiveStore(newShape) == null && ((ShapeImpl) newShape).getPrimitiveArrayCapacity() == 0) ||
-                            (getPrimitiveStore(newShape) != null && getPrimitiveStore(newShape).length == ((ShapeImpl) newShape).getPrimitiveArrayCapacity());
+                            (getPrimitiveStore(newShape) != null && getPrimitiveStore(newShape).length >= ((ShapeImpl) newShape).getPrimitiveArrayCapacity());
         }
         return true;
     }
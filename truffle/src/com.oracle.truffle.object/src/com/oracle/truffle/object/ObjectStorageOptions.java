@@ -53,6 +53,14 @@ public final class ObjectStorageOptions {
 
     static final boolean TriePropertyMap = booleanOption(OPTION_PREFIX + "TriePropertyMap", true);
 
+    /**
+     * Allocate extension arrays of new objects with the capacity that objects of the same root
+     * shape grew to before, up to the given number of slots (0 disables pre-sizing).
+     *
+     * @since 1.0
+     */
+    public static final int AllocationSiteCapacityLimit = Integer.getInteger(OPTION_PREFIX + "AllocationSiteCapacityLimit", 16);
+
     // Debug options (should be final)
     /** @since 0.17 or earlier */
     public static final boolean TraceReshape = booleanOption(OPTION_PREFIX + "TraceReshape", false);
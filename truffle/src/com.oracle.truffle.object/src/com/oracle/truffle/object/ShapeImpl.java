@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -125,6 +126,7 @@ public abstract class ShapeImpl extends Shape {
      * <ol>
      * <li>{@code null}: empty map
      * <li>{@link Map.Entry}: immutable single entry map
+     * <li>{@link TransitionArray}: immutable map of up to {@link #TRANSITION_ARRAY_LIMIT} entries
      * <li>{@link Map}: mutable multiple entry map
      * </ol>
      *
@@ -133,8 +135,31 @@ public abstract class ShapeImpl extends Shape {
      */
     private volatile Object transitionMap;
 
+    /**
+     * Allocation site feedback, only maintained in root shapes: the extension array capacities
+     * that objects of this shape tree had to grow to, bounded by
+     * {@link ObjectStorageOptions#AllocationSiteCapacityLimit}. The capacities are halved if the
+     * objects allocated with them rarely use the additional slots. Compiled code folds the
+     * capacities and depends on {@link #allocationCapacityAssumption}, which is replaced and
+     * invalidated whenever they change.
+     */
+    @CompilationFinal private int allocationObjectArrayCapacity;
+    @CompilationFinal private int allocationPrimitiveArrayCapacity;
+    @CompilationFinal private volatile Assumption allocationCapacityAssumption;
+    /*
+     * Number of objects allocated with additional slots and number of times these slots avoided
+     * growing an extension array since the last check. Only updated in the interpreter; updates may
+     * be lost, which only delays the check.
+     */
+    private int presizedAllocationCount;
+    private int presizedSlotUseCount;
+
     private final Transition transitionFromParent;
 
+    private static final int TRANSITION_ARRAY_LIMIT = 8;
+    /** Number of pre-sized allocations after which the use of the additional slots is checked. */
+    private static final int PRESIZED_ALLOCATION_PERIOD = 64;
+
     private static final AtomicReferenceFieldUpdater<ShapeImpl, Object> TRANSITION_MAP_UPDATER = AtomicReferenceFieldUpdater.newUpdater(ShapeImpl.class, Object.class, "transitionMap");
     private static final AtomicReferenceFieldUpdater<ShapeImpl, Assumption> LEAF_ASSUMPTION_UPDATER = AtomicReferenceFieldUpdater.newUpdater(ShapeImpl.class, Assumption.class, "leafAssumption");
 
@@ -173,6 +198,7 @@ public abstract class ShapeImpl extends Shape {
         }
 
         this.validAssumption = createValidAssumption();
+        this.allocationCapacityAssumption = parent == null ? createAllocationCapacityAssumption() : null;
 
         this.id = id;
         this.transitionFromParent = transitionFromParent;
@@ -271,6 +297,105 @@ public abstract class ShapeImpl extends Shape {
         return hasPrimitiveArray;
     }
 
+    /**
+     * Object array capacity that new objects of this shape should be allocated with, based on the
+     * capacities previously reached by objects of the same root shape.
+     *
+     * @since 1.0
+     */
+    public final int getAllocationObjectArrayCapacity() {
+        return Math.max(objectArrayCapacity, getAllocationFeedbackRoot().allocationObjectArrayCapacity);
+    }
+
+    /**
+     * Primitive array capacity that new objects of this shape should be allocated with, based on
+     * the capacities previously reached by objects of the same root shape.
+     *
+     * @since 1.0
+     */
+    public final int getAllocationPrimitiveArrayCapacity() {
+        return hasPrimitiveArray ? Math.max(primitiveArrayCapacity, getAllocationFeedbackRoot().allocationPrimitiveArrayCapacity) : primitiveArrayCapacity;
+    }
+
+    private ShapeImpl getAllocationFeedbackRoot() {
+        ShapeImpl r = root;
+        if (!r.allocationCapacityAssumption.isValid()) {
+            // the capacities changed since the code was compiled
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+        }
+        return r;
+    }
+
+    private static Assumption createAllocationCapacityAssumption() {
+        return Truffle.getRuntime().createAssumption("allocation capacity");
+    }
+
+    @TruffleBoundary
+    private void setAllocationArrayCapacity(int objectCapacity, int primitiveCapacity) {
+        assert root == this;
+        synchronized (this) {
+            if (objectCapacity == allocationObjectArrayCapacity && primitiveCapacity == allocationPrimitiveArrayCapacity) {
+                return;
+            }
+            allocationObjectArrayCapacity = objectCapacity;
+            allocationPrimitiveArrayCapacity = primitiveCapacity;
+            Assumption previous = allocationCapacityAssumption;
+            allocationCapacityAssumption = createAllocationCapacityAssumption();
+            previous.invalidate();
+        }
+    }
+
+    /**
+     * Records that an object of this shape tree had to grow its extension arrays to the capacities
+     * of this shape. Feedback is only recorded in the interpreter.
+     *
+     * @since 1.0
+     */
+    public final void recordAllocationArrayCapacity() {
+        if (CompilerDirectives.inInterpreter()) {
+            ShapeImpl r = root;
+            int limit = ObjectStorageOptions.AllocationSiteCapacityLimit;
+            int objectCapacity = Math.max(Math.min(objectArrayCapacity, limit), r.allocationObjectArrayCapacity);
+            int primitiveCapacity = Math.max(Math.min(primitiveArrayCapacity, limit), r.allocationPrimitiveArrayCapacity);
+            if (objectCapacity != r.allocationObjectArrayCapacity || primitiveCapacity != r.allocationPrimitiveArrayCapacity) {
+                r.setAllocationArrayCapacity(objectCapacity, primitiveCapacity);
+            }
+        }
+    }
+
+    /**
+     * Records that an object of this shape was allocated with extension arrays larger than the
+     * capacities of this shape. The capacities of the allocation site feedback are halved if the
+     * additional slots rarely avoided growing extension arrays since the last check. Feedback is
+     * only recorded in the interpreter.
+     *
+     * @since 1.0
+     */
+    public final void recordPresizedAllocation() {
+        if (CompilerDirectives.inInterpreter()) {
+            ShapeImpl r = root;
+            if (++r.presizedAllocationCount >= PRESIZED_ALLOCATION_PERIOD) {
+                if (r.presizedSlotUseCount < PRESIZED_ALLOCATION_PERIOD / 4) {
+                    r.setAllocationArrayCapacity(r.allocationObjectArrayCapacity / 2, r.allocationPrimitiveArrayCapacity / 2);
+                }
+                r.presizedAllocationCount = 0;
+                r.presizedSlotUseCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Records that an object of this shape tree did not have to grow its extension arrays because
+     * it was allocated with additional slots. Feedback is only recorded in the interpreter.
+     *
+     * @since 1.0
+     */
+    public final void recordPresizedSlotUse() {
+        if (CompilerDirectives.inInterpreter()) {
+            root.presizedSlotUseCount++;
+        }
+    }
+
     /**
      * Get a property entry by string name.
      *
@@ -313,10 +438,24 @@ public abstract class ShapeImpl extends Shape {
                 next = new AbstractMap.SimpleImmutableEntry<>(transition, successor);
             } else if (prev instanceof Map.Entry<?, ?>) {
                 Map.Entry<Transition, ShapeImpl> entry = (Map.Entry<Transition, ShapeImpl>) prev;
-                ConcurrentHashMap<Transition, ShapeImpl> map = new ConcurrentHashMap<>();
-                map.put(entry.getKey(), entry.getValue());
-                map.put(transition, successor);
-                next = map;
+                if (entry.getKey().equals(transition)) {
+                    next = new AbstractMap.SimpleImmutableEntry<>(transition, successor);
+                } else {
+                    next = new TransitionArray(new Transition[]{entry.getKey(), transition}, new ShapeImpl[]{entry.getValue(), successor});
+                }
+            } else if (prev instanceof TransitionArray) {
+                TransitionArray array = (TransitionArray) prev;
+                int index = array.indexOf(transition);
+                if (index >= 0) {
+                    next = array.replace(index, transition, successor);
+                } else if (array.size() < TRANSITION_ARRAY_LIMIT) {
+                    next = array.append(transition, successor);
+                } else {
+                    ConcurrentHashMap<Transition, ShapeImpl> map = new ConcurrentHashMap<>();
+                    array.copyTo(map);
+                    map.put(transition, successor);
+                    next = map;
+                }
             } else {
                 assert prev instanceof Map<?, ?>;
                 Map<Transition, ShapeImpl> map = (Map<Transition, ShapeImpl>) prev;
@@ -335,6 +474,10 @@ public abstract class ShapeImpl extends Shape {
         } else if (trans instanceof Map.Entry<?, ?>) {
             Map.Entry<Transition, ShapeImpl> entry = (Map.Entry<Transition, ShapeImpl>) trans;
             return Collections.singletonMap(entry.getKey(), entry.getValue());
+        } else if (trans instanceof TransitionArray) {
+            Map<Transition, ShapeImpl> map = new LinkedHashMap<>();
+            ((TransitionArray) trans).copyTo(map);
+            return map;
         } else {
             assert trans instanceof Map<?, ?>;
             Map<Transition, ShapeImpl> map = (Map<Transition, ShapeImpl>) trans;
@@ -354,6 +497,10 @@ public abstract class ShapeImpl extends Shape {
             } else {
                 return null;
             }
+        } else if (trans instanceof TransitionArray) {
+            TransitionArray array = (TransitionArray) trans;
+            int index = array.indexOf(transition);
+            return index >= 0 ? array.successors[index] : null;
         } else {
             assert trans instanceof Map<?, ?>;
             Map<Transition, ShapeImpl> map = (Map<Transition, ShapeImpl>) trans;
@@ -361,6 +508,95 @@ public abstract class ShapeImpl extends Shape {
         }
     }
 
+    /**
+     * Estimated number of bytes used by the transition map of this shape.
+     */
+    final long getTransitionMapBytes() {
+        Object trans = transitionMap;
+        if (trans == null) {
+            return 0;
+        } else if (trans instanceof Map.Entry<?, ?>) {
+            return TransitionArray.ENTRY_BYTES;
+        } else if (trans instanceof TransitionArray) {
+            return ((TransitionArray) trans).getBytes();
+        } else {
+            return TransitionArray.getConcurrentHashMapBytes(((Map<?, ?>) trans).size());
+        }
+    }
+
+    /**
+     * Immutable transition map for a small number of transitions, replaced on every update.
+     */
+    static final class TransitionArray {
+        /*
+         * Rough footprint estimates for 64-bit VMs with compressed oops, used for profiling.
+         */
+        static final int ENTRY_BYTES = 24;
+        private static final int HEADER_BYTES = 16;
+        private static final int REFERENCE_BYTES = 4;
+
+        private final Transition[] transitions;
+        private final ShapeImpl[] successors;
+
+        TransitionArray(Transition[] transitions, ShapeImpl[] successors) {
+            assert transitions.length == successors.length;
+            this.transitions = transitions;
+            this.successors = successors;
+        }
+
+        int size() {
+            return transitions.length;
+        }
+
+        int indexOf(Transition transition) {
+            for (int i = 0; i < transitions.length; i++) {
+                if (transitions[i].equals(transition)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        TransitionArray append(Transition transition, ShapeImpl successor) {
+            Transition[] newTransitions = Arrays.copyOf(transitions, transitions.length + 1);
+            ShapeImpl[] newSuccessors = Arrays.copyOf(successors, successors.length + 1);
+            newTransitions[transitions.length] = transition;
+            newSuccessors[successors.length] = successor;
+            return new TransitionArray(newTransitions, newSuccessors);
+        }
+
+        TransitionArray replace(int index, Transition transition, ShapeImpl successor) {
+            Transition[] newTransitions = transitions.clone();
+            ShapeImpl[] newSuccessors = successors.clone();
+            newTransitions[index] = transition;
+            newSuccessors[index] = successor;
+            return new TransitionArray(newTransitions, newSuccessors);
+        }
+
+        void copyTo(Map<Transition, ShapeImpl> map) {
+            for (int i = 0; i < transitions.length; i++) {
+                map.put(transitions[i], successors[i]);
+            }
+        }
+
+        long getBytes() {
+            return HEADER_BYTES + 2 * arrayBytes(transitions.length);
+        }
+
+        static long getConcurrentHashMapBytes(int size) {
+            int tableLength = 16;
+            while (size > tableLength * 3 / 4) {
+                tableLength *= 2;
+            }
+            // map object, table and one node per entry
+            return 64 + arrayBytes(tableLength) + size * 32L;
+        }
+
+        private static long arrayBytes(int length) {
+            return (HEADER_BYTES + length * REFERENCE_BYTES + 7) / 8 * 8;
+        }
+    }
+
     /** @since 0.17 or earlier */
     public final ShapeImpl queryTransition(Transition transition) {
         ShapeImpl cachedShape = queryTransitionImpl(transition);
@@ -26,15 +26,21 @@ package com.oracle.truffle.object;
 
 import java.io.PrintWriter;
 import java.text.DecimalFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.api.object.Shape;
+import com.oracle.truffle.object.ShapeImpl.TransitionArray;
 
 class ShapeProfiler {
     private static final String LINE_SEPARATOR = "***********************************************";
@@ -58,6 +64,59 @@ class ShapeProfiler {
         }
 
         globalStats.dump(out);
+        dumpShapeTrees(out);
+    }
+
+    /**
+     * Dumps the number of shapes and transitions in the shape trees of all tracked objects,
+     * together with the estimated footprint of their transition maps. The footprint is also
+     * estimated for transition maps that always use a {@link ConcurrentHashMap} for more than one
+     * transition, for comparison.
+     */
+    private void dumpShapeTrees(PrintWriter out) {
+        Set<ShapeImpl> visited = Collections.newSetFromMap(new IdentityHashMap<ShapeImpl, Boolean>());
+        Deque<ShapeImpl> worklist = new ArrayDeque<>();
+        for (DynamicObject obj : queue) {
+            ShapeImpl root = ((ShapeImpl) obj.getShape()).getRoot();
+            if (visited.add(root)) {
+                worklist.push(root);
+            }
+        }
+        long roots = worklist.size();
+        long shapes = 0;
+        long transitions = 0;
+        long transitionMapBytes = 0;
+        long hashMapTransitionMapBytes = 0;
+        while (!worklist.isEmpty()) {
+            ShapeImpl shape = worklist.pop();
+            Map<Transition, ShapeImpl> transitionMap = shape.getTransitionMapForRead();
+            shapes++;
+            transitions += transitionMap.size();
+            transitionMapBytes += shape.getTransitionMapBytes();
+            if (transitionMap.size() == 1) {
+                hashMapTransitionMapBytes += TransitionArray.ENTRY_BYTES;
+            } else if (transitionMap.size() > 1) {
+                hashMapTransitionMapBytes += TransitionArray.getConcurrentHashMapBytes(transitionMap.size());
+            }
+            for (ShapeImpl successor : transitionMap.values()) {
+                if (visited.add(successor)) {
+                    worklist.push(successor);
+                }
+            }
+        }
+
+        DecimalFormat format = new DecimalFormat("###.####");
+        out.println(LINE_SEPARATOR);
+        out.println(BULLET + "Shape trees");
+        out.println(LINE_SEPARATOR);
+        out.println(BULLET + "Root shapes:\t" + roots);
+        out.println(BULLET + "Shapes:\t" + shapes);
+        out.println(BULLET + "Transitions:\t" + transitions);
+        out.println(BULLET + "Total transition map bytes (estimated):\t" + transitionMapBytes);
+        out.println(BULLET + "Average transition map bytes per shape:\t" + format.format(shapes == 0 ? 0 : (double) transitionMapBytes / shapes));
+        out.println(BULLET + "Average transition map bytes per shape with hash maps only:\t" + format.format(shapes == 0 ? 0 : (double) hashMapTransitionMapBytes / shapes));
+        out.println(LINE_SEPARATOR + "\n");
+        out.flush();
     }
 
     public void dump(PrintWriter out, int topResults) {
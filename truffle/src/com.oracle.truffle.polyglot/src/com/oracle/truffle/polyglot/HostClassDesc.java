@@ -35,9 +35,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.function.BiFunction;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -58,7 +59,9 @@ final class HostClassDesc {
     }
 
     private final Class<?> type;
-    private volatile Members members;
+    private volatile MethodMembers methods;
+    private volatile FieldMembers fields;
+    private volatile ConstructorMember constructor;
     private volatile JNIMembers jniMembers;
 
     HostClassDesc(Class<?> type) {
@@ -69,90 +72,47 @@ final class HostClassDesc {
         return type;
     }
 
-    private static class Members {
-        final Map<String, HostMethodDesc> methods;
-        final Map<String, HostMethodDesc> staticMethods;
-        final HostMethodDesc constructor;
-        final Map<String, HostFieldDesc> fields;
-        final Map<String, HostFieldDesc> staticFields;
-        final HostMethodDesc functionalMethod;
-
-        private static final BiFunction<HostMethodDesc, HostMethodDesc, HostMethodDesc> MERGE = new BiFunction<HostMethodDesc, HostMethodDesc, HostMethodDesc>() {
-            @Override
-            public HostMethodDesc apply(HostMethodDesc m1, HostMethodDesc m2) {
-                return merge(m1, m2);
-            }
-        };
-
-        Members(Class<?> type) {
-            Map<String, HostMethodDesc> methodMap = new LinkedHashMap<>();
-            Map<String, HostMethodDesc> staticMethodMap = new LinkedHashMap<>();
-            Map<String, HostFieldDesc> fieldMap = new LinkedHashMap<>();
-            Map<String, HostFieldDesc> staticFieldMap = new LinkedHashMap<>();
-            HostMethodDesc ctor = null;
-            HostMethodDesc functionalInterfaceMethod = null;
+    /*
+     * Methods, fields and constructors are collected independently on first use, so that for
+     * example a field access does not collect the methods of a class. The reflection API only
+     * returns all members of a kind at once, so the reflective members of a kind are collected
+     * together and member descriptors are created on the first lookup of a name, as most members
+     * of a class are never accessed. The members of a kind are collected once per class under
+     * the descriptor lock and the cost is dominated by Class.getMethods() and Class.getFields(),
+     * which are cached by the JVM, so they are collected on the calling thread rather than in
+     * parallel.
+     */
 
-            collectPublicMethods(type, methodMap, staticMethodMap);
+    /**
+     * Index of the public methods of a class by name.
+     */
+    private static final class MethodMembers {
+        final MemberMap<List<Method>, HostMethodDesc> methods;
+        final MemberMap<List<Method>, HostMethodDesc> staticMethods;
+        final String functionalMethodName;
 
-            if (Modifier.isPublic(type.getModifiers())) {
-                boolean inheritedPublicInstanceFields = false;
-                boolean inheritedPublicInaccessibleFields = false;
-                for (Field f : type.getFields()) {
-                    if (!Modifier.isStatic(f.getModifiers())) {
-                        if (f.getDeclaringClass() == type) {
-                            assert !fieldMap.containsKey(f.getName());
-                            fieldMap.put(f.getName(), HostFieldDesc.unreflect(f));
-                        } else {
-                            if (Modifier.isPublic(f.getDeclaringClass().getModifiers())) {
-                                inheritedPublicInstanceFields = true;
-                            } else {
-                                inheritedPublicInaccessibleFields = true;
-                            }
-                        }
-                    } else {
-                        // do not inherit static fields
-                        if (f.getDeclaringClass() == type) {
-                            staticFieldMap.put(f.getName(), HostFieldDesc.unreflect(f));
-                        }
-                    }
-                }
-                if (inheritedPublicInstanceFields) {
-                    collectPublicInstanceFields(type, fieldMap, inheritedPublicInaccessibleFields);
-                }
-            } else {
-                if (!Modifier.isInterface(type.getModifiers())) {
-                    collectPublicInstanceFields(type, fieldMap, true);
-                }
-            }
+        MethodMembers(Class<?> type) {
+            Map<String, List<Method>> methodMap = new LinkedHashMap<>();
+            Map<String, List<Method>> staticMethodMap = new LinkedHashMap<>();
+            String functionalInterfaceMethodName = null;
 
-            if (Modifier.isPublic(type.getModifiers())) {
-                for (Constructor<?> c : type.getConstructors()) {
-                    SingleMethod overload = SingleMethod.unreflect(c);
-                    ctor = ctor == null ? overload : merge(ctor, overload);
-                }
-            }
+            collectPublicMethods(type, methodMap, staticMethodMap);
 
             if (!Modifier.isInterface(type.getModifiers()) && !Modifier.isAbstract(type.getModifiers())) {
-                String functionalInterfaceMethodName = findFunctionalInterfaceMethodName(type);
-                if (functionalInterfaceMethodName != null) {
-                    functionalInterfaceMethod = methodMap.get(functionalInterfaceMethodName);
-                    assert functionalInterfaceMethod != null;
-                }
+                functionalInterfaceMethodName = findFunctionalInterfaceMethodName(type);
+                assert functionalInterfaceMethodName == null || methodMap.containsKey(functionalInterfaceMethodName);
             }
 
-            this.methods = methodMap;
-            this.staticMethods = staticMethodMap;
-            this.constructor = ctor;
-            this.fields = fieldMap;
-            this.staticFields = staticFieldMap;
-            this.functionalMethod = functionalInterfaceMethod;
+            this.methods = new MethodMap(methodMap);
+            this.staticMethods = new MethodMap(staticMethodMap);
+            this.functionalMethodName = functionalInterfaceMethodName;
         }
 
-        private static void collectPublicMethods(Class<?> type, Map<String, HostMethodDesc> methodMap, Map<String, HostMethodDesc> staticMethodMap) {
+        private static void collectPublicMethods(Class<?> type, Map<String, List<Method>> methodMap, Map<String, List<Method>> staticMethodMap) {
             collectPublicMethods(type, methodMap, staticMethodMap, new HashSet<>(), type);
         }
 
-        private static void collectPublicMethods(Class<?> type, Map<String, HostMethodDesc> methodMap, Map<String, HostMethodDesc> staticMethodMap, Set<Object> visited, Class<?> startType) {
+        private static void collectPublicMethods(Class<?> type, Map<String, List<Method>> methodMap, Map<String, List<Method>> staticMethodMap, Set<Object> visited, Class<?> startType) {
             boolean isPublicType = Modifier.isPublic(type.getModifiers()) && !Proxy.isProxyClass(type);
             boolean allMethodsPublic = true;
             if (isPublicType) {
@@ -216,25 +176,82 @@ final class HostClassDesc {
             return new MethodInfo();
         }
 
-        private static void putMethod(Method m, Map<String, HostMethodDesc> methodMap, Map<String, HostMethodDesc> staticMethodMap) {
-            SingleMethod method = SingleMethod.unreflect(m);
-            Map<String, HostMethodDesc> map = Modifier.isStatic(m.getModifiers()) ? staticMethodMap : methodMap;
-            map.merge(m.getName(), method, MERGE);
+        private static void putMethod(Method m, Map<String, List<Method>> methodMap, Map<String, List<Method>> staticMethodMap) {
+            Map<String, List<Method>> map = Modifier.isStatic(m.getModifiers()) ? staticMethodMap : methodMap;
+            List<Method> overloads = map.get(m.getName());
+            if (overloads == null) {
+                overloads = new ArrayList<>(1);
+                map.put(m.getName(), overloads);
+            }
+            overloads.add(m);
         }
 
-        static HostMethodDesc merge(HostMethodDesc existing, HostMethodDesc other) {
-            assert other instanceof SingleMethod;
-            if (existing instanceof SingleMethod) {
-                return new OverloadedMethod(new SingleMethod[]{(SingleMethod) existing, (SingleMethod) other});
+        private static String findFunctionalInterfaceMethodName(Class<?> clazz) {
+            for (Class<?> iface : clazz.getInterfaces()) {
+                if (Modifier.isPublic(iface.getModifiers()) && iface.isAnnotationPresent(FunctionalInterface.class)) {
+                    for (Method m : iface.getMethods()) {
+                        if (Modifier.isAbstract(m.getModifiers()) && !isObjectMethodOverride(m)) {
+                            return m.getName();
+                        }
+                    }
+                }
+            }
+
+            Class<?> superclass = clazz.getSuperclass();
+            if (superclass != null && superclass != Object.class) {
+                return findFunctionalInterfaceMethodName(superclass);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Index of the public fields of a class by name.
+     */
+    private static final class FieldMembers {
+        final MemberMap<Field, HostFieldDesc> fields;
+        final MemberMap<Field, HostFieldDesc> staticFields;
+
+        FieldMembers(Class<?> type) {
+            Map<String, Field> fieldMap = new LinkedHashMap<>();
+            Map<String, Field> staticFieldMap = new LinkedHashMap<>();
+
+            if (Modifier.isPublic(type.getModifiers())) {
+                boolean inheritedPublicInstanceFields = false;
+                boolean inheritedPublicInaccessibleFields = false;
+                for (Field f : type.getFields()) {
+                    if (!Modifier.isStatic(f.getModifiers())) {
+                        if (f.getDeclaringClass() == type) {
+                            assert !fieldMap.containsKey(f.getName());
+                            fieldMap.put(f.getName(), f);
+                        } else {
+                            if (Modifier.isPublic(f.getDeclaringClass().getModifiers())) {
+                                inheritedPublicInstanceFields = true;
+                            } else {
+                                inheritedPublicInaccessibleFields = true;
+                            }
+                        }
+                    } else {
+                        // do not inherit static fields
+                        if (f.getDeclaringClass() == type) {
+                            staticFieldMap.put(f.getName(), f);
+                        }
+                    }
+                }
+                if (inheritedPublicInstanceFields) {
+                    collectPublicInstanceFields(type, fieldMap, inheritedPublicInaccessibleFields);
+                }
             } else {
-                SingleMethod[] oldOverloads = ((OverloadedMethod) existing).getOverloads();
-                SingleMethod[] newOverloads = Arrays.copyOf(oldOverloads, oldOverloads.length + 1);
-                newOverloads[oldOverloads.length] = (SingleMethod) other;
-                return new OverloadedMethod(newOverloads);
+                if (!Modifier.isInterface(type.getModifiers())) {
+                    collectPublicInstanceFields(type, fieldMap, true);
+                }
             }
+
+            this.fields = new FieldMap(fieldMap);
+            this.staticFields = new FieldMap(staticFieldMap);
         }
 
-        private static void collectPublicInstanceFields(Class<?> type, Map<String, HostFieldDesc> fieldMap, boolean mayHaveInaccessibleFields) {
+        private static void collectPublicInstanceFields(Class<?> type, Map<String, Field> fieldMap, boolean mayHaveInaccessibleFields) {
             Set<String> fieldNames = new HashSet<>();
             for (Class<?> superclass = type; superclass != null && superclass != Object.class; superclass = superclass.getSuperclass()) {
                 boolean inheritedPublicInstanceFields = false;
@@ -253,7 +270,7 @@ final class HostClassDesc {
                         continue;
                     }
                     if (Modifier.isPublic(f.getDeclaringClass().getModifiers())) {
-                        fieldMap.putIfAbsent(f.getName(), HostFieldDesc.unreflect(f));
+                        fieldMap.putIfAbsent(f.getName(), f);
                     } else {
                         assert mayHaveInaccessibleFields;
                     }
@@ -264,22 +281,115 @@ final class HostClassDesc {
             }
         }
 
-        private static String findFunctionalInterfaceMethodName(Class<?> clazz) {
-            for (Class<?> iface : clazz.getInterfaces()) {
-                if (Modifier.isPublic(iface.getModifiers()) && iface.isAnnotationPresent(FunctionalInterface.class)) {
-                    for (Method m : iface.getMethods()) {
-                        if (Modifier.isAbstract(m.getModifiers()) && !isObjectMethodOverride(m)) {
-                            return m.getName();
-                        }
-                    }
+    }
+
+    /**
+     * The public constructors of a class, or {@code null} if there are none.
+     */
+    private static final class ConstructorMember {
+        final HostMethodDesc constructor;
+
+        ConstructorMember(Class<?> type) {
+            HostMethodDesc ctor = null;
+            if (Modifier.isPublic(type.getModifiers())) {
+                for (Constructor<?> c : type.getConstructors()) {
+                    SingleMethod overload = SingleMethod.unreflect(c);
+                    ctor = ctor == null ? overload : merge(ctor, overload);
                 }
             }
+            this.constructor = ctor;
+        }
 
-            Class<?> superclass = clazz.getSuperclass();
-            if (superclass != null && superclass != Object.class) {
-                return findFunctionalInterfaceMethodName(superclass);
+        static HostMethodDesc merge(HostMethodDesc existing, HostMethodDesc other) {
+            assert other instanceof SingleMethod;
+            if (existing instanceof SingleMethod) {
+                return new OverloadedMethod(new SingleMethod[]{(SingleMethod) existing, (SingleMethod) other});
+            } else {
+                SingleMethod[] oldOverloads = ((OverloadedMethod) existing).getOverloads();
+                SingleMethod[] newOverloads = Arrays.copyOf(oldOverloads, oldOverloads.length + 1);
+                newOverloads[oldOverloads.length] = (SingleMethod) other;
+                return new OverloadedMethod(newOverloads);
             }
-            return null;
+        }
+    }
+
+    /**
+     * Maps member names to reflective members and creates the descriptor for a name when it is
+     * looked up for the first time.
+     */
+    private abstract static class MemberMap<R, D> {
+        private final Map<String, R> members;
+        private final ConcurrentHashMap<String, D> descs = new ConcurrentHashMap<>();
+
+        MemberMap(Map<String, R> members) {
+            this.members = members;
+        }
+
+        @TruffleBoundary
+        final D get(String name) {
+            D desc = descs.get(name);
+            if (desc == null) {
+                R member = members.get(name);
+                if (member == null) {
+                    return null;
+                }
+                D newDesc = unreflect(member);
+                desc = descs.putIfAbsent(name, newDesc);
+                if (desc == null) {
+                    desc = newDesc;
+                }
+            }
+            return desc;
+        }
+
+        final Set<String> names() {
+            return members.keySet();
+        }
+
+        final Collection<R> members() {
+            return members.values();
+        }
+
+        protected abstract D unreflect(R member);
+    }
+
+    private static final class MethodMap extends MemberMap<List<Method>, HostMethodDesc> {
+
+        MethodMap(Map<String, List<Method>> methods) {
+            super(methods);
+        }
+
+        @Override
+        protected HostMethodDesc unreflect(List<Method> overloads) {
+            if (overloads.size() == 1) {
+                return SingleMethod.unreflect(overloads.get(0));
+            }
+            SingleMethod[] singleMethods = new SingleMethod[overloads.size()];
+            for (int i = 0; i < singleMethods.length; i++) {
+                singleMethods[i] = SingleMethod.unreflect(overloads.get(i));
+            }
+            return new OverloadedMethod(singleMethods);
+        }
+
+        static boolean isInternal(List<Method> overloads) {
+            for (Method m : overloads) {
+                if (m.getDeclaringClass() != Object.class) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class FieldMap extends MemberMap<Field, HostFieldDesc> {
+
+        FieldMap(Map<String, Field> fields) {
+            super(fields);
+        }
+
+        @Override
+        protected HostFieldDesc unreflect(Field field) {
+            return HostFieldDesc.unreflect(field);
         }
     }
 
@@ -292,14 +402,15 @@ final class HostClassDesc {
         final Map<String, HostMethodDesc> methods;
         final Map<String, HostMethodDesc> staticMethods;
 
-        JNIMembers(Members members) {
+        JNIMembers(MethodMembers members) {
             this.methods = collectJNINamedMethods(members.methods);
             this.staticMethods = collectJNINamedMethods(members.staticMethods);
         }
 
-        private static Map<String, HostMethodDesc> collectJNINamedMethods(Map<String, HostMethodDesc> methods) {
+        private static Map<String, HostMethodDesc> collectJNINamedMethods(MemberMap<List<Method>, HostMethodDesc> methods) {
             Map<String, HostMethodDesc> jniMethods = new LinkedHashMap<>();
-            for (HostMethodDesc method : methods.values()) {
+            for (String name : methods.names()) {
+                HostMethodDesc method = methods.get(name);
                 if (method.isConstructor()) {
                     continue;
                 }
@@ -312,20 +423,48 @@ final class HostClassDesc {
         }
     }
 
-    private Members getMembers() {
-        Members m = members;
+    private MethodMembers getMethodMembers() {
+        MethodMembers m = methods;
         if (m == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
             synchronized (this) {
-                m = members;
+                m = methods;
                 if (m == null) {
-                    members = m = new Members(type);
+                    methods = m = new MethodMembers(type);
                 }
             }
         }
         return m;
     }
 
+    private FieldMembers getFieldMembers() {
+        FieldMembers f = fields;
+        if (f == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            synchronized (this) {
+                f = fields;
+                if (f == null) {
+                    fields = f = new FieldMembers(type);
+                }
+            }
+        }
+        return f;
+    }
+
+    private ConstructorMember getConstructorMember() {
+        ConstructorMember c = constructor;
+        if (c == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            synchronized (this) {
+                c = constructor;
+                if (c == null) {
+                    constructor = c = new ConstructorMember(type);
+                }
+            }
+        }
+        return c;
+    }
+
     private JNIMembers getJNIMembers() {
         JNIMembers m = jniMembers;
         if (m == null) {
@@ -333,7 +472,7 @@ final class HostClassDesc {
             synchronized (this) {
                 m = jniMembers;
                 if (m == null) {
-                    jniMembers = m = new JNIMembers(getMembers());
+                    jniMembers = m = new JNIMembers(getMethodMembers());
                 }
             }
         }
@@ -347,7 +486,7 @@ final class HostClassDesc {
      * @return method descriptor or {@code null} if there is no such method
      */
     public HostMethodDesc lookupMethod(String name) {
-        return getMembers().methods.get(name);
+        return getMethodMembers().methods.get(name);
     }
 
     /**
@@ -357,7 +496,7 @@ final class HostClassDesc {
      * @return method descriptor or {@code null} if there is no such method
      */
     public HostMethodDesc lookupStaticMethod(String name) {
-        return getMembers().staticMethods.get(name);
+        return getMethodMembers().staticMethods.get(name);
     }
 
     public HostMethodDesc lookupMethod(String name, boolean onlyStatic) {
@@ -369,14 +508,14 @@ final class HostClassDesc {
     }
 
     public Collection<String> getMethodNames(boolean onlyStatic, boolean includeInternal) {
-        Map<String, HostMethodDesc> methods = onlyStatic ? getMembers().staticMethods : getMembers().methods;
+        MemberMap<List<Method>, HostMethodDesc> methods = onlyStatic ? getMethodMembers().staticMethods : getMethodMembers().methods;
         if (includeInternal || onlyStatic) {
-            return Collections.unmodifiableCollection(methods.keySet());
+            return Collections.unmodifiableCollection(methods.names());
         } else {
-            Collection<String> methodNames = new ArrayList<>(methods.size());
-            for (Map.Entry<String, HostMethodDesc> entry : methods.entrySet()) {
-                if (!entry.getValue().isInternal()) {
-                    methodNames.add(entry.getKey());
+            Collection<String> methodNames = new ArrayList<>(methods.names().size());
+            for (List<Method> overloads : methods.members()) {
+                if (!MethodMap.isInternal(overloads)) {
+                    methodNames.add(overloads.get(0).getName());
                 }
             }
             return methodNames;
@@ -389,7 +528,7 @@ final class HostClassDesc {
      * @return method descriptor or {@code null} if there is no public constructor
      */
     public HostMethodDesc lookupConstructor() {
-        return getMembers().constructor;
+        return getConstructorMember().constructor;
     }
 
     /**
@@ -399,7 +538,7 @@ final class HostClassDesc {
      * @return field or {@code null} if there is no such field
      */
     public HostFieldDesc lookupField(String name) {
-        return getMembers().fields.get(name);
+        return getFieldMembers().fields.get(name);
     }
 
     /**
@@ -409,7 +548,7 @@ final class HostClassDesc {
      * @return field or {@code null} if there is no such field
      */
     public HostFieldDesc lookupStaticField(String name) {
-        return getMembers().staticFields.get(name);
+        return getFieldMembers().staticFields.get(name);
     }
 
     public HostFieldDesc lookupField(String name, boolean onlyStatic) {
@@ -417,11 +556,12 @@ final class HostClassDesc {
     }
 
     public Collection<String> getFieldNames(boolean onlyStatic) {
-        return Collections.unmodifiableCollection((onlyStatic ? getMembers().staticFields : getMembers().fields).keySet());
+        return Collections.unmodifiableCollection((onlyStatic ? getFieldMembers().staticFields : getFieldMembers().fields).names());
     }
 
     public HostMethodDesc getFunctionalMethod() {
-        return getMembers().functionalMethod;
+        MethodMembers m = getMethodMembers();
+        return m.functionalMethodName == null ? null : m.methods.get(m.functionalMethodName);
     }
 
     @Override
@@ -189,7 +189,7 @@ abstract class HostExecuteNode extends Node {
     Object doOverloadedUncached(OverloadedMethod method, Object obj, Object[] args, PolyglotLanguageContext languageContext,
                     @Cached("create()") ToHostNode toJavaNode,
                     @Cached("createBinaryProfile()") ConditionProfile isVarArgsProfile) {
-        SingleMethod overload = selectOverload(method, args, languageContext);
+        SingleMethod overload = selectOverloadUncached(method, args, languageContext, toJavaNode);
         Object[] convertedArguments = prepareArgumentsUncached(overload, args, languageContext, toJavaNode, isVarArgsProfile);
         return doInvoke(overload, obj, convertedArguments, languageContext);
     }
@@ -370,6 +370,18 @@ abstract class HostExecuteNode extends Node {
         }
     }
 
+    @TruffleBoundary
+    static SingleMethod selectOverloadUncached(OverloadedMethod method, Object[] args, Object languageContext, ToHostNode toJavaNode) {
+        SingleMethod overload = method.findCachedOverload(args, toJavaNode);
+        if (overload == null) {
+            Type[] argTypes = createArgTypesArray(args);
+            overload = selectOverload(method, args, languageContext, argTypes);
+            method.cacheOverload(argTypes, overload);
+        }
+        assert overload == selectOverload(method, args, languageContext);
+        return overload;
+    }
+
     @TruffleBoundary
     static SingleMethod selectOverload(OverloadedMethod method, Object[] args, Object languageContext) {
         return selectOverload(method, args, languageContext, null);
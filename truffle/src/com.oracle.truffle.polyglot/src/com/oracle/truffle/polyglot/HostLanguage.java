@@ -209,6 +209,22 @@ class HostLanguage extends TruffleLanguage<HostContext> {
         });
     }
 
+    @Override
+    protected boolean resetContext(HostContext context) {
+        // forget classes loaded from host class path entries added by previous evaluations
+        HostClassLoader cl = context.classloader;
+        if (cl != null) {
+            try {
+                cl.close();
+            } catch (IOException e) {
+                // lets ignore that
+            }
+            context.classloader = null;
+        }
+        context.classCache.clear();
+        return true;
+    }
+
     @Override
     protected void disposeContext(HostContext context) {
         HostClassLoader cl = context.classloader;
@@ -33,6 +33,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
+import java.util.Arrays;
 import java.util.StringJoiner;
 
 import com.oracle.truffle.api.CompilerAsserts;
@@ -337,13 +338,46 @@ abstract class HostMethodDesc {
     }
 
     static final class OverloadedMethod extends HostMethodDesc {
+        private static final int OVERLOAD_CACHE_LIMIT = 8;
+        private static final OverloadCacheEntry[] EMPTY_OVERLOAD_CACHE = new OverloadCacheEntry[0];
+
         private final SingleMethod[] overloads;
+        /*
+         * Overloads selected by uncached call sites, shared by all call sites of this method. The
+         * argument types of an entry guard the selection the same way the cached specialization
+         * of HostExecuteNode does.
+         */
+        private volatile OverloadCacheEntry[] overloadCache = EMPTY_OVERLOAD_CACHE;
 
         OverloadedMethod(SingleMethod[] overloads) {
             this.overloads = overloads;
             assert overloads.length >= 2;
         }
 
+        SingleMethod findCachedOverload(Object[] args, ToHostNode toJavaNode) {
+            for (OverloadCacheEntry entry : overloadCache) {
+                if (HostExecuteNode.checkArgTypes(args, entry.argTypes, toJavaNode, false)) {
+                    return entry.overload;
+                }
+            }
+            return null;
+        }
+
+        synchronized void cacheOverload(Type[] argTypes, SingleMethod overload) {
+            OverloadCacheEntry[] cache = overloadCache;
+            if (cache.length >= OVERLOAD_CACHE_LIMIT) {
+                return;
+            }
+            for (OverloadCacheEntry entry : cache) {
+                if (Arrays.equals(entry.argTypes, argTypes)) {
+                    return;
+                }
+            }
+            OverloadCacheEntry[] newCache = Arrays.copyOf(cache, cache.length + 1);
+            newCache[cache.length] = new OverloadCacheEntry(argTypes, overload);
+            overloadCache = newCache;
+        }
+
         @Override
         public SingleMethod[] getOverloads() {
             return overloads;
@@ -384,4 +418,14 @@ abstract class HostMethodDesc {
         }
     }
 
+    private static final class OverloadCacheEntry {
+        final Type[] argTypes;
+        final SingleMethod overload;
+
+        OverloadCacheEntry(Type[] argTypes, SingleMethod overload) {
+            this.argTypes = argTypes;
+            this.overload = overload;
+        }
+    }
+
 }
@@ -25,6 +25,14 @@
 package com.oracle.truffle.polyglot;
 
 import java.lang.reflect.Array;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -114,6 +122,125 @@ final class HostObject implements TruffleObject {
         return PolyglotImpl.isGuestPrimitive(obj);
     }
 
+    /**
+     * Copies elements of a host array into a primitive array or buffer of the same element type.
+     * Returns <code>false</code> if the elements cannot be copied in bulk.
+     */
+    @TruffleBoundary
+    static boolean readArrayElements(Object receiver, long index, Object target, int offset, int length) {
+        Object array = bulkAccessibleArray(receiver, index, length);
+        if (array == null) {
+            return false;
+        }
+        int from = (int) index;
+        if (target.getClass() == array.getClass()) {
+            System.arraycopy(array, from, target, offset, length);
+            return true;
+        }
+        Buffer buffer = bulkAccessibleBuffer(target, offset, length);
+        if (buffer == null || buffer.isReadOnly()) {
+            return false;
+        }
+        if (array instanceof double[] && buffer instanceof DoubleBuffer) {
+            ((DoubleBuffer) buffer).put((double[]) array, from, length);
+        } else if (array instanceof long[] && buffer instanceof LongBuffer) {
+            ((LongBuffer) buffer).put((long[]) array, from, length);
+        } else if (array instanceof int[] && buffer instanceof IntBuffer) {
+            ((IntBuffer) buffer).put((int[]) array, from, length);
+        } else if (array instanceof float[] && buffer instanceof FloatBuffer) {
+            ((FloatBuffer) buffer).put((float[]) array, from, length);
+        } else if (array instanceof short[] && buffer instanceof ShortBuffer) {
+            ((ShortBuffer) buffer).put((short[]) array, from, length);
+        } else if (array instanceof char[] && buffer instanceof CharBuffer) {
+            ((CharBuffer) buffer).put((char[]) array, from, length);
+        } else if (array instanceof byte[] && buffer instanceof ByteBuffer) {
+            ((ByteBuffer) buffer).put((byte[]) array, from, length);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies elements of a primitive array or buffer of the same element type into a host array.
+     * Returns <code>false</code> if the elements cannot be copied in bulk.
+     */
+    @TruffleBoundary
+    static boolean writeArrayElements(Object receiver, long index, Object source, int offset, int length) {
+        Object array = bulkAccessibleArray(receiver, index, length);
+        if (array == null) {
+            return false;
+        }
+        int to = (int) index;
+        if (source.getClass() == array.getClass()) {
+            System.arraycopy(source, offset, array, to, length);
+            return true;
+        }
+        Buffer buffer = bulkAccessibleBuffer(source, offset, length);
+        if (buffer == null) {
+            return false;
+        }
+        if (array instanceof double[] && buffer instanceof DoubleBuffer) {
+            ((DoubleBuffer) buffer).get((double[]) array, to, length);
+        } else if (array instanceof long[] && buffer instanceof LongBuffer) {
+            ((LongBuffer) buffer).get((long[]) array, to, length);
+        } else if (array instanceof int[] && buffer instanceof IntBuffer) {
+            ((IntBuffer) buffer).get((int[]) array, to, length);
+        } else if (array instanceof float[] && buffer instanceof FloatBuffer) {
+            ((FloatBuffer) buffer).get((float[]) array, to, length);
+        } else if (array instanceof short[] && buffer instanceof ShortBuffer) {
+            ((ShortBuffer) buffer).get((short[]) array, to, length);
+        } else if (array instanceof char[] && buffer instanceof CharBuffer) {
+            ((CharBuffer) buffer).get((char[]) array, to, length);
+        } else if (array instanceof byte[] && buffer instanceof ByteBuffer) {
+            ((ByteBuffer) buffer).get((byte[]) array, to, length);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static Object bulkAccessibleArray(Object receiver, long index, int length) {
+        if (!(receiver instanceof HostObject) || !((HostObject) receiver).isArray()) {
+            return null;
+        }
+        Object array = ((HostObject) receiver).obj;
+        if (!array.getClass().getComponentType().isPrimitive() || index < 0 || index > Array.getLength(array) - length) {
+            return null;
+        }
+        return array;
+    }
+
+    /**
+     * Returns a view of the buffer that is positioned at the offset, such that the relative bulk
+     * operations access the absolute indices requested by the caller.
+     */
+    private static Buffer bulkAccessibleBuffer(Object elements, int offset, int length) {
+        Buffer buffer;
+        if (elements instanceof DoubleBuffer) {
+            buffer = ((DoubleBuffer) elements).duplicate();
+        } else if (elements instanceof LongBuffer) {
+            buffer = ((LongBuffer) elements).duplicate();
+        } else if (elements instanceof IntBuffer) {
+            buffer = ((IntBuffer) elements).duplicate();
+        } else if (elements instanceof FloatBuffer) {
+            buffer = ((FloatBuffer) elements).duplicate();
+        } else if (elements instanceof ShortBuffer) {
+            buffer = ((ShortBuffer) elements).duplicate();
+        } else if (elements instanceof CharBuffer) {
+            buffer = ((CharBuffer) elements).duplicate();
+        } else if (elements instanceof ByteBuffer) {
+            buffer = ((ByteBuffer) elements).duplicate();
+        } else {
+            return null;
+        }
+        if (offset > buffer.limit() - length) {
+            return null;
+        }
+        buffer.position(offset);
+        return buffer;
+    }
+
     static Object valueOf(TruffleObject value) {
         final HostObject obj = (HostObject) value;
         return obj.obj;
@@ -32,7 +32,6 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -84,7 +83,11 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
 
     private final Assumption singleThreaded = Truffle.getRuntime().createAssumption("Single threaded");
     private final Assumption singleThreadedConstant = Truffle.getRuntime().createAssumption("Single threaded constant thread");
-    private final Map<Thread, PolyglotThreadInfo> threads = new HashMap<>();
+    /*
+     * Modified only while holding the context lock, but read without it on the multi-threaded
+     * enter and leave path.
+     */
+    private final Map<Thread, PolyglotThreadInfo> threads = new ConcurrentHashMap<>();
 
     private volatile PolyglotThreadInfo currentThreadInfo = PolyglotThreadInfo.NULL;
     @CompilationFinal private volatile PolyglotThreadInfo constantCurrentThreadInfo = PolyglotThreadInfo.NULL;
@@ -95,6 +98,11 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
      */
     volatile boolean cancelling;
     private volatile Thread closingThread;
+    /*
+     * Set while closeImpl checks for active threads, before it knows whether the close can
+     * proceed. Makes multi-threaded enters that race with the check take the synchronized path.
+     */
+    private volatile boolean closeRequested;
     /*
      * If the context is closed all operations should fail with IllegalStateException.
      */
@@ -364,6 +372,27 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     @TruffleBoundary
     PolyglotContextImpl enterThreadChanged() {
         Thread current = Thread.currentThread();
+        PolyglotThreadInfo threadInfo = threads.get(current);
+        if (threadInfo != null && !singleThreaded.isValid()) {
+            /*
+             * Fast path for threads that were already initialized in multi-threaded mode. The
+             * thread info is entered before the close state is checked and closeImpl requests the
+             * close before it checks for active threads, so either we see the request or the close
+             * sees us as active.
+             */
+            engine.checkState();
+            PolyglotContextImpl prev = (PolyglotContextImpl) singleContextState.contextThreadLocal.setReturnParent(this);
+            threadInfo.enter();
+            if (!closed && !cancelling && !closeRequested && closingThread == null) {
+                return prev;
+            }
+            threadInfo.leave();
+            singleContextState.contextThreadLocal.set(prev);
+        }
+        return enterThreadChangedSlowPath(current);
+    }
+
+    private PolyglotContextImpl enterThreadChangedSlowPath(Thread current) {
         PolyglotContextImpl prev;
         boolean needsInitialization = false;
         synchronized (this) {
@@ -466,7 +495,23 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     }
 
     @TruffleBoundary
-    synchronized PolyglotThreadInfo leaveThreadChanged() {
+    PolyglotThreadInfo leaveThreadChanged() {
+        PolyglotThreadInfo threadInfo = threads.get(Thread.currentThread());
+        if (threadInfo != null && !singleThreaded.isValid() && !cancelling) {
+            // fast path, see enterThreadChanged
+            threadInfo.leave();
+            if (cancelling) {
+                // the cancelling thread might wait for this thread to become inactive
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+            return threadInfo;
+        }
+        return leaveThreadChangedSlowPath();
+    }
+
+    private synchronized PolyglotThreadInfo leaveThreadChangedSlowPath() {
         Thread current = Thread.currentThread();
         setCachedThreadInfo(PolyglotThreadInfo.NULL);
 
@@ -667,6 +712,33 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         return context;
     }
 
+    @Override
+    public boolean reset(Context sourceContext) {
+        checkCreatorAccess(sourceContext, "reset");
+        synchronized (this) {
+            checkClosed();
+            if (getCurrentThreadInfo().isActive() || hasActiveOtherThread(true) || !childContexts.isEmpty()) {
+                return false;
+            }
+        }
+        Object prev = enter();
+        try {
+            for (PolyglotLanguageContext context : contexts) {
+                try {
+                    if (!context.reset()) {
+                        return false;
+                    }
+                } catch (Throwable t) {
+                    throw PolyglotImpl.wrapGuestException(context, t);
+                }
+            }
+        } finally {
+            leave(prev);
+        }
+        polyglotBindings.clear();
+        return true;
+    }
+
     @Override
     public boolean initializeLanguage(String languageId) {
         PolyglotLanguage language = requirePublicLanguage(languageId);
@@ -873,6 +945,8 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
                         }
                     }
 
+                    // request before checking for active threads, see enterThreadChanged
+                    closeRequested = true;
                     if (hasActiveOtherThread(waitForPolyglotThreads)) {
                         /*
                          * We are not done executing, cannot close yet.
@@ -958,6 +1032,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
             }
         } finally {
             closingThread = null;
+            closeRequested = false;
         }
         if (success) {
             for (Thread thread : remainingThreads) {
@@ -729,6 +729,7 @@ class PolyglotEngineImpl extends org.graalvm.polyglot.impl.AbstractPolyglotImpl.
             }
 
             ENGINES.remove(this);
+            VMAccessor.SPI.onEngineClosed(runtimeData);
             closed = true;
         }
     }
@@ -953,6 +954,12 @@ class PolyglotEngineImpl extends org.graalvm.polyglot.impl.AbstractPolyglotImpl.
         return Truffle.getRuntime().getName();
     }
 
+    @Override
+    public Map<String, Long> getMetrics() {
+        checkState();
+        return VMAccessor.SPI.getEngineMetrics(runtimeData);
+    }
+
     @Override
     @SuppressWarnings({"all"})
     public synchronized Context createContext(OutputStream configOut, OutputStream configErr, InputStream configIn, boolean allowHostAccess,
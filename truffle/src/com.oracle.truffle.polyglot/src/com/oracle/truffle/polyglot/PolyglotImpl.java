@@ -972,5 +972,15 @@ public final class PolyglotImpl extends AbstractPolyglotImpl {
             return HostObject.isStaticClass(obj);
         }
 
+        @Override
+        public boolean readHostArrayElements(Object receiver, long index, Object target, int offset, int length) {
+            return HostObject.readArrayElements(receiver, index, target, offset, length);
+        }
+
+        @Override
+        public boolean writeHostArrayElements(Object receiver, long index, Object source, int offset, int length) {
+            return HostObject.writeArrayElements(receiver, index, source, offset, length);
+        }
+
     }
 }
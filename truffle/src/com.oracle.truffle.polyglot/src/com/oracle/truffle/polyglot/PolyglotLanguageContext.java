@@ -199,6 +199,17 @@ final class PolyglotLanguageContext implements PolyglotImpl.VMObject {
         return false;
     }
 
+    boolean reset() {
+        Env localEnv = this.env;
+        if (localEnv == null) {
+            return true;
+        }
+        if (!initialized || !lazy.activePolyglotThreads.isEmpty()) {
+            return false;
+        }
+        return LANGUAGE.resetContext(localEnv);
+    }
+
     boolean dispose() {
         assert Thread.holdsLock(context);
         Env localEnv = this.env;
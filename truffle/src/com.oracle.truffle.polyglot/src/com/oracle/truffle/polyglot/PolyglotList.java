@@ -47,6 +47,11 @@ import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.polyglot.PolyglotLanguageContext.ToGuestValueNode;
 
+/*
+ * Elements are accessed one at a time rather than with ForeignAccess.sendReadElements, as each
+ * element is converted to a host object of the list element type, which the bulk transfer into
+ * primitive arrays and buffers does not avoid.
+ */
 class PolyglotList<T> extends AbstractList<T> {
 
     final TruffleObject guestObject;
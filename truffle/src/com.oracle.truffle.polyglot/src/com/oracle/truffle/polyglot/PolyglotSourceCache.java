@@ -32,17 +32,26 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.source.Source;
 
 final class PolyglotSourceCache {
 
+    /**
+     * The parse of a cached source that is currently performed by some thread, if any. Used to
+     * avoid nested waiting for parses, which could deadlock.
+     */
+    private static final ThreadLocal<PendingParse> CURRENT_PARSE = new ThreadLocal<>();
+
     private final ConcurrentHashMap<Object, CallTarget> sourceCache;
+    private final ConcurrentHashMap<Object, PendingParse> pendingParses;
     private final ReferenceQueue<Source> deadSources = new ReferenceQueue<>();
 
     PolyglotSourceCache() {
         this.sourceCache = new ConcurrentHashMap<>();
+        this.pendingParses = new ConcurrentHashMap<>();
     }
 
     CallTarget parseCached(PolyglotLanguageContext context, Source source, String[] argumentNames) {
@@ -54,14 +63,7 @@ final class PolyglotSourceCache {
             WeakSourceKey ref = new WeakSourceKey(sourceId, source, argumentNames, deadSources);
             target = sourceCache.get(ref);
             if (target == null) {
-                target = parseImpl(context, argumentNames, VMAccessor.SOURCE.copySource(source));
-                CallTarget prev = sourceCache.putIfAbsent(ref, target);
-                if (prev != null) {
-                    /*
-                     * Parsed twice -> discard the one not in the cache.
-                     */
-                    target = prev;
-                }
+                target = parseShared(context, source, argumentNames, ref);
             }
         } else {
             target = parseImpl(context, argumentNames, source);
@@ -69,6 +71,54 @@ final class PolyglotSourceCache {
         return target;
     }
 
+    /**
+     * Parses a cached source. If the language instance is shared, many contexts can request the
+     * same source at the same time, e.g., when they are created for the same application. Only
+     * one of them parses the source, the others wait for the result. Threads that are parsing
+     * themselves never wait, they parse the source again if necessary.
+     */
+    private CallTarget parseShared(PolyglotLanguageContext context, Source source, String[] argumentNames, WeakSourceKey ref) {
+        PendingParse current = CURRENT_PARSE.get();
+        PendingParse pending = new PendingParse();
+        PendingParse running = current == null ? pendingParses.putIfAbsent(ref, pending) : null;
+        if (running != null) {
+            CallTarget target = running.await();
+            if (target != null) {
+                return target;
+            }
+            // the other parse failed, report our own error
+            return parseAndCache(context, source, argumentNames, ref);
+        }
+        if (current != null) {
+            return parseAndCache(context, source, argumentNames, ref);
+        }
+        CallTarget target = null;
+        CURRENT_PARSE.set(pending);
+        try {
+            target = sourceCache.get(ref);
+            if (target == null) {
+                target = parseAndCache(context, source, argumentNames, ref);
+            }
+            return target;
+        } finally {
+            CURRENT_PARSE.set(null);
+            pendingParses.remove(ref, pending);
+            pending.complete(target);
+        }
+    }
+
+    private CallTarget parseAndCache(PolyglotLanguageContext context, Source source, String[] argumentNames, WeakSourceKey ref) {
+        CallTarget target = parseImpl(context, argumentNames, VMAccessor.SOURCE.copySource(source));
+        CallTarget prev = sourceCache.putIfAbsent(ref, target);
+        if (prev != null) {
+            /*
+             * Parsed twice -> discard the one not in the cache.
+             */
+            target = prev;
+        }
+        return target;
+    }
+
     private static CallTarget parseImpl(PolyglotLanguageContext context, String[] argumentNames, Source source) {
         if (!VMAccessor.SOURCE.isLegacySource(source)) {
             validateSource(context, source);
@@ -150,6 +200,31 @@ final class PolyglotSourceCache {
         }
     }
 
+    private static final class PendingParse {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile CallTarget result;
+
+        void complete(CallTarget target) {
+            result = target;
+            done.countDown();
+        }
+
+        /**
+         * Waits for the parse to complete. Returns {@code null} if the parse failed or the thread
+         * was interrupted.
+         */
+        CallTarget await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return result;
+        }
+    }
+
     private static final class WeakSourceKey extends WeakReference<Source> {
 
         final Object key;
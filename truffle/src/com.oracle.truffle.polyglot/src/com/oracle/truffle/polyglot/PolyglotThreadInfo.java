@@ -32,7 +32,11 @@ final class PolyglotThreadInfo {
 
     final Thread thread;
 
-    private int enteredCount;
+    /*
+     * Only modified by the thread itself, but read by other threads when checking whether the
+     * context is active.
+     */
+    private volatile int enteredCount;
     final LinkedList<Object> explicitContextStack = new LinkedList<>();
     volatile boolean cancelled;
 
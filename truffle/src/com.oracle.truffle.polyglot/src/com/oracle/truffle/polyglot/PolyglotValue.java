@@ -43,6 +43,7 @@ import org.graalvm.polyglot.impl.AbstractPolyglotImpl.AbstractValueImpl;
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -251,6 +252,33 @@ abstract class PolyglotValue extends AbstractValueImpl {
                                         getValueInfo(context, value), getValueInfo(context, receiver), identifier));
     }
 
+    @TruffleBoundary
+    protected static void checkArrayElementsRange(Object elements, int offset, int length) {
+        if (elements == null) {
+            throw new PolyglotIllegalArgumentException("Expected a primitive array or buffer but got null.");
+        }
+        try {
+            VMAccessor.INTEROP.checkArrayElementsRange(elements, offset, length);
+        } catch (IndexOutOfBoundsException e) {
+            throw new PolyglotArrayIndexOutOfBoundsException(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new PolyglotIllegalArgumentException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the index reported by a failed bulk element transfer, or the start index of the
+     * transfer if the receiver reported a different identifier.
+     */
+    @TruffleBoundary
+    protected static long failedArrayIndex(UnknownIdentifierException e, long startIndex) {
+        try {
+            return Long.parseLong(e.getUnknownIdentifier());
+        } catch (NumberFormatException ex) {
+            return startIndex;
+        }
+    }
+
     protected static RuntimeException invalidMemberKey(PolyglotLanguageContext context, Object receiver, String identifier) {
         String message = String.format("Invalid member key '%s' for object %s.", identifier, getValueInfo(context, receiver));
         throw new PolyglotIllegalArgumentException(message);
@@ -1199,6 +1227,8 @@ abstract class PolyglotValue extends AbstractValueImpl {
         final CallTarget hasArrayElements;
         final CallTarget getArrayElement;
         final CallTarget setArrayElement;
+        final CallTarget getArrayElements;
+        final CallTarget setArrayElements;
         final CallTarget removeArrayElement;
         final CallTarget getArraySize;
         final CallTarget hasMembers;
@@ -1227,6 +1257,8 @@ abstract class PolyglotValue extends AbstractValueImpl {
             this.hasArrayElements = createTarget(new HasArrayElementsNode(this));
             this.getArrayElement = createTarget(new GetArrayElementNode(this));
             this.setArrayElement = createTarget(new SetArrayElementNode(this));
+            this.getArrayElements = createTarget(new GetArrayElementsNode(this));
+            this.setArrayElements = createTarget(new SetArrayElementsNode(this));
             this.removeArrayElement = createTarget(new RemoveArrayElementNode(this));
             this.getArraySize = createTarget(new GetArraySizeNode(this));
             this.hasMember = createTarget(new HasMemberNode(this));
@@ -1267,6 +1299,16 @@ abstract class PolyglotValue extends AbstractValueImpl {
             VMAccessor.SPI.callProfiled(setArrayElement, receiver, index, value);
         }
 
+        @Override
+        public void getArrayElements(Object receiver, long index, Object target, int targetOffset, int length) {
+            VMAccessor.SPI.callProfiled(getArrayElements, receiver, index, target, targetOffset, length);
+        }
+
+        @Override
+        public void setArrayElements(Object receiver, long index, Object source, int sourceOffset, int length) {
+            VMAccessor.SPI.callProfiled(setArrayElements, receiver, index, source, sourceOffset, length);
+        }
+
         @Override
         public boolean removeArrayElement(Object receiver, long index) {
             return (boolean) VMAccessor.SPI.callProfiled(removeArrayElement, receiver, index);
@@ -1717,6 +1759,88 @@ abstract class PolyglotValue extends AbstractValueImpl {
             }
         }
 
+        private static class GetArrayElementsNode extends PolyglotNode {
+
+            @Child private Node readArrayNode = Message.READ.createNode();
+
+            protected GetArrayElementsNode(Interop interop) {
+                super(interop);
+            }
+
+            @Override
+            protected Class<?>[] getArgumentTypes() {
+                return new Class<?>[]{polyglot.receiverType, Long.class, Object.class, Integer.class, Integer.class};
+            }
+
+            @Override
+            protected String getOperationName() {
+                return "getArrayElements";
+            }
+
+            @Override
+            protected Object executeImpl(Object receiver, Object[] args) {
+                long index = (long) args[1];
+                Object elements = args[2];
+                int offset = (int) args[3];
+                int length = (int) args[4];
+                checkArrayElementsRange(elements, offset, length);
+                try {
+                    ForeignAccess.sendReadElements(readArrayNode, (TruffleObject) receiver, index, elements, offset, length);
+                } catch (UnsupportedMessageException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    polyglot.getArrayElementsUnsupported(receiver);
+                } catch (UnknownIdentifierException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    throw invalidArrayIndex(polyglot.languageContext, receiver, failedArrayIndex(e, index));
+                } catch (UnsupportedTypeException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    throw invalidArrayValue(polyglot.languageContext, receiver, index, e.getSuppliedValues()[0]);
+                }
+                return null;
+            }
+        }
+
+        private static class SetArrayElementsNode extends PolyglotNode {
+
+            @Child private Node writeArrayNode = Message.WRITE.createNode();
+
+            protected SetArrayElementsNode(Interop interop) {
+                super(interop);
+            }
+
+            @Override
+            protected Class<?>[] getArgumentTypes() {
+                return new Class<?>[]{polyglot.receiverType, Long.class, Object.class, Integer.class, Integer.class};
+            }
+
+            @Override
+            protected String getOperationName() {
+                return "setArrayElements";
+            }
+
+            @Override
+            protected Object executeImpl(Object receiver, Object[] args) {
+                long index = (long) args[1];
+                Object elements = args[2];
+                int offset = (int) args[3];
+                int length = (int) args[4];
+                checkArrayElementsRange(elements, offset, length);
+                try {
+                    ForeignAccess.sendWriteElements(writeArrayNode, (TruffleObject) receiver, index, elements, offset, length);
+                } catch (UnsupportedMessageException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    polyglot.setArrayElementsUnsupported(receiver);
+                } catch (UnknownIdentifierException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    throw invalidArrayIndex(polyglot.languageContext, receiver, failedArrayIndex(e, index));
+                } catch (UnsupportedTypeException e) {
+                    CompilerDirectives.transferToInterpreter();
+                    throw invalidArrayValue(polyglot.languageContext, receiver, index, e.getSuppliedValues()[0]);
+                }
+                return null;
+            }
+        }
+
         private static class RemoveArrayElementNode extends PolyglotNode {
 
             @Child private Node removeArrayNode = Message.REMOVE.createNode();
@@ -26,6 +26,7 @@ package com.oracle.truffle.polyglot;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 
 import org.graalvm.options.OptionDescriptors;
 
@@ -41,6 +42,7 @@ class VMAccessor extends Accessor {
     static final SourceSupport SOURCE = SPI.sourceSupport();
     static final InstrumentSupport INSTRUMENT = SPI.instrumentSupport();
     static final LanguageSupport LANGUAGE = SPI.languageSupport();
+    static final InteropSupport INTEROP = SPI.interopSupport();
 
     static EngineSupport engine() {
         return SPI.engineSupport();
@@ -80,4 +82,14 @@ class VMAccessor extends Accessor {
         return super.isGuestCallStackElement(element);
     }
 
+    @Override
+    protected Map<String, Long> getEngineMetrics(Object runtimeData) {
+        return super.getEngineMetrics(runtimeData);
+    }
+
+    @Override
+    protected void onEngineClosed(Object runtimeData) {
+        super.onEngineClosed(runtimeData);
+    }
+
 }